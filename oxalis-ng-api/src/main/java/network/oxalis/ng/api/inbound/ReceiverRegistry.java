@@ -0,0 +1,12 @@
+package network.oxalis.ng.api.inbound;
+
+import network.oxalis.vefa.peppol.common.model.Header;
+
+/**
+ * Answers whether messages for a receiver, document type and process are served by this access point.
+ */
+public interface ReceiverRegistry {
+
+    boolean isServed(Header header);
+
+}
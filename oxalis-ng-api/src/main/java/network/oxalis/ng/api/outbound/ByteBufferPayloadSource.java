@@ -0,0 +1,88 @@
+/*
+ * Copyright 2010-2018 Norwegian Agency for Public Management and eGovernment (Difi)
+ *
+ * Licensed under the EUPL, Version 1.1 or – as soon they
+ * will be approved by the European Commission - subsequent
+ * versions of the EUPL (the "Licence");
+ *
+ * You may not use this work except in compliance with the Licence.
+ *
+ * You may obtain a copy of the Licence at:
+ *
+ * https://joinup.ec.europa.eu/community/eupl/og_page/eupl
+ *
+ * Unless required by applicable law or agreed to in
+ * writing, software distributed under the Licence is
+ * distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied.
+ * See the Licence for the specific language governing
+ * permissions and limitations under the Licence.
+ */
+
+
+package network.oxalis.ng.api.outbound;
+
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+
+/**
+ * Payload source giving the remaining bytes of a buffer. Each stream reads from its own view of the buffer, so
+ * streams may be read concurrently.
+ */
+class ByteBufferPayloadSource implements PayloadSource {
+
+    private final ByteBuffer buffer;
+
+    ByteBufferPayloadSource(ByteBuffer buffer) {
+        this.buffer = buffer.asReadOnlyBuffer();
+    }
+
+    @Override
+    public InputStream openStream() {
+        return new ByteBufferInputStream(buffer.duplicate());
+    }
+
+    @Override
+    public long length() {
+        return buffer.remaining();
+    }
+
+    private static class ByteBufferInputStream extends InputStream {
+
+        private final ByteBuffer buffer;
+
+        ByteBufferInputStream(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        @Override
+        public int read() {
+            return buffer.hasRemaining() ? buffer.get() & 0xff : -1;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) {
+            if (len == 0)
+                return 0;
+            if (!buffer.hasRemaining())
+                return -1;
+
+            int count = Math.min(len, buffer.remaining());
+            buffer.get(b, off, count);
+            return count;
+        }
+
+        @Override
+        public long skip(long n) {
+            int count = (int) Math.max(0, Math.min(n, buffer.remaining()));
+            buffer.position(buffer.position() + count);
+            return count;
+        }
+
+        @Override
+        public int available() {
+            return buffer.remaining();
+        }
+    }
+}
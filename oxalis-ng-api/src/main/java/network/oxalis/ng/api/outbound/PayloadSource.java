@@ -0,0 +1,99 @@
+/*
+ * Copyright 2010-2018 Norwegian Agency for Public Management and eGovernment (Difi)
+ *
+ * Licensed under the EUPL, Version 1.1 or – as soon they
+ * will be approved by the European Commission - subsequent
+ * versions of the EUPL (the "Licence");
+ *
+ * You may not use this work except in compliance with the Licence.
+ *
+ * You may obtain a copy of the Licence at:
+ *
+ * https://joinup.ec.europa.eu/community/eupl/og_page/eupl
+ *
+ * Unless required by applicable law or agreed to in
+ * writing, software distributed under the Licence is
+ * distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied.
+ * See the Licence for the specific language governing
+ * permissions and limitations under the Licence.
+ */
+
+
+package network.oxalis.ng.api.outbound;
+
+import java.io.ByteArrayInputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Payload which can be opened any number of times, each stream giving the complete payload. Sources backed by a file
+ * or a buffer make it possible to send a payload again, or to read it more than once, without holding it on the heap.
+ * <p>
+ * A source is closed when it is no longer needed, sources using pooled buffers return them to their pool on close.
+ */
+public interface PayloadSource extends Closeable {
+
+    /**
+     * Opens a new stream giving the payload from the beginning.
+     */
+    InputStream openStream() throws IOException;
+
+    /**
+     * Length of the payload in bytes, or -1 when unknown.
+     */
+    long length();
+
+    @Override
+    default void close() throws IOException {
+        // No action.
+    }
+
+    /**
+     * Source reading the given file each time it is opened.
+     */
+    static PayloadSource of(Path path) {
+        return new PathPayloadSource(path);
+    }
+
+    /**
+     * Source giving the bytes of the given array. The array is not copied.
+     */
+    static PayloadSource of(byte[] bytes) {
+        return new PayloadSource() {
+            @Override
+            public InputStream openStream() {
+                return new ByteArrayInputStream(bytes);
+            }
+
+            @Override
+            public long length() {
+                return bytes.length;
+            }
+        };
+    }
+
+    /**
+     * Source giving the remaining bytes of the given buffer, without changing the position of the buffer. The buffer
+     * may be a memory mapped region or a direct buffer taken from a pool.
+     */
+    static PayloadSource of(ByteBuffer buffer) {
+        return new ByteBufferPayloadSource(buffer);
+    }
+
+    /**
+     * Source giving the content of the given file through a read-only memory mapping. The file must not be larger
+     * than 2 GB.
+     */
+    static PayloadSource map(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            return of(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }
+    }
+}
@@ -26,6 +26,7 @@ import network.oxalis.ng.api.tag.Tag;
 import network.oxalis.vefa.peppol.common.model.Header;
 
 import java.io.InputStream;
+import java.util.Optional;
 
 /**
  * @author erlend
@@ -47,4 +48,14 @@ public interface TransmissionMessage {
 
     InputStream getPayload();
 
+    /**
+     * Returns the payload as a source which can be opened repeatedly, when the payload is available as such. A
+     * sender should prefer the source over {@link #getPayload()} when present.
+     *
+     * @return Source of payload
+     */
+    default Optional<PayloadSource> getPayloadSource() {
+        return Optional.empty();
+    }
+
 }
@@ -32,6 +32,9 @@ import java.io.InputStream;
 /**
  * Defines a standardized transmission service interface accepting the InputStream of the content to be sent.
  * <p>
+ * The content may be read while it is sent rather than up front, so the InputStream must be kept open until
+ * {@code send} returns.
+ * <p>
  * Typical implementation:
  * <pre>
  * {@code
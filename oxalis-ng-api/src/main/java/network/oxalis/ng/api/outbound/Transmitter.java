@@ -24,6 +24,8 @@ package network.oxalis.ng.api.outbound;
 
 import network.oxalis.ng.api.lang.OxalisTransmissionException;
 
+import java.util.concurrent.CompletableFuture;
+
 /**
  * Interface defining contract of Transmitter. A transmitter instance is multi-protocol, and transmits content of
  * transmission request based on requested transport profile.
@@ -46,4 +48,24 @@ public interface Transmitter {
      */
     TransmissionResponse transmit(TransmissionMessage transmissionMessage) throws OxalisTransmissionException;
 
+    /**
+     * Transmit content of transmission request without blocking the calling thread. The payload must stay readable
+     * until the returned future is completed.
+     * <p>
+     * The default implementation transmits on the calling thread and returns a completed future.
+     *
+     * @param transmissionMessage Content to be transmitted.
+     * @return Future completed with the result of transmission, or exceptionally with the
+     * {@link OxalisTransmissionException} thrown when transmission fails.
+     */
+    default CompletableFuture<TransmissionResponse> transmitAsync(TransmissionMessage transmissionMessage) {
+        CompletableFuture<TransmissionResponse> future = new CompletableFuture<>();
+        try {
+            future.complete(transmit(transmissionMessage));
+        } catch (OxalisTransmissionException | RuntimeException e) {
+            future.completeExceptionally(e);
+        }
+        return future;
+    }
+
 }
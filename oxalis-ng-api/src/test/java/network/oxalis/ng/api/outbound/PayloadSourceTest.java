@@ -0,0 +1,76 @@
+/*
+ * Copyright 2010-2018 Norwegian Agency for Public Management and eGovernment (Difi)
+ *
+ * Licensed under the EUPL, Version 1.1 or – as soon they
+ * will be approved by the European Commission - subsequent
+ * versions of the EUPL (the "Licence");
+ *
+ * You may not use this work except in compliance with the Licence.
+ *
+ * You may obtain a copy of the Licence at:
+ *
+ * https://joinup.ec.europa.eu/community/eupl/og_page/eupl
+ *
+ * Unless required by applicable law or agreed to in
+ * writing, software distributed under the Licence is
+ * distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied.
+ * See the Licence for the specific language governing
+ * permissions and limitations under the Licence.
+ */
+
+
+package network.oxalis.ng.api.outbound;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+public class PayloadSourceTest {
+
+    private static final byte[] CONTENT = "Hello World!".getBytes(StandardCharsets.UTF_8);
+
+    @Test
+    public void bytes() throws IOException {
+        assertReplayable(PayloadSource.of(CONTENT));
+    }
+
+    @Test
+    public void buffer() throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocateDirect(CONTENT.length);
+        buffer.put(CONTENT).flip();
+
+        assertReplayable(PayloadSource.of(buffer));
+        Assert.assertEquals(buffer.position(), 0);
+    }
+
+    @Test
+    public void path() throws IOException {
+        Path path = Files.createTempFile("payload", ".xml");
+        try {
+            Files.write(path, CONTENT);
+
+            assertReplayable(PayloadSource.of(path));
+            assertReplayable(PayloadSource.map(path));
+        } finally {
+            Files.delete(path);
+        }
+    }
+
+    private static void assertReplayable(PayloadSource payloadSource) throws IOException {
+        Assert.assertEquals(payloadSource.length(), CONTENT.length);
+
+        for (int i = 0; i < 2; i++) {
+            try (InputStream inputStream = payloadSource.openStream()) {
+                Assert.assertEquals(inputStream.readAllBytes(), CONTENT);
+            }
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package network.oxalis.ng.benchmark;
+
+import network.oxalis.ng.api.timestamp.Timestamp;
+import network.oxalis.ng.as4.common.DefaultMessageIdGenerator;
+import network.oxalis.ng.as4.inbound.ProsessingContext;
+import network.oxalis.ng.as4.lang.OxalisAs4Exception;
+import network.oxalis.ng.as4.util.As4MessageFactory;
+import org.oasis_open.docs.ebxml_msg.ebms.v3_0.ns.core._200704.UserMessage;
+import org.openjdk.jmh.annotations.*;
+import org.w3.xmldsig.ReferenceType;
+
+import jakarta.xml.soap.SOAPMessage;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Creation of the receipt returned for an inbound message, referencing the SOAP body and one attachment.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class As4MessageFactoryBenchmark {
+
+    private As4MessageFactory messageFactory;
+
+    private UserMessage userMessage;
+
+    private ProsessingContext prosessingContext;
+
+    @Setup
+    public void setUp() throws Exception {
+        messageFactory = new As4MessageFactory(new DefaultMessageIdGenerator("benchmark"));
+        userMessage = BenchmarkSupport.createUserMessage();
+
+        List<ReferenceType> references = new ArrayList<>();
+        references.add(createReference("#_body"));
+        references.add(createReference("cid:payloadId"));
+
+        prosessingContext = new ProsessingContext(new Timestamp(new Date(), null), references);
+    }
+
+    @Benchmark
+    public SOAPMessage createReceiptMessage() throws OxalisAs4Exception {
+        return messageFactory.createReceiptMessage(userMessage, prosessingContext);
+    }
+
+    private static ReferenceType createReference(String uri) {
+        ReferenceType reference = new ReferenceType();
+        reference.setURI(uri);
+        reference.setDigestValue("bTlhNGMxOTgwMWI0ZDEzY2U1Y2JkZTc0NmI3YmM2YmY=".getBytes(StandardCharsets.UTF_8));
+        return reference;
+    }
+}
@@ -0,0 +1,29 @@
+package network.oxalis.ng.benchmark;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs the benchmarks with the GC profiler enabled, reporting allocation rate and GC counts next to the timings.
+ * Accepts the regular JMH command line options, e.g. a benchmark name pattern or <code>-p payloadSize=1024</code>.
+ *
+ * <pre>
+ * mvn -Pbenchmark package -pl oxalis-ng-benchmark -am
+ * java -jar oxalis-ng-benchmark/target/oxalis-ng-benchmarks.jar [pattern]
+ * </pre>
+ */
+public class BenchmarkRunner {
+
+    public static void main(String... args) throws RunnerException, CommandLineOptionException {
+        new Runner(new OptionsBuilder()
+                .parent(new CommandLineOptions(args))
+                .addProfiler(GCProfiler.class)
+                .jvmArgsAppend("-Xmx2g")
+                .build())
+                .run();
+    }
+}
@@ -0,0 +1,169 @@
+package network.oxalis.ng.benchmark;
+
+import lombok.experimental.UtilityClass;
+import network.oxalis.ng.api.lang.OxalisContentException;
+import network.oxalis.ng.api.outbound.TransmissionRequest;
+import network.oxalis.ng.as4.common.DefaultMessageIdGenerator;
+import network.oxalis.ng.as4.outbound.DefaultActionProvider;
+import network.oxalis.ng.as4.outbound.MessagingProvider;
+import network.oxalis.ng.as4.util.PeppolConfiguration;
+import network.oxalis.ng.commons.header.SbdhHeaderParser;
+import network.oxalis.vefa.peppol.common.model.Endpoint;
+import network.oxalis.vefa.peppol.common.model.Header;
+import network.oxalis.vefa.peppol.common.model.TransportProfile;
+import org.apache.cxf.attachment.AttachmentUtil;
+import org.apache.cxf.message.Attachment;
+import org.bouncycastle.asn1.x500.X500Name;
+import org.bouncycastle.cert.jcajce.JcaX509CertificateConverter;
+import org.bouncycastle.cert.jcajce.JcaX509v3CertificateBuilder;
+import org.bouncycastle.operator.ContentSigner;
+import org.bouncycastle.operator.jcajce.JcaContentSignerBuilder;
+import org.oasis_open.docs.ebxml_msg.ebms.v3_0.ns.core._200704.UserMessage;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.KeyStore;
+import java.security.cert.Certificate;
+import java.security.cert.X509Certificate;
+import java.util.*;
+
+/**
+ * Fixtures shared by the benchmarks. Everything here is created once per trial, outside the measured code.
+ */
+@UtilityClass
+public class BenchmarkSupport {
+
+    private static final String SBDH_PREFIX = "<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n" +
+            "<StandardBusinessDocument xmlns=\"http://www.unece.org/cefact/namespaces/StandardBusinessDocumentHeader\">\n" +
+            "    <StandardBusinessDocumentHeader>\n" +
+            "        <HeaderVersion>1.0</HeaderVersion>\n" +
+            "        <Sender>\n" +
+            "            <Identifier Authority=\"iso6523-actorid-upis\">0088:oxalis</Identifier>\n" +
+            "        </Sender>\n" +
+            "        <Receiver>\n" +
+            "            <Identifier Authority=\"iso6523-actorid-upis\">0208:0871221633</Identifier>\n" +
+            "        </Receiver>\n" +
+            "        <DocumentIdentification>\n" +
+            "            <Standard>urn:oasis:names:specification:ubl:schema:xsd:Invoice-2</Standard>\n" +
+            "            <TypeVersion>2.1</TypeVersion>\n" +
+            "            <InstanceIdentifier>555bcb4c-940b-4694-9b90-d9b0ae1e937b</InstanceIdentifier>\n" +
+            "            <Type>Invoice</Type>\n" +
+            "            <CreationDateAndTime>2016-10-19T11:20:05.304+02:00</CreationDateAndTime>\n" +
+            "        </DocumentIdentification>\n" +
+            "        <BusinessScope>\n" +
+            "            <Scope>\n" +
+            "                <Type>DOCUMENTID</Type>\n" +
+            "                <InstanceIdentifier>urn:oasis:names:specification:ubl:schema:xsd:Invoice-2::Invoice##urn:cen.eu:en16931:2017#compliant#urn:fdc:peppol.eu:2017:poacc:billing:3.0::2.1</InstanceIdentifier>\n" +
+            "            </Scope>\n" +
+            "            <Scope>\n" +
+            "                <Type>PROCESSID</Type>\n" +
+            "                <InstanceIdentifier>urn:fdc:peppol.eu:2017:poacc:billing:01:1.0</InstanceIdentifier>\n" +
+            "            </Scope>\n" +
+            "        </BusinessScope>\n" +
+            "    </StandardBusinessDocumentHeader>\n" +
+            "    <Invoice xmlns=\"urn:oasis:names:specification:ubl:schema:xsd:Invoice-2\">\n";
+
+    private static final String SBDH_SUFFIX = "    </Invoice>\n" +
+            "</StandardBusinessDocument>\n";
+
+    private static final String LINE = "        <Note>Lorem ipsum dolor sit amet, consectetur adipiscing elit %08d</Note>\n";
+
+    /**
+     * Creates a Standard Business Document of roughly the given size, padding the invoice with note elements to
+     * keep the content as compressible as a real document.
+     */
+    public static byte[] createDocument(int size) {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream(size + 4096);
+        write(outputStream, SBDH_PREFIX);
+
+        for (int i = 0; outputStream.size() < size - SBDH_SUFFIX.length(); i++) {
+            write(outputStream, String.format(LINE, i));
+        }
+
+        write(outputStream, SBDH_SUFFIX);
+        return outputStream.toByteArray();
+    }
+
+    public static KeyStore.PrivateKeyEntry createPrivateKeyEntry(String commonName) throws Exception {
+        KeyPairGenerator keyPairGenerator = KeyPairGenerator.getInstance("RSA");
+        keyPairGenerator.initialize(2048);
+        KeyPair keyPair = keyPairGenerator.generateKeyPair();
+
+        X500Name subject = new X500Name("CN=" + commonName + ",O=Oxalis,C=NO");
+        Date notBefore = new Date();
+        Date notAfter = new Date(notBefore.getTime() + 365L * 24 * 60 * 60 * 1000);
+
+        JcaX509v3CertificateBuilder builder = new JcaX509v3CertificateBuilder(
+                subject, BigInteger.valueOf(System.currentTimeMillis()), notBefore, notAfter, subject,
+                keyPair.getPublic());
+        ContentSigner contentSigner = new JcaContentSignerBuilder("SHA256WithRSA").build(keyPair.getPrivate());
+        X509Certificate certificate = new JcaX509CertificateConverter().getCertificate(builder.build(contentSigner));
+
+        return new KeyStore.PrivateKeyEntry(keyPair.getPrivate(), new Certificate[]{certificate});
+    }
+
+    public static MessagingProvider createMessagingProvider(X509Certificate senderCertificate) {
+        return new MessagingProvider(
+                senderCertificate,
+                new DefaultMessageIdGenerator("benchmark"),
+                new PeppolConfiguration(),
+                new DefaultActionProvider());
+    }
+
+    public static TransmissionRequest createTransmissionRequest(byte[] document, X509Certificate receiverCertificate)
+            throws OxalisContentException {
+        Header header = new SbdhHeaderParser().parse(new ByteArrayInputStream(document));
+        Endpoint endpoint = Endpoint.of(TransportProfile.PEPPOL_AS4_2_0, null, receiverCertificate);
+
+        return new TransmissionRequest() {
+            @Override
+            public Endpoint getEndpoint() {
+                return endpoint;
+            }
+
+            @Override
+            public Header getHeader() {
+                return header;
+            }
+
+            @Override
+            public InputStream getPayload() {
+                return new ByteArrayInputStream(document);
+            }
+        };
+    }
+
+    public static Collection<Attachment> createAttachments(TransmissionRequest request) {
+        Map<String, List<String>> headers = new HashMap<>();
+        headers.put("Content-ID", Collections.singletonList("payloadId"));
+        headers.put("CompressionType", Collections.singletonList("application/gzip"));
+        headers.put("MimeType", Collections.singletonList("application/xml"));
+
+        try {
+            return new ArrayList<>(Collections.singletonList(AttachmentUtil.createAttachment(request.getPayload(), headers)));
+        } catch (IOException e) {
+            throw new IllegalStateException("Unable to create attachment", e);
+        }
+    }
+
+    /**
+     * Creates the UserMessage of a 1 KB document, as received by the inbound side.
+     */
+    public static UserMessage createUserMessage() throws Exception {
+        X509Certificate senderCertificate = (X509Certificate) createPrivateKeyEntry("OxalisSender").getCertificate();
+        X509Certificate receiverCertificate = (X509Certificate) createPrivateKeyEntry("OxalisReceiver").getCertificate();
+
+        TransmissionRequest request = createTransmissionRequest(createDocument(1024), receiverCertificate);
+        return createMessagingProvider(senderCertificate).getUserMessage(request, createAttachments(request));
+    }
+
+    private static void write(ByteArrayOutputStream outputStream, String value) {
+        outputStream.writeBytes(value.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,70 @@
+package network.oxalis.ng.benchmark;
+
+import network.oxalis.ng.as4.util.CompressionUtil;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.Deflater;
+
+/**
+ * Compression of the outbound payload, buffered and streaming.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class CompressionUtilBenchmark {
+
+    @Param({"1024", "1048576", "104857600"})
+    private int payloadSize;
+
+    private byte[] document;
+
+    private ExecutorService executor;
+
+    private CompressionUtil compressionUtil;
+
+    @Setup
+    public void setUp() {
+        document = BenchmarkSupport.createDocument(payloadSize);
+        executor = Executors.newCachedThreadPool();
+        compressionUtil = new CompressionUtil(executor, Deflater.DEFAULT_COMPRESSION);
+    }
+
+    @TearDown
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Benchmark
+    public long compressedStream() throws IOException {
+        try (InputStream inputStream = compressionUtil.getCompressedStream(new ByteArrayInputStream(document))) {
+            return drain(inputStream);
+        }
+    }
+
+    @Benchmark
+    public long compressedDataSource() throws IOException {
+        try (InputStream inputStream = compressionUtil
+                .getCompressedDataSource(new ByteArrayInputStream(document), "application/gzip")
+                .getInputStream()) {
+            return drain(inputStream);
+        }
+    }
+
+    private static long drain(InputStream inputStream) throws IOException {
+        byte[] buffer = new byte[8192];
+        long total = 0;
+        for (int read; (read = inputStream.read(buffer)) != -1; ) {
+            total += read;
+        }
+        return total;
+    }
+}
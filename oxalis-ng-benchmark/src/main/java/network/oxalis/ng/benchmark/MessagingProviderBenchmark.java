@@ -0,0 +1,47 @@
+package network.oxalis.ng.benchmark;
+
+import network.oxalis.ng.api.outbound.TransmissionRequest;
+import network.oxalis.ng.as4.lang.OxalisAs4TransmissionException;
+import network.oxalis.ng.as4.outbound.MessagingProvider;
+import org.apache.cxf.message.Attachment;
+import org.oasis_open.docs.ebxml_msg.ebms.v3_0.ns.core._200704.Messaging;
+import org.openjdk.jmh.annotations.*;
+
+import java.security.cert.X509Certificate;
+import java.util.Collection;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Creation of the ebMS Messaging header for an outbound message.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class MessagingProviderBenchmark {
+
+    private MessagingProvider messagingProvider;
+
+    private TransmissionRequest request;
+
+    private Collection<Attachment> attachments;
+
+    @Setup
+    public void setUp() throws Exception {
+        X509Certificate senderCertificate = (X509Certificate) BenchmarkSupport
+                .createPrivateKeyEntry("OxalisSender").getCertificate();
+        X509Certificate receiverCertificate = (X509Certificate) BenchmarkSupport
+                .createPrivateKeyEntry("OxalisReceiver").getCertificate();
+
+        messagingProvider = BenchmarkSupport.createMessagingProvider(senderCertificate);
+        request = BenchmarkSupport.createTransmissionRequest(BenchmarkSupport.createDocument(1024), receiverCertificate);
+        attachments = BenchmarkSupport.createAttachments(request);
+    }
+
+    @Benchmark
+    public Messaging createMessagingHeader() throws OxalisAs4TransmissionException {
+        return messagingProvider.createMessagingHeader(request, attachments);
+    }
+}
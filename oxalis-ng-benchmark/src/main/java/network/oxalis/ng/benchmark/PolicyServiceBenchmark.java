@@ -0,0 +1,51 @@
+package network.oxalis.ng.benchmark;
+
+import network.oxalis.ng.api.outbound.TransmissionRequest;
+import network.oxalis.ng.as4.lang.OxalisAs4TransmissionException;
+import network.oxalis.ng.as4.outbound.DefaultActionProvider;
+import network.oxalis.ng.as4.util.PolicyService;
+import org.apache.cxf.Bus;
+import org.apache.cxf.BusFactory;
+import org.apache.neethi.Policy;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Lookup of the WS-Policy used for an outbound message, with a warm cache and with the policy parsed every time.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class PolicyServiceBenchmark {
+
+    private Bus bus;
+
+    private PolicyService policyService;
+
+    private TransmissionRequest request;
+
+    @Setup
+    public void setUp() throws Exception {
+        bus = BusFactory.getDefaultBus();
+        policyService = new PolicyService(new DefaultActionProvider());
+
+        request = BenchmarkSupport.createTransmissionRequest(BenchmarkSupport.createDocument(1024), null);
+
+        // Populates the cache for the bus used during measurement
+        policyService.getPolicy(request, bus);
+    }
+
+    @Benchmark
+    public Policy cached() throws OxalisAs4TransmissionException {
+        return policyService.getPolicy(request, bus);
+    }
+
+    @Benchmark
+    public Policy uncached() throws OxalisAs4TransmissionException {
+        return new PolicyService(new DefaultActionProvider()).getPolicy(request, bus);
+    }
+}
@@ -0,0 +1,96 @@
+package network.oxalis.ng.benchmark;
+
+import network.oxalis.ng.api.lang.EvidenceException;
+import network.oxalis.ng.api.model.TransmissionIdentifier;
+import network.oxalis.ng.api.transmission.TransmissionResult;
+import network.oxalis.ng.commons.evidence.RemEvidenceFactory;
+import network.oxalis.ng.test.identifier.PeppolDocumentTypeIdAcronym;
+import network.oxalis.vefa.peppol.common.code.DigestMethod;
+import network.oxalis.vefa.peppol.common.model.*;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Creation and signing of the REM evidence of a transmission.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class RemEvidenceFactoryBenchmark {
+
+    private RemEvidenceFactory evidenceFactory;
+
+    private TransmissionResult transmissionResult;
+
+    @Setup
+    public void setUp() throws Exception {
+        evidenceFactory = new RemEvidenceFactory(BenchmarkSupport.createPrivateKeyEntry("OxalisReceiver"));
+
+        Header header = Header.newInstance()
+                .sender(ParticipantIdentifier.of("9908:987654321"))
+                .receiver(ParticipantIdentifier.of("9908:123456789"))
+                .documentType(PeppolDocumentTypeIdAcronym.INVOICE.toVefa())
+                .identifier(InstanceIdentifier.generateUUID());
+        Digest digest = Digest.of(DigestMethod.SHA256, "Hello World".getBytes(StandardCharsets.UTF_8));
+        TransmissionIdentifier transmissionIdentifier = TransmissionIdentifier.generateUUID();
+        Date timestamp = new Date();
+
+        transmissionResult = new TransmissionResult() {
+            @Override
+            public TransmissionIdentifier getTransmissionIdentifier() {
+                return transmissionIdentifier;
+            }
+
+            @Override
+            public Header getHeader() {
+                return header;
+            }
+
+            @Override
+            public Date getTimestamp() {
+                return timestamp;
+            }
+
+            @Override
+            public Digest getDigest() {
+                return digest;
+            }
+
+            @Override
+            public TransportProtocol getTransportProtocol() {
+                return TransportProtocol.AS4;
+            }
+
+            @Override
+            public TransportProfile getProtocol() {
+                return TransportProfile.PEPPOL_AS4_2_0;
+            }
+
+            @Override
+            public List<Receipt> getReceipts() {
+                return Collections.emptyList();
+            }
+
+            @Override
+            public Receipt primaryReceipt() {
+                return null;
+            }
+        };
+    }
+
+    @Benchmark
+    public int write() throws EvidenceException {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        evidenceFactory.write(outputStream, transmissionResult);
+        return outputStream.size();
+    }
+}
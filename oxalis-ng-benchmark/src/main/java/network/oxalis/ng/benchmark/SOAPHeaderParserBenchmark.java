@@ -0,0 +1,42 @@
+package network.oxalis.ng.benchmark;
+
+import network.oxalis.ng.as4.lang.OxalisAs4Exception;
+import network.oxalis.ng.as4.util.Constants;
+import network.oxalis.ng.as4.util.Marshalling;
+import network.oxalis.ng.as4.util.SOAPHeaderParser;
+import org.oasis_open.docs.ebxml_msg.ebms.v3_0.ns.core._200704.UserMessage;
+import org.openjdk.jmh.annotations.*;
+
+import jakarta.xml.bind.JAXBElement;
+import jakarta.xml.soap.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Extraction of the UserMessage from the SOAP header of an inbound message.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class SOAPHeaderParserBenchmark {
+
+    private SOAPHeader header;
+
+    @Setup
+    public void setUp() throws Exception {
+        SOAPMessage message = MessageFactory.newInstance(SOAPConstants.SOAP_1_2_PROTOCOL).createMessage();
+        header = message.getSOAPHeader();
+
+        SOAPHeaderElement messagingHeader = header.addHeaderElement(Constants.MESSAGING_QNAME);
+        Marshalling.getInstance().createMarshaller().marshal(
+                new JAXBElement<>(Constants.USER_MESSAGE_QNAME, UserMessage.class, BenchmarkSupport.createUserMessage()),
+                messagingHeader);
+    }
+
+    @Benchmark
+    public UserMessage getUserMessage() throws OxalisAs4Exception {
+        return SOAPHeaderParser.getUserMessage(header);
+    }
+}
@@ -0,0 +1,40 @@
+package network.oxalis.ng.benchmark;
+
+import network.oxalis.ng.api.lang.OxalisContentException;
+import network.oxalis.ng.commons.header.SbdhHeaderParser;
+import network.oxalis.vefa.peppol.common.model.Header;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.ByteArrayInputStream;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Extraction of the SBDH from documents of growing size. The parser should only read the header, making the cost
+ * independent of the payload size.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class SbdhHeaderParserBenchmark {
+
+    @Param({"1024", "1048576", "104857600"})
+    private int payloadSize;
+
+    private byte[] document;
+
+    private SbdhHeaderParser parser;
+
+    @Setup
+    public void setUp() {
+        document = BenchmarkSupport.createDocument(payloadSize);
+        parser = new SbdhHeaderParser();
+    }
+
+    @Benchmark
+    public Header parse() throws OxalisContentException {
+        return parser.parse(new ByteArrayInputStream(document));
+    }
+}
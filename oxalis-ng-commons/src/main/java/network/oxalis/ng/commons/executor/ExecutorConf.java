@@ -17,6 +17,14 @@ public enum ExecutorConf {
 
     @Path("oxalis.executor.statistics")
     @DefaultValue("50")
-    STATISTICS
+    STATISTICS,
+
+    @Path("oxalis.executor.transmission")
+    @DefaultValue("100")
+    TRANSMISSION,
+
+    @Path("oxalis.executor.queue")
+    @DefaultValue("10")
+    QUEUE
 
 }
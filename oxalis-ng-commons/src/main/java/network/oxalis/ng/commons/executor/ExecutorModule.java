@@ -33,4 +33,18 @@ public class ExecutorModule extends OxalisModule {
     public ExecutorService getStatisticsExecutorService(Settings<ExecutorConf> settings) {
         return Executors.newFixedThreadPool(settings.getInt(ExecutorConf.STATISTICS));
     }
+
+    @Provides
+    @Singleton
+    @Named("transmission")
+    public ExecutorService getTransmissionExecutorService(Settings<ExecutorConf> settings) {
+        return Executors.newFixedThreadPool(settings.getInt(ExecutorConf.TRANSMISSION));
+    }
+
+    @Provides
+    @Singleton
+    @Named("queue")
+    public ExecutorService getQueueExecutorService(Settings<ExecutorConf> settings) {
+        return Executors.newFixedThreadPool(settings.getInt(ExecutorConf.QUEUE));
+    }
 }
@@ -41,7 +41,28 @@ public class FileUtils {
      * @return Filtered string.
      */
     public static String filterString(String s) {
-        return s.replaceAll("[^a-zA-Z0-9.\\-]", "_");
+        int length = s.length();
+
+        int i = 0;
+        while (i < length && isAllowed(s.charAt(i)))
+            i++;
+
+        // Most identifiers need no filtering.
+        if (i == length)
+            return s;
+
+        StringBuilder sb = new StringBuilder(length).append(s, 0, i);
+        while (i < length) {
+            int codePoint = s.codePointAt(i);
+            sb.append(isAllowed(codePoint) ? (char) codePoint : '_');
+            i += Character.charCount(codePoint);
+        }
+
+        return sb.toString();
+    }
+
+    private static boolean isAllowed(int c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9') || c == '.' || c == '-';
     }
 
     public static URL toUrl(Path path) {
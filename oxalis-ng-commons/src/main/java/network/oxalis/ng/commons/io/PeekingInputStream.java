@@ -22,40 +22,113 @@
 
 package network.oxalis.ng.commons.io;
 
-import com.google.common.io.ByteStreams;
-
-import java.io.*;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.util.Arrays;
 
 /**
- * Caching InputStream to be used when reading the beginning of a stream is needed before the stream is "reset" when
- * the exact amount of data is unknown and support for marking of is irrelevant.
+ * InputStream to be used when reading the beginning of a stream is needed before the stream is "reset" when the exact
+ * amount of data is unknown and support for marking of is irrelevant.
+ * <p>
+ * Only a prefix of the source is kept in memory. Bytes read through this stream are recorded up to the given limit,
+ * reading beyond the limit gives end of stream. The stream returned by {@link #newInputStream()} replays the
+ * recorded prefix followed by the rest of the source.
  *
  * @author erlend
  * @since 4.0.0
  */
 public class PeekingInputStream extends InputStream {
 
-    private final byte[] content;
+    public static final int DEFAULT_LIMIT = 64 * 1024;
+
+    private final InputStream source;
+
+    private final int limit;
 
-    private final InputStream internlaInputStream;
+    private byte[] prefix;
 
-    public PeekingInputStream(InputStream sourceInputStream) throws IOException {
-        this.content = ByteStreams.toByteArray(sourceInputStream);
-        this.internlaInputStream = new ByteArrayInputStream(content);
+    private int count;
 
+    private boolean replayed;
+
+    public PeekingInputStream(InputStream sourceInputStream) {
+        this(sourceInputStream, DEFAULT_LIMIT);
+    }
+
+    public PeekingInputStream(InputStream sourceInputStream, int limit) {
+        if (limit <= 0)
+            throw new IllegalArgumentException("Limit must be positive.");
+
+        this.source = sourceInputStream;
+        this.limit = limit;
+        this.prefix = new byte[Math.min(limit, 1024)];
     }
 
     @Override
     public int read() throws IOException {
-        // Return byte
-        return this.internlaInputStream.read();
+        checkState();
+
+        if (count == limit)
+            return -1;
+
+        int b = source.read();
+        if (b != -1) {
+            ensureCapacity(count + 1);
+            prefix[count++] = (byte) b;
+        }
+        return b;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        checkState();
+
+        if (len == 0)
+            return 0;
+        if (count == limit)
+            return -1;
+
+        int n = source.read(b, off, Math.min(len, limit - count));
+        if (n > 0) {
+            ensureCapacity(count + n);
+            System.arraycopy(b, off, prefix, count, n);
+            count += n;
+        }
+        return n;
+    }
+
+    @Override
+    public void close() {
+        // No action, the source is closed by the stream returned by newInputStream().
+    }
+
+    /**
+     * Whether the limit is reached, meaning a reader of this stream did not see all of the source.
+     */
+    public boolean isLimitReached() {
+        return count == limit;
+    }
+
+    /**
+     * Returns a stream giving the complete content of the source. This stream can not be read after this method is
+     * called, and this method can only be called once.
+     */
+    public InputStream newInputStream() {
+        checkState();
+        replayed = true;
+
+        return new SequenceInputStream(new ByteArrayInputStream(prefix, 0, count), source);
     }
 
-    public byte[] getContent() {
-        return content;
+    private void ensureCapacity(int capacity) {
+        if (capacity > prefix.length)
+            prefix = Arrays.copyOf(prefix, Math.min(limit, Math.max(capacity, prefix.length * 2)));
     }
 
-    public InputStream newInputStream() throws IOException {
-        return new ByteArrayInputStream(content);
+    private void checkState() {
+        if (replayed)
+            throw new IllegalStateException("Stream is already replayed.");
     }
 }
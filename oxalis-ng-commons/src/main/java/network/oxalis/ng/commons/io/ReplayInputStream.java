@@ -0,0 +1,110 @@
+package network.oxalis.ng.commons.io;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+
+/**
+ * InputStream recording the bytes consumed by a reader, making it possible to hand the complete stream to the next
+ * consumer without reading the source twice. Only the bytes actually consumed are kept in memory, up to the given
+ * limit. Reading beyond the limit fails, so a reader consuming more of the source than expected is stopped instead of
+ * the source being buffered in memory.
+ * <p>
+ * Closing this stream does not close the source, the source is closed by the stream returned by {@link #replay()}.
+ */
+public class ReplayInputStream extends InputStream {
+
+    public static final int DEFAULT_LIMIT = 1024 * 1024;
+
+    private final InputStream source;
+
+    private final int limit;
+
+    private final ByteArrayOutputStream recorded = new ByteArrayOutputStream();
+
+    private boolean replayed;
+
+    public ReplayInputStream(InputStream source) {
+        this(source, DEFAULT_LIMIT);
+    }
+
+    public ReplayInputStream(InputStream source, int limit) {
+        if (limit <= 0)
+            throw new IllegalArgumentException("Limit must be positive.");
+
+        this.source = source;
+        this.limit = limit;
+    }
+
+    @Override
+    public int read() throws IOException {
+        checkState();
+        checkLimit();
+
+        int b = source.read();
+        if (b != -1)
+            recorded.write(b);
+        return b;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        checkState();
+
+        if (len == 0)
+            return 0;
+        checkLimit();
+
+        int n = source.read(b, off, Math.min(len, limit - recorded.size()));
+        if (n > 0)
+            recorded.write(b, off, n);
+        return n;
+    }
+
+    @Override
+    public int available() throws IOException {
+        return replayed ? 0 : source.available();
+    }
+
+    @Override
+    public void close() {
+        // No action.
+    }
+
+    /**
+     * Number of bytes consumed from the source so far.
+     */
+    public int size() {
+        return recorded.size();
+    }
+
+    /**
+     * Whether the limit is reached, meaning a reader of this stream is stopped before reading all it wanted.
+     */
+    public boolean isLimitReached() {
+        return recorded.size() == limit;
+    }
+
+    /**
+     * Stops recording and returns a stream giving the recorded bytes followed by the remaining bytes of the source.
+     * This stream can not be read after this method is called.
+     */
+    public InputStream replay() {
+        checkState();
+        replayed = true;
+
+        return new SequenceInputStream(new ByteArrayInputStream(recorded.toByteArray()), source);
+    }
+
+    private void checkLimit() throws IOException {
+        if (isLimitReached())
+            throw new IOException(String.format("Limit of %s bytes is reached.", limit));
+    }
+
+    private void checkState() {
+        if (replayed)
+            throw new IllegalStateException("Stream is already replayed.");
+    }
+}
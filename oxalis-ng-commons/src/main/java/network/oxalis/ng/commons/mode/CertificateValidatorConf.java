@@ -0,0 +1,47 @@
+package network.oxalis.ng.commons.mode;
+
+import network.oxalis.ng.api.settings.DefaultValue;
+import network.oxalis.ng.api.settings.Path;
+import network.oxalis.ng.api.settings.Title;
+
+/**
+ * Settings for caching of certificate validation results. All durations are in seconds.
+ */
+@Title("Certificate validation")
+public enum CertificateValidatorConf {
+
+    @Path("oxalis.certificate.validation.cache.size")
+    @DefaultValue("1000")
+    CACHE_SIZE,
+
+    /**
+     * Maximum time an accepted certificate is trusted without validation. Shortened by the next update of OCSP
+     * responses and the expiry of the certificate.
+     */
+    @Path("oxalis.certificate.validation.cache.expire")
+    @DefaultValue("3600")
+    CACHE_EXPIRE,
+
+    /**
+     * Accepted certificates older than this are revalidated in the background on next use. Disabled when zero.
+     */
+    @Path("oxalis.certificate.validation.cache.refresh")
+    @DefaultValue("1800")
+    CACHE_REFRESH,
+
+    /**
+     * Number of rejected certificates remembered.
+     */
+    @Path("oxalis.certificate.validation.cache.negative_size")
+    @DefaultValue("1000")
+    CACHE_NEGATIVE_SIZE,
+
+    /**
+     * How long a rejected certificate is remembered. Only certificates found to be invalid or revoked are remembered,
+     * not failures to fetch OCSP responses or CRLs. Disabled when zero.
+     */
+    @Path("oxalis.certificate.validation.cache.negative_expire")
+    @DefaultValue("300")
+    CACHE_NEGATIVE_EXPIRE
+
+}
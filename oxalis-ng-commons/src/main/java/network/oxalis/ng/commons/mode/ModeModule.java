@@ -62,6 +62,8 @@ public class ModeModule extends OxalisModule {
         bind(CrlCache.class).toInstance(new SimpleCrlCache());
         bind(CrlFetcher.class).to(OxalisCrlFetcher.class);
 
+        bindSettings(CertificateValidatorConf.class);
+
         bind(Mode.class)
                 .toProvider(ModeProvider.class)
                 .asEagerSingleton();
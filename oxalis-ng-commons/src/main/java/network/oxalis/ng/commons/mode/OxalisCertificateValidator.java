@@ -1,29 +1,111 @@
 package network.oxalis.ng.commons.mode;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import com.google.common.io.BaseEncoding;
+import com.google.common.util.concurrent.UncheckedExecutionException;
 import com.google.inject.Inject;
 import com.google.inject.Singleton;
+import com.google.inject.name.Named;
 import io.opentelemetry.api.trace.Span;
 import io.opentelemetry.api.trace.Tracer;
+import lombok.Value;
+import lombok.extern.slf4j.Slf4j;
+import network.oxalis.commons.certvalidator.api.FailedValidationException;
+import network.oxalis.ng.api.settings.Settings;
 import network.oxalis.vefa.peppol.common.code.Service;
 import network.oxalis.vefa.peppol.security.api.CertificateValidator;
 import network.oxalis.vefa.peppol.security.lang.PeppolSecurityException;
 
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.cert.CertificateEncodingException;
 import java.security.cert.X509Certificate;
+import java.util.Date;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
+ * Certificate validator caching validation results by certificate fingerprint and service.
+ * <p>
+ * Accepted certificates are trusted until the next update of the OCSP responses seen during validation, the expiry
+ * of the certificate or the configured expiry, whichever comes first, and are revalidated in the background when
+ * past the refresh age. Certificates found to be invalid or revoked are remembered for a shorter period in a cache of
+ * their own, while failures to complete validation, like an unreachable OCSP responder, are never remembered.
+ *
  * @author erlend
  */
+@Slf4j
 @Singleton
 public class OxalisCertificateValidator implements CertificateValidator {
 
-    private CertificateValidator certificateValidator;
+    /**
+     * Earliest next update of OCSP responses fetched by the current thread during validation.
+     */
+    private static final ThreadLocal<Date> NEXT_UPDATE = new ThreadLocal<>();
 
-    private Tracer tracer;
+    private final CertificateValidator certificateValidator;
+
+    private final Tracer tracer;
+
+    private final Executor executor;
+
+    private final Cache<ValidationKey, ValidationResult> cache;
+
+    private final Cache<ValidationKey, PeppolSecurityException> negativeCache;
+
+    private final long expire;
+
+    private final long refresh;
+
+    private final Map<ValidationKey, Boolean> revalidating = new ConcurrentHashMap<>();
+
+    private final AtomicLong revalidations = new AtomicLong();
 
     @Inject
+    public OxalisCertificateValidator(CertificateValidator certificateValidator, Tracer tracer,
+                                      @Named("default") ExecutorService executor,
+                                      Settings<CertificateValidatorConf> settings) {
+        this(certificateValidator, tracer, executor,
+                settings.getInt(CertificateValidatorConf.CACHE_SIZE),
+                settings.getInt(CertificateValidatorConf.CACHE_EXPIRE),
+                settings.getInt(CertificateValidatorConf.CACHE_REFRESH),
+                settings.getInt(CertificateValidatorConf.CACHE_NEGATIVE_SIZE),
+                settings.getInt(CertificateValidatorConf.CACHE_NEGATIVE_EXPIRE));
+    }
+
+    /**
+     * Creates a validator without caching of validation results.
+     */
     public OxalisCertificateValidator(CertificateValidator certificateValidator, Tracer tracer) {
+        this(certificateValidator, tracer, Runnable::run, 0, 0, 0, 0, 0);
+    }
+
+    OxalisCertificateValidator(CertificateValidator certificateValidator, Tracer tracer, Executor executor,
+                               long size, long expire, long refresh, long negativeSize, long negativeExpire) {
         this.certificateValidator = certificateValidator;
         this.tracer = tracer;
+        this.executor = executor;
+        this.expire = TimeUnit.SECONDS.toMillis(expire);
+        this.refresh = TimeUnit.SECONDS.toMillis(refresh);
+
+        this.cache = CacheBuilder.newBuilder()
+                .maximumSize(expire > 0 ? size : 0)
+                .expireAfterWrite(Math.max(expire, 1), TimeUnit.SECONDS)
+                .recordStats()
+                .build();
+
+        this.negativeCache = CacheBuilder.newBuilder()
+                .maximumSize(negativeExpire > 0 ? negativeSize : 0)
+                .expireAfterWrite(Math.max(negativeExpire, 1), TimeUnit.SECONDS)
+                .recordStats()
+                .build();
     }
 
     @Override
@@ -33,10 +115,153 @@ public class OxalisCertificateValidator implements CertificateValidator {
             span.setAttribute("subject", certificate.getSubjectX500Principal().toString());
             span.setAttribute("issuer", certificate.getIssuerX500Principal().toString());
 
-            this.certificateValidator.validate(service, certificate);
+            ValidationKey key = new ValidationKey(service, fingerprint(certificate));
+            long now = System.currentTimeMillis();
+
+            PeppolSecurityException rejected = negativeCache.getIfPresent(key);
+            if (rejected != null) {
+                span.setAttribute("cached", true);
+                throw new PeppolSecurityException(rejected.getMessage(), rejected);
+            }
+
+            ValidationResult result = cache.getIfPresent(key);
+            if (result != null && result.getValidUntil() <= now) {
+                cache.asMap().remove(key, result);
+                result = null;
+            }
+
+            span.setAttribute("cached", result != null);
+
+            if (result == null) {
+                try {
+                    result = cache.get(key, () -> validateUncached(key, service, certificate));
+                } catch (ExecutionException | UncheckedExecutionException e) {
+                    if (e.getCause() instanceof PeppolSecurityException)
+                        throw (PeppolSecurityException) e.getCause();
+                    throw new PeppolSecurityException(e.getCause().getMessage(), e.getCause());
+                }
+            } else if (refresh > 0 && now - result.getValidatedAt() >= refresh) {
+                revalidate(key, service, certificate);
+            }
         } finally {
             span.end();
         }
     }
 
+    /**
+     * Statistics for the cache of validation results.
+     */
+    public CacheStats getCacheStats() {
+        return cache.stats();
+    }
+
+    /**
+     * Statistics for the cache of rejected certificates.
+     */
+    public CacheStats getNegativeCacheStats() {
+        return negativeCache.stats();
+    }
+
+    /**
+     * Number of background revalidations started.
+     */
+    public long getRevalidations() {
+        return revalidations.get();
+    }
+
+    private void revalidate(ValidationKey key, Service service, X509Certificate certificate) {
+        if (revalidating.putIfAbsent(key, Boolean.TRUE) != null)
+            return;
+
+        revalidations.incrementAndGet();
+        try {
+            executor.execute(() -> {
+                try {
+                    cache.put(key, validateUncached(key, service, certificate));
+                } catch (PeppolSecurityException e) {
+                    // A certificate found to be invalid is no longer trusted, other failures keep the current result.
+                    if (isRejection(e))
+                        cache.invalidate(key);
+                    log.warn("Unable to revalidate certificate '{}': {}",
+                            certificate.getSubjectX500Principal(), e.getMessage());
+                } catch (Exception e) {
+                    log.warn("Unable to revalidate certificate '{}': {}",
+                            certificate.getSubjectX500Principal(), e.getMessage());
+                } finally {
+                    revalidating.remove(key);
+                }
+            });
+        } catch (RuntimeException e) {
+            revalidating.remove(key);
+            log.warn("Unable to schedule revalidation of certificate: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Validates the certificate, remembering it as rejected when it is found to be invalid.
+     */
+    private ValidationResult validateUncached(ValidationKey key, Service service, X509Certificate certificate)
+            throws PeppolSecurityException {
+        NEXT_UPDATE.remove();
+        try {
+            long now = System.currentTimeMillis();
+
+            try {
+                certificateValidator.validate(service, certificate);
+            } catch (PeppolSecurityException e) {
+                if (isRejection(e))
+                    negativeCache.put(key, e);
+                throw e;
+            }
+
+            long validUntil = Math.min(now + expire, certificate.getNotAfter().getTime());
+            Date nextUpdate = NEXT_UPDATE.get();
+            if (nextUpdate != null)
+                validUntil = Math.min(validUntil, nextUpdate.getTime());
+
+            return new ValidationResult(now, validUntil);
+        } finally {
+            NEXT_UPDATE.remove();
+        }
+    }
+
+    /**
+     * Whether validation completed and found the certificate invalid, as opposed to validation not completing.
+     */
+    private static boolean isRejection(PeppolSecurityException e) {
+        for (Throwable cause = e.getCause(); cause != null; cause = cause.getCause())
+            if (cause instanceof FailedValidationException)
+                return true;
+        return false;
+    }
+
+    /**
+     * Registers the next update of an OCSP response fetched as part of validating a certificate in this thread.
+     */
+    static void registerNextUpdate(Date nextUpdate) {
+        Date current = NEXT_UPDATE.get();
+        if (current == null || nextUpdate.before(current))
+            NEXT_UPDATE.set(nextUpdate);
+    }
+
+    private static String fingerprint(X509Certificate certificate) throws PeppolSecurityException {
+        try {
+            return BaseEncoding.base16().encode(
+                    MessageDigest.getInstance("SHA-256").digest(certificate.getEncoded()));
+        } catch (CertificateEncodingException | NoSuchAlgorithmException e) {
+            throw new PeppolSecurityException("Unable to create fingerprint of certificate.", e);
+        }
+    }
+
+    @Value
+    private static class ValidationKey {
+        Service service;
+        String fingerprint;
+    }
+
+    @Value
+    private static class ValidationResult {
+        long validatedAt;
+        long validUntil;
+    }
 }
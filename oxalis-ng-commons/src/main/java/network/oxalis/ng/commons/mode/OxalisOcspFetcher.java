@@ -22,6 +22,7 @@
 
 package network.oxalis.ng.commons.mode;
 
+import com.google.common.io.ByteStreams;
 import com.google.inject.Inject;
 import com.google.inject.Provider;
 import com.google.inject.Singleton;
@@ -36,7 +37,12 @@ import org.apache.hc.client5.http.classic.methods.HttpPost;
 import org.apache.hc.core5.http.ContentType;
 import org.apache.hc.core5.http.io.entity.ByteArrayEntity;
 import org.apache.hc.core5.http.protocol.BasicHttpContext;
+import org.bouncycastle.cert.ocsp.BasicOCSPResp;
+import org.bouncycastle.cert.ocsp.OCSPException;
+import org.bouncycastle.cert.ocsp.OCSPResp;
+import org.bouncycastle.cert.ocsp.SingleResp;
 
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.net.URI;
@@ -75,6 +81,18 @@ public class OxalisOcspFetcher implements OcspFetcher {
         return new ApacheOcspFetcherResponse(httpClientProvider.get().execute(httpPost, basicHttpContext));
     }
 
+    private static void registerNextUpdate(byte[] content) {
+        try {
+            Object responseObject = new OCSPResp(content).getResponseObject();
+            if (responseObject instanceof BasicOCSPResp)
+                for (SingleResp singleResp : ((BasicOCSPResp) responseObject).getResponses())
+                    if (singleResp.getNextUpdate() != null)
+                        OxalisCertificateValidator.registerNextUpdate(singleResp.getNextUpdate());
+        } catch (IOException | OCSPException e) {
+            // Malformed responses are reported by the validation itself.
+        }
+    }
+
     private class ApacheOcspFetcherResponse implements OcspFetcherResponse {
 
         private CloseableHttpResponse response;
@@ -93,9 +111,14 @@ public class OxalisOcspFetcher implements OcspFetcher {
             return response.getFirstHeader("Content-Type").getValue();
         }
 
+        /**
+         * Content is buffered to register the next update of the response with the certificate validator.
+         */
         @Override
         public InputStream getContent() throws IOException {
-            return response.getEntity().getContent();
+            byte[] content = ByteStreams.toByteArray(response.getEntity().getContent());
+            registerNextUpdate(content);
+            return new ByteArrayInputStream(content);
         }
 
         @Override
@@ -0,0 +1,114 @@
+package network.oxalis.ng.commons.persist;
+
+import com.google.inject.Inject;
+import com.google.inject.name.Named;
+import lombok.extern.slf4j.Slf4j;
+import network.oxalis.ng.api.evidence.EvidenceFactory;
+import network.oxalis.ng.api.model.TransmissionIdentifier;
+import network.oxalis.ng.api.settings.Settings;
+import network.oxalis.ng.api.util.Type;
+import network.oxalis.ng.commons.filesystem.FileUtils;
+import network.oxalis.vefa.peppol.common.model.Header;
+
+import jakarta.inject.Singleton;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Persister writing payloads using bulk channel transfers, otherwise storing artifacts like {@link DefaultPersister}.
+ * <p>
+ * Payloads available as files are transferred directly between the file channels, other payloads are copied using
+ * a buffer reused by each thread. Payloads are optionally forced to disk before returning.
+ */
+@Slf4j
+@Singleton
+@Type("bulk")
+public class BulkPersister extends DefaultPersister {
+
+    private final ThreadLocal<byte[]> buffers;
+
+    private final boolean fsync;
+
+    @Inject
+    public BulkPersister(@Named("inbound") Path inboundFolder, EvidenceFactory evidenceFactory,
+                         FolderLayout folderLayout, Settings<PersisterConf> settings) {
+        this(inboundFolder, evidenceFactory, folderLayout, settings.getInt(PersisterConf.BULK_BUFFER_SIZE),
+                Boolean.parseBoolean(settings.getString(PersisterConf.BULK_FSYNC)));
+    }
+
+    BulkPersister(Path inboundFolder, EvidenceFactory evidenceFactory, FolderLayout folderLayout,
+                  int bufferSize, boolean fsync) {
+        super(inboundFolder, evidenceFactory, folderLayout);
+        this.buffers = ThreadLocal.withInitial(() -> new byte[Math.max(bufferSize, 8192)]);
+        this.fsync = fsync;
+    }
+
+    @Override
+    public Path persist(TransmissionIdentifier transmissionIdentifier, Header header, InputStream inputStream)
+            throws IOException {
+        Path path = PersisterUtils.createArtifactFolders(inboundFolder, folderLayout, header, transmissionIdentifier)
+                .resolve(String.format("%s.doc.xml", FileUtils.filterString(transmissionIdentifier.getIdentifier())));
+
+        try (FileChannel channel = PersisterUtils.newFileChannel(path, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            long size = copy(inputStream, channel);
+
+            if (fsync)
+                channel.force(false);
+
+            log.debug("Payload ({} bytes) persisted to: {}", size, path);
+        }
+
+        return path;
+    }
+
+    /**
+     * Copies content of stream to channel, returning number of bytes copied.
+     */
+    long copy(InputStream inputStream, FileChannel channel) throws IOException {
+        if (inputStream instanceof FileInputStream) {
+            FileChannel source = ((FileInputStream) inputStream).getChannel();
+            long position = source.position();
+            long size = source.size() - position;
+
+            long transferred = 0;
+            while (transferred < size)
+                transferred += source.transferTo(position + transferred, size - transferred, channel);
+
+            source.position(position + transferred);
+            return transferred;
+        }
+
+        byte[] buffer = buffers.get();
+        ByteBuffer byteBuffer = ByteBuffer.wrap(buffer);
+        long total = 0;
+
+        int length;
+        while ((length = fill(inputStream, buffer)) > 0) {
+            byteBuffer.clear().limit(length);
+            while (byteBuffer.hasRemaining())
+                channel.write(byteBuffer);
+
+            total += length;
+        }
+
+        return total;
+    }
+
+    /**
+     * Reads until buffer is full or end of stream is reached, making writes as large as possible.
+     */
+    private static int fill(InputStream inputStream, byte[] buffer) throws IOException {
+        int position = 0;
+        int read;
+        while (position < buffer.length && (read = inputStream.read(buffer, position, buffer.length - position)) != -1)
+            position += read;
+
+        return position;
+    }
+}
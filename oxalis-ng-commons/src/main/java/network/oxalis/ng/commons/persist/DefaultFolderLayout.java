@@ -0,0 +1,25 @@
+package network.oxalis.ng.commons.persist;
+
+import network.oxalis.ng.api.model.TransmissionIdentifier;
+import network.oxalis.ng.api.util.Type;
+import network.oxalis.ng.commons.filesystem.FileUtils;
+import network.oxalis.vefa.peppol.common.model.Header;
+
+import jakarta.inject.Singleton;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+/**
+ * Stores artifacts in a folder per receiver and sender.
+ */
+@Singleton
+@Type("default")
+public class DefaultFolderLayout implements FolderLayout {
+
+    @Override
+    public Path getFolder(Header header, TransmissionIdentifier transmissionIdentifier) {
+        return Paths.get(
+                FileUtils.filterString(header.getReceiver().getIdentifier()),
+                FileUtils.filterString(header.getSender().getIdentifier()));
+    }
+}
@@ -53,21 +53,29 @@ public class DefaultPersister implements PersisterHandler {
 
     private final EvidenceFactory evidenceFactory;
 
-    private final Path inboundFolder;
+    protected final Path inboundFolder;
+
+    protected final FolderLayout folderLayout;
+
+    public DefaultPersister(Path inboundFolder, EvidenceFactory evidenceFactory) {
+        this(inboundFolder, evidenceFactory, new DefaultFolderLayout());
+    }
 
     @Inject
-    public DefaultPersister(@Named("inbound") Path inboundFolder, EvidenceFactory evidenceFactory) {
+    public DefaultPersister(@Named("inbound") Path inboundFolder, EvidenceFactory evidenceFactory,
+                            FolderLayout folderLayout) {
         this.inboundFolder = inboundFolder;
         this.evidenceFactory = evidenceFactory;
+        this.folderLayout = folderLayout;
     }
 
     @Override
     public Path persist(TransmissionIdentifier transmissionIdentifier, Header header, InputStream inputStream)
             throws IOException {
-        Path path = PersisterUtils.createArtifactFolders(inboundFolder, header).resolve(
-                String.format("%s.doc.xml", FileUtils.filterString(transmissionIdentifier.getIdentifier())));
+        Path path = PersisterUtils.createArtifactFolders(inboundFolder, folderLayout, header, transmissionIdentifier)
+                .resolve(String.format("%s.doc.xml", FileUtils.filterString(transmissionIdentifier.getIdentifier())));
 
-        try (OutputStream outputStream = Files.newOutputStream(path)) {
+        try (OutputStream outputStream = PersisterUtils.newOutputStream(path)) {
             ByteStreams.copy(inputStream, outputStream);
         }
 
@@ -78,11 +86,12 @@ public class DefaultPersister implements PersisterHandler {
 
     @Override
     public void persist(InboundMetadata inboundMetadata, Path payloadPath) throws IOException {
-        Path path = PersisterUtils.createArtifactFolders(inboundFolder, inboundMetadata.getHeader()).resolve(
+        Path path = PersisterUtils.createArtifactFolders(inboundFolder, folderLayout, inboundMetadata.getHeader(),
+                inboundMetadata.getTransmissionIdentifier()).resolve(
                 String.format("%s.receipt.dat",
                         FileUtils.filterString(inboundMetadata.getTransmissionIdentifier().getIdentifier())));
 
-        try (OutputStream outputStream = Files.newOutputStream(path)) {
+        try (OutputStream outputStream = PersisterUtils.newOutputStream(path)) {
             evidenceFactory.write(outputStream, inboundMetadata);
         } catch (EvidenceException e) {
             throw new IOException("Unable to persist receipt.", e);
@@ -0,0 +1,16 @@
+package network.oxalis.ng.commons.persist;
+
+import network.oxalis.ng.api.model.TransmissionIdentifier;
+import network.oxalis.vefa.peppol.common.model.Header;
+
+import java.nio.file.Path;
+
+/**
+ * Decides the folder, relative to the folder of a persister, in which artifacts of a transmission are stored.
+ * Implementations must return the same folder for all artifacts of a given transmission.
+ */
+public interface FolderLayout {
+
+    Path getFolder(Header header, TransmissionIdentifier transmissionIdentifier);
+
+}
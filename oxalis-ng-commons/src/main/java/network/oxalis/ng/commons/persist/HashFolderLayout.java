@@ -0,0 +1,33 @@
+package network.oxalis.ng.commons.persist;
+
+import network.oxalis.ng.api.model.TransmissionIdentifier;
+import network.oxalis.ng.api.util.Type;
+import network.oxalis.ng.commons.filesystem.FileUtils;
+import network.oxalis.vefa.peppol.common.model.Header;
+
+import jakarta.inject.Singleton;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+/**
+ * Stores artifacts in a folder per receiver and sender, spread over 256 sub-folders based upon the transmission
+ * identifier to keep the number of entries per folder low.
+ */
+@Singleton
+@Type("hash")
+public class HashFolderLayout implements FolderLayout {
+
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    @Override
+    public Path getFolder(Header header, TransmissionIdentifier transmissionIdentifier) {
+        int hash = transmissionIdentifier.getIdentifier().hashCode();
+        hash ^= hash >>> 16;
+        hash ^= hash >>> 8;
+
+        return Paths.get(
+                FileUtils.filterString(header.getReceiver().getIdentifier()),
+                FileUtils.filterString(header.getSender().getIdentifier()),
+                new String(new char[]{HEX[(hash >>> 4) & 0xf], HEX[hash & 0xf]}));
+    }
+}
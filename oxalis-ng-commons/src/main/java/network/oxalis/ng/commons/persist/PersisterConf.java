@@ -52,4 +52,22 @@ public enum PersisterConf {
     @DefaultValue("default")
     HANDLER,
 
+    @Path("oxalis.persister.layout")
+    @DefaultValue("default")
+    LAYOUT,
+
+    /**
+     * Size in bytes of the per-thread buffer used by the bulk persister.
+     */
+    @Path("oxalis.persister.bulk.buffer_size")
+    @DefaultValue("262144")
+    BULK_BUFFER_SIZE,
+
+    /**
+     * Whether the bulk persister forces payloads to disk before returning.
+     */
+    @Path("oxalis.persister.bulk.fsync")
+    @DefaultValue("false")
+    BULK_FSYNC,
+
 }
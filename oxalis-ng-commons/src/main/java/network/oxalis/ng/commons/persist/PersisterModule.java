@@ -46,6 +46,10 @@ public class PersisterModule extends OxalisModule {
         // Creates bindings between the annotated PersisterConf items and external type safe config
         bindSettings(PersisterConf.class);
 
+        // Folder layouts
+        bindTyped(FolderLayout.class, DefaultFolderLayout.class);
+        bindTyped(FolderLayout.class, HashFolderLayout.class);
+
         // Default
         bindTyped(PayloadPersister.class, DefaultPersister.class);
         bindTyped(ReceiptPersister.class, DefaultPersister.class);
@@ -63,6 +67,12 @@ public class PersisterModule extends OxalisModule {
         bindTyped(ReceiptPersister.class, TempPersister.class);
         bindTyped(ExceptionPersister.class, TempPersister.class);
         bindTyped(PersisterHandler.class, TempPersister.class);
+
+        // Bulk
+        bindTyped(PayloadPersister.class, BulkPersister.class);
+        bindTyped(ReceiptPersister.class, BulkPersister.class);
+        bindTyped(ExceptionPersister.class, BulkPersister.class);
+        bindTyped(PersisterHandler.class, BulkPersister.class);
     }
 
     @Provides
@@ -107,6 +117,12 @@ public class PersisterModule extends OxalisModule {
         return ImplLoader.get(injector, ExceptionPersister.class, settings, PersisterConf.EXCEPTION);
     }
 
+    @Provides
+    @Singleton
+    protected FolderLayout getFolderLayout(Injector injector, Settings<PersisterConf> settings) {
+        return ImplLoader.get(injector, FolderLayout.class, settings, PersisterConf.LAYOUT);
+    }
+
     @Provides
     @Singleton
     protected PersisterHandler getPersisterHandler(Injector injector, Settings<PersisterConf> settings) {
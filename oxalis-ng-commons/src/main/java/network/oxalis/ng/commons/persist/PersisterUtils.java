@@ -22,13 +22,18 @@
 
 package network.oxalis.ng.commons.persist;
 
-import network.oxalis.ng.commons.filesystem.FileUtils;
+import network.oxalis.ng.api.model.TransmissionIdentifier;
 import network.oxalis.vefa.peppol.common.model.Header;
 
 import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.FileChannel;
 import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.OpenOption;
 import java.nio.file.Path;
-import java.nio.file.Paths;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * @author erlend
@@ -36,6 +41,15 @@ import java.nio.file.Paths;
  */
 public class PersisterUtils {
 
+    private static final FolderLayout DEFAULT_LAYOUT = new DefaultFolderLayout();
+
+    private static final int MAX_CREATED_FOLDERS = 100_000;
+
+    /**
+     * Folders known to exist, avoiding a round of metadata operations for every artifact stored.
+     */
+    private static final Set<Path> CREATED_FOLDERS = ConcurrentHashMap.newKeySet();
+
     /**
      * Computes the Path for a directory into which your file artifacts associated with
      * the supplied header may be written. Any intermediate directories are created for you.
@@ -46,12 +60,76 @@ public class PersisterUtils {
      * @throws IOException
      */
     public static Path createArtifactFolders(Path baseFolder, Header header) throws IOException {
-        Path folder = baseFolder.resolve(Paths.get(
-                FileUtils.filterString(header.getReceiver().getIdentifier()),
-                FileUtils.filterString(header.getSender().getIdentifier())));
+        return createArtifactFolders(baseFolder, DEFAULT_LAYOUT, header, null);
+    }
+
+    /**
+     * Computes and creates the directory for artifacts of a transmission using the provided folder layout.
+     * Directories already created by this method are not created again.
+     *
+     * @param baseFolder             the root folder to use as the basis for appending additional folders.
+     * @param folderLayout           layout deciding the folder of the transmission.
+     * @param header                 meta data to be used as input for computation.
+     * @param transmissionIdentifier identifier of the transmission.
+     * @return a path to a directory into which you may store your artifacts.
+     * @throws IOException
+     */
+    public static Path createArtifactFolders(Path baseFolder, FolderLayout folderLayout, Header header,
+                                             TransmissionIdentifier transmissionIdentifier) throws IOException {
+        Path folder = baseFolder.resolve(folderLayout.getFolder(header, transmissionIdentifier));
 
-        Files.createDirectories(folder);
+        if (!CREATED_FOLDERS.contains(folder)) {
+            Files.createDirectories(folder);
+
+            if (CREATED_FOLDERS.size() >= MAX_CREATED_FOLDERS)
+                CREATED_FOLDERS.clear();
+            CREATED_FOLDERS.add(folder);
+        }
 
         return folder;
     }
+
+    /**
+     * Opens a file in a folder returned by {@link #createArtifactFolders}. A folder removed after it was created is
+     * created again, see {@link #open(Path, Opener)}.
+     */
+    public static OutputStream newOutputStream(Path file, OpenOption... options) throws IOException {
+        return open(file, path -> Files.newOutputStream(path, options));
+    }
+
+    /**
+     * Opens a channel to a file in a folder returned by {@link #createArtifactFolders}. A folder removed after it was
+     * created is created again, see {@link #open(Path, Opener)}.
+     */
+    public static FileChannel newFileChannel(Path file, OpenOption... options) throws IOException {
+        return open(file, path -> FileChannel.open(path, options));
+    }
+
+    /**
+     * Opens a file using the given opener. Folders are remembered as created, so a folder removed while running
+     * makes opening fail. The folder is then forgotten and created again before opening is retried once.
+     */
+    static <T> T open(Path file, Opener<T> opener) throws IOException {
+        try {
+            return opener.open(file);
+        } catch (NoSuchFileException e) {
+            Path folder = file.getParent();
+            CREATED_FOLDERS.remove(folder);
+            Files.createDirectories(folder);
+
+            return opener.open(file);
+        }
+    }
+
+    /**
+     * Forgets folders known to exist, to be used if folders are removed while running.
+     */
+    public static void resetCreatedFolders() {
+        CREATED_FOLDERS.clear();
+    }
+
+    @FunctionalInterface
+    interface Opener<T> {
+        T open(Path path) throws IOException;
+    }
 }
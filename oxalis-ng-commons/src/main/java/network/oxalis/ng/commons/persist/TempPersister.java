@@ -54,9 +54,16 @@ public class TempPersister implements PersisterHandler {
 
     private final Path folder;
 
-    @Inject
+    private final FolderLayout folderLayout;
+
     public TempPersister(EvidenceFactory evidenceFactory) throws IOException {
+        this(evidenceFactory, new DefaultFolderLayout());
+    }
+
+    @Inject
+    public TempPersister(EvidenceFactory evidenceFactory, FolderLayout folderLayout) throws IOException {
         this.evidenceFactory = evidenceFactory;
+        this.folderLayout = folderLayout;
         this.folder = Files.createTempDirectory("oxalis-inbound");
     }
 
@@ -64,11 +71,11 @@ public class TempPersister implements PersisterHandler {
     public Path persist(TransmissionIdentifier transmissionIdentifier, Header header, InputStream inputStream)
             throws IOException {
         // Create temp file
-        Path path = PersisterUtils.createArtifactFolders(folder, header)
+        Path path = PersisterUtils.createArtifactFolders(folder, folderLayout, header, transmissionIdentifier)
                 .resolve(String.format("%s.xml", FileUtils.filterString(transmissionIdentifier.getIdentifier())));
 
         // Copy content to temp file
-        try (OutputStream outputStream = Files.newOutputStream(path)) {
+        try (OutputStream outputStream = PersisterUtils.newOutputStream(path)) {
             ByteStreams.copy(inputStream, outputStream);
         }
 
@@ -79,12 +86,13 @@ public class TempPersister implements PersisterHandler {
     @Override
     public void persist(InboundMetadata inboundMetadata, Path payloadPath) throws IOException {
         // Create temp file
-        Path path = PersisterUtils.createArtifactFolders(folder, inboundMetadata.getHeader()).resolve(
+        Path path = PersisterUtils.createArtifactFolders(folder, folderLayout, inboundMetadata.getHeader(),
+                inboundMetadata.getTransmissionIdentifier()).resolve(
                 String.format("%s.evidence.dat",
                         FileUtils.filterString(inboundMetadata.getTransmissionIdentifier().getIdentifier())));
 
         // Copy content to temp file
-        try (OutputStream outputStream = Files.newOutputStream(path)) {
+        try (OutputStream outputStream = PersisterUtils.newOutputStream(path)) {
             evidenceFactory.write(outputStream, inboundMetadata);
         } catch (EvidenceException e) {
             throw new IOException(e.getMessage(), e);
@@ -0,0 +1,244 @@
+package network.oxalis.ng.commons.receiver;
+
+import com.google.common.base.Supplier;
+import com.google.common.base.Suppliers;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.CacheStats;
+import com.google.common.cache.LoadingCache;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.ListenableFutureTask;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+import com.google.inject.name.Named;
+import lombok.Value;
+import lombok.extern.slf4j.Slf4j;
+import network.oxalis.ng.api.inbound.ReceiverRegistry;
+import network.oxalis.ng.api.settings.Settings;
+import network.oxalis.ng.api.util.Type;
+import network.oxalis.vefa.peppol.common.lang.PeppolLoadingException;
+import network.oxalis.vefa.peppol.common.model.*;
+import network.oxalis.vefa.peppol.lookup.LookupClient;
+import network.oxalis.vefa.peppol.lookup.LookupClientBuilder;
+import network.oxalis.vefa.peppol.mode.Mode;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Receiver registry answering from an in-memory index of the receivers given by the {@link ReceiverProvider},
+ * falling back to a cached SMP lookup for receivers not found locally. The index is reloaded and SMP answers are
+ * refreshed in the background, requests are always answered from memory once a receiver has been seen.
+ * <p>
+ * Failing SMP lookups are logged and the message is accepted, as the check is a safety net and not a replacement for
+ * the SMP registration of the sender.
+ */
+@Slf4j
+@Singleton
+@Type("default")
+public class DefaultReceiverRegistry implements ReceiverRegistry {
+
+    private static final String ANY = "*";
+
+    private final ReceiverProvider receiverProvider;
+
+    private final Supplier<LookupClient> lookupClient;
+
+    private final Executor executor;
+
+    private final long refresh;
+
+    private final String address;
+
+    private final LoadingCache<Key, Boolean> smpCache;
+
+    private final AtomicBoolean reloading = new AtomicBoolean();
+
+    private volatile Set<String> index = Collections.emptySet();
+
+    private volatile long loaded;
+
+    @Inject
+    public DefaultReceiverRegistry(ReceiverProvider receiverProvider, Mode mode,
+                                   @Named("default") ExecutorService executor, Settings<ReceiverConf> settings) {
+        this(receiverProvider, Suppliers.memoize(() -> createLookupClient(mode)), executor,
+                settings.getInt(ReceiverConf.REFRESH),
+                Boolean.parseBoolean(settings.getString(ReceiverConf.SMP_ENABLED)),
+                settings.getInt(ReceiverConf.SMP_CACHE_SIZE),
+                settings.getInt(ReceiverConf.SMP_CACHE_EXPIRE),
+                settings.getInt(ReceiverConf.SMP_CACHE_REFRESH),
+                settings.getString(ReceiverConf.ADDRESS));
+    }
+
+    DefaultReceiverRegistry(ReceiverProvider receiverProvider, Supplier<LookupClient> lookupClient, Executor executor,
+                            long refresh, boolean smpEnabled, long size, long expire, long smpRefresh,
+                            String address) {
+        this.receiverProvider = receiverProvider;
+        this.lookupClient = lookupClient;
+        this.executor = executor;
+        this.refresh = TimeUnit.SECONDS.toMillis(refresh);
+        this.address = address == null ? "" : address.trim();
+
+        if (smpEnabled) {
+            CacheBuilder<Object, Object> builder = CacheBuilder.newBuilder()
+                    .maximumSize(size)
+                    .expireAfterWrite(expire, TimeUnit.SECONDS)
+                    .recordStats();
+            if (smpRefresh > 0 && smpRefresh < expire)
+                builder.refreshAfterWrite(smpRefresh, TimeUnit.SECONDS);
+            this.smpCache = builder.build(new SmpLoader());
+        } else {
+            this.smpCache = null;
+        }
+
+        reload();
+    }
+
+    @Override
+    public boolean isServed(Header header) {
+        Key key = Key.of(header);
+
+        reloadIfStale();
+
+        Set<String> current = index;
+        if (current.contains(key.toString(ANY, ANY))
+                || current.contains(key.toString(key.getDocumentType(), ANY))
+                || current.contains(key.toString()))
+            return true;
+
+        if (smpCache == null)
+            return false;
+
+        try {
+            return smpCache.get(key);
+        } catch (ExecutionException | UncheckedExecutionException e) {
+            log.warn("Error checking whether this message is for us: {}", e.getCause().getMessage());
+            return true;
+        }
+    }
+
+    public CacheStats getSmpCacheStats() {
+        return smpCache == null ? new CacheStats(0, 0, 0, 0, 0, 0) : smpCache.stats();
+    }
+
+    /**
+     * Looks up the endpoint of the receiver in SMP and tells whether it points to this access point.
+     */
+    protected boolean lookup(Key key) throws Exception {
+        if (address.isEmpty()) {
+            log.warn("Oxalis configuration property 'access.point.isReceiverCheckEnabled' is set to true " +
+                    "but value is Not provided for configuration property 'my.access.point.url', " +
+                    "skipping whether message is for our Access Point. Please ensure that required configuration" +
+                    " properties set correctly.");
+            return true;
+        }
+
+        Endpoint endpoint = lookupClient.get().getEndpoint(
+                ParticipantIdentifier.of(key.getReceiver()),
+                DocumentTypeIdentifier.of(key.getDocumentType()),
+                ProcessIdentifier.of(key.getProcess()),
+                TransportProfile.PEPPOL_AS4_2_0);
+
+        log.debug("Receiver AP URL retrieved from SMP metadata: {}", endpoint.getAddress());
+        return endpoint.getAddress() != null && endpoint.getAddress().toString().contains(address);
+    }
+
+    private void reloadIfStale() {
+        if (System.currentTimeMillis() - loaded > refresh && reloading.compareAndSet(false, true)) {
+            try {
+                executor.execute(() -> {
+                    try {
+                        reload();
+                    } finally {
+                        reloading.set(false);
+                    }
+                });
+            } catch (RuntimeException e) {
+                reloading.set(false);
+                log.warn("Unable to schedule reload of receivers: {}", e.getMessage());
+            }
+        }
+    }
+
+    private void reload() {
+        try {
+            Set<String> receivers = new HashSet<>();
+            for (ReceiverEntry entry : receiverProvider.getReceivers()) {
+                Key key = new Key(normalize(entry.getReceiver()), entry.getDocumentType(), entry.getProcess());
+                receivers.add(key.toString(
+                        key.getDocumentType() == null ? ANY : key.getDocumentType(),
+                        key.getProcess() == null ? ANY : key.getProcess()));
+            }
+            index = Collections.unmodifiableSet(receivers);
+        } catch (IOException | RuntimeException e) {
+            log.warn("Unable to load receivers, keeping {} known receivers: {}", index.size(), e.getMessage());
+        }
+
+        loaded = System.currentTimeMillis();
+    }
+
+    private static LookupClient createLookupClient(Mode mode) {
+        try {
+            return LookupClientBuilder.forMode(mode).build();
+        } catch (PeppolLoadingException e) {
+            throw new IllegalStateException("Unable to create lookup client", e);
+        }
+    }
+
+    private static String normalize(String identifier) {
+        return identifier.trim().toLowerCase(Locale.ROOT);
+    }
+
+    private class SmpLoader extends CacheLoader<Key, Boolean> {
+
+        @Override
+        public Boolean load(Key key) throws Exception {
+            return lookup(key);
+        }
+
+        /**
+         * Refreshes the answer in the background, the current answer is served until the new one is ready.
+         */
+        @Override
+        public ListenableFuture<Boolean> reload(Key key, Boolean oldValue) {
+            ListenableFutureTask<Boolean> task = ListenableFutureTask.create(() -> lookup(key));
+            executor.execute(task);
+            return task;
+        }
+    }
+
+    @Value
+    protected static class Key {
+
+        String receiver;
+
+        String documentType;
+
+        String process;
+
+        static Key of(Header header) {
+            return new Key(
+                    normalize(header.getReceiver().getIdentifier()),
+                    header.getDocumentType().getIdentifier(),
+                    header.getProcess().getIdentifier());
+        }
+
+        String toString(String documentType, String process) {
+            return receiver + '|' + documentType + '|' + process;
+        }
+
+        @Override
+        public String toString() {
+            return toString(documentType, process);
+        }
+    }
+}
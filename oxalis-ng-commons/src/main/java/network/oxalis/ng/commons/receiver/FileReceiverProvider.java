@@ -0,0 +1,65 @@
+package network.oxalis.ng.commons.receiver;
+
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+import com.google.inject.name.Named;
+import lombok.extern.slf4j.Slf4j;
+import network.oxalis.ng.api.settings.Settings;
+import network.oxalis.ng.api.util.Type;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Reads receivers from a local file. Each line holds a participant identifier, optionally followed by a document type
+ * and a process identifier, separated by whitespace. Empty lines and lines starting with '#' are ignored.
+ */
+@Slf4j
+@Singleton
+@Type("file")
+public class FileReceiverProvider implements ReceiverProvider {
+
+    private final Path path;
+
+    @Inject
+    public FileReceiverProvider(@Named("home") Path homeFolder, Settings<ReceiverConf> settings) {
+        this(settings.getPath(ReceiverConf.FILE, homeFolder));
+    }
+
+    public FileReceiverProvider(Path path) {
+        this.path = path;
+    }
+
+    @Override
+    public Collection<ReceiverEntry> getReceivers() throws IOException {
+        if (path == null || !Files.isRegularFile(path)) {
+            log.debug("Receiver file '{}' not found.", path);
+            return Collections.emptyList();
+        }
+
+        List<ReceiverEntry> receivers = new ArrayList<>();
+        try (BufferedReader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+            for (String line; (line = reader.readLine()) != null; ) {
+                line = line.trim();
+                if (line.isEmpty() || line.startsWith("#"))
+                    continue;
+
+                String[] parts = line.split("\\s+");
+                receivers.add(new ReceiverEntry(
+                        parts[0],
+                        parts.length > 1 ? parts[1] : null,
+                        parts.length > 2 ? parts[2] : null));
+            }
+        }
+
+        log.info("Loaded {} receivers from '{}'.", receivers.size(), path);
+        return receivers;
+    }
+}
@@ -0,0 +1,65 @@
+package network.oxalis.ng.commons.receiver;
+
+import network.oxalis.ng.api.settings.DefaultValue;
+import network.oxalis.ng.api.settings.Path;
+import network.oxalis.ng.api.settings.Title;
+
+@Title("Receiver")
+public enum ReceiverConf {
+
+    @Path("oxalis.receiver.registry")
+    @DefaultValue("default")
+    REGISTRY,
+
+    @Path("oxalis.receiver.provider")
+    @DefaultValue("file")
+    PROVIDER,
+
+    /**
+     * File listing the receivers served, relative to Oxalis home. Each line holds a participant identifier,
+     * optionally followed by a document type and a process identifier.
+     */
+    @Path("oxalis.receiver.file")
+    @DefaultValue("receivers.txt")
+    FILE,
+
+    /**
+     * Seconds between reloads of the local receivers.
+     */
+    @Path("oxalis.receiver.refresh")
+    @DefaultValue("300")
+    REFRESH,
+
+    /**
+     * Whether receivers not found locally are looked up in SMP.
+     */
+    @Path("oxalis.receiver.smp.enabled")
+    @DefaultValue("true")
+    SMP_ENABLED,
+
+    @Path("oxalis.receiver.smp.cache.size")
+    @DefaultValue("10000")
+    SMP_CACHE_SIZE,
+
+    /**
+     * Seconds an SMP answer is kept.
+     */
+    @Path("oxalis.receiver.smp.cache.expire")
+    @DefaultValue("3600")
+    SMP_CACHE_EXPIRE,
+
+    /**
+     * Seconds after which an SMP answer is refreshed in the background.
+     */
+    @Path("oxalis.receiver.smp.cache.refresh")
+    @DefaultValue("1800")
+    SMP_CACHE_REFRESH,
+
+    /**
+     * Address of this access point, matched against the endpoint address published in SMP.
+     */
+    @Path("my.access.point.url")
+    @DefaultValue("")
+    ADDRESS,
+
+}
@@ -0,0 +1,20 @@
+package network.oxalis.ng.commons.receiver;
+
+import lombok.Value;
+
+/**
+ * Receiver served by this access point. Missing document type or process matches any value.
+ */
+@Value
+public class ReceiverEntry {
+
+    String receiver;
+
+    String documentType;
+
+    String process;
+
+    public static ReceiverEntry of(String receiver) {
+        return new ReceiverEntry(receiver, null, null);
+    }
+}
@@ -0,0 +1,32 @@
+package network.oxalis.ng.commons.receiver;
+
+import com.google.inject.Injector;
+import com.google.inject.Provides;
+import com.google.inject.Singleton;
+import network.oxalis.ng.api.inbound.ReceiverRegistry;
+import network.oxalis.ng.api.settings.Settings;
+import network.oxalis.ng.commons.guice.ImplLoader;
+import network.oxalis.ng.commons.guice.OxalisModule;
+
+public class ReceiverModule extends OxalisModule {
+
+    @Override
+    protected void configure() {
+        bindSettings(ReceiverConf.class);
+
+        bindTyped(ReceiverProvider.class, FileReceiverProvider.class);
+        bindTyped(ReceiverRegistry.class, DefaultReceiverRegistry.class);
+    }
+
+    @Provides
+    @Singleton
+    protected ReceiverProvider getReceiverProvider(Injector injector, Settings<ReceiverConf> settings) {
+        return ImplLoader.get(injector, ReceiverProvider.class, settings, ReceiverConf.PROVIDER);
+    }
+
+    @Provides
+    @Singleton
+    protected ReceiverRegistry getReceiverRegistry(Injector injector, Settings<ReceiverConf> settings) {
+        return ImplLoader.get(injector, ReceiverRegistry.class, settings, ReceiverConf.REGISTRY);
+    }
+}
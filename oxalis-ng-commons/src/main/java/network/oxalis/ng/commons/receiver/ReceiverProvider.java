@@ -0,0 +1,14 @@
+package network.oxalis.ng.commons.receiver;
+
+import java.io.IOException;
+import java.util.Collection;
+
+/**
+ * Source of the receivers served by this access point, loaded into the in-memory index of the
+ * {@link DefaultReceiverRegistry}.
+ */
+public interface ReceiverProvider {
+
+    Collection<ReceiverEntry> getReceivers() throws IOException;
+
+}
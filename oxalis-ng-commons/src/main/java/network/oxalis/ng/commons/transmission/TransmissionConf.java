@@ -34,6 +34,54 @@ public enum TransmissionConf {
 
     @Path("oxalis.transmission.verifier")
     @DefaultValue("default")
-    VERIFIER
+    VERIFIER,
+
+    @Path("oxalis.transmission.service")
+    @DefaultValue("default")
+    SERVICE,
+
+    @Path("oxalis.transmission.peek_limit")
+    @DefaultValue("65536")
+    PEEK_LIMIT,
+
+    @Path("oxalis.transmission.max_in_flight")
+    @DefaultValue("100")
+    MAX_IN_FLIGHT,
+
+    @Path("oxalis.transmission.max_in_flight_per_destination")
+    @DefaultValue("10")
+    MAX_IN_FLIGHT_PER_DESTINATION,
+
+    /**
+     * Maximum number of attempts to send a message, including the first attempt. Messages are sent once by default.
+     */
+    @Path("oxalis.transmission.retry.attempts")
+    @DefaultValue("1")
+    RETRY_ATTEMPTS,
+
+    /**
+     * Delay in milliseconds before the first retry, doubled for each following retry.
+     */
+    @Path("oxalis.transmission.retry.delay")
+    @DefaultValue("1000")
+    RETRY_DELAY,
+
+    @Path("oxalis.transmission.retry.max_delay")
+    @DefaultValue("30000")
+    RETRY_MAX_DELAY,
+
+    /**
+     * Consecutive failures to reach an endpoint opening its circuit breaker. Disabled when zero.
+     */
+    @Path("oxalis.transmission.breaker.threshold")
+    @DefaultValue("5")
+    BREAKER_THRESHOLD,
+
+    /**
+     * Milliseconds a circuit breaker stays open before a probe is let through.
+     */
+    @Path("oxalis.transmission.breaker.duration")
+    @DefaultValue("60000")
+    BREAKER_DURATION
 
 }
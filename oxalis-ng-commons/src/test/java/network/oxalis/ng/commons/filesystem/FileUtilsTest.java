@@ -40,4 +40,15 @@ public class FileUtilsTest {
         String result = FileUtils.filterString("<1811836472.7.1486495191281.JavaMail.ebe@L-EBE-X260>");
         Assert.assertEquals(result, "_1811836472.7.1486495191281.JavaMail.ebe_L-EBE-X260_");
     }
+
+    @Test
+    public void filterStringUnchanged() {
+        String value = "9908-810017902.xml";
+        Assert.assertSame(FileUtils.filterString(value), value);
+    }
+
+    @Test
+    public void filterStringSupplementary() {
+        Assert.assertEquals(FileUtils.filterString("a\uD83D\uDE00b:c"), "a_b_c");
+    }
 }
@@ -28,6 +28,7 @@ import org.testng.annotations.Test;
 
 import java.io.ByteArrayInputStream;
 import java.io.IOException;
+import java.util.Random;
 
 public class PeekingInputStreamTest {
 
@@ -42,5 +43,40 @@ public class PeekingInputStreamTest {
 
         Assert.assertEquals(new String(ByteStreams.toByteArray(peekingInputStream.newInputStream())), "Hello World!");
     }
-}
 
+    @Test
+    public void boundedPrefix() throws IOException {
+        byte[] content = new byte[100 * 1024];
+        new Random().nextBytes(content);
+
+        PeekingInputStream peekingInputStream = new PeekingInputStream(new ByteArrayInputStream(content), 4096);
+
+        Assert.assertEquals(ByteStreams.toByteArray(peekingInputStream).length, 4096);
+        Assert.assertTrue(peekingInputStream.isLimitReached());
+        Assert.assertEquals(peekingInputStream.read(), -1);
+
+        Assert.assertEquals(ByteStreams.toByteArray(peekingInputStream.newInputStream()), content);
+    }
+
+    @Test
+    public void singleBytes() throws IOException {
+        PeekingInputStream peekingInputStream = new PeekingInputStream(
+                new ByteArrayInputStream("Hello World!".getBytes()), 3);
+
+        Assert.assertEquals(peekingInputStream.read(), 'H');
+        Assert.assertEquals(peekingInputStream.read(), 'e');
+        Assert.assertEquals(peekingInputStream.read(), 'l');
+        Assert.assertEquals(peekingInputStream.read(), -1);
+
+        Assert.assertEquals(new String(ByteStreams.toByteArray(peekingInputStream.newInputStream())), "Hello World!");
+    }
+
+    @Test(expectedExceptions = IllegalStateException.class)
+    public void readAfterReplay() throws IOException {
+        PeekingInputStream peekingInputStream = new PeekingInputStream(
+                new ByteArrayInputStream("Hello World!".getBytes()));
+
+        peekingInputStream.newInputStream();
+        peekingInputStream.read();
+    }
+}
@@ -0,0 +1,57 @@
+package network.oxalis.ng.commons.io;
+
+import com.google.common.io.ByteStreams;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+public class ReplayInputStreamTest {
+
+    @Test
+    public void replayConsumedBytes() throws IOException {
+        byte[] content = "Hello World!".getBytes(StandardCharsets.US_ASCII);
+        ReplayInputStream inputStream = new ReplayInputStream(new ByteArrayInputStream(content));
+
+        Assert.assertEquals(inputStream.read(), 'H');
+        Assert.assertEquals(inputStream.read(new byte[4], 0, 4), 4);
+        inputStream.close();
+        Assert.assertEquals(inputStream.size(), 5);
+
+        Assert.assertEquals(ByteStreams.toByteArray(inputStream.replay()), content);
+    }
+
+    @Test
+    public void noLimit() throws IOException {
+        byte[] content = new byte[256 * 1024];
+        for (int i = 0; i < content.length; i++)
+            content[i] = (byte) i;
+
+        ReplayInputStream inputStream = new ReplayInputStream(new ByteArrayInputStream(content));
+        ByteStreams.exhaust(inputStream);
+
+        Assert.assertEquals(ByteStreams.toByteArray(inputStream.replay()), content);
+    }
+
+    @Test
+    public void limit() throws IOException {
+        byte[] content = "Hello World!".getBytes(StandardCharsets.US_ASCII);
+        ReplayInputStream inputStream = new ReplayInputStream(new ByteArrayInputStream(content), 5);
+
+        Assert.assertEquals(inputStream.read(new byte[8], 0, 8), 5);
+        Assert.assertTrue(inputStream.isLimitReached());
+        Assert.assertThrows(IOException.class, inputStream::read);
+
+        Assert.assertEquals(ByteStreams.toByteArray(inputStream.replay()), content);
+    }
+
+    @Test(expectedExceptions = IllegalStateException.class)
+    public void readAfterReplay() throws IOException {
+        ReplayInputStream inputStream = new ReplayInputStream(new ByteArrayInputStream(new byte[1]));
+        inputStream.replay();
+
+        inputStream.read();
+    }
+}
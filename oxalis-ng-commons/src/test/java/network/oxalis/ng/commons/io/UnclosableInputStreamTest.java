@@ -42,4 +42,12 @@ public class UnclosableInputStreamTest {
 
         Assert.assertEquals(inputStream.read(), -1);
     }
+
+    @Test
+    public void bulkRead() throws IOException {
+        InputStream inputStream = new ByteArrayInputStream("Hello World!".getBytes());
+
+        byte[] buffer = new byte[32];
+        Assert.assertEquals(new UnclosableInputStream(inputStream).read(buffer, 0, buffer.length), 12);
+    }
 }
@@ -0,0 +1,125 @@
+package network.oxalis.ng.commons.mode;
+
+import io.opentelemetry.api.OpenTelemetry;
+import io.opentelemetry.api.trace.Tracer;
+import network.oxalis.commons.certvalidator.api.CertificateValidationException;
+import network.oxalis.commons.certvalidator.api.FailedValidationException;
+import network.oxalis.ng.test.security.CertificateMock;
+import network.oxalis.vefa.peppol.common.code.Service;
+import network.oxalis.vefa.peppol.security.api.CertificateValidator;
+import network.oxalis.vefa.peppol.security.lang.PeppolSecurityException;
+import org.mockito.Mockito;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.security.cert.X509Certificate;
+import java.util.Date;
+
+import static org.mockito.ArgumentMatchers.any;
+
+public class OxalisCertificateValidatorTest {
+
+    private final Tracer tracer = OpenTelemetry.noop().getTracer("test");
+
+    private final X509Certificate certificate = CertificateMock.withCN("APP_1000000001");
+
+    @Test
+    public void acceptedIsCached() throws Exception {
+        CertificateValidator certificateValidator = Mockito.mock(CertificateValidator.class);
+        OxalisCertificateValidator validator =
+                new OxalisCertificateValidator(certificateValidator, tracer, Runnable::run, 10, 60, 0, 10, 60);
+
+        validator.validate(Service.AP, certificate);
+        validator.validate(Service.AP, certificate);
+        validator.validate(Service.SMP, certificate);
+
+        Mockito.verify(certificateValidator, Mockito.times(1)).validate(Service.AP, certificate);
+        Mockito.verify(certificateValidator, Mockito.times(1)).validate(Service.SMP, certificate);
+        Assert.assertEquals(validator.getCacheStats().hitCount(), 1);
+    }
+
+    @Test
+    public void rejectedIsCached() throws Exception {
+        CertificateValidator certificateValidator = Mockito.mock(CertificateValidator.class);
+        Mockito.doThrow(new PeppolSecurityException("Revoked.", new FailedValidationException("Revoked.")))
+                .when(certificateValidator).validate(any(), any());
+        OxalisCertificateValidator validator =
+                new OxalisCertificateValidator(certificateValidator, tracer, Runnable::run, 10, 60, 0, 10, 60);
+
+        for (int i = 0; i < 2; i++)
+            Assert.assertThrows(PeppolSecurityException.class, () -> validator.validate(Service.AP, certificate));
+
+        Mockito.verify(certificateValidator, Mockito.times(1)).validate(Service.AP, certificate);
+        Assert.assertEquals(validator.getNegativeCacheStats().hitCount(), 1);
+    }
+
+    @Test
+    public void rejectedIsCachedWhenAcceptedAreNot() throws Exception {
+        CertificateValidator certificateValidator = Mockito.mock(CertificateValidator.class);
+        Mockito.doThrow(new PeppolSecurityException("Revoked.", new FailedValidationException("Revoked.")))
+                .when(certificateValidator).validate(any(), any());
+        OxalisCertificateValidator validator =
+                new OxalisCertificateValidator(certificateValidator, tracer, Runnable::run, 10, 0, 0, 10, 60);
+
+        for (int i = 0; i < 2; i++)
+            Assert.assertThrows(PeppolSecurityException.class, () -> validator.validate(Service.AP, certificate));
+
+        Mockito.verify(certificateValidator, Mockito.times(1)).validate(Service.AP, certificate);
+    }
+
+    @Test
+    public void failureToValidateIsNotCached() throws Exception {
+        CertificateValidator certificateValidator = Mockito.mock(CertificateValidator.class);
+        Mockito.doThrow(new PeppolSecurityException("OCSP responder unavailable.",
+                        new CertificateValidationException("OCSP responder unavailable.")))
+                .when(certificateValidator).validate(any(), any());
+        OxalisCertificateValidator validator =
+                new OxalisCertificateValidator(certificateValidator, tracer, Runnable::run, 10, 60, 0, 10, 60);
+
+        for (int i = 0; i < 2; i++)
+            Assert.assertThrows(PeppolSecurityException.class, () -> validator.validate(Service.AP, certificate));
+
+        Mockito.verify(certificateValidator, Mockito.times(2)).validate(Service.AP, certificate);
+    }
+
+    @Test
+    public void nextUpdateLimitsValidity() throws Exception {
+        CertificateValidator certificateValidator = Mockito.mock(CertificateValidator.class);
+        Mockito.doAnswer(i -> {
+            OxalisCertificateValidator.registerNextUpdate(new Date(System.currentTimeMillis() - 1));
+            return null;
+        }).when(certificateValidator).validate(any(), any());
+        OxalisCertificateValidator validator =
+                new OxalisCertificateValidator(certificateValidator, tracer, Runnable::run, 10, 60, 0, 10, 60);
+
+        validator.validate(Service.AP, certificate);
+        validator.validate(Service.AP, certificate);
+
+        Mockito.verify(certificateValidator, Mockito.times(2)).validate(Service.AP, certificate);
+    }
+
+    @Test
+    public void revalidateInBackground() throws Exception {
+        CertificateValidator certificateValidator = Mockito.mock(CertificateValidator.class);
+        OxalisCertificateValidator validator =
+                new OxalisCertificateValidator(certificateValidator, tracer, Runnable::run, 10, 60, 1, 10, 60);
+
+        validator.validate(Service.AP, certificate);
+        Thread.sleep(1_100);
+        validator.validate(Service.AP, certificate);
+
+        Mockito.verify(certificateValidator, Mockito.times(2)).validate(Service.AP, certificate);
+        Assert.assertEquals(validator.getRevalidations(), 1);
+    }
+
+    @Test
+    public void withoutCache() throws Exception {
+        CertificateValidator certificateValidator = Mockito.mock(CertificateValidator.class);
+        OxalisCertificateValidator validator = new OxalisCertificateValidator(certificateValidator, tracer);
+
+        validator.validate(Service.AP, certificate);
+        validator.validate(Service.AP, certificate);
+
+        Mockito.verify(certificateValidator, Mockito.times(2)).validate(Service.AP, certificate);
+    }
+}
@@ -0,0 +1,64 @@
+package network.oxalis.ng.commons.persist;
+
+import network.oxalis.ng.api.evidence.EvidenceFactory;
+import network.oxalis.ng.api.model.TransmissionIdentifier;
+import network.oxalis.vefa.peppol.common.model.Header;
+import network.oxalis.vefa.peppol.common.model.ParticipantIdentifier;
+import org.mockito.Mockito;
+import org.testng.Assert;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.FileInputStream;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+
+public class BulkPersisterTest {
+
+    private static final Header HEADER = Header.newInstance()
+            .sender(ParticipantIdentifier.of("9908:810418052"))
+            .receiver(ParticipantIdentifier.of("9908:810017902"));
+
+    private Path folder;
+
+    private byte[] content;
+
+    @BeforeMethod
+    public void beforeMethod() throws Exception {
+        folder = Files.createTempDirectory("oxalis-bulk");
+
+        // Larger than the buffer to make sure copying is done in several steps.
+        content = new byte[100_000];
+        new Random(42).nextBytes(content);
+    }
+
+    @Test
+    public void persistStream() throws Exception {
+        BulkPersister persister = new BulkPersister(folder, Mockito.mock(EvidenceFactory.class),
+                new DefaultFolderLayout(), 8192, false);
+
+        Path path = persister.persist(TransmissionIdentifier.generateUUID(), HEADER,
+                new ByteArrayInputStream(content));
+
+        Assert.assertEquals(Files.readAllBytes(path), content);
+        Assert.assertTrue(path.getFileName().toString().endsWith(".doc.xml"));
+    }
+
+    @Test
+    public void persistFile() throws Exception {
+        Path source = Files.write(folder.resolve("source.xml"), content);
+        BulkPersister persister = new BulkPersister(folder, Mockito.mock(EvidenceFactory.class),
+                new DefaultFolderLayout(), 8192, true);
+
+        Path path;
+        try (InputStream inputStream = new FileInputStream(source.toFile())) {
+            path = persister.persist(TransmissionIdentifier.generateUUID(), HEADER, inputStream);
+            Assert.assertEquals(inputStream.read(), -1);
+        }
+
+        Assert.assertEquals(Files.readAllBytes(path), content);
+    }
+}
@@ -0,0 +1,64 @@
+package network.oxalis.ng.commons.persist;
+
+import network.oxalis.ng.api.model.TransmissionIdentifier;
+import network.oxalis.vefa.peppol.common.model.Header;
+import network.oxalis.vefa.peppol.common.model.ParticipantIdentifier;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+public class PersisterUtilsTest {
+
+    private static final Header HEADER = Header.newInstance()
+            .sender(ParticipantIdentifier.of("9908:810418052"))
+            .receiver(ParticipantIdentifier.of("9908:810017902"));
+
+    @Test
+    public void defaultLayout() throws Exception {
+        Path folder = Files.createTempDirectory("oxalis-persist");
+
+        Path path = PersisterUtils.createArtifactFolders(folder, HEADER);
+
+        Assert.assertEquals(path, folder.resolve(Paths.get("9908_810017902", "9908_810418052")));
+        Assert.assertTrue(Files.isDirectory(path));
+    }
+
+    @Test
+    public void hashLayout() throws Exception {
+        Path folder = Files.createTempDirectory("oxalis-persist");
+        TransmissionIdentifier transmissionIdentifier = TransmissionIdentifier.generateUUID();
+        FolderLayout folderLayout = new HashFolderLayout();
+
+        Path path = PersisterUtils.createArtifactFolders(folder, folderLayout, HEADER, transmissionIdentifier);
+
+        Assert.assertTrue(Files.isDirectory(path));
+        Assert.assertEquals(path.getParent(), folder.resolve(Paths.get("9908_810017902", "9908_810418052")));
+        Assert.assertTrue(path.getFileName().toString().matches("[0-9a-f]{2}"));
+
+        // Artifacts of the same transmission are stored in the same folder.
+        Assert.assertEquals(
+                PersisterUtils.createArtifactFolders(folder, folderLayout, HEADER, transmissionIdentifier), path);
+    }
+
+    @Test
+    public void removedFolderIsCreatedAgain() throws Exception {
+        Path folder = Files.createTempDirectory("oxalis-persist");
+
+        Path path = PersisterUtils.createArtifactFolders(folder, HEADER);
+        Files.delete(path);
+
+        // The folder is still remembered as created.
+        Assert.assertEquals(PersisterUtils.createArtifactFolders(folder, HEADER), path);
+        Assert.assertFalse(Files.exists(path));
+
+        try (OutputStream outputStream = PersisterUtils.newOutputStream(path.resolve("artifact.xml"))) {
+            outputStream.write(1);
+        }
+
+        Assert.assertTrue(Files.isRegularFile(path.resolve("artifact.xml")));
+    }
+}
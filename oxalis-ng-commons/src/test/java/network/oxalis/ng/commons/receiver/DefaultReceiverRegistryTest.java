@@ -0,0 +1,97 @@
+package network.oxalis.ng.commons.receiver;
+
+import com.google.common.base.Suppliers;
+import network.oxalis.vefa.peppol.common.model.*;
+import network.oxalis.vefa.peppol.lookup.LookupClient;
+import org.mockito.Mockito;
+import org.testng.annotations.Test;
+
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.testng.Assert.*;
+
+public class DefaultReceiverRegistryTest {
+
+    private static final String INVOICE = "urn:oasis:names:specification:ubl:schema:xsd:Invoice-2::Invoice##urn:cen.eu:en16931:2017#compliant#urn:fdc:peppol.eu:2017:poacc:billing:3.0::2.1";
+
+    private static final String ORDER = "urn:oasis:names:specification:ubl:schema:xsd:Order-2::Order##urn:fdc:peppol.eu:poacc:trns:order:3::2.1";
+
+    private static final String BILLING = "urn:fdc:peppol.eu:2017:poacc:billing:01:1.0";
+
+    @Test
+    public void servedFromLocalIndex() throws Exception {
+        LookupClient lookupClient = Mockito.mock(LookupClient.class);
+
+        DefaultReceiverRegistry registry = new DefaultReceiverRegistry(
+                () -> Arrays.asList(ReceiverEntry.of("0208:0000000001"),
+                        new ReceiverEntry("0208:0000000002", INVOICE, null),
+                        new ReceiverEntry("0208:0000000003", INVOICE, BILLING)),
+                Suppliers.ofInstance(lookupClient), Runnable::run, 300, false, 100, 60, 30,
+                "https://ap.example.com/as4");
+
+        assertTrue(registry.isServed(header("0208:0000000001", ORDER)));
+        assertTrue(registry.isServed(header("0208:0000000002", INVOICE)));
+        assertFalse(registry.isServed(header("0208:0000000002", ORDER)));
+        assertTrue(registry.isServed(header("0208:0000000003", INVOICE)));
+        assertFalse(registry.isServed(header("0208:0000000004", INVOICE)));
+
+        Mockito.verifyNoInteractions(lookupClient);
+    }
+
+    @Test
+    public void smpFallbackIsCached() throws Exception {
+        LookupClient lookupClient = Mockito.mock(LookupClient.class);
+        Mockito.when(lookupClient.getEndpoint(eq(ParticipantIdentifier.of("0208:0000000010")), any(DocumentTypeIdentifier.class),
+                        any(ProcessIdentifier.class), any(TransportProfile.class)))
+                .thenReturn(Endpoint.of(TransportProfile.PEPPOL_AS4_2_0, URI.create("https://ap.example.com/as4"), null));
+        Mockito.when(lookupClient.getEndpoint(eq(ParticipantIdentifier.of("0208:0000000011")), any(DocumentTypeIdentifier.class),
+                        any(ProcessIdentifier.class), any(TransportProfile.class)))
+                .thenReturn(Endpoint.of(TransportProfile.PEPPOL_AS4_2_0, URI.create("https://other.example.com/as4"), null));
+
+        DefaultReceiverRegistry registry = new DefaultReceiverRegistry(
+                Collections::emptyList, Suppliers.ofInstance(lookupClient), Runnable::run, 300, true, 100, 60, 30,
+                "https://ap.example.com/as4");
+
+        assertTrue(registry.isServed(header("0208:0000000010", INVOICE)));
+        assertTrue(registry.isServed(header("0208:0000000010", INVOICE)));
+        assertFalse(registry.isServed(header("0208:0000000011", INVOICE)));
+
+        assertEquals(registry.getSmpCacheStats().hitCount(), 1);
+        assertEquals(registry.getSmpCacheStats().missCount(), 2);
+    }
+
+    @Test
+    public void fileProvider() throws Exception {
+        Path path = Files.createTempFile("receivers", ".txt");
+        try {
+            Files.write(path, Arrays.asList(
+                    "# Receivers served",
+                    "",
+                    "0208:0000000001",
+                    "0208:0000000002  " + INVOICE + "  " + BILLING), StandardCharsets.UTF_8);
+
+            assertEquals(new FileReceiverProvider(path).getReceivers(), Arrays.asList(
+                    ReceiverEntry.of("0208:0000000001"),
+                    new ReceiverEntry("0208:0000000002", INVOICE, BILLING)));
+        } finally {
+            Files.delete(path);
+        }
+
+        assertTrue(new FileReceiverProvider(path).getReceivers().isEmpty());
+    }
+
+    private static Header header(String receiver, String documentType) {
+        return Header.newInstance()
+                .sender(ParticipantIdentifier.of("0208:0000000099"))
+                .receiver(ParticipantIdentifier.of(receiver))
+                .documentType(DocumentTypeIdentifier.of(documentType))
+                .process(ProcessIdentifier.of(BILLING));
+    }
+}
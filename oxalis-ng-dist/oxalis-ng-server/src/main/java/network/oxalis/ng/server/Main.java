@@ -31,15 +31,25 @@ import network.oxalis.ng.api.settings.Settings;
 import network.oxalis.ng.commons.guice.GuiceModuleLoader;
 import network.oxalis.ng.inbound.OxalisGuiceContextListener;
 import network.oxalis.ng.server.jetty.JettyConf;
+import org.eclipse.jetty.http2.server.HTTP2CServerConnectionFactory;
+import org.eclipse.jetty.server.ConnectionFactory;
+import org.eclipse.jetty.server.HttpConfiguration;
+import org.eclipse.jetty.server.HttpConnectionFactory;
 import org.eclipse.jetty.server.Server;
+import org.eclipse.jetty.server.ServerConnector;
 import org.eclipse.jetty.server.handler.HandlerList;
 import org.eclipse.jetty.server.handler.ShutdownHandler;
 import org.eclipse.jetty.server.handler.StatisticsHandler;
 import org.eclipse.jetty.servlet.DefaultServlet;
 import org.eclipse.jetty.servlet.ServletContextHandler;
+import org.eclipse.jetty.util.BlockingArrayQueue;
+import org.eclipse.jetty.util.VirtualThreads;
+import org.eclipse.jetty.util.thread.QueuedThreadPool;
 
 import jakarta.servlet.DispatcherType;
+import java.util.ArrayList;
 import java.util.EnumSet;
+import java.util.List;
 
 /**
  * @author erlend
@@ -59,7 +69,8 @@ public class Main {
     }
 
     public void run() throws Exception {
-        Server server = new Server(settings.getInt(JettyConf.PORT));
+        Server server = new Server(createThreadPool());
+        server.addConnector(createConnector(server));
 
         HandlerList handlers = new HandlerList();
 
@@ -84,4 +95,48 @@ public class Main {
         server.start();
         server.join();
     }
+
+    /**
+     * Creates the pool of threads handling requests. When running on virtual threads, requests are handled on a
+     * virtual thread each and the pool only runs the selectors and acceptors, so the maximum number of threads no
+     * longer limits the number of requests handled concurrently.
+     */
+    private QueuedThreadPool createThreadPool() {
+        int queueSize = settings.getInt(JettyConf.THREADS_QUEUE_SIZE);
+
+        QueuedThreadPool threadPool = new QueuedThreadPool(
+                settings.getInt(JettyConf.THREADS_MAX),
+                settings.getInt(JettyConf.THREADS_MIN),
+                settings.getInt(JettyConf.THREADS_IDLE_TIMEOUT),
+                queueSize > 0 ? new BlockingArrayQueue<>(queueSize) : null);
+
+        if (Boolean.parseBoolean(settings.getString(JettyConf.THREADS_VIRTUAL))) {
+            if (VirtualThreads.areSupported()) {
+                threadPool.setUseVirtualThreads(true);
+                log.info("Handling requests on virtual threads");
+            } else {
+                log.warn("Virtual threads are not supported by this Java runtime, handling requests on platform threads");
+            }
+        }
+
+        return threadPool;
+    }
+
+    private ServerConnector createConnector(Server server) {
+        HttpConfiguration httpConfiguration = new HttpConfiguration();
+
+        List<ConnectionFactory> connectionFactories = new ArrayList<>();
+        connectionFactories.add(new HttpConnectionFactory(httpConfiguration));
+        if (Boolean.parseBoolean(settings.getString(JettyConf.H2C)))
+            connectionFactories.add(new HTTP2CServerConnectionFactory(httpConfiguration));
+
+        ServerConnector connector = new ServerConnector(server,
+                settings.getInt(JettyConf.ACCEPTORS),
+                settings.getInt(JettyConf.SELECTORS),
+                connectionFactories.toArray(new ConnectionFactory[0]));
+        connector.setPort(settings.getInt(JettyConf.PORT));
+        connector.setIdleTimeout(settings.getInt(JettyConf.IDLE_TIMEOUT));
+
+        return connector;
+    }
 }
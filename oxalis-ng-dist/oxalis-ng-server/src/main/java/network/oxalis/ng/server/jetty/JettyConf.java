@@ -27,4 +27,40 @@ public enum JettyConf {
     @DefaultValue("10000")
     STOP_TIMEOUT,
 
+    @Path("oxalis.jetty.acceptors")
+    @DefaultValue("-1")
+    ACCEPTORS,
+
+    @Path("oxalis.jetty.selectors")
+    @DefaultValue("-1")
+    SELECTORS,
+
+    @Path("oxalis.jetty.idle_timeout")
+    @DefaultValue("30000")
+    IDLE_TIMEOUT,
+
+    @Path("oxalis.jetty.h2c")
+    @DefaultValue("false")
+    H2C,
+
+    @Path("oxalis.jetty.threads.min")
+    @DefaultValue("8")
+    THREADS_MIN,
+
+    @Path("oxalis.jetty.threads.max")
+    @DefaultValue("200")
+    THREADS_MAX,
+
+    @Path("oxalis.jetty.threads.idle_timeout")
+    @DefaultValue("60000")
+    THREADS_IDLE_TIMEOUT,
+
+    @Path("oxalis.jetty.threads.queue_size")
+    @DefaultValue("-1")
+    THREADS_QUEUE_SIZE,
+
+    @Path("oxalis.jetty.threads.virtual")
+    @DefaultValue("false")
+    THREADS_VIRTUAL,
+
 }
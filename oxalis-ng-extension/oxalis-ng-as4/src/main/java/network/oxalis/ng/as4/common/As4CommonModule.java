@@ -27,6 +27,7 @@ import com.google.inject.Provides;
 import com.google.inject.Singleton;
 import lombok.extern.slf4j.Slf4j;
 import network.oxalis.ng.as4.api.MessageIdGenerator;
+import network.oxalis.ng.as4.lang.OxalisAs4TransmissionException;
 import network.oxalis.ng.as4.outbound.DefaultActionProvider;
 import network.oxalis.ng.as4.util.OxalisAlgorithmSuiteLoader;
 import network.oxalis.ng.as4.util.PolicyService;
@@ -45,6 +46,8 @@ import org.apache.cxf.transport.http.HttpServerEngineSupport;
 import org.apache.wss4j.dom.engine.WSSConfig;
 
 import java.security.Security;
+import java.util.Arrays;
+import java.util.Collection;
 
 import static network.oxalis.ng.as4.common.AS4Constants.*;
 
@@ -63,6 +66,7 @@ public class As4CommonModule extends OxalisModule {
         bus.setProperty(HttpServerEngineSupport.ENABLE_HTTP2, true);
         new OxalisAlgorithmSuiteLoader(bus);
         BusFactory.setThreadDefaultBus(bus);
+        bind(Bus.class).toInstance(bus);
 
         Security.setProperty("jdk.security.provider.preferred", "AES/GCM/NoPadding:BC");
         WSSConfig.init();
@@ -76,7 +80,20 @@ public class As4CommonModule extends OxalisModule {
 
     @Provides
     @Singleton
-    public PolicyService getPolicyService(Mode mode, Settings<As4Conf> settings, ActionProvider actionProvider) {
+    public PolicyService getPolicyService(Mode mode, Settings<As4Conf> settings, ActionProvider actionProvider,
+                                          Bus bus) {
+        PolicyService policyService = createPolicyService(mode, settings, actionProvider);
+
+        try {
+            policyService.warmUp(bus);
+        } catch (OxalisAs4TransmissionException e) {
+            log.warn("Unable to preload WS Policy, policies will be loaded on first use", e);
+        }
+
+        return policyService;
+    }
+
+    private PolicyService createPolicyService(Mode mode, Settings<As4Conf> settings, ActionProvider actionProvider) {
         String type = settings.getString(As4Conf.TYPE);
 
         if (Mode.PRODUCTION.equals(mode.getIdentifier()) && !PEPPOL.equals(type)) {
@@ -110,6 +127,11 @@ public class As4CommonModule extends OxalisModule {
                 protected String getDefaultPolicy() {
                     return "/eDeliveryAS4Policy.xml";
                 }
+
+                @Override
+                protected Collection<String> getKnownPolicyClasspaths() {
+                    return Arrays.asList(getDefaultPolicy(), "/signOnly.xml");
+                }
             };
         }
 
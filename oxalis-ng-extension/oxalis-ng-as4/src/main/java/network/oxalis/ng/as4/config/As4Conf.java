@@ -23,6 +23,7 @@
 package network.oxalis.ng.as4.config;
 
 import network.oxalis.ng.api.settings.DefaultValue;
+import network.oxalis.ng.api.settings.Nullable;
 import network.oxalis.ng.api.settings.Path;
 import network.oxalis.ng.api.settings.Title;
 
@@ -39,5 +40,69 @@ public enum As4Conf {
 
     @Path("oxalis.as4.type")
     @DefaultValue("peppol")
-    TYPE
+    TYPE,
+
+    @Path("oxalis.as4.dispatch.pool.max_idle")
+    @DefaultValue("10")
+    DISPATCH_POOL_MAX_IDLE,
+
+    @Path("oxalis.as4.dispatch.pool.idle_timeout")
+    @DefaultValue("300")
+    DISPATCH_POOL_IDLE_TIMEOUT,
+
+    @Path("oxalis.as4.compression.streaming")
+    @DefaultValue("false")
+    COMPRESSION_STREAMING,
+
+    @Path("oxalis.as4.compression.level")
+    @DefaultValue("-1")
+    COMPRESSION_LEVEL,
+
+    @Path("oxalis.as4.compression.pool_size")
+    @DefaultValue("5")
+    COMPRESSION_POOL_SIZE,
+
+    @Path("oxalis.as4.dedup.enabled")
+    @DefaultValue("false")
+    DEDUP_ENABLED,
+
+    @Path("oxalis.as4.dedup.path")
+    @DefaultValue("receipts")
+    DEDUP_PATH,
+
+    @Path("oxalis.as4.dedup.cache_size")
+    @DefaultValue("10000")
+    DEDUP_CACHE_SIZE,
+
+    @Path("oxalis.as4.dedup.expected")
+    @DefaultValue("1000000")
+    DEDUP_EXPECTED,
+
+    @Path("oxalis.as4.dedup.retention")
+    @DefaultValue("604800")
+    DEDUP_RETENTION,
+
+    @Path("oxalis.as4.sbdh.limit")
+    @DefaultValue("1048576")
+    SBDH_LIMIT,
+
+    @Path("oxalis.as4.cache.threshold")
+    @DefaultValue("-1")
+    CACHE_THRESHOLD,
+
+    @Path("oxalis.as4.cache.directory")
+    @Nullable
+    CACHE_DIRECTORY,
+
+    @Path("oxalis.as4.cache.max_size")
+    @DefaultValue("-1")
+    CACHE_MAX_SIZE,
+
+    @Path("oxalis.as4.cache.cipher")
+    @Nullable
+    CACHE_CIPHER,
+
+    @Path("oxalis.as4.cache.mapped")
+    @DefaultValue("false")
+    CACHE_MAPPED
 }
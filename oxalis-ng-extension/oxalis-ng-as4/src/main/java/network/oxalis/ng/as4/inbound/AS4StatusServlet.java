@@ -25,6 +25,9 @@ package network.oxalis.ng.as4.inbound;
 import com.google.inject.Inject;
 import com.google.inject.Singleton;
 import com.typesafe.config.Config;
+import network.oxalis.ng.as4.util.AttachmentCache;
+import network.oxalis.ng.as4.util.PolicyService;
+import network.oxalis.ng.commons.mode.OxalisCertificateValidator;
 import network.oxalis.ng.commons.util.OxalisVersion;
 import network.oxalis.vefa.peppol.mode.Mode;
 
@@ -50,11 +53,21 @@ public class AS4StatusServlet extends HttpServlet {
 
     private final Mode mode;
 
+    private final PolicyService policyService;
+
+    private final AttachmentCache attachmentCache;
+
+    private final OxalisCertificateValidator certificateValidator;
+
     @Inject
-    public AS4StatusServlet(X509Certificate certificate, Config config, Mode mode) {
+    public AS4StatusServlet(X509Certificate certificate, Config config, Mode mode, PolicyService policyService,
+                            AttachmentCache attachmentCache, OxalisCertificateValidator certificateValidator) {
         this.certificate = certificate;
         this.mode = mode;
         this.config = config;
+        this.policyService = policyService;
+        this.attachmentCache = attachmentCache;
+        this.certificateValidator = certificateValidator;
     }
 
     @Override
@@ -76,5 +89,13 @@ public class AS4StatusServlet extends HttpServlet {
         writer.println("certificate.expired: " + certificate.getNotAfter().before(new Date()));
         writer.println("build.id: " + OxalisVersion.getBuildId());
         writer.println("build.tstamp: " + OxalisVersion.getBuildTimeStamp());
+        writer.println("policy.cache.hits: " + policyService.getCacheHits());
+        writer.println("policy.cache.misses: " + policyService.getCacheMisses());
+        writer.println("attachment.cache.spilled: " + attachmentCache.getSpilled());
+        writer.println("attachment.cache.spilled.bytes: " + attachmentCache.getSpilledBytes());
+        writer.println("validation.cache.hits: " + certificateValidator.getCacheStats().hitCount());
+        writer.println("validation.cache.misses: " + certificateValidator.getCacheStats().missCount());
+        writer.println("validation.cache.revalidations: " + certificateValidator.getRevalidations());
+        writer.println("validation.cache.negative.hits: " + certificateValidator.getNegativeCacheStats().hitCount());
     }
 }
@@ -0,0 +1,100 @@
+package network.oxalis.ng.as4.inbound;
+
+import network.oxalis.ng.as4.lang.OxalisAs4Exception;
+import network.oxalis.ng.as4.util.Constants;
+import network.oxalis.ng.as4.util.Marshalling;
+import network.oxalis.ng.as4.util.SOAPHeaderParser;
+import org.apache.cxf.binding.soap.SoapMessage;
+import org.apache.cxf.headers.Header;
+import org.apache.cxf.interceptor.Fault;
+import org.oasis_open.docs.ebxml_msg.ebms.v3_0.ns.core._200704.Messaging;
+import org.oasis_open.docs.ebxml_msg.ebms.v3_0.ns.core._200704.UserMessage;
+import org.w3.xmldsig.ReferenceType;
+import org.w3c.dom.Node;
+
+import jakarta.xml.bind.JAXBException;
+import jakarta.xml.soap.SOAPHeader;
+import java.security.cert.X509Certificate;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Parsed envelope of an inbound message. The ebMS Messaging header is unmarshalled once by the first interceptor
+ * needing it and stored on the CXF message, later stages read it from here. Values found in the WS-Security header
+ * are parsed on first use and kept for the rest of the processing.
+ */
+public class As4EnvelopeContext {
+
+    private final Messaging messaging;
+
+    private final UserMessage userMessage;
+
+    private List<ReferenceType> referenceList;
+
+    private byte[] signature;
+
+    private X509Certificate senderCertificate;
+
+    public As4EnvelopeContext(Messaging messaging) {
+        this.messaging = messaging;
+        this.userMessage = Optional.ofNullable(messaging)
+                .map(Messaging::getUserMessage)
+                .flatMap(list -> list.stream().findFirst())
+                .orElse(null);
+    }
+
+    /**
+     * Gets the context stored on the message, parsing the Messaging header and storing the result on first call.
+     *
+     * @return Context of the message, or empty when the message has no Messaging header.
+     */
+    public static Optional<As4EnvelopeContext> of(SoapMessage message) throws Fault {
+        As4EnvelopeContext context = (As4EnvelopeContext) message.get(AS4MessageContextKey.ENVELOPE_CONTEXT);
+        if (context != null) {
+            return Optional.of(context);
+        }
+
+        Header header = message.getHeader(Constants.MESSAGING_QNAME);
+        if (header == null) {
+            return Optional.empty();
+        }
+
+        try {
+            context = new As4EnvelopeContext(Marshalling.getPool().unmarshal((Node) header.getObject(), Messaging.class));
+        } catch (JAXBException e) {
+            throw new Fault(e);
+        }
+
+        message.put(AS4MessageContextKey.ENVELOPE_CONTEXT, context);
+        return Optional.of(context);
+    }
+
+    public Messaging getMessaging() {
+        return messaging;
+    }
+
+    public Optional<UserMessage> getUserMessage() {
+        return Optional.ofNullable(userMessage);
+    }
+
+    public synchronized List<ReferenceType> getReferenceList(SOAPHeader header) throws OxalisAs4Exception {
+        if (referenceList == null) {
+            referenceList = SOAPHeaderParser.getReferenceListFromSignedInfo(header);
+        }
+        return referenceList;
+    }
+
+    public synchronized byte[] getSignature(SOAPHeader header) throws OxalisAs4Exception {
+        if (signature == null) {
+            signature = SOAPHeaderParser.getSignature(header);
+        }
+        return signature;
+    }
+
+    public synchronized X509Certificate getSenderCertificate(SOAPHeader header) throws OxalisAs4Exception {
+        if (senderCertificate == null) {
+            senderCertificate = SOAPHeaderParser.getSenderCertificate(header);
+        }
+        return senderCertificate;
+    }
+}
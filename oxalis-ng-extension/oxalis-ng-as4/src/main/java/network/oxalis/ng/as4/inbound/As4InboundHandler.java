@@ -9,31 +9,29 @@ import jakarta.xml.ws.handler.MessageContext;
 import lombok.extern.slf4j.Slf4j;
 import network.oxalis.ng.api.header.HeaderParser;
 import network.oxalis.ng.api.inbound.InboundService;
+import network.oxalis.ng.api.inbound.ReceiverRegistry;
 import network.oxalis.ng.api.lang.TimestampException;
 import network.oxalis.ng.api.lang.VerifierException;
 import network.oxalis.ng.api.model.Direction;
 import network.oxalis.ng.api.model.TransmissionIdentifier;
 import network.oxalis.ng.api.persist.PersisterHandler;
+import network.oxalis.ng.api.settings.Settings;
 import network.oxalis.ng.api.timestamp.Timestamp;
 import network.oxalis.ng.api.timestamp.TimestampProvider;
 import network.oxalis.ng.api.transmission.TransmissionVerifier;
 import network.oxalis.ng.as4.common.As4MessageProperties;
+import network.oxalis.ng.as4.config.As4Conf;
 import network.oxalis.ng.as4.common.As4MessageProperty;
 import network.oxalis.ng.as4.lang.OxalisAs4Exception;
 import network.oxalis.ng.as4.lang.OxalisAs4TransmissionException;
 import network.oxalis.ng.as4.util.*;
 import network.oxalis.ng.commons.header.SbdhHeaderParser;
+import network.oxalis.ng.commons.io.ReplayInputStream;
 import network.oxalis.ng.commons.io.UnclosableInputStream;
 import network.oxalis.ng.commons.mode.OxalisCertificateValidator;
 import network.oxalis.vefa.peppol.common.code.DigestMethod;
 import network.oxalis.vefa.peppol.common.code.Service;
-import network.oxalis.vefa.peppol.common.lang.EndpointNotFoundException;
-import network.oxalis.vefa.peppol.common.lang.PeppolLoadingException;
 import network.oxalis.vefa.peppol.common.model.*;
-import network.oxalis.vefa.peppol.lookup.LookupClient;
-import network.oxalis.vefa.peppol.lookup.LookupClientBuilder;
-import network.oxalis.vefa.peppol.lookup.api.LookupException;
-import network.oxalis.vefa.peppol.mode.Mode;
 import network.oxalis.vefa.peppol.sbdh.SbdReader;
 import network.oxalis.vefa.peppol.sbdh.lang.SbdhException;
 import network.oxalis.vefa.peppol.security.lang.PeppolSecurityException;
@@ -74,14 +72,17 @@ public class As4InboundHandler {
     private final PolicyService policyService;
     private final InboundService inboundService;
     private final OxalisCertificateValidator certificateValidator;
-    private final Mode mode;
+    private final ReceiverRegistry receiverRegistry;
+    private final ReceiptStore receiptStore;
     private final Config config;
+    private final int sbdhLimit;
 
     @Inject
     public As4InboundHandler(TransmissionVerifier transmissionVerifier, PersisterHandler persisterHandler,
                              TimestampProvider timestampProvider, HeaderParser headerParser, As4MessageFactory as4MessageFactory,
                              PolicyService policyService, InboundService inboundService,
-                             OxalisCertificateValidator certificateValidator, Mode mode, Config config) {
+                             OxalisCertificateValidator certificateValidator, ReceiverRegistry receiverRegistry,
+                             ReceiptStore receiptStore, Config config, Settings<As4Conf> settings) {
         this.transmissionVerifier = transmissionVerifier;
         this.persisterHandler = persisterHandler;
         this.timestampProvider = timestampProvider;
@@ -90,20 +91,24 @@ public class As4InboundHandler {
         this.policyService = policyService;
         this.inboundService = inboundService;
         this.certificateValidator = certificateValidator;
-        this.mode = mode;
+        this.receiverRegistry = receiverRegistry;
+        this.receiptStore = receiptStore;
         this.config = config;
+        this.sbdhLimit = settings.getInt(As4Conf.SBDH_LIMIT);
     }
 
     public SOAPMessage handle(SOAPMessage request, MessageContext messageContext) throws OxalisAs4Exception {
         SOAPHeader soapHeader = getSoapHeader(request);
+        As4EnvelopeContext envelopeContext = getEnvelopeContext(soapHeader, messageContext);
 
-        X509Certificate senderCertificate = getSenderCertificate(soapHeader);
+        X509Certificate senderCertificate = getSenderCertificate(envelopeContext, soapHeader);
 
-        Timestamp timestamp = getTimestamp(soapHeader);
+        Timestamp timestamp = getTimestamp(envelopeContext, soapHeader);
         Iterator<AttachmentPart> attachments = CastUtils.cast(request.getAttachments());
 
         // Organize input data
-        UserMessage userMessage = SOAPHeaderParser.getUserMessage(soapHeader);
+        UserMessage userMessage = envelopeContext.getUserMessage()
+                .orElseThrow(() -> new OxalisAs4Exception("No UserMessage present in header"));
 
         As4EnvelopeHeader envelopeHeader = parseAs4EnvelopeHeader(userMessage);
         messageContext.put(AS4MessageContextKey.ENVELOPE_HEADER, envelopeHeader);
@@ -120,7 +125,15 @@ public class As4InboundHandler {
 
         validatePayloads(userMessage.getPayloadInfo()); // Validate Payloads
 
-        List<ReferenceType> referenceList = SOAPHeaderParser.getReferenceListFromSignedInfo(soapHeader);
+        // Answer retries with the receipt already given, without processing the message again
+        Optional<byte[]> previousReceipt = isPingMessage(userMessage) ?
+                Optional.empty() : receiptStore.get(getSender(senderCertificate), messageId.getIdentifier());
+        if (previousReceipt.isPresent()) {
+            log.info("Message '{}' is already received, returning the receipt given.", messageId.getIdentifier());
+            return prepareResponse(as4MessageFactory.readMessage(previousReceipt.get()), userMessage);
+        }
+
+        List<ReferenceType> referenceList = envelopeContext.getReferenceList(soapHeader);
         ProsessingContext prosessingContext = new ProsessingContext(timestamp, referenceList);
 
         // Prepare response
@@ -163,13 +176,7 @@ public class As4InboundHandler {
                     copyOfReceipt,
                     envelopeHeader);
 
-            try {
-                if (config.hasPath("access.point.isReceiverCheckEnabled")) {
-                    isThisMessageForUs(config, firstHeader, mode);
-                }
-            } catch (EndpointNotFoundException | LookupException | PeppolLoadingException | PeppolSecurityException ex) {
-                log.warn("Error checking whether this message is for us: " + ex.getMessage());
-            } catch (OxalisAs4Exception OxalisAs4Exception) {
+            if (isReceiverCheckEnabled() && !receiverRegistry.isServed(firstHeader.getHeader())) {
                 throw new OxalisAs4Exception("PEPPOL:NOT_SERVICED", AS4ErrorCode.EBMS_0004, AS4ErrorCode.Severity.FAILURE);
             }
 
@@ -183,9 +190,14 @@ public class As4InboundHandler {
 
             // Persist statistics
             inboundService.complete(as4InboundMetadata);
+
+            receiptStore.put(getSender(senderCertificate), messageId.getIdentifier(), copyOfReceipt);
         }
 
-        // Send response
+        return prepareResponse(response, userMessage);
+    }
+
+    private SOAPMessage prepareResponse(SOAPMessage response, UserMessage userMessage) throws OxalisAs4Exception {
         Policy policy = null;
         try {
             policy = policyService.getPolicy(userMessage.getCollaborationInfo());
@@ -203,48 +215,42 @@ public class As4InboundHandler {
         return response;
     }
 
-    private X509Certificate getSenderCertificate(SOAPHeader soapHeader) throws OxalisAs4Exception {
+    /**
+     * Uses the envelope parsed by the interceptors, parsing the Messaging header here when the message did not pass
+     * through them.
+     */
+    private As4EnvelopeContext getEnvelopeContext(SOAPHeader soapHeader, MessageContext messageContext)
+            throws OxalisAs4Exception {
+        As4EnvelopeContext envelopeContext = (As4EnvelopeContext) messageContext.get(AS4MessageContextKey.ENVELOPE_CONTEXT);
+        if (envelopeContext != null) {
+            return envelopeContext;
+        }
+
+        Messaging messaging = new Messaging();
+        messaging.getUserMessage().add(SOAPHeaderParser.getUserMessage(soapHeader));
+        return new As4EnvelopeContext(messaging);
+    }
+
+    private X509Certificate getSenderCertificate(As4EnvelopeContext envelopeContext, SOAPHeader soapHeader)
+            throws OxalisAs4Exception {
         try {
-            return SOAPHeaderParser.getSenderCertificate(soapHeader);
+            return envelopeContext.getSenderCertificate(soapHeader);
         } catch (OxalisAs4Exception e) {
             throw new OxalisAs4Exception("PEPPOL:NOT_SERVICED", AS4ErrorCode.EBMS_0004, AS4ErrorCode.Severity.FAILURE);
         }
     }
 
-    private void isThisMessageForUs(Config config, As4PayloadHeader firstHeader, Mode mode)
-            throws PeppolLoadingException, PeppolSecurityException, LookupException,
-            EndpointNotFoundException, OxalisAs4Exception {
-
-        LookupClient lookupClient = LookupClientBuilder.forMode(mode).build();
-        if (config.getBoolean("access.point.isReceiverCheckEnabled")) {
-            Header header = firstHeader.getHeader();
-            Endpoint endpoint = lookupClient.getEndpoint(
-                    ParticipantIdentifier.of(header.getReceiver().getIdentifier()),
-                    DocumentTypeIdentifier.of(header.getDocumentType().getIdentifier()),
-                    ProcessIdentifier.of(header.getProcess().getIdentifier()),
-                    TransportProfile.PEPPOL_AS4_2_0
-            );
-
-            String receiverAPEndPointUrlInSMP = endpoint.getAddress().toString();
-            if (log.isDebugEnabled())
-                log.debug("Receiver AP URL retrieved from SMP metadata: " + receiverAPEndPointUrlInSMP);
-
-            String ourOwnAPUrlInOxalisConfig = config.getString("my.access.point.url");
-            if (log.isDebugEnabled())
-                log.debug("Our Receiver AP URL configured in Oxalis Configuration: " + ourOwnAPUrlInOxalisConfig);
-
-            if (ourOwnAPUrlInOxalisConfig == null) {
-                log.warn("Oxalis configuration property 'access.point.isReceiverCheckEnabled' is set to true " +
-                        "but value is Not provided for configuration property 'my.access.point.url', " +
-                        "skipping whether message is for our Access Point. Please ensure that required configuration" +
-                        " properties set correctly.");
-                return;
-            }
+    /**
+     * Identity of the sender used to detect retries, the subject of the validated signing certificate, which is kept
+     * when the certificate is renewed.
+     */
+    private static String getSender(X509Certificate senderCertificate) {
+        return senderCertificate.getSubjectX500Principal().getName();
+    }
 
-            if (receiverAPEndPointUrlInSMP == null || !receiverAPEndPointUrlInSMP.contains(ourOwnAPUrlInOxalisConfig)) {
-                throw new OxalisAs4Exception("PEPPOL:NOT_SERVICED", AS4ErrorCode.EBMS_0004, AS4ErrorCode.Severity.FAILURE);
-            }
-        }
+    private boolean isReceiverCheckEnabled() {
+        return config.hasPath("access.point.isReceiverCheckEnabled")
+                && config.getBoolean("access.point.isReceiverCheckEnabled");
     }
 
     private boolean isPingMessage(UserMessage userMessage) {
@@ -347,7 +353,7 @@ public class As4InboundHandler {
     }
 
     public byte[] copyReceipt(SOAPMessage response) throws OxalisAs4Exception {
-        ByteArrayOutputStream bos = new ByteArrayOutputStream();
+        ByteArrayOutputStream bos = new ByteArrayOutputStream(8192);
 
         try {
             response.writeTo(bos);
@@ -425,13 +431,20 @@ public class As4InboundHandler {
                     }
                 }
 
-                BufferedInputStream bis = new BufferedInputStream(is, 65536);
-
                 Header sbdh;
                 if (headerParser instanceof SbdhHeaderParser) {
-                    bis.mark(65536);
-                    sbdh = readHeader(contentId, bis);
-                    bis.reset();
+                    // Bytes consumed while parsing the SBDH are replayed in front of the rest of the payload
+                    ReplayInputStream replay = new ReplayInputStream(is, sbdhLimit);
+                    try {
+                        sbdh = readHeader(contentId, replay);
+                    } catch (OxalisAs4Exception e) {
+                        if (replay.isLimitReached())
+                            throw new OxalisAs4Exception(String.format(
+                                    "SBDH of payload with Content-ID %s not found within the first %s bytes",
+                                    contentId, sbdhLimit), e);
+                        throw e;
+                    }
+                    is = replay.replay();
                 } else {
                     sbdh = new Header()
                             .sender(ParticipantIdentifier.of(userMessage.getPartyInfo().getFrom().getPartyId().get(0).getValue()))
@@ -443,8 +456,7 @@ public class As4InboundHandler {
                 // Get an "unexpected eof in prolog"
                 As4PayloadHeader header = new As4PayloadHeader(sbdh, partInfoHeaders.values(), contentId, userMessage.getMessageInfo().getMessageId());
 
-                // Extract "fresh" InputStream
-                payloads.put(bis, header);
+                payloads.put(new BufferedInputStream(is, 65536), header);
 
             } catch (IOException e) {
                 throw new OxalisAs4Exception("Could not get attachment input stream", e);
@@ -523,8 +535,8 @@ public class As4InboundHandler {
         return as4EnvelopeHeader;
     }
 
-    private Timestamp getTimestamp(SOAPHeader header) throws OxalisAs4Exception {
-        byte[] signature = SOAPHeaderParser.getSignature(header);
+    private Timestamp getTimestamp(As4EnvelopeContext envelopeContext, SOAPHeader header) throws OxalisAs4Exception {
+        byte[] signature = envelopeContext.getSignature(header);
         try {
             return timestampProvider.generate(signature, Direction.IN);
         } catch (TimestampException e) {
@@ -4,13 +4,11 @@ import com.google.inject.Inject;
 import com.google.inject.Singleton;
 import lombok.extern.slf4j.Slf4j;
 import network.oxalis.ng.as4.lang.OxalisAs4Exception;
-import network.oxalis.ng.as4.util.Constants;
-import network.oxalis.ng.as4.util.Marshalling;
 import network.oxalis.ng.as4.util.MessageId;
 import network.oxalis.ng.as4.util.PolicyService;
+import org.apache.cxf.Bus;
 import org.apache.cxf.binding.soap.SoapMessage;
 import org.apache.cxf.binding.soap.interceptor.AbstractSoapInterceptor;
-import org.apache.cxf.headers.Header;
 import org.apache.cxf.interceptor.Fault;
 import org.apache.cxf.message.Message;
 import org.apache.cxf.phase.Phase;
@@ -21,11 +19,7 @@ import org.oasis_open.docs.ebxml_msg.ebms.v3_0.ns.core._200704.CollaborationInfo
 import org.oasis_open.docs.ebxml_msg.ebms.v3_0.ns.core._200704.MessageInfo;
 import org.oasis_open.docs.ebxml_msg.ebms.v3_0.ns.core._200704.Messaging;
 import org.oasis_open.docs.ebxml_msg.ebms.v3_0.ns.core._200704.UserMessage;
-import org.w3c.dom.Node;
 
-import jakarta.xml.bind.JAXBContext;
-import jakarta.xml.bind.JAXBException;
-import jakarta.xml.bind.Unmarshaller;
 import java.util.Collection;
 import java.util.Optional;
 import java.util.stream.Stream;
@@ -34,7 +28,6 @@ import java.util.stream.Stream;
 @Singleton
 public class As4Interceptor extends AbstractSoapInterceptor {
 
-    private final JAXBContext jaxbContext = Marshalling.getInstance();
     private final PolicyService policyService;
 
     @Inject
@@ -46,37 +39,24 @@ public class As4Interceptor extends AbstractSoapInterceptor {
 
     @Override
     public void handleMessage(SoapMessage message) throws Fault {
-        Messaging messaging = getMessaging(message);
+        Optional<As4EnvelopeContext> context = As4EnvelopeContext.of(message);
+        Messaging messaging = context.map(As4EnvelopeContext::getMessaging).orElse(null);
 
         storeMessageIdInContext(message, messaging);
 
-        Optional<UserMessage> userMessage = Optional.ofNullable(messaging)
-                .map(Messaging::getUserMessage)
-                .map(Collection::stream).orElseGet(Stream::empty)
-                .findFirst();
+        Optional<UserMessage> userMessage = context.flatMap(As4EnvelopeContext::getUserMessage);
 
         try {
+            Bus bus = message.getExchange().getBus();
             Policy policy = userMessage.isPresent()
-                    ? policyService.getPolicy(userMessage.get().getCollaborationInfo())
-                    : policyService.getPolicy();
+                    ? policyService.getPolicy(userMessage.get().getCollaborationInfo(), bus)
+                    : policyService.getPolicy(bus);
             message.put(AssertionInfoMap.class.getName(), new AssertionInfoMap(policy));
         } catch (Exception e) {
             throw new Fault(e);
         }
     }
 
-    private Messaging getMessaging(Message message) {
-        SoapMessage soapMessage = (SoapMessage) message;
-        Header header = soapMessage.getHeader(Constants.MESSAGING_QNAME);
-
-        try {
-            Unmarshaller unmarshaller = jaxbContext.createUnmarshaller();
-            return unmarshaller.unmarshal((Node) header.getObject(), Messaging.class).getValue();
-        } catch (JAXBException e) {
-            throw new Fault(e);
-        }
-    }
-
     private void storeMessageIdInContext(Message message, Messaging messaging) throws Fault {
         String messageId = Optional.ofNullable(messaging)
                 .map(Messaging::getUserMessage)
@@ -4,9 +4,10 @@ import com.google.inject.Inject;
 import com.google.inject.Singleton;
 import lombok.extern.slf4j.Slf4j;
 import network.oxalis.ng.as4.common.MerlinProvider;
+import network.oxalis.ng.as4.util.AttachmentCache;
 import network.oxalis.ng.api.settings.Settings;
 import network.oxalis.ng.commons.security.KeyStoreConf;
-import org.apache.cxf.BusFactory;
+import org.apache.cxf.Bus;
 import org.apache.cxf.ext.logging.LoggingFeature;
 import org.apache.cxf.jaxws.EndpointImpl;
 import org.apache.cxf.transport.servlet.CXFNonSpringServlet;
@@ -35,9 +36,19 @@ public class As4Servlet extends CXFNonSpringServlet {
     @Inject
     private MerlinProvider merlinProvider;
 
+    @Inject
+    private AttachmentCache attachmentCache;
+
+    /**
+     * Bus created by the AS4 module, policies are prepared for this bus.
+     */
+    @Inject
+    private Bus as4Bus;
+
     @Override
     protected void loadBus(ServletConfig servletConfig) {
-        this.bus = BusFactory.getThreadDefaultBus();
+        this.bus = as4Bus;
+        attachmentCache.configure(bus);
 
         EndpointImpl endpointImpl = endpointsPublisher.publish(getBus());
 
@@ -0,0 +1,237 @@
+package network.oxalis.ng.as4.inbound;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.hash.BloomFilter;
+import com.google.common.hash.Funnels;
+import com.google.common.hash.Hashing;
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+import com.google.inject.name.Named;
+import lombok.extern.slf4j.Slf4j;
+import network.oxalis.ng.api.settings.Settings;
+import network.oxalis.ng.as4.config.As4Conf;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Receipts given for recently received messages, making it possible to answer a retry of a message with the receipt
+ * already given instead of processing the message again.
+ * <p>
+ * Receipts are kept per sender, a Message-ID is only unique for the sender choosing it, so another sender reusing
+ * the Message-ID is never answered with the receipt given to the first.
+ * <p>
+ * A Bloom filter answers for most new messages without touching the disk, the latest receipts are kept in memory and
+ * the rest are read from one file per message on disk. Receipts are kept for the configured retention, so duplicates
+ * are detected across restarts. Failing to read or write a receipt is logged, the message is then processed as new.
+ */
+@Slf4j
+@Singleton
+public class ReceiptStore {
+
+    private static final long PRUNE_INTERVAL = TimeUnit.HOURS.toMillis(1);
+
+    private final Path folder;
+
+    private final Executor executor;
+
+    private final boolean enabled;
+
+    private final long expectedInsertions;
+
+    private final long retention;
+
+    private final Cache<String, byte[]> cache;
+
+    private final AtomicBoolean pruning = new AtomicBoolean();
+
+    private volatile BloomFilter<CharSequence> filter;
+
+    private volatile BloomFilter<CharSequence> rebuilding;
+
+    private volatile long pruned;
+
+    @Inject
+    public ReceiptStore(Settings<As4Conf> settings, @Named("home") Path homeFolder,
+                        @Named("default") ExecutorService executor) {
+        this(settings.getPath(As4Conf.DEDUP_PATH, homeFolder), executor,
+                Boolean.parseBoolean(settings.getString(As4Conf.DEDUP_ENABLED)),
+                settings.getInt(As4Conf.DEDUP_CACHE_SIZE),
+                settings.getInt(As4Conf.DEDUP_EXPECTED),
+                settings.getInt(As4Conf.DEDUP_RETENTION));
+    }
+
+    ReceiptStore(Path folder, Executor executor, boolean enabled, long cacheSize, long expectedInsertions,
+                 long retention) {
+        this.folder = folder;
+        this.executor = executor;
+        this.enabled = enabled;
+        this.expectedInsertions = Math.max(expectedInsertions, 1000);
+        this.retention = TimeUnit.SECONDS.toMillis(retention);
+        this.cache = CacheBuilder.newBuilder()
+                .maximumSize(cacheSize)
+                .expireAfterWrite(retention, TimeUnit.SECONDS)
+                .build();
+        this.filter = createFilter(0);
+
+        if (enabled) {
+            prune();
+            log.info("Loaded {} receipts from '{}'.", filter.approximateElementCount(), folder);
+        }
+    }
+
+    /**
+     * Gets the receipt given for a message with the given Message-ID from the given sender, if the message has been
+     * received before.
+     *
+     * @param sender    Identity of the sender, the subject of its signing certificate.
+     * @param messageId Message-ID of the message.
+     */
+    public Optional<byte[]> get(String sender, String messageId) {
+        if (!enabled)
+            return Optional.empty();
+
+        String key = key(sender, messageId);
+        if (!filter.mightContain(key))
+            return Optional.empty();
+
+        byte[] receipt = cache.getIfPresent(key);
+        if (receipt != null)
+            return Optional.of(receipt);
+
+        Path file = path(key);
+        try {
+            if (isExpired(file, System.currentTimeMillis()))
+                return Optional.empty();
+
+            receipt = Files.readAllBytes(file);
+            cache.put(key, receipt);
+            return Optional.of(receipt);
+        } catch (NoSuchFileException e) {
+            return Optional.empty();
+        } catch (IOException e) {
+            log.warn("Unable to read receipt of message '{}': {}", messageId, e.getMessage());
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Keeps the receipt given for a message from the given sender. To be called when the message is persisted.
+     */
+    public void put(String sender, String messageId, byte[] receipt) {
+        if (!enabled)
+            return;
+
+        String key = key(sender, messageId);
+        cache.put(key, receipt);
+
+        try {
+            Path file = path(key);
+            Files.createDirectories(file.getParent());
+
+            Path temp = Files.createTempFile(file.getParent(), key, ".tmp");
+            try {
+                Files.write(temp, receipt);
+                Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } finally {
+                Files.deleteIfExists(temp);
+            }
+        } catch (IOException e) {
+            log.warn("Unable to write receipt of message '{}': {}", messageId, e.getMessage());
+        }
+
+        filter.put(key);
+        BloomFilter<CharSequence> next = rebuilding;
+        if (next != null)
+            next.put(key);
+
+        pruneIfStale();
+    }
+
+    private void pruneIfStale() {
+        if (System.currentTimeMillis() - pruned > PRUNE_INTERVAL && pruning.compareAndSet(false, true)) {
+            try {
+                executor.execute(() -> {
+                    try {
+                        prune();
+                    } finally {
+                        pruning.set(false);
+                    }
+                });
+            } catch (RuntimeException e) {
+                pruning.set(false);
+                log.warn("Unable to schedule pruning of receipts: {}", e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Deletes expired receipts and rebuilds the Bloom filter from the receipts left, sized for the current number
+     * of receipts.
+     */
+    private void prune() {
+        long now = System.currentTimeMillis();
+
+        try {
+            Files.createDirectories(folder);
+
+            // Receipts written while listing the folder are put in the new filter by put(..).
+            BloomFilter<CharSequence> next = createFilter(filter.approximateElementCount());
+            rebuilding = next;
+
+            List<Path> files;
+            try (Stream<Path> stream = Files.walk(folder, 2)) {
+                files = stream.filter(Files::isRegularFile).collect(Collectors.toList());
+            }
+
+            for (Path file : files) {
+                String name = file.getFileName().toString();
+                if (name.endsWith(".tmp") || isExpired(file, now))
+                    Files.deleteIfExists(file);
+                else
+                    next.put(name);
+            }
+
+            filter = next;
+        } catch (IOException e) {
+            log.warn("Unable to prune receipts in '{}': {}", folder, e.getMessage());
+        } finally {
+            rebuilding = null;
+        }
+
+        pruned = now;
+    }
+
+    private boolean isExpired(Path file, long now) throws IOException {
+        return Files.getLastModifiedTime(file).toMillis() + retention < now;
+    }
+
+    private BloomFilter<CharSequence> createFilter(long count) {
+        return BloomFilter.create(Funnels.stringFunnel(StandardCharsets.UTF_8), Math.max(expectedInsertions, count * 2));
+    }
+
+    private Path path(String key) {
+        return folder.resolve(key.substring(0, 2)).resolve(key);
+    }
+
+    private static String key(String sender, String messageId) {
+        return Hashing.sha256().newHasher()
+                .putString(sender, StandardCharsets.UTF_8)
+                .putByte((byte) 0)
+                .putString(messageId, StandardCharsets.UTF_8)
+                .hash().toString();
+    }
+}
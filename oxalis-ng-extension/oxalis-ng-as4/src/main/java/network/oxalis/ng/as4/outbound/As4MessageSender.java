@@ -8,21 +8,24 @@ import network.oxalis.ng.as4.common.AS4Constants;
 import network.oxalis.ng.as4.common.MerlinProvider;
 import network.oxalis.ng.as4.config.As4Conf;
 import network.oxalis.ng.as4.lang.OxalisAs4TransmissionException;
+import network.oxalis.ng.as4.util.CompressionDataSource;
 import network.oxalis.ng.as4.util.CompressionUtil;
 import network.oxalis.ng.as4.util.Constants;
+import network.oxalis.ng.as4.util.Marshalling;
 import network.oxalis.ng.as4.util.PolicyService;
+import network.oxalis.ng.api.outbound.PayloadSource;
 import network.oxalis.ng.api.outbound.TransmissionRequest;
 import network.oxalis.ng.api.outbound.TransmissionResponse;
 import network.oxalis.ng.api.settings.Settings;
 import network.oxalis.ng.commons.http.HttpConf;
 import network.oxalis.ng.commons.security.KeyStoreConf;
+import org.apache.cxf.attachment.AttachmentImpl;
 import org.apache.cxf.attachment.AttachmentUtil;
 import org.apache.cxf.binding.soap.SoapHeader;
 import org.apache.cxf.configuration.jsse.TLSClientParameters;
 import org.apache.cxf.endpoint.Client;
 import org.apache.cxf.ext.logging.LoggingFeature;
 import org.apache.cxf.headers.Header;
-import org.apache.cxf.jaxb.JAXBDataBinding;
 import org.apache.cxf.jaxws.DispatchImpl;
 import org.apache.cxf.message.Attachment;
 import org.apache.cxf.message.Message;
@@ -32,7 +35,7 @@ import org.apache.cxf.ws.policy.WSPolicyFeature;
 import org.apache.wss4j.common.crypto.Merlin;
 import org.oasis_open.docs.ebxml_msg.ebms.v3_0.ns.core._200704.Messaging;
 
-import jakarta.xml.bind.JAXBException;
+import jakarta.activation.DataHandler;
 
 import javax.net.ssl.KeyManager;
 import javax.xml.namespace.QName;
@@ -41,6 +44,7 @@ import jakarta.xml.ws.BindingProvider;
 import jakarta.xml.ws.Dispatch;
 import jakarta.xml.ws.Service;
 import jakarta.xml.ws.soap.SOAPBinding;
+import java.io.Closeable;
 import java.io.IOException;
 import java.io.InputStream;
 import java.util.*;
@@ -63,10 +67,11 @@ public class As4MessageSender {
     private final TransmissionResponseConverter transmissionResponseConverter;
     private final MerlinProvider merlinProvider;
     private final PolicyService policyService;
+    private final DispatchPool dispatchPool;
     private final String browserType;
 
     @Inject
-    public As4MessageSender(MessagingProvider messagingProvider, MessageIdGenerator messageIdGenerator, Settings<KeyStoreConf> settings, Settings<As4Conf> as4settings, CompressionUtil compressionUtil, Settings<HttpConf> httpConfSettings, TransmissionResponseConverter transmissionResponseConverter, MerlinProvider merlinProvider, PolicyService policyService, BrowserTypeProvider browserTypeProvider) {
+    public As4MessageSender(MessagingProvider messagingProvider, MessageIdGenerator messageIdGenerator, Settings<KeyStoreConf> settings, Settings<As4Conf> as4settings, CompressionUtil compressionUtil, Settings<HttpConf> httpConfSettings, TransmissionResponseConverter transmissionResponseConverter, MerlinProvider merlinProvider, PolicyService policyService, DispatchPool dispatchPool, BrowserTypeProvider browserTypeProvider) {
         this.messagingProvider = messagingProvider;
         this.messageIdGenerator = messageIdGenerator;
         this.settings = settings;
@@ -76,13 +81,19 @@ public class As4MessageSender {
         this.transmissionResponseConverter = transmissionResponseConverter;
         this.merlinProvider = merlinProvider;
         this.policyService = policyService;
+        this.dispatchPool = dispatchPool;
         this.browserType = browserTypeProvider.getBrowserType();
     }
 
     public TransmissionResponse send(TransmissionRequest request) throws OxalisAs4TransmissionException {
-        DispatchImpl<SOAPMessage> dispatch = createDispatch(request);
+        DispatchPool.DispatchKey key = new DispatchPool.DispatchKey(
+                request.getEndpoint().getAddress().toString(), policyService.getPolicy(request));
+        DispatchImpl<SOAPMessage> dispatch = dispatchPool.borrow(key, () -> createDispatch(key));
         AttachmentHolder attachmentHolder = null;
+        boolean reusable = false;
         try {
+            dispatch.getRequestContext().put(ENCRYPT_CERT, request.getEndpoint().getCertificate());
+
             attachmentHolder = prepareAttachment(request);
             ArrayList<Attachment> attachments = new ArrayList<>(Collections.singletonList(attachmentHolder.attachment));
             dispatch.getRequestContext().put(Message.ATTACHMENTS, attachments);
@@ -90,8 +101,12 @@ public class As4MessageSender {
             Messaging messaging = messagingProvider.createMessagingHeader(request, attachments);
             SoapHeader header = getSoapHeader(messaging);
             dispatch.getRequestContext().put(Header.HEADER_LIST, new ArrayList<>(Collections.singletonList(header)));
-            return invoke(request, dispatch);
+            TransmissionResponse response = invoke(request, dispatch);
+            reusable = true;
+            return response;
         } finally {
+            releaseDispatch(key, dispatch, reusable);
+
             if (attachmentHolder != null) {
                 try {
                     attachmentHolder.inputStream.close();
@@ -102,34 +117,44 @@ public class As4MessageSender {
         }
     }
 
+    private void releaseDispatch(DispatchPool.DispatchKey key, DispatchImpl<SOAPMessage> dispatch, boolean reusable) {
+        if (!reusable) {
+            dispatchPool.invalidate(dispatch);
+            return;
+        }
+
+        // Remove request-scoped properties before the dispatch is handed to the next transmission
+        Map<String, Object> requestContext = dispatch.getRequestContext();
+        requestContext.remove(ENCRYPT_CERT);
+        requestContext.remove(Message.ATTACHMENTS);
+        requestContext.remove(Header.HEADER_LIST);
+
+        dispatchPool.release(key, dispatch);
+    }
+
     private TransmissionResponse invoke(TransmissionRequest request, DispatchImpl<SOAPMessage> dispatch) throws OxalisAs4TransmissionException {
         try {
             SOAPMessage response = dispatch.invoke(null);
-            return transmissionResponseConverter.convert(request, response);
+            byte[] receipt = ReceiptCaptureInterceptor.getReceipt(dispatch.getResponseContext()).orElse(null);
+            return transmissionResponseConverter.convert(request, response, receipt);
         } catch (Exception e) {
             throw new OxalisAs4TransmissionException("Failed to send message", e);
         }
     }
 
-    private SoapHeader getSoapHeader(Messaging messaging) throws OxalisAs4TransmissionException {
-        try {
-            JAXBDataBinding binding = new JAXBDataBinding(Messaging.class);
-            return new SoapHeader(
-                    Constants.MESSAGING_QNAME,
-                    messaging,
-                    binding,
-                    true);
-        } catch (JAXBException e) {
-            throw new OxalisAs4TransmissionException("Unable to marshal AS4 header", e);
-        }
+    private SoapHeader getSoapHeader(Messaging messaging) {
+        return new SoapHeader(
+                Constants.MESSAGING_QNAME,
+                messaging,
+                Marshalling.getMessagingDataBinding(),
+                true);
     }
 
-    private void configureSecurity(TransmissionRequest request, Dispatch<SOAPMessage> dispatch) {
+    private void configureSecurity(Dispatch<SOAPMessage> dispatch) {
         Merlin merlin = merlinProvider.getMerlin();
         dispatch.getRequestContext().put(SIGNATURE_CRYPTO, merlin);
         dispatch.getRequestContext().put(SIGNATURE_PASSWORD, settings.getString(KeyStoreConf.KEY_PASSWORD));
         dispatch.getRequestContext().put(SIGNATURE_USERNAME, settings.getString(KeyStoreConf.KEY_ALIAS));
-        dispatch.getRequestContext().put(ENCRYPT_CERT, request.getEndpoint().getCertificate());
         dispatch.getRequestContext().put(USE_ATTACHMENT_ENCRYPTION_CONTENT_ONLY_TRANSFORM, true);
     }
 
@@ -140,8 +165,12 @@ public class As4MessageSender {
         headers.put("CompressionType", Collections.singletonList("application/gzip"));
         headers.put("MimeType", Collections.singletonList("application/xml"));
 
+        if (Boolean.parseBoolean(as4settings.getString(As4Conf.COMPRESSION_STREAMING))) {
+            return prepareStreamingAttachment(request, headers);
+        }
+
         try {
-            InputStream compressedStream = compressionUtil.getCompressedStream(request.getPayload());
+            InputStream compressedStream = compressionUtil.getCompressedStream(openPayload(request));
             Attachment attachment = AttachmentUtil.createAttachment(compressedStream, headers);
 
             return new AttachmentHolder(compressedStream, attachment);
@@ -150,6 +179,31 @@ public class As4MessageSender {
         }
     }
 
+    private AttachmentHolder prepareStreamingAttachment(TransmissionRequest request, Map<String, List<String>> headers)
+            throws OxalisAs4TransmissionException {
+        CompressionDataSource dataSource;
+        try {
+            dataSource = compressionUtil.getCompressedDataSource(openPayload(request), "application/octet-stream");
+        } catch (IOException e) {
+            throw new OxalisAs4TransmissionException("Unable to read payload", e);
+        }
+
+        AttachmentImpl attachment = new AttachmentImpl(
+                AttachmentUtil.cleanContentId(headers.get("Content-ID").get(0)), new DataHandler(dataSource));
+        headers.forEach((name, values) -> attachment.setHeader(name, values.get(0)));
+
+        return new AttachmentHolder(dataSource, attachment);
+    }
+
+    /**
+     * Opens the payload, reading from the source of the payload when the request has one. A source is opened anew for
+     * each attempt, and a file is read directly into the compression.
+     */
+    private InputStream openPayload(TransmissionRequest request) throws IOException {
+        Optional<PayloadSource> payloadSource = request.getPayloadSource();
+        return payloadSource.isPresent() ? payloadSource.get().openStream() : request.getPayload();
+    }
+
     private String getContentID(TransmissionRequest request) {
         if (request instanceof As4TransmissionRequest) {
             As4TransmissionRequest as4request = (As4TransmissionRequest) request;
@@ -159,12 +213,12 @@ public class As4MessageSender {
         return messageIdGenerator.generate();
     }
 
-    private DispatchImpl<SOAPMessage> createDispatch(TransmissionRequest request) throws OxalisAs4TransmissionException {
-        DispatchImpl<SOAPMessage> dispatch = (DispatchImpl<SOAPMessage>) getService(request)
+    private DispatchImpl<SOAPMessage> createDispatch(DispatchPool.DispatchKey key) {
+        DispatchImpl<SOAPMessage> dispatch = (DispatchImpl<SOAPMessage>) getService(key)
                 .createDispatch(PORT_NAME, SOAPMessage.class, Service.Mode.MESSAGE);
-        dispatch.getRequestContext().put(BindingProvider.ENDPOINT_ADDRESS_PROPERTY, request.getEndpoint().getAddress().toString());
+        dispatch.getRequestContext().put(BindingProvider.ENDPOINT_ADDRESS_PROPERTY, key.getAddress());
 
-        configureSecurity(request, dispatch);
+        configureSecurity(dispatch);
 
         TLSClientParameters tls = new TLSClientParameters();
         tls.setKeyManagers(new KeyManager[0]);   // no client cert, if in future bilateral test requires mTLS then set to null
@@ -172,6 +226,7 @@ public class As4MessageSender {
         //tls.setSecureSocketProtocol("TLSv1.2");// Not setting Protocol here, you can control it via -Djdk.tls.client.protocols=TLSv1.3,TLSv1.2
 
         final Client client = dispatch.getClient();
+        client.getInInterceptors().add(new ReceiptCaptureInterceptor());
 
         if (AS4Constants.CEF_CONFORMANCE.equalsIgnoreCase(as4settings.getString(As4Conf.TYPE))) {
             client.getInInterceptors().add(getLoggingBeforeSecurityInInterceptor());
@@ -198,15 +253,15 @@ public class As4MessageSender {
         return interceptor;
     }
 
-    private Service getService(TransmissionRequest request) throws OxalisAs4TransmissionException {
-        Service service = Service.create(SERVICE_NAME, new LoggingFeature(), new WSPolicyFeature(policyService.getPolicy(request)));
-        service.addPort(PORT_NAME, SOAPBinding.SOAP12HTTP_BINDING, request.getEndpoint().getAddress().toString());
+    private Service getService(DispatchPool.DispatchKey key) {
+        Service service = Service.create(SERVICE_NAME, new LoggingFeature(), new WSPolicyFeature(key.getPolicy()));
+        service.addPort(PORT_NAME, SOAPBinding.SOAP12HTTP_BINDING, key.getAddress());
         return service;
     }
 
     @RequiredArgsConstructor
     private static class AttachmentHolder {
-        private final InputStream inputStream;
+        private final Closeable inputStream;
         private final Attachment attachment;
     }
 }
@@ -1,6 +1,7 @@
 package network.oxalis.ng.as4.outbound;
 
 import com.google.inject.*;
+import com.google.inject.name.Named;
 import com.google.inject.name.Names;
 import lombok.extern.slf4j.Slf4j;
 import network.oxalis.ng.as4.common.AS4Constants;
@@ -27,18 +28,24 @@ public class As4OutboundModule extends AbstractModule {
         bind(Key.get(MessageSender.class, Names.named("oxalis-as4")))
                 .to(As4MessageSenderFacade.class);
 
-        bind(Key.get(ExecutorService.class, Names.named("compression-pool")))
-                .toProvider(() -> Executors.newFixedThreadPool(5)).in(Scopes.SINGLETON);
-
         bind(CompressionUtil.class);
 
         bind(MessagingProvider.class);
 
         bind(As4MessageSender.class);
 
+        bind(DispatchPool.class);
+
         bind(TransmissionResponseConverter.class);
     }
 
+    @Provides
+    @Singleton
+    @Named("compression-pool")
+    public ExecutorService getCompressionPool(Settings<As4Conf> settings) {
+        return Executors.newFixedThreadPool(settings.getInt(As4Conf.COMPRESSION_POOL_SIZE));
+    }
+
     @Provides
     @Singleton
     public PeppolConfiguration getPeppolOutboundConfiguration(Settings<As4Conf> settings) {
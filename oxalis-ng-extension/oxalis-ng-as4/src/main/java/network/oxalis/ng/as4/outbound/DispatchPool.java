@@ -0,0 +1,151 @@
+package network.oxalis.ng.as4.outbound;
+
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+import lombok.Value;
+import lombok.extern.slf4j.Slf4j;
+import network.oxalis.ng.api.settings.Settings;
+import network.oxalis.ng.as4.config.As4Conf;
+import network.oxalis.ng.as4.lang.OxalisAs4TransmissionException;
+import org.apache.cxf.jaxws.DispatchImpl;
+import org.apache.neethi.Policy;
+
+import jakarta.xml.soap.SOAPMessage;
+import java.util.concurrent.BlockingDeque;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bounded pool of prepared CXF dispatch clients, kept per endpoint address and WS-Policy.
+ * <p>
+ * A borrowed dispatch is used by one thread only until it is released again, so request-scoped properties may be
+ * put in its request context as long as they are removed before the dispatch is released. Dispatch clients not
+ * used within the configured idle timeout are destroyed.
+ */
+@Slf4j
+@Singleton
+public class DispatchPool {
+
+    private final ConcurrentMap<DispatchKey, BlockingDeque<PooledDispatch>> pool = new ConcurrentHashMap<>();
+
+    private final AtomicLong lastEviction = new AtomicLong(System.currentTimeMillis());
+
+    private final int maxIdle;
+
+    private final long idleTimeout;
+
+    @Inject
+    public DispatchPool(Settings<As4Conf> settings) {
+        this(settings.getInt(As4Conf.DISPATCH_POOL_MAX_IDLE),
+                TimeUnit.SECONDS.toMillis(settings.getInt(As4Conf.DISPATCH_POOL_IDLE_TIMEOUT)));
+    }
+
+    DispatchPool(int maxIdle, long idleTimeout) {
+        this.maxIdle = maxIdle;
+        this.idleTimeout = idleTimeout;
+    }
+
+    /**
+     * Returns an idle dispatch for the given key, or a new one created by the factory if none is available.
+     */
+    public DispatchImpl<SOAPMessage> borrow(DispatchKey key, DispatchFactory factory) throws OxalisAs4TransmissionException {
+        BlockingDeque<PooledDispatch> idle = pool.get(key);
+
+        if (idle != null) {
+            PooledDispatch pooled;
+            while ((pooled = idle.pollFirst()) != null) {
+                if (!pooled.isExpired(System.currentTimeMillis(), idleTimeout)) {
+                    return pooled.getDispatch();
+                }
+
+                destroy(pooled.getDispatch());
+            }
+        }
+
+        log.debug("Creating dispatch for {}", key.getAddress());
+        return factory.create();
+    }
+
+    /**
+     * Returns a dispatch to the pool. The dispatch is destroyed if the pool for the key is full.
+     */
+    public void release(DispatchKey key, DispatchImpl<SOAPMessage> dispatch) {
+        if (maxIdle <= 0) {
+            destroy(dispatch);
+            return;
+        }
+
+        BlockingDeque<PooledDispatch> idle = pool.computeIfAbsent(key, k -> new LinkedBlockingDeque<>(maxIdle));
+        if (!idle.offerFirst(new PooledDispatch(dispatch, System.currentTimeMillis()))) {
+            destroy(dispatch);
+        }
+
+        evictIdle();
+    }
+
+    /**
+     * Destroys a dispatch which should not be reused, e.g. after a failed transmission.
+     */
+    public void invalidate(DispatchImpl<SOAPMessage> dispatch) {
+        destroy(dispatch);
+    }
+
+    public int getIdleCount() {
+        return pool.values().stream().mapToInt(BlockingDeque::size).sum();
+    }
+
+    private void evictIdle() {
+        long now = System.currentTimeMillis();
+        long last = lastEviction.get();
+
+        // Make sure only one thread at a time runs through the pool, and not more often than needed.
+        if (now - last < Math.min(idleTimeout, TimeUnit.MINUTES.toMillis(1)) || !lastEviction.compareAndSet(last, now)) {
+            return;
+        }
+
+        for (BlockingDeque<PooledDispatch> idle : pool.values()) {
+            PooledDispatch oldest;
+            while ((oldest = idle.peekLast()) != null && oldest.isExpired(now, idleTimeout)) {
+                if (idle.removeLastOccurrence(oldest)) {
+                    destroy(oldest.getDispatch());
+                }
+            }
+        }
+    }
+
+    private void destroy(DispatchImpl<SOAPMessage> dispatch) {
+        try {
+            dispatch.getClient().destroy();
+        } catch (Exception e) {
+            log.debug("Unable to destroy dispatch", e);
+        }
+    }
+
+    @FunctionalInterface
+    public interface DispatchFactory {
+        DispatchImpl<SOAPMessage> create() throws OxalisAs4TransmissionException;
+    }
+
+    /**
+     * Identifies dispatch clients which are interchangeable. Policies are compared by identity, which works as
+     * {@link network.oxalis.ng.as4.util.PolicyService} returns the same instance for the same policy.
+     */
+    @Value
+    public static class DispatchKey {
+        String address;
+        Policy policy;
+    }
+
+    @Value
+    private static class PooledDispatch {
+        DispatchImpl<SOAPMessage> dispatch;
+        long lastUsed;
+
+        boolean isExpired(long now, long idleTimeout) {
+            return now - lastUsed > idleTimeout;
+        }
+    }
+}
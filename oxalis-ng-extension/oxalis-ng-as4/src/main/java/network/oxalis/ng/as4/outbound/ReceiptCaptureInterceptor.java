@@ -0,0 +1,104 @@
+package network.oxalis.ng.as4.outbound;
+
+import org.apache.cxf.interceptor.Fault;
+import org.apache.cxf.message.Message;
+import org.apache.cxf.phase.AbstractPhaseInterceptor;
+import org.apache.cxf.phase.Phase;
+import org.apache.cxf.transport.common.gzip.GZIPInInterceptor;
+
+import java.io.ByteArrayOutputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Keeps a copy of the bytes of the response as they are read by CXF, making the receipt available as received
+ * without serializing the parsed response again. Multipart responses and responses larger than the limit are not
+ * kept.
+ */
+public class ReceiptCaptureInterceptor extends AbstractPhaseInterceptor<Message> {
+
+    private static final String RECEIPT_CAPTURE = "network.oxalis.as4.receipt.capture";
+
+    private static final int LIMIT = 1024 * 1024;
+
+    public ReceiptCaptureInterceptor() {
+        super(Phase.RECEIVE);
+        addAfter(GZIPInInterceptor.class.getName());
+    }
+
+    /**
+     * Gets the bytes of the response from the response context of the client.
+     */
+    public static Optional<byte[]> getReceipt(Map<String, Object> responseContext) {
+        return Optional.ofNullable((CapturingInputStream) responseContext.get(RECEIPT_CAPTURE))
+                .map(CapturingInputStream::getBytes);
+    }
+
+    @Override
+    public void handleMessage(Message message) throws Fault {
+        String contentType = (String) message.get(Message.CONTENT_TYPE);
+        InputStream inputStream = message.getContent(InputStream.class);
+
+        if (inputStream == null || contentType == null || contentType.toLowerCase(Locale.ROOT).startsWith("multipart/"))
+            return;
+
+        CapturingInputStream capturingInputStream = new CapturingInputStream(inputStream);
+        message.setContent(InputStream.class, capturingInputStream);
+        message.put(RECEIPT_CAPTURE, capturingInputStream);
+    }
+
+    private static class CapturingInputStream extends FilterInputStream {
+
+        private ByteArrayOutputStream captured = new ByteArrayOutputStream(8192);
+
+        CapturingInputStream(InputStream inputStream) {
+            super(inputStream);
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b != -1)
+                capture(new byte[]{(byte) b}, 0, 1);
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int n = super.read(b, off, len);
+            if (n > 0)
+                capture(b, off, n);
+            return n;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            // Skipped bytes are read to keep the copy complete.
+            byte[] buffer = new byte[(int) Math.min(Math.max(n, 0), 8192)];
+            return Math.max(read(buffer, 0, buffer.length), 0);
+        }
+
+        @Override
+        public boolean markSupported() {
+            return false;
+        }
+
+        synchronized byte[] getBytes() {
+            return captured == null ? null : captured.toByteArray();
+        }
+
+        private synchronized void capture(byte[] b, int off, int len) {
+            if (captured == null)
+                return;
+
+            if (captured.size() + len > LIMIT)
+                captured = null;
+            else
+                captured.write(b, off, len);
+        }
+    }
+}
@@ -10,6 +10,7 @@ import network.oxalis.ng.api.timestamp.Timestamp;
 import network.oxalis.ng.api.timestamp.TimestampProvider;
 import network.oxalis.ng.as4.lang.OxalisAs4TransmissionException;
 import network.oxalis.ng.as4.util.AS4ErrorCode;
+import network.oxalis.ng.as4.util.JaxbPool;
 import network.oxalis.ng.as4.util.Marshalling;
 import network.oxalis.ng.commons.bouncycastle.BCHelper;
 import network.oxalis.vefa.peppol.common.code.DigestMethod;
@@ -19,9 +20,7 @@ import org.oasis_open.docs.ebxml_msg.ebms.v3_0.ns.core._200704.SignalMessage;
 import org.w3c.dom.Node;
 import org.w3c.dom.NodeList;
 
-import jakarta.xml.bind.JAXBContext;
 import jakarta.xml.bind.JAXBException;
-import jakarta.xml.bind.Unmarshaller;
 import jakarta.xml.soap.SOAPException;
 import jakarta.xml.soap.SOAPMessage;
 import java.io.ByteArrayOutputStream;
@@ -33,7 +32,7 @@ import static network.oxalis.ng.as4.util.Constants.DIGEST_ALGORITHM_SHA256;
 
 public class TransmissionResponseConverter {
 
-    private final JAXBContext jaxbContext = Marshalling.getInstance();
+    private final JaxbPool jaxbPool = Marshalling.getPool();
     private final TimestampProvider timestampProvider;
 
     @Inject
@@ -42,6 +41,14 @@ public class TransmissionResponseConverter {
     }
 
     public TransmissionResponse convert(TransmissionRequest request, SOAPMessage response) throws OxalisAs4TransmissionException {
+        return convert(request, response, null);
+    }
+
+    /**
+     * Converts the response, using the bytes of the response as received for the receipt when available instead of
+     * serializing the parsed response.
+     */
+    public TransmissionResponse convert(TransmissionRequest request, SOAPMessage response, byte[] receipt) throws OxalisAs4TransmissionException {
         SignalMessage signalMessage = getSignalMessage(response);
 
         String refToMessageId = signalMessage.getMessageInfo().getRefToMessageId();
@@ -59,23 +66,27 @@ public class TransmissionResponseConverter {
         Timestamp ts = getTimestamp();
         Digest digest = getDigest();
 
-        ByteArrayOutputStream bos = new ByteArrayOutputStream();
-        try {
-            response.writeTo(bos);
-        } catch (SOAPException | IOException e) {
-            throw new OxalisAs4TransmissionException("Could not write response", e);
-        }
-
         return new As4TransmissionResponse(
                 ti,
                 request,
                 digest,
-                bos.toByteArray(),
+                receipt != null ? receipt : writeResponse(response),
                 ts,
                 ts.getDate()
         );
     }
 
+    private byte[] writeResponse(SOAPMessage response) throws OxalisAs4TransmissionException {
+        ByteArrayOutputStream bos = new ByteArrayOutputStream(8192);
+        try {
+            response.writeTo(bos);
+        } catch (SOAPException | IOException e) {
+            throw new OxalisAs4TransmissionException("Could not write response", e);
+        }
+
+        return bos.toByteArray();
+    }
+
     private Digest getDigest() throws OxalisAs4TransmissionException {
         try {
             MessageDigest md = BCHelper.getMessageDigest(DIGEST_ALGORITHM_SHA256);
@@ -97,8 +108,7 @@ public class TransmissionResponseConverter {
         Node signalNode = getSignalNode(soapMessage);
 
         try {
-            Unmarshaller unmarshaller = jaxbContext.createUnmarshaller();
-            return unmarshaller.unmarshal(signalNode, SignalMessage.class).getValue();
+            return jaxbPool.unmarshal(signalNode, SignalMessage.class);
         } catch (JAXBException e) {
             throw new OxalisAs4TransmissionException("Could not create unmarshaller", e);
         }
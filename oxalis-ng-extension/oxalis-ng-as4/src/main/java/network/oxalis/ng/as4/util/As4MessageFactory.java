@@ -16,6 +16,8 @@ import jakarta.xml.bind.JAXBContext;
 import jakarta.xml.bind.JAXBElement;
 import javax.xml.datatype.XMLGregorianCalendar;
 import jakarta.xml.soap.*;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
 import java.util.Date;
 import java.util.List;
 import java.util.stream.Collectors;
@@ -25,7 +27,7 @@ public class As4MessageFactory {
 
     private final MessageIdGenerator messageIdGenerator;
     private final MessageFactory messageFactory;
-    private final JAXBContext jaxbContext;
+    private final JaxbPool jaxbPool;
 
     @Inject
     public As4MessageFactory(MessageIdGenerator messageIdGenerator) throws SOAPException {
@@ -38,7 +40,7 @@ public class As4MessageFactory {
 
     public As4MessageFactory(MessageIdGenerator messageIdGenerator, MessageFactory messageFactory, JAXBContext jaxbContext) {
         this.messageFactory = messageFactory;
-        this.jaxbContext = jaxbContext;
+        this.jaxbPool = jaxbContext == Marshalling.getInstance() ? Marshalling.getPool() : new JaxbPool(jaxbContext);
         this.messageIdGenerator = messageIdGenerator;
     }
 
@@ -121,6 +123,21 @@ public class As4MessageFactory {
         return sb.toString();
     }
 
+    /**
+     * Reads a message previously written using {@link SOAPMessage#writeTo(java.io.OutputStream)}. Only messages
+     * without attachments are supported.
+     */
+    public SOAPMessage readMessage(byte[] message) throws OxalisAs4Exception {
+        try {
+            MimeHeaders mimeHeaders = new MimeHeaders();
+            mimeHeaders.addHeader("Content-Type", SOAPConstants.SOAP_1_2_CONTENT_TYPE);
+
+            return messageFactory.createMessage(mimeHeaders, new ByteArrayInputStream(message));
+        } catch (SOAPException | IOException e) {
+            throw new OxalisAs4Exception("Could not read SOAP message", e, AS4ErrorCode.EBMS_0202);
+        }
+    }
+
     public SOAPMessage marshalSignalMessage(SignalMessage signalMessage) throws OxalisAs4Exception {
         try {
             SOAPMessage message = messageFactory.createMessage();
@@ -135,7 +152,7 @@ public class As4MessageFactory {
                     signalMessage
             );
 
-            jaxbContext.createMarshaller().marshal(userMessageJAXBElement, messagingHeader);
+            jaxbPool.marshal(userMessageJAXBElement, messagingHeader);
 
             return message;
         } catch (Exception e) {
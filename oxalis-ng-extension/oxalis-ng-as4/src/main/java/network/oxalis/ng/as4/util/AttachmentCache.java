@@ -0,0 +1,185 @@
+package network.oxalis.ng.as4.util;
+
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+import com.google.inject.name.Named;
+import network.oxalis.ng.api.settings.Settings;
+import network.oxalis.ng.as4.config.As4Conf;
+import org.apache.cxf.Bus;
+import org.apache.cxf.attachment.AttachmentDeserializer;
+import org.apache.cxf.io.CachedConstants;
+import org.apache.cxf.io.CachedOutputStream;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Storage used when attachments are cached, in memory up to a threshold and in a temporary file above it.
+ * <p>
+ * Inbound the settings are put on the CXF bus, so attachments cached by CXF itself use them too, and the instance is
+ * registered as a bus extension for the attachment deserializer. Outbound they are used when payloads are compressed.
+ * Content spilled to a temporary file is counted, and may be read back through a memory mapping when the file is not
+ * encrypted.
+ */
+@Singleton
+public class AttachmentCache {
+
+    private final long threshold;
+
+    private final File directory;
+
+    private final long maxSize;
+
+    private final String cipher;
+
+    private final boolean mapped;
+
+    private final AtomicLong spilled = new AtomicLong();
+
+    private final AtomicLong spilledBytes = new AtomicLong();
+
+    public AttachmentCache() {
+        this(-1, null, -1, null, false);
+    }
+
+    @Inject
+    public AttachmentCache(Settings<As4Conf> settings, @Named("home") Path homeFolder) {
+        this(settings.getInt(As4Conf.CACHE_THRESHOLD),
+                toFile(settings.getPath(As4Conf.CACHE_DIRECTORY, homeFolder)),
+                Long.parseLong(settings.getString(As4Conf.CACHE_MAX_SIZE)),
+                settings.getString(As4Conf.CACHE_CIPHER),
+                Boolean.parseBoolean(settings.getString(As4Conf.CACHE_MAPPED)));
+    }
+
+    /**
+     * @param threshold Bytes kept in memory before spilling to a temporary file, negative for the CXF default.
+     * @param directory Directory of temporary files, null for the temporary directory of the JVM.
+     * @param maxSize   Maximum size of cached content, negative for no limit.
+     * @param cipher    Cipher transformation used to encrypt temporary files, null for no encryption.
+     * @param mapped    Whether temporary files are read back through a memory mapping.
+     */
+    AttachmentCache(long threshold, File directory, long maxSize, String cipher, boolean mapped) {
+        this.threshold = threshold;
+        this.directory = directory;
+        this.maxSize = maxSize;
+        this.cipher = cipher;
+        this.mapped = mapped && cipher == null;
+    }
+
+    /**
+     * Puts the settings on the bus, making them the defaults for attachments cached by CXF on this bus.
+     */
+    public void configure(Bus bus) {
+        if (threshold >= 0)
+            bus.setProperty(AttachmentDeserializer.ATTACHMENT_MEMORY_THRESHOLD, String.valueOf(threshold));
+        if (directory != null)
+            bus.setProperty(AttachmentDeserializer.ATTACHMENT_DIRECTORY, directory.getPath());
+        if (maxSize >= 0)
+            bus.setProperty(AttachmentDeserializer.ATTACHMENT_MAX_SIZE, String.valueOf(maxSize));
+        if (cipher != null)
+            bus.setProperty(CachedConstants.CIPHER_TRANSFORMATION_BUS_PROP, cipher);
+
+        bus.setExtension(this, AttachmentCache.class);
+    }
+
+    public CachedOutputStream newStream() throws IOException {
+        CachedOutputStream out = new CachedOutputStream();
+        if (threshold >= 0)
+            out.setThreshold(threshold);
+        if (directory != null)
+            out.setOutputDir(directory);
+        if (maxSize >= 0)
+            out.setMaxSize(maxSize);
+        if (cipher != null)
+            out.setCipherTransformation(cipher);
+        return out;
+    }
+
+    /**
+     * Closes the stream and gets the content written to it. A temporary file holding the content is deleted when the
+     * returned stream is closed, or right away when the file is read back through a memory mapping.
+     */
+    public InputStream getInputStream(CachedOutputStream out) throws IOException {
+        File tempFile = out.getTempFile();
+        if (tempFile != null) {
+            spilled.incrementAndGet();
+            spilledBytes.addAndGet(out.size());
+
+            if (mapped && out.size() <= Integer.MAX_VALUE) {
+                out.flush();
+                ByteBuffer buffer;
+                try (FileChannel channel = FileChannel.open(tempFile.toPath(), StandardOpenOption.READ)) {
+                    buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+                }
+                out.close();
+                return new ByteBufferInputStream(buffer);
+            }
+        }
+
+        InputStream in = out.getInputStream();
+        out.close();
+        return in;
+    }
+
+    /**
+     * Number of cached contents spilled to a temporary file.
+     */
+    public long getSpilled() {
+        return spilled.get();
+    }
+
+    /**
+     * Number of bytes spilled to temporary files.
+     */
+    public long getSpilledBytes() {
+        return spilledBytes.get();
+    }
+
+    private static File toFile(Path path) {
+        return path == null ? null : path.toFile();
+    }
+
+    private static class ByteBufferInputStream extends InputStream {
+
+        private final ByteBuffer buffer;
+
+        ByteBufferInputStream(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        @Override
+        public int read() {
+            return buffer.hasRemaining() ? buffer.get() & 0xff : -1;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) {
+            if (len == 0)
+                return 0;
+            if (!buffer.hasRemaining())
+                return -1;
+
+            int count = Math.min(len, buffer.remaining());
+            buffer.get(b, off, count);
+            return count;
+        }
+
+        @Override
+        public long skip(long n) {
+            int count = (int) Math.max(0, Math.min(n, buffer.remaining()));
+            buffer.position(buffer.position() + count);
+            return count;
+        }
+
+        @Override
+        public int available() {
+            return buffer.remaining();
+        }
+    }
+}
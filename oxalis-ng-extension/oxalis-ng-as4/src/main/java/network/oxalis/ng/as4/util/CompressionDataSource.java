@@ -0,0 +1,224 @@
+package network.oxalis.ng.as4.util;
+
+import com.google.common.io.ByteStreams;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.cxf.io.CachedOutputStream;
+
+import jakarta.activation.DataSource;
+import java.io.Closeable;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.PipedInputStream;
+import java.io.PipedOutputStream;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * {@link DataSource} gzipping the source stream on demand. Compression starts when the input stream is first
+ * requested and runs on the provided executor, feeding the consumer through a pipe, so the payload is never buffered
+ * as a whole and the consumer does not wait for compression to complete.
+ * <p>
+ * The compressed bytes are kept in the attachment cache as they are read. Once the first stream is read to the end,
+ * the input stream may be requested again and is replayed from the cache, as WS-Security reads the attachment for
+ * signing and encryption before the message is written.
+ */
+@Slf4j
+public class CompressionDataSource implements DataSource, Closeable {
+
+    private static final int PIPE_SIZE = 64 * 1024;
+
+    private final InputStream sourceStream;
+
+    private final ExecutorService executor;
+
+    private final int level;
+
+    private final String contentType;
+
+    private final AttachmentCache attachmentCache;
+
+    private boolean started;
+
+    private CachedOutputStream cache;
+
+    private volatile boolean complete;
+
+    private volatile Future<?> task;
+
+    private volatile IOException failure;
+
+    public CompressionDataSource(InputStream sourceStream, ExecutorService executor, int level, String contentType) {
+        this(sourceStream, executor, level, contentType, new AttachmentCache());
+    }
+
+    public CompressionDataSource(InputStream sourceStream, ExecutorService executor, int level, String contentType,
+                                 AttachmentCache attachmentCache) {
+        this.sourceStream = sourceStream;
+        this.executor = executor;
+        this.level = level;
+        this.attachmentCache = attachmentCache;
+        this.contentType = contentType;
+    }
+
+    @Override
+    public synchronized InputStream getInputStream() throws IOException {
+        if (complete) {
+            return cache.getInputStream();
+        }
+
+        if (started) {
+            throw new IOException("Compressed stream may only be requested again when read to the end");
+        }
+        started = true;
+
+        // Kept until the data source is closed, so the compressed bytes may be replayed more than once.
+        CachedOutputStream cachedOutputStream = attachmentCache.newStream();
+        cachedOutputStream.holdTempFile();
+        cache = cachedOutputStream;
+
+        PipedInputStream pipedInputStream = new PipedInputStream(PIPE_SIZE);
+        PipedOutputStream pipedOutputStream = new PipedOutputStream(pipedInputStream);
+
+        task = executor.submit(() -> compress(pipedOutputStream));
+
+        return new FilterInputStream(pipedInputStream) {
+            @Override
+            public int read() throws IOException {
+                int b = super.read();
+                if (b == -1) {
+                    end(cachedOutputStream);
+                } else {
+                    cachedOutputStream.write(b);
+                }
+                return b;
+            }
+
+            @Override
+            public int read(byte[] b, int off, int len) throws IOException {
+                int n = super.read(b, off, len);
+                if (n == -1) {
+                    end(cachedOutputStream);
+                } else {
+                    cachedOutputStream.write(b, off, n);
+                }
+                return n;
+            }
+
+            @Override
+            public long skip(long n) throws IOException {
+                // Skipped bytes are read, as they are needed when the stream is replayed.
+                byte[] buffer = new byte[(int) Math.min(n, 8192)];
+                long skipped = 0;
+                while (skipped < n) {
+                    int count = read(buffer, 0, (int) Math.min(n - skipped, buffer.length));
+                    if (count == -1) {
+                        break;
+                    }
+                    skipped += count;
+                }
+                return skipped;
+            }
+
+            @Override
+            public void close() throws IOException {
+                super.close();
+                if (!complete) {
+                    CompressionDataSource.this.close();
+                }
+            }
+        };
+    }
+
+    private void end(CachedOutputStream cachedOutputStream) throws IOException {
+        checkFailure();
+        cachedOutputStream.flush();
+        complete = true;
+    }
+
+    /**
+     * Compresses the source into the pipe. The gzip stream is only finished when the whole source is compressed, so a
+     * failure never ends in a well-formed but truncated stream. The failure is recorded before the pipe is closed,
+     * making the consumer fail when reaching the end of the pipe.
+     */
+    private void compress(OutputStream outputStream) {
+        LevelGZIPOutputStream gzipOutputStream = null;
+        try (InputStream is = sourceStream) {
+            gzipOutputStream = new LevelGZIPOutputStream(outputStream, level);
+            ByteStreams.copy(is, gzipOutputStream);
+            gzipOutputStream.finish();
+        } catch (IOException | RuntimeException e) {
+            log.debug("Compression of payload stopped", e);
+            failure = e instanceof IOException ? (IOException) e : new IOException(e);
+        } finally {
+            if (gzipOutputStream != null)
+                gzipOutputStream.end();
+
+            try {
+                outputStream.close();
+            } catch (IOException e) {
+                log.debug("Unable to close compression pipe", e);
+            }
+        }
+    }
+
+    private void checkFailure() throws IOException {
+        if (failure != null) {
+            throw new IOException("Unable to compress payload", failure);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        Future<?> current = task;
+        if (current != null) {
+            current.cancel(true);
+        }
+
+        sourceStream.close();
+
+        CachedOutputStream cachedOutputStream;
+        synchronized (this) {
+            cachedOutputStream = cache;
+        }
+        if (cachedOutputStream != null) {
+            cachedOutputStream.releaseTempFileHold();
+            cachedOutputStream.close();
+        }
+    }
+
+    @Override
+    public OutputStream getOutputStream() {
+        throw new UnsupportedOperationException("Read-only");
+    }
+
+    @Override
+    public String getContentType() {
+        return contentType;
+    }
+
+    /**
+     * The compressed payload has no name.
+     */
+    @Override
+    public String getName() {
+        return null;
+    }
+
+    static class LevelGZIPOutputStream extends GZIPOutputStream {
+
+        LevelGZIPOutputStream(OutputStream out, int level) throws IOException {
+            super(out, 8192);
+            def.setLevel(level);
+        }
+
+        /**
+         * Releases the deflater without writing anything further, unlike {@link #close()} which finishes the stream.
+         */
+        void end() {
+            def.end();
+        }
+    }
+}
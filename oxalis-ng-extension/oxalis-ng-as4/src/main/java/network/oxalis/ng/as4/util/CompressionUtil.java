@@ -1,15 +1,52 @@
 package network.oxalis.ng.as4.util;
 
+import com.google.inject.Inject;
+import com.google.inject.name.Named;
+import network.oxalis.ng.api.settings.Settings;
+import network.oxalis.ng.as4.config.As4Conf;
 import org.apache.cxf.helpers.IOUtils;
-import org.apache.cxf.io.CacheSizeExceededException;
 import org.apache.cxf.io.CachedOutputStream;
 
+import jakarta.activation.DataSource;
+import java.io.Closeable;
 import java.io.IOException;
 import java.io.InputStream;
+import java.util.concurrent.ExecutorService;
+import java.util.zip.Deflater;
 import java.util.zip.GZIPOutputStream;
 
 public class CompressionUtil {
 
+    private final ExecutorService executor;
+
+    private final int level;
+
+    private final AttachmentCache attachmentCache;
+
+    public CompressionUtil() {
+        this(null, Deflater.DEFAULT_COMPRESSION);
+    }
+
+    @Inject
+    public CompressionUtil(@Named("compression-pool") ExecutorService executor, Settings<As4Conf> settings,
+                           AttachmentCache attachmentCache) {
+        this(executor, settings.getInt(As4Conf.COMPRESSION_LEVEL), attachmentCache);
+    }
+
+    public CompressionUtil(ExecutorService executor, int level) {
+        this(executor, level, new AttachmentCache());
+    }
+
+    public CompressionUtil(ExecutorService executor, int level, AttachmentCache attachmentCache) {
+        if (level != Deflater.DEFAULT_COMPRESSION && (level < Deflater.NO_COMPRESSION || level > Deflater.BEST_COMPRESSION)) {
+            throw new IllegalArgumentException("Invalid compression level: " + level);
+        }
+
+        this.executor = executor;
+        this.level = level;
+        this.attachmentCache = attachmentCache;
+    }
+
     /**
      * Gets Compressed Stream for given input Stream
      *
@@ -23,16 +60,47 @@ public class CompressionUtil {
             throw new IllegalArgumentException("Source Stream cannot be NULL");
         }
 
-        CachedOutputStream cache = new CachedOutputStream();
+        CachedOutputStream cache = attachmentCache.newStream();
 
-        try (GZIPOutputStream gzipOutputStream = new GZIPOutputStream(cache)) {
+        try (GZIPOutputStream gzipOutputStream = new CompressionDataSource.LevelGZIPOutputStream(cache, level)) {
             IOUtils.copyAndCloseInput(sourceStream, gzipOutputStream);
             gzipOutputStream.flush();
             gzipOutputStream.finish();
-            return cache.getInputStream();
-        } catch (CacheSizeExceededException | IOException cee) {
-            sourceStream.close();
-            throw cee;
+            return attachmentCache.getInputStream(cache);
+        } catch (IOException | RuntimeException e) {
+            close(sourceStream, e);
+            // No stream reads the cache yet, so closing it deletes any temporary file.
+            close(cache, e);
+            throw e;
+        }
+    }
+
+    private static void close(Closeable closeable, Exception e) {
+        try {
+            closeable.close();
+        } catch (IOException | RuntimeException ex) {
+            e.addSuppressed(ex);
+        }
+    }
+
+    /**
+     * Gets a data source compressing the given input stream while it is read. Compression runs on the compression
+     * pool, and the compressed result is kept in the attachment cache for the data source to be read again.
+     *
+     * @param sourceStream : Input Stream to be compressed
+     * @param contentType  : Content type reported by the data source
+     * @return Data source providing the compressed stream
+     */
+    public CompressionDataSource getCompressedDataSource(final InputStream sourceStream, String contentType) {
+
+        if (sourceStream == null) {
+            throw new IllegalArgumentException("Source Stream cannot be NULL");
         }
+
+        if (executor == null) {
+            throw new IllegalStateException("Streaming compression requires an executor");
+        }
+
+        return new CompressionDataSource(sourceStream, executor, level, contentType, attachmentCache);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,103 @@
+package network.oxalis.ng.as4.util;
+
+import org.w3c.dom.Node;
+
+import jakarta.xml.bind.JAXBContext;
+import jakarta.xml.bind.JAXBException;
+import jakarta.xml.bind.Marshaller;
+import jakarta.xml.bind.Unmarshaller;
+import javax.xml.transform.Source;
+import java.io.OutputStream;
+import java.io.Writer;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * Bounded pool of marshallers and unmarshallers for a JAXB context. Instances are borrowed for a single operation and
+ * returned afterwards; when the pool is empty a new instance is created, and instances returned to a full pool are
+ * dropped. Borrowed instances must be used as they are, without setting properties, listeners or schemas.
+ */
+public class JaxbPool {
+
+    public static final int DEFAULT_CAPACITY = 32;
+
+    private final JAXBContext jaxbContext;
+
+    private final BlockingQueue<Marshaller> marshallers;
+
+    private final BlockingQueue<Unmarshaller> unmarshallers;
+
+    public JaxbPool(JAXBContext jaxbContext) {
+        this(jaxbContext, DEFAULT_CAPACITY);
+    }
+
+    public JaxbPool(JAXBContext jaxbContext, int capacity) {
+        this.jaxbContext = jaxbContext;
+        this.marshallers = new ArrayBlockingQueue<>(capacity);
+        this.unmarshallers = new ArrayBlockingQueue<>(capacity);
+    }
+
+    public JAXBContext getJaxbContext() {
+        return jaxbContext;
+    }
+
+    public <R> R withMarshaller(JaxbFunction<Marshaller, R> function) throws JAXBException {
+        Marshaller marshaller = marshallers.poll();
+        if (marshaller == null) {
+            marshaller = jaxbContext.createMarshaller();
+        }
+
+        try {
+            return function.apply(marshaller);
+        } finally {
+            marshallers.offer(marshaller);
+        }
+    }
+
+    public <R> R withUnmarshaller(JaxbFunction<Unmarshaller, R> function) throws JAXBException {
+        Unmarshaller unmarshaller = unmarshallers.poll();
+        if (unmarshaller == null) {
+            unmarshaller = jaxbContext.createUnmarshaller();
+        }
+
+        try {
+            return function.apply(unmarshaller);
+        } finally {
+            unmarshallers.offer(unmarshaller);
+        }
+    }
+
+    public void marshal(Object jaxbElement, Node node) throws JAXBException {
+        withMarshaller(marshaller -> {
+            marshaller.marshal(jaxbElement, node);
+            return null;
+        });
+    }
+
+    public void marshal(Object jaxbElement, OutputStream outputStream) throws JAXBException {
+        withMarshaller(marshaller -> {
+            marshaller.marshal(jaxbElement, outputStream);
+            return null;
+        });
+    }
+
+    public void marshal(Object jaxbElement, Writer writer) throws JAXBException {
+        withMarshaller(marshaller -> {
+            marshaller.marshal(jaxbElement, writer);
+            return null;
+        });
+    }
+
+    public <T> T unmarshal(Node node, Class<T> type) throws JAXBException {
+        return withUnmarshaller(unmarshaller -> unmarshaller.unmarshal(node, type).getValue());
+    }
+
+    public <T> T unmarshal(Source source, Class<T> type) throws JAXBException {
+        return withUnmarshaller(unmarshaller -> unmarshaller.unmarshal(source, type).getValue());
+    }
+
+    @FunctionalInterface
+    public interface JaxbFunction<T, R> {
+        R apply(T t) throws JAXBException;
+    }
+}
@@ -2,6 +2,7 @@ package network.oxalis.ng.as4.util;
 
 import lombok.experimental.UtilityClass;
 import network.oxalis.peppol.sbdh.jaxb.StandardBusinessDocument;
+import org.apache.cxf.jaxb.JAXBDataBinding;
 import org.oasis_open.docs.ebxml_bp.ebbp_signals_2.NonRepudiationInformation;
 import org.oasis_open.docs.ebxml_msg.ebms.v3_0.ns.core._200704.Messaging;
 import org.w3.xmldsig.ReferenceType;
@@ -17,6 +18,21 @@ public class Marshalling {
         return InitializedMarshaller.instance;
     }
 
+    /**
+     * Pooled marshallers and unmarshallers of the context returned by {@link #getInstance()}.
+     */
+    public static JaxbPool getPool() {
+        return InitializedMarshaller.pool;
+    }
+
+    /**
+     * Data binding used when adding the Messaging header to outbound messages. The binding is thread safe and
+     * expensive to create, so a single instance is shared.
+     */
+    public static JAXBDataBinding getMessagingDataBinding() {
+        return InitializedDataBinding.instance;
+    }
+
     public static JAXBContext createMarshaller() {
         try {
             return JAXBContext.newInstance(
@@ -34,6 +50,19 @@ public class Marshalling {
 
     private static class InitializedMarshaller {
         private static final JAXBContext instance = createMarshaller();
+        private static final JaxbPool pool = new JaxbPool(instance);
+    }
+
+    private static class InitializedDataBinding {
+        private static final JAXBDataBinding instance = createMessagingDataBinding();
+
+        private static JAXBDataBinding createMessagingDataBinding() {
+            try {
+                return new JAXBDataBinding(Messaging.class);
+            } catch (JAXBException e) {
+                throw new RuntimeException("Unable to create data binding for Messaging header", e);
+            }
+        }
     }
 }
 
@@ -1,5 +1,8 @@
 package network.oxalis.ng.as4.util;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.util.concurrent.UncheckedExecutionException;
 import lombok.extern.slf4j.Slf4j;
 import network.oxalis.ng.as4.lang.OxalisAs4TransmissionException;
 import network.oxalis.ng.api.outbound.TransmissionRequest;
@@ -13,18 +16,56 @@ import org.oasis_open.docs.ebxml_msg.ebms.v3_0.ns.core._200704.CollaborationInfo
 import org.xml.sax.SAXException;
 
 import javax.xml.parsers.ParserConfigurationException;
+import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.InputStream;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
 
+/**
+ * Provides the WS-Policy to use for a given message. Parsed policies are kept per policy classpath and {@link Bus},
+ * so each policy file is read and built only once and the same {@link Policy} instance is returned afterwards.
+ * <p>
+ * Buses are held weakly, policies of a bus are dropped when the bus is no longer in use.
+ */
 @Slf4j
 public class PolicyService {
 
     private final ActionProvider actionProvider;
 
+    private final Cache<Bus, Cache<String, Policy>> cache = CacheBuilder.newBuilder()
+            .weakKeys()
+            .build();
+
+    private final AtomicLong hits = new AtomicLong();
+
+    private final AtomicLong misses = new AtomicLong();
+
     public PolicyService(ActionProvider actionProvider) {
         this.actionProvider = actionProvider;
     }
 
+    /**
+     * Parses all policies known up front into the cache, making sure the first messages handled do not pay the cost.
+     *
+     * @param bus The bus serving the messages.
+     */
+    public void warmUp(Bus bus) throws OxalisAs4TransmissionException {
+        for (String policyClasspath : getKnownPolicyClasspaths()) {
+            getPolicy(policyClasspath, bus);
+        }
+    }
+
+    public long getCacheHits() {
+        return hits.get();
+    }
+
+    public long getCacheMisses() {
+        return misses.get();
+    }
+
     public Policy getPolicy() throws OxalisAs4TransmissionException {
         Bus bus = BusFactory.getThreadDefaultBus();
         return getPolicy(bus);
@@ -57,12 +98,31 @@ public class PolicyService {
 
     private Policy getPolicy(String policyClasspath, Bus bus) throws OxalisAs4TransmissionException {
         try {
-            log.debug("Policy classpath: {}", policyClasspath);
-            InputStream policyStream = getClass().getResourceAsStream(policyClasspath);
+            Cache<String, Policy> policies = cache.get(bus, () -> CacheBuilder.newBuilder().build());
+
+            Policy policy = policies.getIfPresent(policyClasspath);
+            if (policy != null) {
+                hits.incrementAndGet();
+                return policy;
+            }
+
+            misses.incrementAndGet();
+            return policies.get(policyClasspath, () -> loadPolicy(policyClasspath, bus));
+        } catch (ExecutionException | UncheckedExecutionException e) {
+            throw new OxalisAs4TransmissionException("Failed to get WS Policy", e.getCause());
+        }
+    }
+
+    private Policy loadPolicy(String policyClasspath, Bus bus)
+            throws SAXException, ParserConfigurationException, IOException {
+        log.debug("Policy classpath: {}", policyClasspath);
+        try (InputStream policyStream = getClass().getResourceAsStream(policyClasspath)) {
+            if (policyStream == null) {
+                throw new FileNotFoundException(String.format("Policy '%s' not found on classpath", policyClasspath));
+            }
+
             PolicyBuilder builder = bus.getExtension(PolicyBuilder.class);
             return builder.getPolicy(policyStream);
-        } catch (SAXException | ParserConfigurationException | IOException e) {
-            throw new OxalisAs4TransmissionException("Failed to get WS Policy", e);
         }
     }
 
@@ -73,5 +133,12 @@ public class PolicyService {
     protected String getDefaultPolicy() {
         return "/eDeliveryAS4Policy_BST.xml";
     }
-}
 
+    /**
+     * Policies to parse during {@link #warmUp(Bus)}. Implementations selecting other policies in
+     * {@link #getPolicyClasspath(String, String)} should include them here.
+     */
+    protected Collection<String> getKnownPolicyClasspaths() {
+        return Collections.singletonList(getDefaultPolicy());
+    }
+}
@@ -10,9 +10,7 @@ import org.w3c.dom.Element;
 import org.w3c.dom.Node;
 import org.w3c.dom.NodeList;
 
-import jakarta.xml.bind.JAXBContext;
 import jakarta.xml.bind.JAXBException;
-import jakarta.xml.bind.Unmarshaller;
 import jakarta.xml.soap.SOAPHeader;
 import java.io.ByteArrayInputStream;
 import java.nio.charset.StandardCharsets;
@@ -36,7 +34,7 @@ public class SOAPHeaderParser {
     private static final String KEY_INFO = "KeyInfo";
     private static final String REF = "Reference";
     private static final String DIGEST_VAL = "DigestValue";
-    private static final JAXBContext JAXB_CONTEXT = Marshalling.getInstance();
+    private static final JaxbPool JAXB_POOL = Marshalling.getPool();
 
     public static byte[] getAttachmentDigest(String refId, SOAPHeader header) throws OxalisAs4Exception {
         NodeList sigInfoNode = header.getElementsByTagNameNS(NS_ALL, SIG_INFO);
@@ -128,10 +126,12 @@ public class SOAPHeaderParser {
         }
 
         try {
-            Unmarshaller unmarshaller = JAXB_CONTEXT.createUnmarshaller();
-            for (int i = 0; i < refNodes.getLength(); i++) {
-                referenceList.add(unmarshaller.unmarshal(refNodes.item(i), ReferenceType.class).getValue());
-            }
+            JAXB_POOL.withUnmarshaller(unmarshaller -> {
+                for (int i = 0; i < refNodes.getLength(); i++) {
+                    referenceList.add(unmarshaller.unmarshal(refNodes.item(i), ReferenceType.class).getValue());
+                }
+                return referenceList;
+            });
         } catch (JAXBException e) {
             throw new OxalisAs4Exception("Could not unmarshal reference node", e);
         }
@@ -142,8 +142,7 @@ public class SOAPHeaderParser {
         Node messagingNode = header.getElementsByTagNameNS(NS_ALL, MESSAGING).item(0);
 
         try {
-            Unmarshaller unmarshaller = JAXB_CONTEXT.createUnmarshaller();
-            Messaging messaging = unmarshaller.unmarshal(messagingNode, Messaging.class).getValue();
+            Messaging messaging = JAXB_POOL.unmarshal(messagingNode, Messaging.class);
 
             return messaging.getUserMessage().stream()
                     .findFirst()
@@ -1,7 +1,8 @@
 package org.apache.cxf.attachment;
 
 import lombok.Getter;
-import org.apache.cxf.common.logging.LogUtils;
+import network.oxalis.ng.as4.util.AttachmentCache;
+import org.apache.cxf.Bus;
 import org.apache.cxf.common.util.StringUtils;
 import org.apache.cxf.helpers.HttpHeaderHelper;
 import org.apache.cxf.helpers.IOUtils;
@@ -15,7 +16,6 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.PushbackInputStream;
 import java.util.*;
-import java.util.logging.Logger;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -28,13 +28,9 @@ public class As4AttachmentDeserializer {
     private static final Pattern INPUT_STREAM_BOUNDARY_PATTERN =
             Pattern.compile("^--(\\S*)$", Pattern.MULTILINE);
 
-    private static final Logger LOG = LogUtils.getL7dLogger(As4AttachmentDeserializer.class);
-
-    private static final int PUSHBACK_AMOUNT = 2048;
-
     private boolean lazyLoading = true;
 
-    private PushbackInputStream stream;
+    private As4MultipartReader reader;
     private int createCount;
     private int closedCount;
     private boolean closed;
@@ -110,12 +106,12 @@ public class As4AttachmentDeserializer {
             }
             boundary = boundaryString.getBytes("utf-8");
 
-            stream = new PushbackInputStream(message.getContent(InputStream.class), PUSHBACK_AMOUNT);
-            if (!readTillFirstBoundary(stream, boundary)) {
+            reader = new As4MultipartReader(message.getContent(InputStream.class), boundary);
+            if (!reader.readTillFirstBoundary()) {
                 throw new IOException("Couldn't find MIME boundary: " + boundaryString);
             }
 
-            Map<String, List<String>> ih = loadPartHeaders(stream);
+            Map<String, List<String>> ih = loadPartHeaders();
             message.put(ATTACHMENT_PART_HEADERS, ih);
             String val = As4AttachmentUtil.getHeader(ih, "Content-Type", "; ");
             if (!StringUtils.isEmpty(val)) {
@@ -126,7 +122,7 @@ public class As4AttachmentDeserializer {
             }
             val = As4AttachmentUtil.getHeader(ih, "Content-Transfer-Encoding");
 
-            MimeBodyPartInputStream mmps = new MimeBodyPartInputStream(stream, boundary, PUSHBACK_AMOUNT);
+            InputStream mmps = reader.newPartStream();
             InputStream ins = AttachmentUtil.decode(mmps, val);
             if (ins != mmps) {
                 ih.remove("Content-Transfer-Encoding");
@@ -174,13 +170,11 @@ public class As4AttachmentDeserializer {
             return null;
         }
 
-        int v = stream.read();
-        if (v == -1) {
+        if (!reader.hasNext()) {
             return null;
         }
-        stream.unread(v);
 
-        Map<String, List<String>> headers = loadPartHeaders(stream);
+        Map<String, List<String>> headers = loadPartHeaders();
         return (As4AttachmentImpl) createAttachment(headers);
     }
 
@@ -213,52 +207,21 @@ public class As4AttachmentDeserializer {
         }
         loaded.add(input);
         InputStream origIn = input.getInputStream();
-        try (CachedOutputStream out = new CachedOutputStream()) {
+        AttachmentCache attachmentCache = getAttachmentCache();
+        try (CachedOutputStream out = attachmentCache == null ? new CachedOutputStream() : attachmentCache.newStream()) {
             AttachmentUtil.setStreamedAttachmentProperties(message, out);
             IOUtils.copy(input, out);
-            input.setInputStream(out.getInputStream());
+            input.setInputStream(attachmentCache == null ? out.getInputStream() : attachmentCache.getInputStream(out));
             origIn.close();
         }
     }
 
     /**
-     * Move the read pointer to the begining of the first part read till the end
-     * of first boundary
-     *
-     * @param pushbackInStream
-     * @param boundary
-     * @throws IOException
+     * Gets the cache settings registered on the bus, null when the bus has none.
      */
-    private static boolean readTillFirstBoundary(PushbackInputStream pushbackInStream,
-                                                 byte[] boundary) throws IOException {
-
-        // work around a bug in PushBackInputStream where the buffer isn't
-        // initialized
-        // and available always returns 0.
-        int value = pushbackInStream.read();
-        pushbackInStream.unread(value);
-        while (value != -1) {
-            value = pushbackInStream.read();
-            if ((byte) value == boundary[0]) {
-                int boundaryIndex = 0;
-                while (value != -1 && (boundaryIndex < boundary.length) && ((byte) value == boundary[boundaryIndex])) {
-
-                    value = pushbackInStream.read();
-                    if (value == -1) {
-                        throw new IOException("Unexpected End while searching for first Mime Boundary");
-                    }
-                    boundaryIndex++;
-                }
-                if (boundaryIndex == boundary.length) {
-                    // boundary found, read the newline
-                    if (value == 13) {
-                        pushbackInStream.read();
-                    }
-                    return true;
-                }
-            }
-        }
-        return false;
+    private AttachmentCache getAttachmentCache() {
+        Bus bus = message.getExchange() == null ? null : message.getExchange().getBus();
+        return bus == null ? null : bus.getExtension(AttachmentCache.class);
     }
 
     /**
@@ -268,9 +231,7 @@ public class As4AttachmentDeserializer {
      * @throws IOException
      */
     private Attachment createAttachment(Map<String, List<String>> headers) throws IOException {
-        InputStream partStream =
-                new As4DelegatingInputStream(new MimeBodyPartInputStream(stream, boundary, PUSHBACK_AMOUNT),
-                        this);
+        InputStream partStream = new As4DelegatingInputStream(reader.newPartStream(), this);
         createCount++;
 
         return As4AttachmentUtil.createAttachment(partStream, headers);
@@ -287,11 +248,8 @@ public class As4AttachmentDeserializer {
     public void markClosed(As4DelegatingInputStream delegatingInputStream) throws IOException {
         closedCount++;
         if (closedCount == createCount && !attachments.hasNext(false)) {
-            int x = stream.read();
-            while (x != -1) {
-                x = stream.read();
-            }
-            stream.close();
+            reader.drain();
+            reader.close();
             closed = true;
         }
     }
@@ -308,22 +266,17 @@ public class As4AttachmentDeserializer {
             return false;
         }
 
-        int v = stream.read();
-        if (v == -1) {
-            return false;
-        }
-        stream.unread(v);
-        return true;
+        return reader.hasNext();
     }
 
 
-    private Map<String, List<String>> loadPartHeaders(InputStream in) throws IOException {
+    private Map<String, List<String>> loadPartHeaders() throws IOException {
         StringBuilder buffer = new StringBuilder(128);
-        StringBuilder b = new StringBuilder(128);
         Map<String, List<String>> heads = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
 
         // loop until we hit the end or a null line
-        while (readLine(in, b)) {
+        String b;
+        while (!(b = reader.readLine(maxHeaderLength)).isEmpty()) {
             // lines beginning with white space get special handling
             char c = b.charAt(0);
             if (c == ' ' || c == '\t') {
@@ -350,35 +303,6 @@ public class As4AttachmentDeserializer {
         return heads;
     }
 
-    private boolean readLine(InputStream in, StringBuilder buffer) throws IOException {
-        if (buffer.length() != 0) {
-            buffer.setLength(0);
-        }
-        int c;
-
-        while ((c = in.read()) != -1) {
-            // a linefeed is a terminator, always.
-            if (c == '\n') {
-                break;
-            } else if (c == '\r') {
-                //just ignore the CR.  The next character SHOULD be an NL.  If not, we're
-                //just going to discard this
-                continue;
-            } else {
-                // just add to the buffer
-                buffer.append((char) c);
-            }
-
-            if (buffer.length() > maxHeaderLength) {
-                LOG.fine("The attachment header size has exceeded the configured parameter: " + maxHeaderLength);
-                throw new HeaderSizeExceededException();
-            }
-        }
-
-        // no characters found...this was either an eof or a null line.
-        return buffer.length() != 0;
-    }
-
     private void addHeaderLine(Map<String, List<String>> heads, StringBuilder line) {
         // null lines are a nop
         final int size = line.length();
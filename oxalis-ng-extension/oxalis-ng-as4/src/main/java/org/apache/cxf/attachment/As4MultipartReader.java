@@ -0,0 +1,289 @@
+package org.apache.cxf.attachment;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Reader of a MIME multipart stream working on a large buffer. Boundaries are found using the Boyer-Moore-Horspool
+ * algorithm, header lines are decoded directly from the buffer and part bodies are copied straight from the buffer
+ * into the buffer of the reader of the part.
+ * <p>
+ * Only one part is read at a time, the stream of a part must be read to the end before headers of the next part are
+ * read.
+ */
+class As4MultipartReader implements Closeable {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final InputStream in;
+
+    private final byte[] boundary;
+
+    private final int[] boundarySkip;
+
+    private final byte[] delimiter;
+
+    private final int[] delimiterSkip;
+
+    private final byte[] buffer;
+
+    private int pos;
+
+    private int limit;
+
+    private boolean eof;
+
+    private boolean finished;
+
+    /**
+     * @param in       Stream to read.
+     * @param boundary Boundary including the leading dashes.
+     */
+    As4MultipartReader(InputStream in, byte[] boundary) {
+        this.in = in;
+        this.boundary = boundary;
+        this.boundarySkip = skipTable(boundary);
+        this.delimiter = new byte[boundary.length + 2];
+        this.delimiter[0] = '\r';
+        this.delimiter[1] = '\n';
+        System.arraycopy(boundary, 0, this.delimiter, 2, boundary.length);
+        this.delimiterSkip = skipTable(delimiter);
+        this.buffer = new byte[Math.max(BUFFER_SIZE, delimiter.length * 4)];
+    }
+
+    /**
+     * Skips the preamble and the first boundary line.
+     *
+     * @return Whether the boundary was found.
+     */
+    boolean readTillFirstBoundary() throws IOException {
+        while (true) {
+            int index = indexOf(boundary, boundarySkip, pos, limit);
+            if (index >= 0) {
+                pos = index + boundary.length;
+                skipBoundaryLine();
+                return true;
+            }
+
+            // Keep the bytes which may be the start of the boundary.
+            pos = Math.max(pos, limit - boundary.length + 1);
+            if (fill() == 0)
+                return false;
+        }
+    }
+
+    /**
+     * Reads a header line without the line break.
+     *
+     * @return The line, or an empty string at the end of the headers or the stream.
+     */
+    String readLine(int maxLength) throws IOException {
+        int from = pos;
+        while (true) {
+            for (int i = from; i < limit; i++) {
+                if (buffer[i] == '\n') {
+                    int end = i > pos && buffer[i - 1] == '\r' ? i - 1 : i;
+                    if (end - pos > maxLength)
+                        throw new HeaderSizeExceededException();
+
+                    String line = new String(buffer, pos, end - pos, StandardCharsets.ISO_8859_1);
+                    pos = i + 1;
+                    return line;
+                }
+            }
+
+            if (limit - pos > maxLength || limit - pos == buffer.length)
+                throw new HeaderSizeExceededException();
+
+            from = limit - pos;
+            if (fill() == 0) {
+                String line = new String(buffer, pos, limit - pos, StandardCharsets.ISO_8859_1);
+                pos = limit;
+                return line;
+            }
+            from += pos;
+        }
+    }
+
+    /**
+     * Whether another part follows. Returns false after the close delimiter or at the end of the stream.
+     */
+    boolean hasNext() throws IOException {
+        return !finished && (pos < limit || fill() > 0);
+    }
+
+    /**
+     * Creates a stream giving the body of the current part, ending at the next delimiter.
+     */
+    InputStream newPartStream() {
+        return new PartInputStream();
+    }
+
+    /**
+     * Reads the rest of the stream, including any epilogue.
+     */
+    void drain() throws IOException {
+        pos = limit;
+        while (fill() > 0)
+            pos = limit;
+        finished = true;
+    }
+
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+
+    /**
+     * Reads more bytes into the buffer, moving unread bytes to the beginning of the buffer first. Bytes are only
+     * read when the unread bytes are not enough, so few bytes are moved.
+     *
+     * @return Number of bytes read, 0 at the end of the stream.
+     */
+    private int fill() throws IOException {
+        if (eof)
+            return 0;
+
+        if (pos > 0) {
+            System.arraycopy(buffer, pos, buffer, 0, limit - pos);
+            limit -= pos;
+            pos = 0;
+        }
+
+        int n = in.read(buffer, limit, buffer.length - limit);
+        if (n < 0) {
+            eof = true;
+            return 0;
+        }
+
+        limit += n;
+        return n;
+    }
+
+    /**
+     * Makes at least the given number of bytes available in the buffer unless the end of the stream is reached.
+     */
+    private boolean ensure(int count) throws IOException {
+        while (limit - pos < count) {
+            if (fill() == 0)
+                return false;
+        }
+        return true;
+    }
+
+    private int read() throws IOException {
+        if (pos == limit && fill() == 0)
+            return -1;
+        return buffer[pos++] & 0xff;
+    }
+
+    /**
+     * Handles what follows a boundary: the close delimiter ends the multipart, otherwise transport padding and the
+     * line break are skipped.
+     */
+    private void skipBoundaryLine() throws IOException {
+        if (ensure(2) && buffer[pos] == '-' && buffer[pos + 1] == '-') {
+            pos += 2;
+            finished = true;
+            return;
+        }
+
+        int c;
+        while ((c = read()) != -1 && c != '\n') {
+            // Transport padding and CR.
+        }
+    }
+
+    private int indexOf(byte[] pattern, int[] skip, int from, int to) {
+        int last = pattern.length - 1;
+        int i = from;
+        while (i <= to - pattern.length) {
+            int j = last;
+            while (buffer[i + j] == pattern[j]) {
+                if (j == 0)
+                    return i;
+                j--;
+            }
+            i += skip[buffer[i + last] & 0xff];
+        }
+        return -1;
+    }
+
+    private static int[] skipTable(byte[] pattern) {
+        int[] skip = new int[256];
+        Arrays.fill(skip, pattern.length);
+        for (int i = 0; i < pattern.length - 1; i++)
+            skip[pattern[i] & 0xff] = pattern.length - 1 - i;
+        return skip;
+    }
+
+    private class PartInputStream extends InputStream {
+
+        private final byte[] single = new byte[1];
+
+        private boolean done;
+
+        @Override
+        public int read() throws IOException {
+            return read(single, 0, 1) == -1 ? -1 : single[0] & 0xff;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (done)
+                return -1;
+            if (len == 0)
+                return 0;
+
+            while (true) {
+                // Only the bytes which may be returned and a following delimiter are searched.
+                int end = (int) Math.min(limit, (long) pos + len + delimiter.length - 1);
+                int index = indexOf(delimiter, delimiterSkip, pos, end);
+
+                if (index == pos) {
+                    pos += delimiter.length;
+                    skipBoundaryLine();
+                    done = true;
+                    return -1;
+                }
+
+                int count = index > pos ? index - pos : Math.min(len, end - delimiter.length + 1 - pos);
+                if (count > 0) {
+                    System.arraycopy(buffer, pos, b, off, count);
+                    pos += count;
+                    return count;
+                }
+
+                if (fill() == 0) {
+                    // The stream ended without a delimiter, the rest of the stream is the body.
+                    count = Math.min(len, limit - pos);
+                    if (count == 0) {
+                        done = true;
+                        return -1;
+                    }
+                    System.arraycopy(buffer, pos, b, off, count);
+                    pos += count;
+                    return count;
+                }
+            }
+        }
+
+        /**
+         * Bytes in the buffer before the next delimiter. Without a delimiter in the buffer, the bytes which may be the
+         * start of one are not counted.
+         */
+        @Override
+        public int available() {
+            if (done)
+                return 0;
+
+            int index = indexOf(delimiter, delimiterSkip, pos, limit);
+            if (index >= 0)
+                return index - pos;
+            return eof ? limit - pos : Math.max(0, limit - pos - delimiter.length + 1);
+        }
+    }
+}
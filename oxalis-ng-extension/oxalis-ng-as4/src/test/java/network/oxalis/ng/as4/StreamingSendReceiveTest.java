@@ -0,0 +1,30 @@
+package network.oxalis.ng.as4;
+
+import com.google.inject.Injector;
+import com.typesafe.config.ConfigFactory;
+import org.testng.annotations.AfterClass;
+
+/**
+ * Sends using streaming compression, so the compressed attachment passes through signing and encryption.
+ */
+public class StreamingSendReceiveTest extends SendReceiveTest {
+
+    private static final String STREAMING = "oxalis.as4.compression.streaming";
+
+    public StreamingSendReceiveTest() throws Exception {
+        super();
+    }
+
+    @Override
+    public Injector getInjector() {
+        System.setProperty(STREAMING, "true");
+        ConfigFactory.invalidateCaches();
+        return super.getInjector();
+    }
+
+    @AfterClass(alwaysRun = true)
+    public void resetStreaming() {
+        System.clearProperty(STREAMING);
+        ConfigFactory.invalidateCaches();
+    }
+}
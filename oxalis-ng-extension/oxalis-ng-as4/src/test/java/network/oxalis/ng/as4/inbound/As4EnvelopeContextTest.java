@@ -0,0 +1,70 @@
+package network.oxalis.ng.as4.inbound;
+
+import network.oxalis.ng.as4.util.Constants;
+import network.oxalis.ng.as4.util.Marshalling;
+import org.apache.cxf.binding.soap.SoapMessage;
+import org.apache.cxf.headers.Header;
+import org.apache.cxf.message.MessageImpl;
+import org.oasis_open.docs.ebxml_msg.ebms.v3_0.ns.core._200704.MessageInfo;
+import org.oasis_open.docs.ebxml_msg.ebms.v3_0.ns.core._200704.Messaging;
+import org.oasis_open.docs.ebxml_msg.ebms.v3_0.ns.core._200704.UserMessage;
+import org.testng.annotations.Test;
+import org.w3c.dom.Document;
+
+import jakarta.xml.bind.JAXBElement;
+import javax.xml.parsers.DocumentBuilderFactory;
+import java.util.Optional;
+
+import static org.testng.Assert.*;
+
+public class As4EnvelopeContextTest {
+
+    @Test
+    public void parsedOncePerMessage() throws Exception {
+        SoapMessage message = createMessage("message-1");
+
+        As4EnvelopeContext first = As4EnvelopeContext.of(message).orElseThrow();
+        As4EnvelopeContext second = As4EnvelopeContext.of(message).orElseThrow();
+
+        assertSame(second, first);
+        assertSame(message.get(AS4MessageContextKey.ENVELOPE_CONTEXT), first);
+        assertEquals(first.getUserMessage().orElseThrow().getMessageInfo().getMessageId(), "message-1");
+    }
+
+    @Test
+    public void missingMessagingHeader() {
+        SoapMessage message = new SoapMessage(new MessageImpl());
+
+        assertEquals(As4EnvelopeContext.of(message), Optional.empty());
+        assertNull(message.get(AS4MessageContextKey.ENVELOPE_CONTEXT));
+    }
+
+    @Test
+    public void withoutUserMessage() {
+        As4EnvelopeContext context = new As4EnvelopeContext(new Messaging());
+
+        assertFalse(context.getUserMessage().isPresent());
+    }
+
+    private SoapMessage createMessage(String messageId) throws Exception {
+        MessageInfo messageInfo = new MessageInfo();
+        messageInfo.setMessageId(messageId);
+
+        UserMessage userMessage = new UserMessage();
+        userMessage.setMessageInfo(messageInfo);
+
+        Messaging messaging = new Messaging();
+        messaging.getUserMessage().add(userMessage);
+
+        DocumentBuilderFactory documentBuilderFactory = DocumentBuilderFactory.newInstance();
+        documentBuilderFactory.setNamespaceAware(true);
+        Document document = documentBuilderFactory.newDocumentBuilder().newDocument();
+
+        Marshalling.getInstance().createMarshaller()
+                .marshal(new JAXBElement<>(Constants.MESSAGING_QNAME, Messaging.class, messaging), document);
+
+        SoapMessage message = new SoapMessage(new MessageImpl());
+        message.getHeaders().add(new Header(Constants.MESSAGING_QNAME, document.getDocumentElement()));
+        return message;
+    }
+}
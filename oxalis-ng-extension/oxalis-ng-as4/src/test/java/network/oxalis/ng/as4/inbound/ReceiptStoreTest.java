@@ -0,0 +1,92 @@
+package network.oxalis.ng.as4.inbound;
+
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.Comparator;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import static org.testng.Assert.*;
+
+public class ReceiptStoreTest {
+
+    private static final String SENDER = "CN=POP000001,O=Sender,C=NO";
+
+    private static final byte[] RECEIPT = "<receipt/>".getBytes(StandardCharsets.UTF_8);
+
+    private Path folder;
+
+    @BeforeMethod
+    public void createFolder() throws IOException {
+        folder = Files.createTempDirectory("receipts");
+    }
+
+    @AfterMethod
+    public void deleteFolder() throws IOException {
+        try (Stream<Path> stream = Files.walk(folder)) {
+            stream.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+    }
+
+    @Test
+    public void simple() {
+        ReceiptStore store = new ReceiptStore(folder, Runnable::run, true, 10, 1000, 3600);
+
+        assertFalse(store.get(SENDER, "message-1@example.com").isPresent());
+
+        store.put(SENDER, "message-1@example.com", RECEIPT);
+
+        assertEquals(store.get(SENDER, "message-1@example.com").get(), RECEIPT);
+        assertFalse(store.get(SENDER, "message-2@example.com").isPresent());
+    }
+
+    @Test
+    public void keptPerSender() {
+        ReceiptStore store = new ReceiptStore(folder, Runnable::run, true, 10, 1000, 3600);
+
+        store.put(SENDER, "message-1@example.com", RECEIPT);
+
+        assertTrue(store.get(SENDER, "message-1@example.com").isPresent());
+        assertFalse(store.get("CN=POP000002,O=Other,C=NO", "message-1@example.com").isPresent());
+    }
+
+    @Test
+    public void survivesRestart() {
+        new ReceiptStore(folder, Runnable::run, true, 10, 1000, 3600).put(SENDER, "message-1@example.com", RECEIPT);
+
+        ReceiptStore store = new ReceiptStore(folder, Runnable::run, true, 10, 1000, 3600);
+        assertEquals(store.get(SENDER, "message-1@example.com").get(), RECEIPT);
+    }
+
+    @Test
+    public void expiredReceiptsArePruned() throws IOException {
+        new ReceiptStore(folder, Runnable::run, true, 10, 1000, 3600).put(SENDER, "message-1@example.com", RECEIPT);
+
+        try (Stream<Path> stream = Files.walk(folder)) {
+            Path file = stream.filter(Files::isRegularFile).findFirst().get();
+            Files.setLastModifiedTime(file, FileTime.fromMillis(System.currentTimeMillis() - TimeUnit.HOURS.toMillis(2)));
+        }
+
+        ReceiptStore store = new ReceiptStore(folder, Runnable::run, true, 10, 1000, 3600);
+        assertFalse(store.get(SENDER, "message-1@example.com").isPresent());
+
+        try (Stream<Path> stream = Files.walk(folder)) {
+            assertEquals(stream.filter(Files::isRegularFile).count(), 0);
+        }
+    }
+
+    @Test
+    public void disabled() {
+        ReceiptStore store = new ReceiptStore(folder, Runnable::run, false, 10, 1000, 3600);
+        store.put(SENDER, "message-1@example.com", RECEIPT);
+
+        assertFalse(store.get(SENDER, "message-1@example.com").isPresent());
+    }
+}
@@ -0,0 +1,78 @@
+package network.oxalis.ng.as4.outbound;
+
+import org.apache.cxf.endpoint.Client;
+import org.apache.cxf.jaxws.DispatchImpl;
+import org.apache.neethi.Policy;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import jakarta.xml.soap.SOAPMessage;
+
+import static org.mockito.Mockito.*;
+
+public class DispatchPoolTest {
+
+    private final DispatchPool.DispatchKey key = new DispatchPool.DispatchKey("https://ap.example.com/as4", new Policy());
+
+    @Test
+    public void releasedDispatchIsReused() throws Exception {
+        DispatchPool pool = new DispatchPool(2, 60_000);
+        DispatchImpl<SOAPMessage> dispatch = mockDispatch();
+
+        Assert.assertSame(pool.borrow(key, () -> dispatch), dispatch);
+        pool.release(key, dispatch);
+        Assert.assertEquals(pool.getIdleCount(), 1);
+
+        Assert.assertSame(pool.borrow(key, () -> {
+            throw new AssertionError("Expected pooled dispatch to be reused");
+        }), dispatch);
+        Assert.assertEquals(pool.getIdleCount(), 0);
+    }
+
+    @Test
+    public void dispatchIsNotSharedBetweenEndpoints() throws Exception {
+        DispatchPool pool = new DispatchPool(2, 60_000);
+        DispatchImpl<SOAPMessage> dispatch = mockDispatch();
+        DispatchImpl<SOAPMessage> other = mockDispatch();
+
+        pool.release(key, dispatch);
+
+        DispatchPool.DispatchKey otherKey = new DispatchPool.DispatchKey("https://other.example.com/as4", key.getPolicy());
+        Assert.assertSame(pool.borrow(otherKey, () -> other), other);
+    }
+
+    @Test
+    public void poolIsBounded() {
+        DispatchPool pool = new DispatchPool(1, 60_000);
+        DispatchImpl<SOAPMessage> first = mockDispatch();
+        DispatchImpl<SOAPMessage> second = mockDispatch();
+
+        pool.release(key, first);
+        pool.release(key, second);
+
+        Assert.assertEquals(pool.getIdleCount(), 1);
+        verify(second.getClient()).destroy();
+        verify(first.getClient(), never()).destroy();
+    }
+
+    @Test
+    public void expiredDispatchIsDestroyed() throws Exception {
+        DispatchPool pool = new DispatchPool(1, 0);
+        DispatchImpl<SOAPMessage> expired = mockDispatch();
+        DispatchImpl<SOAPMessage> fresh = mockDispatch();
+
+        pool.release(key, expired);
+        Thread.sleep(5);
+
+        Assert.assertSame(pool.borrow(key, () -> fresh), fresh);
+        verify(expired.getClient()).destroy();
+    }
+
+    @SuppressWarnings("unchecked")
+    private static DispatchImpl<SOAPMessage> mockDispatch() {
+        DispatchImpl<SOAPMessage> dispatch = mock(DispatchImpl.class);
+        Client client = mock(Client.class);
+        when(dispatch.getClient()).thenReturn(client);
+        return dispatch;
+    }
+}
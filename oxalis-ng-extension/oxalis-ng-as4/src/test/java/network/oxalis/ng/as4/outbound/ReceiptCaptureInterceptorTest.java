@@ -0,0 +1,44 @@
+package network.oxalis.ng.as4.outbound;
+
+import com.google.common.io.ByteStreams;
+import org.apache.cxf.message.Message;
+import org.apache.cxf.message.MessageImpl;
+import org.testng.annotations.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
+import static org.testng.Assert.*;
+
+public class ReceiptCaptureInterceptorTest {
+
+    private static final byte[] RESPONSE = "<S12:Envelope xmlns:S12=\"http://www.w3.org/2003/05/soap-envelope\"/>"
+            .getBytes(StandardCharsets.UTF_8);
+
+    @Test
+    public void capturesResponse() throws Exception {
+        Message message = message("application/soap+xml; charset=UTF-8");
+
+        new ReceiptCaptureInterceptor().handleMessage(message);
+        assertEquals(ByteStreams.toByteArray(message.getContent(InputStream.class)), RESPONSE);
+
+        assertEquals(ReceiptCaptureInterceptor.getReceipt(message).get(), RESPONSE);
+    }
+
+    @Test
+    public void ignoresMultipart() {
+        Message message = message("multipart/related; type=\"application/soap+xml\"");
+
+        new ReceiptCaptureInterceptor().handleMessage(message);
+
+        assertFalse(ReceiptCaptureInterceptor.getReceipt(message).isPresent());
+    }
+
+    private static Message message(String contentType) {
+        Message message = new MessageImpl();
+        message.put(Message.CONTENT_TYPE, contentType);
+        message.setContent(InputStream.class, new ByteArrayInputStream(RESPONSE));
+        return message;
+    }
+}
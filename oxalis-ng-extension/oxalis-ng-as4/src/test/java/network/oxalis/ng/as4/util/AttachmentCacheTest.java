@@ -0,0 +1,105 @@
+package network.oxalis.ng.as4.util;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
+import org.apache.cxf.io.CacheSizeExceededException;
+import org.apache.cxf.io.CachedOutputStream;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.io.File;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.testng.Assert.*;
+
+public class AttachmentCacheTest {
+
+    private File directory;
+
+    private byte[] content;
+
+    @BeforeMethod
+    public void setUp() throws Exception {
+        directory = Files.createTempDirectory("attachment-cache").toFile();
+        content = new byte[64 * 1024];
+        new Random().nextBytes(content);
+    }
+
+    @AfterMethod
+    public void tearDown() throws Exception {
+        FileUtils.deleteDirectory(directory);
+    }
+
+    @Test
+    public void keptInMemoryBelowThreshold() throws Exception {
+        AttachmentCache attachmentCache = new AttachmentCache(content.length, directory, -1, null, false);
+
+        assertEquals(readBack(attachmentCache), content);
+        assertEquals(attachmentCache.getSpilled(), 0);
+        assertEquals(attachmentCache.getSpilledBytes(), 0);
+    }
+
+    @Test
+    public void spilledToDirectory() throws Exception {
+        AttachmentCache attachmentCache = new AttachmentCache(1024, directory, -1, null, false);
+
+        CachedOutputStream out = attachmentCache.newStream();
+        out.write(content);
+        assertEquals(out.getTempFile().getParentFile(), directory);
+
+        try (InputStream in = attachmentCache.getInputStream(out)) {
+            assertEquals(IOUtils.toByteArray(in), content);
+        }
+
+        assertEquals(attachmentCache.getSpilled(), 1);
+        assertEquals(attachmentCache.getSpilledBytes(), content.length);
+        assertEquals(directory.list().length, 0);
+    }
+
+    @Test
+    public void mappedReadBack() throws Exception {
+        AttachmentCache attachmentCache = new AttachmentCache(1024, directory, -1, null, true);
+
+        CachedOutputStream out = attachmentCache.newStream();
+        out.write(content);
+
+        try (InputStream in = attachmentCache.getInputStream(out)) {
+            assertEquals(directory.list().length, 0);
+            assertEquals(in.available(), content.length);
+            assertEquals(IOUtils.toByteArray(in), content);
+        }
+
+        assertEquals(attachmentCache.getSpilled(), 1);
+    }
+
+    @Test
+    public void encryptedTemporaryFile() throws Exception {
+        AttachmentCache attachmentCache = new AttachmentCache(1024, directory, -1, "AES/CTR/NoPadding", true);
+
+        CachedOutputStream out = attachmentCache.newStream();
+        out.write(content);
+        out.flush();
+        assertFalse(Arrays.equals(Files.readAllBytes(out.getTempFile().toPath()), content));
+
+        try (InputStream in = attachmentCache.getInputStream(out)) {
+            assertEquals(IOUtils.toByteArray(in), content);
+        }
+    }
+
+    @Test(expectedExceptions = CacheSizeExceededException.class)
+    public void maxSize() throws Exception {
+        readBack(new AttachmentCache(1024, directory, 4096, null, false));
+    }
+
+    private byte[] readBack(AttachmentCache attachmentCache) throws Exception {
+        CachedOutputStream out = attachmentCache.newStream();
+        out.write(content);
+        try (InputStream in = attachmentCache.getInputStream(out)) {
+            return IOUtils.toByteArray(in);
+        }
+    }
+}
@@ -1,12 +1,20 @@
 package network.oxalis.ng.as4.util;
 
+import org.apache.commons.io.FileUtils;
 import org.apache.commons.io.IOUtils;
 import org.testng.Assert;
 import org.testng.annotations.Test;
 
 import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
 import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.nio.file.Files;
 import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.zip.Deflater;
 import java.util.zip.GZIPInputStream;
 
 public class CompressionUtilTest {
@@ -32,4 +40,112 @@ public class CompressionUtilTest {
             Assert.assertEquals(before, after);
         }
     }
+
+    @Test
+    public void temporaryFileDeletedOnFailure() throws Exception {
+        byte[] before = new byte[64 * 1024];
+        new Random().nextBytes(before);
+        InputStream sourceStream = new SequenceInputStream(new ByteArrayInputStream(before),
+                new InputStream() {
+                    @Override
+                    public int read() throws IOException {
+                        throw new IOException("Source failed");
+                    }
+                });
+
+        File directory = Files.createTempDirectory("compression").toFile();
+        try {
+            new CompressionUtil(null, Deflater.NO_COMPRESSION, new AttachmentCache(1024, directory, -1, null, false))
+                    .getCompressedStream(sourceStream);
+            Assert.fail("Expected the source to fail.");
+        } catch (IOException e) {
+            Assert.assertEquals(directory.list().length, 0);
+        } finally {
+            FileUtils.deleteDirectory(directory);
+        }
+    }
+
+    @Test
+    public void streaming() throws Exception {
+        byte[] before = new byte[1024 * 1024];
+        new Random().nextBytes(before);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            CompressionDataSource dataSource = new CompressionUtil(executor, Deflater.BEST_SPEED)
+                    .getCompressedDataSource(new ByteArrayInputStream(before), "application/octet-stream");
+            try (GZIPInputStream decompressedStream = new GZIPInputStream(dataSource.getInputStream())) {
+                byte[] after = IOUtils.toByteArray(decompressedStream);
+                Assert.assertEquals(before, after);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void streamingReplay() throws Exception {
+        byte[] before = new byte[1024 * 1024];
+        new Random().nextBytes(before);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try (CompressionDataSource dataSource = new CompressionUtil(executor, Deflater.BEST_SPEED)
+                .getCompressedDataSource(new ByteArrayInputStream(before), "application/octet-stream")) {
+            byte[] compressed;
+            try (InputStream compressedStream = dataSource.getInputStream()) {
+                compressed = IOUtils.toByteArray(compressedStream);
+            }
+
+            // Signing and encryption read the attachment again before it is written.
+            for (int i = 0; i < 2; i++) {
+                try (InputStream replayedStream = dataSource.getInputStream()) {
+                    Assert.assertEquals(IOUtils.toByteArray(replayedStream), compressed);
+                }
+            }
+
+            try (GZIPInputStream decompressedStream = new GZIPInputStream(dataSource.getInputStream())) {
+                Assert.assertEquals(IOUtils.toByteArray(decompressedStream), before);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test(expectedExceptions = IOException.class)
+    public void streamingNotReadToEnd() throws Exception {
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            CompressionDataSource dataSource = new CompressionUtil(executor, Deflater.DEFAULT_COMPRESSION)
+                    .getCompressedDataSource(new ByteArrayInputStream("Lorem ipsum".getBytes()), "application/octet-stream");
+            dataSource.getInputStream().close();
+            dataSource.getInputStream();
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test(expectedExceptions = IOException.class)
+    public void streamingSourceFailure() throws Exception {
+        InputStream sourceStream = new SequenceInputStream(new ByteArrayInputStream("Lorem ipsum".getBytes()),
+                new InputStream() {
+                    @Override
+                    public int read() throws IOException {
+                        throw new IOException("Source failed");
+                    }
+                });
+
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            CompressionDataSource dataSource = new CompressionUtil(executor, Deflater.DEFAULT_COMPRESSION)
+                    .getCompressedDataSource(sourceStream, "application/octet-stream");
+            try (InputStream compressedStream = dataSource.getInputStream()) {
+                IOUtils.toByteArray(compressedStream);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void invalidLevel() {
+        new CompressionUtil(null, 10);
+    }
 }
@@ -0,0 +1,62 @@
+package network.oxalis.ng.as4.util;
+
+import org.oasis_open.docs.ebxml_msg.ebms.v3_0.ns.core._200704.MessageInfo;
+import org.oasis_open.docs.ebxml_msg.ebms.v3_0.ns.core._200704.Messaging;
+import org.oasis_open.docs.ebxml_msg.ebms.v3_0.ns.core._200704.UserMessage;
+import org.testng.annotations.Test;
+import org.w3c.dom.Document;
+
+import jakarta.xml.bind.JAXBElement;
+import jakarta.xml.bind.Marshaller;
+import javax.xml.parsers.DocumentBuilderFactory;
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.testng.Assert.*;
+
+public class JaxbPoolTest {
+
+    @Test
+    public void reusesInstances() throws Exception {
+        JaxbPool pool = new JaxbPool(Marshalling.getInstance(), 1);
+
+        Marshaller first = pool.withMarshaller(marshaller -> marshaller);
+        Marshaller second = pool.withMarshaller(marshaller -> marshaller);
+
+        assertSame(second, first);
+    }
+
+    @Test
+    public void createsInstancesBeyondCapacity() throws Exception {
+        JaxbPool pool = new JaxbPool(Marshalling.getInstance(), 1);
+        Set<Marshaller> marshallers = new HashSet<>();
+
+        pool.withMarshaller(outer -> {
+            marshallers.add(outer);
+            return pool.withMarshaller(marshallers::add);
+        });
+
+        assertEquals(marshallers.size(), 2);
+    }
+
+    @Test
+    public void roundTrip() throws Exception {
+        MessageInfo messageInfo = new MessageInfo();
+        messageInfo.setMessageId("message-1");
+
+        UserMessage userMessage = new UserMessage();
+        userMessage.setMessageInfo(messageInfo);
+
+        Messaging messaging = new Messaging();
+        messaging.getUserMessage().add(userMessage);
+
+        DocumentBuilderFactory documentBuilderFactory = DocumentBuilderFactory.newInstance();
+        documentBuilderFactory.setNamespaceAware(true);
+        Document document = documentBuilderFactory.newDocumentBuilder().newDocument();
+
+        Marshalling.getPool().marshal(new JAXBElement<>(Constants.MESSAGING_QNAME, Messaging.class, messaging), document);
+        Messaging result = Marshalling.getPool().unmarshal(document.getDocumentElement(), Messaging.class);
+
+        assertEquals(result.getUserMessage().get(0).getMessageInfo().getMessageId(), "message-1");
+    }
+}
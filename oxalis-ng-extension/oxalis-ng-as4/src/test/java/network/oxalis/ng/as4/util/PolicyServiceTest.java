@@ -0,0 +1,65 @@
+package network.oxalis.ng.as4.util;
+
+import network.oxalis.ng.as4.lang.OxalisAs4TransmissionException;
+import network.oxalis.ng.as4.outbound.DefaultActionProvider;
+import org.apache.cxf.Bus;
+import org.apache.cxf.BusFactory;
+import org.apache.neethi.Policy;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+public class PolicyServiceTest {
+
+    @Test
+    public void policyIsParsedOnce() throws Exception {
+        PolicyService policyService = new PolicyService(new DefaultActionProvider());
+
+        Policy first = policyService.getPolicy();
+        Policy second = policyService.getPolicy();
+
+        Assert.assertSame(first, second);
+        Assert.assertEquals(policyService.getCacheMisses(), 1);
+        Assert.assertEquals(policyService.getCacheHits(), 1);
+    }
+
+    @Test
+    public void warmUp() throws Exception {
+        Bus bus = BusFactory.newInstance().createBus();
+        try {
+            PolicyService policyService = new PolicyService(new DefaultActionProvider());
+            policyService.warmUp(bus);
+
+            Assert.assertNotNull(policyService.getPolicy(bus));
+            Assert.assertEquals(policyService.getCacheMisses(), 1);
+            Assert.assertEquals(policyService.getCacheHits(), 1);
+        } finally {
+            bus.shutdown(true);
+        }
+    }
+
+    @Test
+    public void policiesArePerBus() throws Exception {
+        Bus first = BusFactory.newInstance().createBus();
+        Bus second = BusFactory.newInstance().createBus();
+        try {
+            PolicyService policyService = new PolicyService(new DefaultActionProvider());
+
+            Assert.assertNotSame(policyService.getPolicy(first), policyService.getPolicy(second));
+            Assert.assertSame(policyService.getPolicy(first), policyService.getPolicy(first));
+            Assert.assertEquals(policyService.getCacheMisses(), 2);
+        } finally {
+            first.shutdown(true);
+            second.shutdown(true);
+        }
+    }
+
+    @Test(expectedExceptions = OxalisAs4TransmissionException.class)
+    public void unknownPolicy() throws Exception {
+        new PolicyService(new DefaultActionProvider()) {
+            @Override
+            protected String getDefaultPolicy() {
+                return "/no-such-policy.xml";
+            }
+        }.getPolicy();
+    }
+}
@@ -0,0 +1,109 @@
+package org.apache.cxf.attachment;
+
+import com.google.common.io.ByteStreams;
+import org.testng.annotations.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import static org.testng.Assert.*;
+
+public class As4MultipartReaderTest {
+
+    private static final String BOUNDARY = "--uuid:2a5c2b1e-1c8f-4e7b-9f4e-0d1f6b2d7c11";
+
+    @Test
+    public void readsParts() throws IOException {
+        byte[] large = new byte[200 * 1024];
+        for (int i = 0; i < large.length; i++)
+            large[i] = (byte) i;
+        // Partial delimiters inside the body must be kept.
+        byte[] partial = ("\r\n" + BOUNDARY.substring(0, BOUNDARY.length() - 1) + "x").getBytes(StandardCharsets.US_ASCII);
+        System.arraycopy(partial, 0, large, 65530, partial.length);
+
+        ByteArrayOutputStream multipart = new ByteArrayOutputStream();
+        write(multipart, "This is the preamble\r\n" + BOUNDARY + "\r\n");
+        write(multipart, "Content-Type: application/soap+xml\r\n\r\n<Envelope/>\r\n" + BOUNDARY + "  \r\n");
+        write(multipart, "Content-ID: <payload>\r\nContent-Type: application/octet-stream\r\n\r\n");
+        multipart.write(large);
+        write(multipart, "\r\n" + BOUNDARY + "--\r\nThis is the epilogue\r\n");
+
+        As4MultipartReader reader = new As4MultipartReader(
+                new ByteArrayInputStream(multipart.toByteArray()), BOUNDARY.getBytes(StandardCharsets.US_ASCII));
+
+        assertTrue(reader.readTillFirstBoundary());
+        assertEquals(reader.readLine(300), "Content-Type: application/soap+xml");
+        assertEquals(reader.readLine(300), "");
+        assertEquals(readByteByByte(reader.newPartStream()), "<Envelope/>".getBytes(StandardCharsets.US_ASCII));
+
+        assertTrue(reader.hasNext());
+        assertEquals(reader.readLine(300), "Content-ID: <payload>");
+        assertEquals(reader.readLine(300), "Content-Type: application/octet-stream");
+        assertEquals(reader.readLine(300), "");
+
+        InputStream part = reader.newPartStream();
+        assertEquals(ByteStreams.toByteArray(part), large);
+        assertEquals(part.read(), -1);
+
+        assertFalse(reader.hasNext());
+    }
+
+    @Test
+    public void availableStopsAtDelimiter() throws IOException {
+        ByteArrayOutputStream multipart = new ByteArrayOutputStream();
+        write(multipart, BOUNDARY + "\r\n\r\n<Envelope/>\r\n" + BOUNDARY + "\r\n");
+        write(multipart, "Content-ID: <payload>\r\n\r\nPayload\r\n" + BOUNDARY + "--\r\n");
+
+        As4MultipartReader reader = new As4MultipartReader(
+                new ByteArrayInputStream(multipart.toByteArray()), BOUNDARY.getBytes(StandardCharsets.US_ASCII));
+
+        assertTrue(reader.readTillFirstBoundary());
+        assertEquals(reader.readLine(300), "");
+
+        InputStream part = reader.newPartStream();
+        assertEquals(part.available(), "<Envelope/>".length());
+
+        byte[] content = new byte[part.available()];
+        ByteStreams.readFully(part, content);
+        assertEquals(content, "<Envelope/>".getBytes(StandardCharsets.US_ASCII));
+        assertEquals(part.available(), 0);
+        assertEquals(part.read(), -1);
+    }
+
+    @Test
+    public void missingBoundary() throws IOException {
+        As4MultipartReader reader = new As4MultipartReader(
+                new ByteArrayInputStream(new byte[100 * 1024]), BOUNDARY.getBytes(StandardCharsets.US_ASCII));
+
+        assertFalse(reader.readTillFirstBoundary());
+    }
+
+    @Test(expectedExceptions = HeaderSizeExceededException.class)
+    public void headerTooLong() throws IOException {
+        char[] header = new char[500];
+        Arrays.fill(header, 'a');
+
+        As4MultipartReader reader = new As4MultipartReader(new ByteArrayInputStream(
+                (BOUNDARY + "\r\nX-Long: " + new String(header) + "\r\n\r\n").getBytes(StandardCharsets.US_ASCII)),
+                BOUNDARY.getBytes(StandardCharsets.US_ASCII));
+
+        assertTrue(reader.readTillFirstBoundary());
+        reader.readLine(300);
+    }
+
+    private static byte[] readByteByByte(InputStream inputStream) throws IOException {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        int b;
+        while ((b = inputStream.read()) != -1)
+            outputStream.write(b);
+        return outputStream.toByteArray();
+    }
+
+    private static void write(ByteArrayOutputStream outputStream, String value) {
+        outputStream.writeBytes(value.getBytes(StandardCharsets.US_ASCII));
+    }
+}
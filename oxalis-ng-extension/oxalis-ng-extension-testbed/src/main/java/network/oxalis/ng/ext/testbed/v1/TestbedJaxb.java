@@ -1,5 +1,6 @@
 package network.oxalis.ng.ext.testbed.v1;
 
+import network.oxalis.ng.as4.util.JaxbPool;
 import network.oxalis.ng.ext.testbed.v1.jaxb.*;
 
 import jakarta.xml.bind.JAXBContext;
@@ -16,10 +17,13 @@ public class TestbedJaxb {
 
     public static final ObjectFactory OBJECT_FACTORY = new ObjectFactory();
 
+    public static final JaxbPool JAXB_POOL;
+
     static {
         try {
             JAXB_CONTEXT = JAXBContext.newInstance(InformationType.class, OutboundType.class,
                     OutboundResponseType.class, InboundType.class, ErrorType.class);
+            JAXB_POOL = new JaxbPool(JAXB_CONTEXT);
         } catch (JAXBException e) {
             throw new IllegalStateException(e.getMessage(), e);
         }
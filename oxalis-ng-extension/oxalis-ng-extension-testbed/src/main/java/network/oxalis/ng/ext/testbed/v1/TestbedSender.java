@@ -63,7 +63,7 @@ public class TestbedSender {
 
     private byte[] prepareContent(JAXBElement<?> element) throws JAXBException {
         ByteArrayOutputStream baos = new ByteArrayOutputStream();
-        TestbedJaxb.marshaller().marshal(element, baos);
+        TestbedJaxb.JAXB_POOL.marshal(element, baos);
         return baos.toByteArray();
     }
 
@@ -66,7 +66,7 @@ public class TestbedServlet extends HttpServlet {
             informationType.setCertificate(certificate.getEncoded());
 
             resp.addHeader("Content-Type", "application/xml;charset=UTF-8");
-            TestbedJaxb.marshaller().marshal(
+            TestbedJaxb.JAXB_POOL.marshal(
                     TestbedJaxb.OBJECT_FACTORY.createInformation(informationType),
                     resp.getWriter());
         } catch (JAXBException | CertificateEncodingException e) {
@@ -77,9 +77,8 @@ public class TestbedServlet extends HttpServlet {
     @Override
     protected void doPost(HttpServletRequest req, HttpServletResponse resp) throws ServletException, IOException {
         try {
-            OutboundType outbound = TestbedJaxb.unmarshaller()
-                    .unmarshal(new StreamSource(req.getInputStream()), OutboundType.class)
-                    .getValue();
+            OutboundType outbound = TestbedJaxb.JAXB_POOL
+                    .unmarshal(new StreamSource(req.getInputStream()), OutboundType.class);
 
             TransmissionMessage transmissionMessage = transmissionRequestFactory.get()
                     .newInstance(new ByteArrayInputStream(outbound.getPayload()));
@@ -99,7 +98,7 @@ public class TestbedServlet extends HttpServlet {
             response.setReceipt(ByteStreams.toByteArray(evidenceInputStream));
 
             resp.addHeader("Content-Type", "application/xml;charset=UTF-8");
-            TestbedJaxb.marshaller().marshal(
+            TestbedJaxb.JAXB_POOL.marshal(
                     TestbedJaxb.OBJECT_FACTORY.createOutboundResponse(response),
                     resp.getWriter());
         } catch (JAXBException e) {
@@ -110,7 +109,7 @@ public class TestbedServlet extends HttpServlet {
                 response.setError(e.getMessage());
 
                 resp.addHeader("Content-Type", "application/xml;charset=UTF-8");
-                TestbedJaxb.marshaller().marshal(
+                TestbedJaxb.JAXB_POOL.marshal(
                         TestbedJaxb.OBJECT_FACTORY.createOutboundResponse(response),
                         resp.getWriter());
             } catch (JAXBException ex) {
@@ -32,6 +32,9 @@ import network.oxalis.ng.api.inbound.InboundService;
 import network.oxalis.ng.api.settings.Settings;
 import network.oxalis.ng.commons.guice.ImplLoader;
 import network.oxalis.ng.commons.settings.SettingsBuilder;
+import network.oxalis.ng.inbound.admission.AdmissionConf;
+import network.oxalis.ng.inbound.admission.AdmissionFilter;
+import network.oxalis.ng.inbound.admission.AdmissionStatusServlet;
 import network.oxalis.ng.inbound.servlet.HomeServlet;
 import network.oxalis.ng.inbound.tracing.DefaultOpenTelemetryTracingFilter;
 import network.oxalis.ng.inbound.tracing.OpenTelemetryServletConf;
@@ -45,10 +48,13 @@ public class InboundModule extends ServletModule {
     @Override
     protected void configureServlets() {
         SettingsBuilder.with(binder(), OpenTelemetryServletConf.class);
+        SettingsBuilder.with(binder(), AdmissionConf.class);
 
         filter("/*").through(OpenTelemetryTracingFilter.class);
+        filter("/*").through(AdmissionFilter.class);
 
         serve("/").with(HomeServlet.class);
+        serve("/status/admission").with(AdmissionStatusServlet.class);
 
         bind(InboundService.class).to(DefaultInboundService.class);
 
@@ -0,0 +1,76 @@
+package network.oxalis.ng.inbound.admission;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Concurrency limit adjusted using additive increase and multiplicative decrease (AIMD). While at least half of the
+ * limit is in use, the limit grows by one for every limit's worth of requests completing within the latency
+ * threshold. The limit is cut by the backoff ratio for every request exceeding the threshold.
+ */
+class AdaptiveLimit {
+
+    private static final double BACKOFF = 0.9;
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    private final int min;
+
+    private final int max;
+
+    private final long threshold;
+
+    private double limit;
+
+    private volatile int current;
+
+    AdaptiveLimit(int initial, int min, int max, long threshold) {
+        this.min = Math.max(min, 1);
+        this.max = Math.max(max, this.min);
+        this.threshold = threshold;
+        this.limit = Math.min(Math.max(initial, this.min), this.max);
+        this.current = (int) limit;
+    }
+
+    boolean tryAcquire() {
+        while (true) {
+            int count = inFlight.get();
+            if (count >= current)
+                return false;
+            if (inFlight.compareAndSet(count, count + 1))
+                return true;
+        }
+    }
+
+    /**
+     * Releases a request without adjusting the limit, used when the request was not processed.
+     */
+    void cancel() {
+        inFlight.decrementAndGet();
+    }
+
+    /**
+     * Releases a processed request, adjusting the limit using the latency of the request.
+     *
+     * @param latency Latency in nanoseconds.
+     */
+    void release(long latency) {
+        int count = inFlight.getAndDecrement();
+
+        synchronized (this) {
+            if (latency > threshold)
+                limit = Math.max(min, limit * BACKOFF);
+            else if (count * 2 >= current)
+                limit = Math.min(max, limit + 1 / limit);
+
+            current = (int) limit;
+        }
+    }
+
+    int getLimit() {
+        return current;
+    }
+
+    int getInFlight() {
+        return inFlight.get();
+    }
+}
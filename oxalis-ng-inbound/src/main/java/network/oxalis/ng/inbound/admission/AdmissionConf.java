@@ -0,0 +1,46 @@
+package network.oxalis.ng.inbound.admission;
+
+import network.oxalis.ng.api.settings.DefaultValue;
+import network.oxalis.ng.api.settings.Nullable;
+import network.oxalis.ng.api.settings.Path;
+import network.oxalis.ng.api.settings.Title;
+
+@Title("Admission")
+public enum AdmissionConf {
+
+    @Path("oxalis.admission.enabled")
+    @DefaultValue("false")
+    ENABLED,
+
+    @Path("oxalis.admission.limit.initial")
+    @DefaultValue("100")
+    LIMIT_INITIAL,
+
+    @Path("oxalis.admission.limit.min")
+    @DefaultValue("10")
+    LIMIT_MIN,
+
+    @Path("oxalis.admission.limit.max")
+    @DefaultValue("500")
+    LIMIT_MAX,
+
+    @Path("oxalis.admission.sender.limit")
+    @DefaultValue("50")
+    SENDER_LIMIT,
+
+    @Path("oxalis.admission.latency")
+    @DefaultValue("30000")
+    LATENCY,
+
+    @Path("oxalis.admission.retry_after")
+    @DefaultValue("5")
+    RETRY_AFTER,
+
+    @Path("oxalis.admission.client_header")
+    @Nullable
+    CLIENT_HEADER,
+
+    @Path("oxalis.admission.trusted_proxies")
+    @DefaultValue("1")
+    TRUSTED_PROXIES,
+}
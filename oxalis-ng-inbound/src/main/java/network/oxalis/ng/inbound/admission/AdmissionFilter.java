@@ -0,0 +1,192 @@
+package network.oxalis.ng.inbound.admission;
+
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.LoadingCache;
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+import jakarta.servlet.Filter;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletRequest;
+import jakarta.servlet.ServletResponse;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import network.oxalis.ng.api.settings.Settings;
+
+import javax.naming.InvalidNameException;
+import javax.naming.ldap.LdapName;
+import javax.naming.ldap.Rdn;
+import java.io.IOException;
+import java.security.cert.X509Certificate;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Limits the number of messages processed concurrently, in total and per sender, answering requests above the limits
+ * with HTTP 503 and Retry-After before any further processing. Both limits adapt to the observed latency, see
+ * {@link AdaptiveLimit}.
+ * <p>
+ * Senders are identified by the CN of the TLS client certificate when present, otherwise by the client address taken
+ * from the configured header or the remote address of the request. Each proxy appends the address it received the
+ * request from to the header, so the client address is taken counting the configured number of trusted proxies from
+ * the end of the header, ignoring any addresses set by the client itself. Only POST requests are limited.
+ */
+@Slf4j
+@Singleton
+public class AdmissionFilter implements Filter {
+
+    private static final String CERTIFICATE_ATTRIBUTE = "jakarta.servlet.request.X509Certificate";
+
+    private final boolean enabled;
+
+    private final AdaptiveLimit limit;
+
+    private final LoadingCache<String, AdaptiveLimit> senders;
+
+    private final long latency;
+
+    private final String retryAfter;
+
+    private final String clientHeader;
+
+    private final int trustedProxies;
+
+    private final AtomicLong accepted = new AtomicLong();
+
+    private final AtomicLong rejected = new AtomicLong();
+
+    private final AtomicLong rejectedSender = new AtomicLong();
+
+    @Inject
+    public AdmissionFilter(Settings<AdmissionConf> settings) {
+        this(Boolean.parseBoolean(settings.getString(AdmissionConf.ENABLED)),
+                settings.getInt(AdmissionConf.LIMIT_INITIAL),
+                settings.getInt(AdmissionConf.LIMIT_MIN),
+                settings.getInt(AdmissionConf.LIMIT_MAX),
+                settings.getInt(AdmissionConf.SENDER_LIMIT),
+                settings.getInt(AdmissionConf.LATENCY),
+                settings.getInt(AdmissionConf.RETRY_AFTER),
+                settings.getString(AdmissionConf.CLIENT_HEADER),
+                settings.getInt(AdmissionConf.TRUSTED_PROXIES));
+    }
+
+    AdmissionFilter(boolean enabled, int initial, int min, int max, int senderLimit, long latency, int retryAfter,
+                    String clientHeader, int trustedProxies) {
+        this.enabled = enabled;
+        this.latency = TimeUnit.MILLISECONDS.toNanos(latency);
+        this.limit = new AdaptiveLimit(initial, min, max, this.latency);
+        this.retryAfter = String.valueOf(retryAfter);
+        this.clientHeader = clientHeader;
+        this.trustedProxies = trustedProxies;
+        this.senders = CacheBuilder.newBuilder()
+                .maximumSize(10000)
+                .expireAfterAccess(1, TimeUnit.HOURS)
+                .build(CacheLoader.from(sender ->
+                        new AdaptiveLimit(senderLimit, 1, senderLimit, this.latency)));
+    }
+
+    @Override
+    public void doFilter(ServletRequest servletRequest, ServletResponse servletResponse, FilterChain filterChain)
+            throws IOException, ServletException {
+        if (!enabled || !(servletRequest instanceof HttpServletRequest)
+                || !"POST".equals(((HttpServletRequest) servletRequest).getMethod())) {
+            filterChain.doFilter(servletRequest, servletResponse);
+            return;
+        }
+
+        String sender = getSender((HttpServletRequest) servletRequest);
+
+        if (!limit.tryAcquire()) {
+            rejected.incrementAndGet();
+            reject((HttpServletResponse) servletResponse, sender, "total");
+            return;
+        }
+
+        AdaptiveLimit senderLimit = senders.getUnchecked(sender);
+        if (!senderLimit.tryAcquire()) {
+            limit.cancel();
+            rejectedSender.incrementAndGet();
+            reject((HttpServletResponse) servletResponse, sender, "sender");
+            return;
+        }
+
+        accepted.incrementAndGet();
+        long start = System.nanoTime();
+        try {
+            filterChain.doFilter(servletRequest, servletResponse);
+        } finally {
+            long duration = System.nanoTime() - start;
+            senderLimit.release(duration);
+            limit.release(duration);
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public int getLimit() {
+        return limit.getLimit();
+    }
+
+    public int getInFlight() {
+        return limit.getInFlight();
+    }
+
+    public long getAccepted() {
+        return accepted.get();
+    }
+
+    public long getRejected() {
+        return rejected.get();
+    }
+
+    public long getRejectedSender() {
+        return rejectedSender.get();
+    }
+
+    public long getSenders() {
+        return senders.size();
+    }
+
+    private void reject(HttpServletResponse response, String sender, String reason) throws IOException {
+        log.debug("Rejecting request from '{}', {} limit reached.", sender, reason);
+
+        response.setHeader("Retry-After", retryAfter);
+        response.sendError(HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+    }
+
+    private String getSender(HttpServletRequest request) {
+        Object certificates = request.getAttribute(CERTIFICATE_ATTRIBUTE);
+        if (certificates instanceof X509Certificate[] && ((X509Certificate[]) certificates).length > 0)
+            return getCommonName(((X509Certificate[]) certificates)[0]);
+
+        if (clientHeader != null && trustedProxies > 0) {
+            String value = request.getHeader(clientHeader);
+            if (value != null && !value.isBlank()) {
+                String[] addresses = value.split(",");
+                String address = addresses[Math.max(0, addresses.length - trustedProxies)].trim();
+                if (!address.isEmpty())
+                    return address;
+            }
+        }
+
+        return request.getRemoteAddr();
+    }
+
+    private static String getCommonName(X509Certificate certificate) {
+        String subject = certificate.getSubjectX500Principal().getName();
+
+        try {
+            for (Rdn rdn : new LdapName(subject).getRdns())
+                if ("CN".equalsIgnoreCase(rdn.getType()))
+                    return String.valueOf(rdn.getValue());
+        } catch (InvalidNameException e) {
+            log.debug("Unable to parse certificate subject '{}': {}", subject, e.getMessage());
+        }
+
+        return subject;
+    }
+}
@@ -0,0 +1,35 @@
+package network.oxalis.ng.inbound.admission;
+
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+import jakarta.servlet.http.HttpServlet;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+
+@Singleton
+public class AdmissionStatusServlet extends HttpServlet {
+
+    private final AdmissionFilter admissionFilter;
+
+    @Inject
+    public AdmissionStatusServlet(AdmissionFilter admissionFilter) {
+        this.admissionFilter = admissionFilter;
+    }
+
+    @Override
+    protected void doGet(HttpServletRequest req, HttpServletResponse resp) throws IOException {
+        resp.setContentType("text/plain");
+
+        PrintWriter writer = resp.getWriter();
+        writer.println("admission.enabled: " + admissionFilter.isEnabled());
+        writer.println("admission.limit: " + admissionFilter.getLimit());
+        writer.println("admission.in_flight: " + admissionFilter.getInFlight());
+        writer.println("admission.senders: " + admissionFilter.getSenders());
+        writer.println("admission.accepted: " + admissionFilter.getAccepted());
+        writer.println("admission.rejected.total: " + admissionFilter.getRejected());
+        writer.println("admission.rejected.sender: " + admissionFilter.getRejectedSender());
+    }
+}
@@ -0,0 +1,45 @@
+package network.oxalis.ng.inbound.admission;
+
+import org.testng.annotations.Test;
+
+import static org.testng.Assert.*;
+
+public class AdaptiveLimitTest {
+
+    @Test
+    public void limitsConcurrency() {
+        AdaptiveLimit limit = new AdaptiveLimit(2, 1, 10, 1000);
+
+        assertTrue(limit.tryAcquire());
+        assertTrue(limit.tryAcquire());
+        assertFalse(limit.tryAcquire());
+
+        limit.cancel();
+        assertTrue(limit.tryAcquire());
+        assertEquals(limit.getInFlight(), 2);
+    }
+
+    @Test
+    public void increasesWhenFast() {
+        AdaptiveLimit limit = new AdaptiveLimit(2, 1, 3, 1000);
+
+        for (int i = 0; i < 20; i++) {
+            assertTrue(limit.tryAcquire());
+            limit.release(10);
+        }
+
+        assertEquals(limit.getLimit(), 3);
+    }
+
+    @Test
+    public void decreasesWhenSlow() {
+        AdaptiveLimit limit = new AdaptiveLimit(10, 2, 10, 1000);
+
+        for (int i = 0; i < 20; i++) {
+            assertTrue(limit.tryAcquire());
+            limit.release(5000);
+        }
+
+        assertEquals(limit.getLimit(), 2);
+    }
+}
@@ -0,0 +1,83 @@
+package network.oxalis.ng.inbound.admission;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.mockito.Mockito;
+import org.testng.annotations.Test;
+
+import static org.testng.Assert.*;
+
+public class AdmissionFilterTest {
+
+    @Test
+    public void rejectsAboveSenderLimit() throws Exception {
+        AdmissionFilter filter = new AdmissionFilter(true, 10, 1, 10, 1, 30000, 7, "X-Forwarded-For", 1);
+
+        HttpServletRequest request = request("10.0.0.1");
+        HttpServletResponse response = Mockito.mock(HttpServletResponse.class);
+        HttpServletResponse rejected = Mockito.mock(HttpServletResponse.class);
+
+        // Second request from the same sender arrives while the first is processed.
+        filter.doFilter(request, response, (req, resp) -> filter.doFilter(request, rejected, Mockito.mock(FilterChain.class)));
+
+        Mockito.verify(rejected).setHeader("Retry-After", "7");
+        Mockito.verify(rejected).sendError(HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+        Mockito.verifyNoInteractions(response);
+
+        assertEquals(filter.getAccepted(), 1);
+        assertEquals(filter.getRejectedSender(), 1);
+        assertEquals(filter.getInFlight(), 0);
+    }
+
+    @Test
+    public void sendersAreLimitedSeparately() throws Exception {
+        AdmissionFilter filter = new AdmissionFilter(true, 10, 1, 10, 1, 30000, 5, "X-Forwarded-For", 1);
+
+        FilterChain chain = Mockito.mock(FilterChain.class);
+        HttpServletResponse response = Mockito.mock(HttpServletResponse.class);
+
+        filter.doFilter(request("10.0.0.1"), response, (req, resp) -> filter.doFilter(request("10.0.0.2"), response, chain));
+
+        Mockito.verify(chain).doFilter(Mockito.any(), Mockito.any());
+        Mockito.verifyNoInteractions(response);
+        assertEquals(filter.getAccepted(), 2);
+    }
+
+    @Test
+    public void forwardedAddressesSetByClientAreIgnored() throws Exception {
+        AdmissionFilter filter = new AdmissionFilter(true, 10, 1, 10, 1, 30000, 5, "X-Forwarded-For", 1);
+
+        HttpServletRequest spoofed = request("10.0.0.1");
+        Mockito.when(spoofed.getHeader("X-Forwarded-For")).thenReturn("10.0.0.2, 10.0.0.1");
+        HttpServletResponse rejected = Mockito.mock(HttpServletResponse.class);
+
+        filter.doFilter(request("10.0.0.1"), Mockito.mock(HttpServletResponse.class),
+                (req, resp) -> filter.doFilter(spoofed, rejected, Mockito.mock(FilterChain.class)));
+
+        Mockito.verify(rejected).sendError(HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+        assertEquals(filter.getRejectedSender(), 1);
+    }
+
+    @Test
+    public void disabled() throws Exception {
+        AdmissionFilter filter = new AdmissionFilter(false, 1, 1, 1, 1, 30000, 5, null, 1);
+
+        FilterChain chain = Mockito.mock(FilterChain.class);
+        HttpServletRequest request = request("10.0.0.1");
+        HttpServletResponse response = Mockito.mock(HttpServletResponse.class);
+
+        filter.doFilter(request, response, (req, resp) -> filter.doFilter(request, response, chain));
+
+        Mockito.verify(chain).doFilter(request, response);
+        assertEquals(filter.getAccepted(), 0);
+    }
+
+    private static HttpServletRequest request(String client) {
+        HttpServletRequest request = Mockito.mock(HttpServletRequest.class);
+        Mockito.when(request.getMethod()).thenReturn("POST");
+        Mockito.when(request.getHeader("X-Forwarded-For")).thenReturn(client);
+        Mockito.when(request.getRemoteAddr()).thenReturn("192.168.0.1");
+        return request;
+    }
+}
@@ -23,6 +23,7 @@
 package network.oxalis.ng.statistics.api;
 
 import java.util.Date;
+import java.util.List;
 
 /**
  * Objects implementing this interface are capable of storing and retrieving raw data
@@ -39,6 +40,14 @@ public interface RawStatisticsRepository {
      */
     Integer persist(RawStatistics rawStatistics);
 
+    /**
+     * Persists several raw statistics entries into table {@code raw_stats}. Implementations should write the
+     * entries using as few round-trips as possible.
+     */
+    default void persistAll(List<? extends RawStatistics> rawStatistics) {
+        rawStatistics.forEach(this::persist);
+    }
+
     /**
      * Retrieves data from table <code>raw_stats</code> and transforms it into an appropriate XML document
      */
@@ -23,6 +23,7 @@
 package network.oxalis.ng.statistics.inbound;
 
 import com.google.inject.servlet.ServletModule;
+import network.oxalis.ng.statistics.service.StatisticsStatusServlet;
 
 /**
  * @author erlend
@@ -32,5 +33,6 @@ public class StatisticsInboundModule extends ServletModule {
     @Override
     protected void configureServlets() {
         serve("/statistics/*").with(StatisticsServlet.class);
+        serve("/status/statistics").with(StatisticsStatusServlet.class);
     }
 }
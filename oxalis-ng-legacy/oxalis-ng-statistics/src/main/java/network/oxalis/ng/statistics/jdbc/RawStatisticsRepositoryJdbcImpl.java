@@ -32,6 +32,7 @@ import network.oxalis.ng.statistics.api.StatisticsTransformer;
 
 import java.sql.*;
 import java.util.Date;
+import java.util.List;
 
 /**
  * Basic JDBC implementation of StatisticsRepository component supplied with Oxalis.
@@ -64,14 +65,7 @@ public abstract class RawStatisticsRepositoryJdbcImpl implements RawStatisticsRe
             con = jdbcTxManager.getConnection();
             ps = con.prepareStatement(sqlStatement, Statement.RETURN_GENERATED_KEYS);
 
-            ps.setString(1, rawStatistics.getAccessPointIdentifier().toString());
-            ps.setTimestamp(2, new Timestamp(rawStatistics.getDate().getTime()));
-            ps.setString(3, rawStatistics.getDirection().toString());
-            ps.setString(4, rawStatistics.getSender().getIdentifier());
-            ps.setString(5, rawStatistics.getReceiver().getIdentifier());
-            ps.setString(6, rawStatistics.getDocumentTypeIdentifier().toString());
-            ps.setString(7, rawStatistics.getProcessIdentifier().toString());
-            ps.setString(8, rawStatistics.getChannelId() == null ? null : rawStatistics.getChannelId().stringValue());
+            setPersistParameters(ps, rawStatistics);
 
             ps.executeUpdate();
             ResultSet rs = ps.getGeneratedKeys();
@@ -88,6 +82,47 @@ public abstract class RawStatisticsRepositoryJdbcImpl implements RawStatisticsRe
         return result;
     }
 
+    /**
+     * Persists raw statistics into the DBMS via a single JDBC batch.
+     */
+    @Override
+    public void persistAll(List<? extends RawStatistics> rawStatistics) {
+        if (rawStatistics.isEmpty()) {
+            return;
+        }
+
+        Connection con = null;
+        try {
+            con = jdbcTxManager.getConnection();
+            try (PreparedStatement ps = con.prepareStatement(this.getPersistSqlQueryText())) {
+                for (RawStatistics entry : rawStatistics) {
+                    setPersistParameters(ps, entry);
+                    ps.addBatch();
+                }
+
+                ps.executeBatch();
+            }
+        } catch (SQLException e) {
+            throw new IllegalStateException("Unable to execute batch of " + rawStatistics.size() + " statements " + e, e);
+        } finally {
+            DataSourceHelper.close(con);
+        }
+    }
+
+    /**
+     * Sets the parameters of the statement returned by {@link #getPersistSqlQueryText()}.
+     */
+    protected void setPersistParameters(PreparedStatement ps, RawStatistics rawStatistics) throws SQLException {
+        ps.setString(1, rawStatistics.getAccessPointIdentifier().toString());
+        ps.setTimestamp(2, new Timestamp(rawStatistics.getDate().getTime()));
+        ps.setString(3, rawStatistics.getDirection().toString());
+        ps.setString(4, rawStatistics.getSender().getIdentifier());
+        ps.setString(5, rawStatistics.getReceiver().getIdentifier());
+        ps.setString(6, rawStatistics.getDocumentTypeIdentifier().toString());
+        ps.setString(7, rawStatistics.getProcessIdentifier().toString());
+        ps.setString(8, rawStatistics.getChannelId() == null ? null : rawStatistics.getChannelId().stringValue());
+    }
+
     /**
      * Retrieves statistics and transforms it using the supplied transformer.
      */
@@ -55,14 +55,7 @@ public class RawStatisticsRepositoryOracleImpl extends RawStatisticsRepositoryJd
 
             // Oracle does not support Statement.RETURN_GENERATED_KEYS, so return the trigger generated "id" column
             ps = con.prepareStatement(sqlStatement, new String[]{"id"});
-            ps.setString(1, rawStatistics.getAccessPointIdentifier().toString());
-            ps.setTimestamp(2, new Timestamp(rawStatistics.getDate().getTime()));
-            ps.setString(3, rawStatistics.getDirection().toString());
-            ps.setString(4, rawStatistics.getSender().getIdentifier());
-            ps.setString(5, rawStatistics.getReceiver().getIdentifier());
-            ps.setString(6, rawStatistics.getDocumentTypeIdentifier().toString());
-            ps.setString(7, rawStatistics.getProcessIdentifier().toString());
-            ps.setString(8, rawStatistics.getChannelId() == null ? null : rawStatistics.getChannelId().stringValue());
+            setPersistParameters(ps, rawStatistics);
 
             ps.executeUpdate();
             ResultSet rs = ps.getGeneratedKeys();
@@ -0,0 +1,47 @@
+/*
+ * Copyright 2010-2018 Norwegian Agency for Public Management and eGovernment (Difi)
+ *
+ * Licensed under the EUPL, Version 1.1 or – as soon they
+ * will be approved by the European Commission - subsequent
+ * versions of the EUPL (the "Licence");
+ *
+ * You may not use this work except in compliance with the Licence.
+ *
+ * You may obtain a copy of the Licence at:
+ *
+ * https://joinup.ec.europa.eu/community/eupl/og_page/eupl
+ *
+ * Unless required by applicable law or agreed to in
+ * writing, software distributed under the Licence is
+ * distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied.
+ * See the Licence for the specific language governing
+ * permissions and limitations under the Licence.
+ */
+
+package network.oxalis.ng.statistics.service;
+
+import network.oxalis.ng.api.settings.DefaultValue;
+import network.oxalis.ng.api.settings.Path;
+import network.oxalis.ng.api.settings.Title;
+
+@Title("Asynchronous statistics")
+public enum AsyncStatisticsConf {
+
+    @Path("oxalis.statistics.async.queue_size")
+    @DefaultValue("10000")
+    QUEUE_SIZE,
+
+    @Path("oxalis.statistics.async.batch_size")
+    @DefaultValue("100")
+    BATCH_SIZE,
+
+    /**
+     * Maximum time in milliseconds an entry waits in the queue before being flushed.
+     */
+    @Path("oxalis.statistics.async.flush_interval")
+    @DefaultValue("1000")
+    FLUSH_INTERVAL
+
+}
@@ -0,0 +1,153 @@
+package network.oxalis.ng.statistics.service;
+
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+import com.google.inject.name.Named;
+import lombok.extern.slf4j.Slf4j;
+import network.oxalis.ng.api.inbound.InboundMetadata;
+import network.oxalis.ng.api.outbound.TransmissionRequest;
+import network.oxalis.ng.api.outbound.TransmissionResponse;
+import network.oxalis.ng.api.settings.Settings;
+import network.oxalis.ng.api.statistics.StatisticsService;
+import network.oxalis.ng.api.util.Type;
+import network.oxalis.ng.statistics.api.RawStatistics;
+import network.oxalis.ng.statistics.api.RawStatisticsRepository;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Statistics service handing entries over to a bounded queue, which is drained in batches on the statistics
+ * executor. Entries are dropped rather than blocking the caller when the queue is full, so a slow statistics
+ * database never delays the transmission or reception of messages.
+ * <p>
+ * Enabled using {@code oxalis.statistics.service = async}.
+ */
+@Slf4j
+@Singleton
+@Type("async")
+class AsyncStatisticsService implements StatisticsService {
+
+    private final RawStatisticsRepository rawStatisticsRepository;
+
+    private final BlockingQueue<RawStatistics> queue;
+
+    private final int batchSize;
+
+    private final long flushIntervalMillis;
+
+    private final AtomicLong dropped = new AtomicLong();
+
+    private final AtomicLong persisted = new AtomicLong();
+
+    private final AtomicLong failed = new AtomicLong();
+
+    @Inject
+    public AsyncStatisticsService(RawStatisticsRepository rawStatisticsRepository,
+                                  @Named("statistics") ExecutorService executorService,
+                                  Settings<AsyncStatisticsConf> settings) {
+        this(rawStatisticsRepository, executorService,
+                settings.getInt(AsyncStatisticsConf.QUEUE_SIZE),
+                settings.getInt(AsyncStatisticsConf.BATCH_SIZE),
+                settings.getInt(AsyncStatisticsConf.FLUSH_INTERVAL));
+    }
+
+    AsyncStatisticsService(RawStatisticsRepository rawStatisticsRepository, ExecutorService executorService,
+                           int queueSize, int batchSize, long flushIntervalMillis) {
+        this.rawStatisticsRepository = rawStatisticsRepository;
+        this.queue = new ArrayBlockingQueue<>(queueSize);
+        this.batchSize = Math.max(1, batchSize);
+        this.flushIntervalMillis = Math.max(1, flushIntervalMillis);
+
+        executorService.submit(this::drain);
+    }
+
+    @Override
+    public void persist(TransmissionRequest transmissionRequest, TransmissionResponse transmissionResponse) {
+        try {
+            enqueue(DefaultStatisticsService.toRawStatistics(transmissionRequest, transmissionResponse));
+        } catch (Exception e) {
+            log.error("Unable to create statistics about outbound transmission: {}", e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public void persist(InboundMetadata inboundMetadata) {
+        try {
+            enqueue(DefaultStatisticsService.toRawStatistics(inboundMetadata));
+        } catch (Exception e) {
+            log.error("Unable to create statistics for {}: {}", inboundMetadata, e.getMessage(), e);
+        }
+    }
+
+    void enqueue(RawStatistics rawStatistics) {
+        if (!queue.offer(rawStatistics)) {
+            long count = dropped.incrementAndGet();
+            log.warn("Statistics queue is full, dropped entry ({} dropped in total).", count);
+        }
+    }
+
+    private void drain() {
+        List<RawStatistics> batch = new ArrayList<>(batchSize);
+        long deadline = System.currentTimeMillis() + flushIntervalMillis;
+
+        try {
+            while (!Thread.currentThread().isInterrupted()) {
+                long wait = deadline - System.currentTimeMillis();
+                RawStatistics rawStatistics = wait > 0 ? queue.poll(wait, TimeUnit.MILLISECONDS) : null;
+
+                if (rawStatistics != null) {
+                    batch.add(rawStatistics);
+                    queue.drainTo(batch, batchSize - batch.size());
+                }
+
+                if (batch.size() >= batchSize || System.currentTimeMillis() >= deadline) {
+                    flush(batch);
+                    deadline = System.currentTimeMillis() + flushIntervalMillis;
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            // Persist whatever is left when the executor is shut down.
+            queue.drainTo(batch);
+            flush(batch);
+        }
+    }
+
+    private void flush(List<RawStatistics> batch) {
+        if (batch.isEmpty())
+            return;
+
+        try {
+            rawStatisticsRepository.persistAll(batch);
+            persisted.addAndGet(batch.size());
+        } catch (Exception e) {
+            failed.addAndGet(batch.size());
+            log.error("Unable to persist batch of {} statistics entries: {}", batch.size(), e.getMessage(), e);
+        } finally {
+            batch.clear();
+        }
+    }
+
+    public int getQueueDepth() {
+        return queue.size();
+    }
+
+    public long getDropped() {
+        return dropped.get();
+    }
+
+    public long getPersisted() {
+        return persisted.get();
+    }
+
+    public long getFailed() {
+        return failed.get();
+    }
+}
@@ -57,21 +57,7 @@ class DefaultStatisticsService extends Traceable implements StatisticsService {
     public void persist(TransmissionRequest transmissionRequest, TransmissionResponse transmissionResponse) {
         Span span = tracer.spanBuilder("persist statistics").startSpan();
         try {
-            String protocolName = transmissionRequest.getEndpoint().getTransportProfile().getIdentifier();
-            String receivingAccessPointCommonName = transmissionRequest.getEndpoint().getCertificate() != null ? CertificateUtils
-                    .extractCommonName(transmissionRequest.getEndpoint().getCertificate()) : "";
-
-            DefaultRawStatistics rawStatistics = new DefaultRawStatistics.RawStatisticsBuilder()
-                    .accessPointIdentifier(new AccessPointIdentifier(receivingAccessPointCommonName))
-                    .direction(Direction.OUT)
-                    .documentType(transmissionResponse.getHeader().getDocumentType())
-                    .sender(transmissionResponse.getHeader().getSender())
-                    .receiver(transmissionResponse.getHeader().getReceiver())
-                    .profile(transmissionResponse.getHeader().getProcess())
-                    .channel(new ChannelId(protocolName))
-                    .date(transmissionResponse.getTimestamp())  // Time stamp of reception of the receipt
-                    .build();
-
+            DefaultRawStatistics rawStatistics = toRawStatistics(transmissionRequest, transmissionResponse);
             rawStatisticsRepository.persist(rawStatistics);
         } catch (Exception ex) {
             span.setAttribute("exception", String.valueOf(ex.getMessage()));
@@ -85,22 +71,43 @@ class DefaultStatisticsService extends Traceable implements StatisticsService {
     public void persist(InboundMetadata inboundMetadata) {
         // Persists raw statistics when message was received (ignore if stats couldn't be persisted, just warn)
         try {
-            String protocolName = inboundMetadata.getProtocol().getIdentifier();
-            String sendingAccessPointCommonName = CertificateUtils.extractCommonName(inboundMetadata.getCertificate());
-
-            DefaultRawStatistics rawStatistics = new DefaultRawStatistics.RawStatisticsBuilder()
-                    .accessPointIdentifier(new AccessPointIdentifier(sendingAccessPointCommonName))
-                    .direction(Direction.IN)
-                    .documentType(inboundMetadata.getHeader().getDocumentType())
-                    .sender(inboundMetadata.getHeader().getSender())
-                    .receiver(inboundMetadata.getHeader().getReceiver())
-                    .profile(inboundMetadata.getHeader().getProcess())
-                    .channel(new ChannelId(protocolName))
-                    .build();
-
+            DefaultRawStatistics rawStatistics = toRawStatistics(inboundMetadata);
             rawStatisticsRepository.persist(rawStatistics);
         } catch (Exception e) {
             log.error("Unable to persist statistics for " + inboundMetadata.toString() + ";\n " + e.getMessage(), e);
         }
     }
+
+    static DefaultRawStatistics toRawStatistics(TransmissionRequest transmissionRequest,
+                                                TransmissionResponse transmissionResponse) {
+        String protocolName = transmissionRequest.getEndpoint().getTransportProfile().getIdentifier();
+        String receivingAccessPointCommonName = transmissionRequest.getEndpoint().getCertificate() != null ? CertificateUtils
+                .extractCommonName(transmissionRequest.getEndpoint().getCertificate()) : "";
+
+        return new DefaultRawStatistics.RawStatisticsBuilder()
+                .accessPointIdentifier(new AccessPointIdentifier(receivingAccessPointCommonName))
+                .direction(Direction.OUT)
+                .documentType(transmissionResponse.getHeader().getDocumentType())
+                .sender(transmissionResponse.getHeader().getSender())
+                .receiver(transmissionResponse.getHeader().getReceiver())
+                .profile(transmissionResponse.getHeader().getProcess())
+                .channel(new ChannelId(protocolName))
+                .date(transmissionResponse.getTimestamp())  // Time stamp of reception of the receipt
+                .build();
+    }
+
+    static DefaultRawStatistics toRawStatistics(InboundMetadata inboundMetadata) {
+        String protocolName = inboundMetadata.getProtocol().getIdentifier();
+        String sendingAccessPointCommonName = CertificateUtils.extractCommonName(inboundMetadata.getCertificate());
+
+        return new DefaultRawStatistics.RawStatisticsBuilder()
+                .accessPointIdentifier(new AccessPointIdentifier(sendingAccessPointCommonName))
+                .direction(Direction.IN)
+                .documentType(inboundMetadata.getHeader().getDocumentType())
+                .sender(inboundMetadata.getHeader().getSender())
+                .receiver(inboundMetadata.getHeader().getReceiver())
+                .profile(inboundMetadata.getHeader().getProcess())
+                .channel(new ChannelId(protocolName))
+                .build();
+    }
 }
@@ -30,5 +30,8 @@ public class StatisticsModule extends OxalisModule {
     @Override
     protected void configure() {
         bindTyped(StatisticsService.class, DefaultStatisticsService.class);
+        bindTyped(StatisticsService.class, AsyncStatisticsService.class);
+
+        bindSettings(AsyncStatisticsConf.class);
     }
 }
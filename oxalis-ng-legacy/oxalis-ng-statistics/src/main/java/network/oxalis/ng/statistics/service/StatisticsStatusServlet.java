@@ -0,0 +1,41 @@
+package network.oxalis.ng.statistics.service;
+
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+import jakarta.servlet.http.HttpServlet;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import network.oxalis.ng.api.statistics.StatisticsService;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+
+/**
+ * Servlet returning counters of asynchronous statistics persistence, when used.
+ */
+@Singleton
+public class StatisticsStatusServlet extends HttpServlet {
+
+    private final StatisticsService statisticsService;
+
+    @Inject
+    public StatisticsStatusServlet(StatisticsService statisticsService) {
+        this.statisticsService = statisticsService;
+    }
+
+    @Override
+    protected void doGet(HttpServletRequest req, HttpServletResponse resp) throws IOException {
+        resp.setContentType("text/plain");
+
+        PrintWriter writer = resp.getWriter();
+        writer.println("statistics.async: " + (statisticsService instanceof AsyncStatisticsService));
+
+        if (statisticsService instanceof AsyncStatisticsService) {
+            AsyncStatisticsService asyncStatisticsService = (AsyncStatisticsService) statisticsService;
+            writer.println("statistics.queue.depth: " + asyncStatisticsService.getQueueDepth());
+            writer.println("statistics.dropped: " + asyncStatisticsService.getDropped());
+            writer.println("statistics.persisted: " + asyncStatisticsService.getPersisted());
+            writer.println("statistics.failed: " + asyncStatisticsService.getFailed());
+        }
+    }
+}
@@ -45,6 +45,9 @@ import org.testng.annotations.Test;
 import javax.sql.DataSource;
 import java.io.InputStreamReader;
 import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 
 import static org.testng.Assert.assertEquals;
 import static org.testng.Assert.assertTrue;
@@ -93,6 +96,25 @@ public class RawStatisticsRepositoryMySqlMockTest {
         repository.persist(rawStatistics);
     }
 
+    @Test
+    public void testPersistAll() throws Exception {
+        List<DefaultRawStatistics> rawStatistics = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            rawStatistics.add(new DefaultRawStatistics.RawStatisticsBuilder()
+                    .accessPointIdentifier(new AccessPointIdentifier("AP_SendRegning"))
+                    .inbound()
+                    .sender(ParticipantIdentifier.of("9908:810017902"))
+                    .receiver(ParticipantIdentifier.of("9908:810017902"))
+                    .channel(new ChannelId("CH0" + i))
+                    .documentType(PeppolDocumentTypeIdAcronym.INVOICE.toVefa())
+                    .profile(PeppolProcessTypeIdAcronym.INVOICE_ONLY.toVefa())
+                    .build());
+        }
+
+        repository.persistAll(rawStatistics);
+        repository.persistAll(Collections.emptyList());
+    }
+
     @Test
     public void testMySqlDateFormatYear() throws Exception {
         String s = RawStatisticsRepositoryMySqlImpl.mySqlDateFormat(StatisticsGranularity.YEAR);
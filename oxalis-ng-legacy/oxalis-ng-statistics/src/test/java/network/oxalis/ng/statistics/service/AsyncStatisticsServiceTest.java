@@ -0,0 +1,134 @@
+/*
+ * Copyright 2010-2018 Norwegian Agency for Public Management and eGovernment (Difi)
+ *
+ * Licensed under the EUPL, Version 1.1 or – as soon they
+ * will be approved by the European Commission - subsequent
+ * versions of the EUPL (the "Licence");
+ *
+ * You may not use this work except in compliance with the Licence.
+ *
+ * You may obtain a copy of the Licence at:
+ *
+ * https://joinup.ec.europa.eu/community/eupl/og_page/eupl
+ *
+ * Unless required by applicable law or agreed to in
+ * writing, software distributed under the Licence is
+ * distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied.
+ * See the Licence for the specific language governing
+ * permissions and limitations under the Licence.
+ */
+
+package network.oxalis.ng.statistics.service;
+
+import network.oxalis.ng.api.model.AccessPointIdentifier;
+import network.oxalis.ng.statistics.api.ChannelId;
+import network.oxalis.ng.statistics.api.RawStatisticsRepository;
+import network.oxalis.ng.statistics.model.DefaultRawStatistics;
+import network.oxalis.ng.test.identifier.PeppolDocumentTypeIdAcronym;
+import network.oxalis.ng.test.identifier.PeppolProcessTypeIdAcronym;
+import network.oxalis.vefa.peppol.common.model.ParticipantIdentifier;
+import org.mockito.Mockito;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.testng.Assert.assertEquals;
+
+public class AsyncStatisticsServiceTest {
+
+    private ExecutorService executorService;
+
+    @BeforeMethod
+    public void beforeMethod() {
+        executorService = Executors.newSingleThreadExecutor();
+    }
+
+    @AfterMethod
+    public void afterMethod() {
+        executorService.shutdownNow();
+    }
+
+    @Test
+    public void flushOnBatchSize() {
+        RawStatisticsRepository repository = Mockito.mock(RawStatisticsRepository.class);
+        AsyncStatisticsService service = new AsyncStatisticsService(repository, executorService, 100, 5, 60_000);
+
+        for (int i = 0; i < 10; i++)
+            service.enqueue(createRawStatistics());
+
+        Mockito.verify(repository, Mockito.timeout(5_000).atLeast(2)).persistAll(anyList());
+        awaitEquals(service::getPersisted, 10);
+        assertEquals(service.getQueueDepth(), 0);
+    }
+
+    @Test
+    public void flushOnInterval() {
+        RawStatisticsRepository repository = Mockito.mock(RawStatisticsRepository.class);
+        AsyncStatisticsService service = new AsyncStatisticsService(repository, executorService, 100, 50, 50);
+
+        service.enqueue(createRawStatistics());
+
+        Mockito.verify(repository, Mockito.timeout(5_000)).persistAll(anyList());
+        awaitEquals(service::getPersisted, 1);
+    }
+
+    @Test
+    public void dropWhenFull() throws Exception {
+        RawStatisticsRepository repository = Mockito.mock(RawStatisticsRepository.class);
+        // Occupy the executor so nothing is drained.
+        executorService.submit(() -> {
+            TimeUnit.SECONDS.sleep(10);
+            return null;
+        });
+        AsyncStatisticsService service = new AsyncStatisticsService(repository, executorService, 2, 10, 1_000);
+
+        for (int i = 0; i < 5; i++)
+            service.enqueue(createRawStatistics());
+
+        assertEquals(service.getQueueDepth(), 2);
+        assertEquals(service.getDropped(), 3);
+    }
+
+    @Test
+    public void failedBatchIsCounted() {
+        RawStatisticsRepository repository = Mockito.mock(RawStatisticsRepository.class);
+        Mockito.doThrow(new IllegalStateException("Database unavailable"))
+                .when(repository).persistAll(anyList());
+        AsyncStatisticsService service = new AsyncStatisticsService(repository, executorService, 100, 3, 60_000);
+
+        for (int i = 0; i < 3; i++)
+            service.enqueue(createRawStatistics());
+
+        Mockito.verify(repository, Mockito.timeout(5_000)).persistAll(anyList());
+        awaitEquals(service::getFailed, 3);
+        assertEquals(service.getPersisted(), 0);
+    }
+
+    private static void awaitEquals(LongSupplier supplier, long expected) {
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (supplier.getAsLong() != expected && System.currentTimeMillis() < deadline)
+            Thread.yield();
+
+        assertEquals(supplier.getAsLong(), expected);
+    }
+
+    private static DefaultRawStatistics createRawStatistics() {
+        return new DefaultRawStatistics.RawStatisticsBuilder()
+                .accessPointIdentifier(new AccessPointIdentifier("AP_SendRegning"))
+                .inbound()
+                .sender(ParticipantIdentifier.of("9908:810017902"))
+                .receiver(ParticipantIdentifier.of("9908:810017902"))
+                .channel(new ChannelId("CH01"))
+                .documentType(PeppolDocumentTypeIdAcronym.INVOICE.toVefa())
+                .profile(PeppolProcessTypeIdAcronym.INVOICE_ONLY.toVefa())
+                .build();
+    }
+}
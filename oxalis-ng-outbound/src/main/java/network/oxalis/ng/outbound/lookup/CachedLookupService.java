@@ -22,61 +22,170 @@
 
 package network.oxalis.ng.outbound.lookup;
 
+import com.google.common.cache.Cache;
 import com.google.common.cache.CacheBuilder;
 import com.google.common.cache.CacheLoader;
+import com.google.common.cache.CacheStats;
 import com.google.common.cache.LoadingCache;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.ListenableFutureTask;
+import com.google.common.util.concurrent.UncheckedExecutionException;
 import com.google.inject.Inject;
 import com.google.inject.Singleton;
 import com.google.inject.name.Named;
+import lombok.extern.slf4j.Slf4j;
 import network.oxalis.ng.api.lang.OxalisTransmissionException;
 import network.oxalis.ng.api.lookup.LookupService;
 import network.oxalis.ng.api.settings.Settings;
 import network.oxalis.ng.api.util.Type;
+import network.oxalis.vefa.peppol.common.lang.EndpointNotFoundException;
 import network.oxalis.vefa.peppol.common.model.*;
 import network.oxalis.vefa.peppol.lookup.LookupClient;
 
 import java.util.List;
 import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.TimeUnit;
 
 /**
+ * Lookup service caching endpoints found in SMP.
+ * <p>
+ * Concurrent lookups of the same receiver share a single SMP request, and entries past the refresh age are reloaded
+ * in the background while the cached endpoint is still served. Lookups failing due to no matching endpoint are
+ * remembered for a shorter period to avoid hammering SMP with requests for receivers not capable of receiving.
+ *
  * @author erlend
  * @since 4.0.0
  */
+@Slf4j
 @Singleton
 @Type("cached")
-class CachedLookupService extends CacheLoader<CachedLookupService.HeaderStub, Endpoint> implements LookupService {
+public class CachedLookupService extends CacheLoader<CachedLookupService.HeaderStub, Endpoint> implements LookupService {
 
     private final LookupClient lookupClient;
     private final TransportProfile[] transportProfiles;
+    private final Executor executor;
+    protected final long expire;
     private final LoadingCache<HeaderStub, Endpoint> cache;
+    private final Cache<HeaderStub, EndpointNotFoundException> negativeCache;
+
+    /**
+     * Expiry of preloaded endpoints, which are to expire at their original time rather than a full lifetime after
+     * being preloaded. Entries are removed when the endpoint is loaded from SMP.
+     */
+    private final ConcurrentMap<HeaderStub, Long> preloaded = new ConcurrentHashMap<>();
 
     @Inject
     public CachedLookupService(LookupClient lookupClient,
-                               @Named("prioritized") List<TransportProfile> transportProfiles) {
+                               @Named("prioritized") List<TransportProfile> transportProfiles,
+                               @Named("default") ExecutorService executor,
+                               Settings<LookupConf> settings) {
+        this(lookupClient, transportProfiles, executor,
+                settings.getInt(LookupConf.CACHE_SIZE),
+                settings.getInt(LookupConf.CACHE_EXPIRE),
+                settings.getInt(LookupConf.CACHE_REFRESH),
+                settings.getInt(LookupConf.CACHE_NEGATIVE_EXPIRE));
+    }
+
+    CachedLookupService(LookupClient lookupClient, List<TransportProfile> transportProfiles, Executor executor,
+                        long size, long expire, long refresh, long negativeExpire) {
         this.lookupClient = lookupClient;
         this.transportProfiles = transportProfiles.toArray(new TransportProfile[transportProfiles.size()]);
-
-        this.cache = CacheBuilder.newBuilder()
-                .maximumSize(1000)
-                .expireAfterWrite(5, TimeUnit.MINUTES)
-                .build(this);
+        this.executor = executor;
+        this.expire = expire;
+
+        CacheBuilder<Object, Object> builder = CacheBuilder.newBuilder()
+                .maximumSize(size)
+                .expireAfterWrite(expire, TimeUnit.SECONDS)
+                .recordStats();
+        if (refresh > 0 && refresh < expire)
+            builder.refreshAfterWrite(refresh, TimeUnit.SECONDS);
+        this.cache = builder.build(this);
+
+        this.negativeCache = CacheBuilder.newBuilder()
+                .maximumSize(negativeExpire > 0 ? size : 0)
+                .expireAfterWrite(Math.max(negativeExpire, 1), TimeUnit.SECONDS)
+                .recordStats()
+                .build();
     }
 
     @Override
     public Endpoint lookup(Header header) throws OxalisTransmissionException {
+        HeaderStub headerStub = new HeaderStub(header);
+
+        Long expires = preloaded.get(headerStub);
+        if (expires != null && expires <= System.currentTimeMillis() && preloaded.remove(headerStub, expires))
+            cache.invalidate(headerStub);
+
+        EndpointNotFoundException notFound = negativeCache.getIfPresent(headerStub);
+        if (notFound != null)
+            throw new OxalisTransmissionException(notFound.getMessage(), notFound);
+
         try {
-            return cache.get(new HeaderStub(header));
-        } catch (ExecutionException e) {
+            return cache.get(headerStub);
+        } catch (ExecutionException | UncheckedExecutionException e) {
             throw new OxalisTransmissionException(e.getCause().getMessage(), e.getCause());
         }
     }
 
     @Override
     public Endpoint load(HeaderStub header) throws Exception {
-        return lookupClient.getEndpoint(header.getReceiver(), header.getDocumentType(),
-                header.getProcess(), transportProfiles);
+        try {
+            Endpoint endpoint = lookupClient.getEndpoint(header.getReceiver(), header.getDocumentType(),
+                    header.getProcess(), transportProfiles);
+            preloaded.remove(header);
+            return endpoint;
+        } catch (EndpointNotFoundException e) {
+            negativeCache.put(header, e);
+            throw e;
+        }
+    }
+
+    /**
+     * Reloads the endpoint in the background, the current endpoint is served until the new one is ready. Failing
+     * reloads keep the current endpoint until it expires.
+     */
+    @Override
+    public ListenableFuture<Endpoint> reload(HeaderStub header, Endpoint oldValue) {
+        ListenableFutureTask<Endpoint> task = ListenableFutureTask.create(() -> {
+            try {
+                return load(header);
+            } catch (Exception e) {
+                log.warn("Unable to refresh endpoint for {}: {}", header.getReceiver(), e.getMessage());
+                throw e;
+            }
+        });
+        executor.execute(task);
+        return task;
+    }
+
+    /**
+     * Adds an endpoint to the cache without contacting SMP. The endpoint expires at the given time, or when the cache
+     * expires it, whichever comes first.
+     *
+     * @param expires Time in milliseconds since epoch.
+     */
+    void preload(HeaderStub header, Endpoint endpoint, long expires) {
+        preloaded.put(header, expires);
+        cache.put(header, endpoint);
+    }
+
+    /**
+     * Statistics for the endpoint cache, including number of SMP requests and time spent loading.
+     */
+    public CacheStats getCacheStats() {
+        return cache.stats();
+    }
+
+    /**
+     * Statistics for the cache of lookups resulting in no endpoint.
+     */
+    public CacheStats getNegativeCacheStats() {
+        return negativeCache.stats();
     }
 
     static class HeaderStub {
@@ -85,9 +194,14 @@ class CachedLookupService extends CacheLoader<CachedLookupService.HeaderStub, En
         private ProcessIdentifier process;
 
         public HeaderStub(Header header) {
-            this.receiver = header.getReceiver();
-            this.documentType = header.getDocumentType();
-            this.process = header.getProcess();
+            this(header.getReceiver(), header.getDocumentType(), header.getProcess());
+        }
+
+        public HeaderStub(ParticipantIdentifier receiver, DocumentTypeIdentifier documentType,
+                          ProcessIdentifier process) {
+            this.receiver = receiver;
+            this.documentType = documentType;
+            this.process = process;
         }
 
         public ParticipantIdentifier getReceiver() {
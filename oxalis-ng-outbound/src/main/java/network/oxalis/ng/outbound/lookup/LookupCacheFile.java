@@ -0,0 +1,253 @@
+/*
+ * Copyright 2010-2018 Norwegian Agency for Public Management and eGovernment (Difi)
+ *
+ * Licensed under the EUPL, Version 1.1 or – as soon they
+ * will be approved by the European Commission - subsequent
+ * versions of the EUPL (the "Licence");
+ *
+ * You may not use this work except in compliance with the Licence.
+ *
+ * You may obtain a copy of the Licence at:
+ *
+ * https://joinup.ec.europa.eu/community/eupl/og_page/eupl
+ *
+ * Unless required by applicable law or agreed to in
+ * writing, software distributed under the Licence is
+ * distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied.
+ * See the Licence for the specific language governing
+ * permissions and limitations under the Licence.
+ */
+
+package network.oxalis.ng.outbound.lookup;
+
+import lombok.Value;
+import lombok.extern.slf4j.Slf4j;
+import network.oxalis.vefa.peppol.common.model.*;
+
+import java.io.*;
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.cert.CertificateEncodingException;
+import java.security.cert.CertificateException;
+import java.security.cert.CertificateFactory;
+import java.security.cert.X509Certificate;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Append-only file of endpoints found in SMP, used to keep the lookup cache across restarts.
+ * <p>
+ * The file consists of length-prefixed records where the latest record for a given lookup wins. It is read using
+ * a memory map and rewritten holding only unexpired entries on {@link #compact(Collection)}. A truncated trailing
+ * record, e.g. after a crash, is ignored.
+ */
+@Slf4j
+class LookupCacheFile implements Closeable {
+
+    private static final int MAGIC = 0x4f4c4331;
+
+    private final Path path;
+
+    private FileChannel channel;
+
+    private int appended;
+
+    public LookupCacheFile(Path path) {
+        this.path = path;
+    }
+
+    /**
+     * Reads all unexpired entries from file.
+     */
+    public synchronized Collection<Entry> read() throws IOException {
+        Map<CachedLookupService.HeaderStub, Entry> entries = new LinkedHashMap<>();
+
+        if (Files.isRegularFile(path) && Files.size(path) > 4) {
+            try (FileChannel readChannel = FileChannel.open(path, StandardOpenOption.READ)) {
+                MappedByteBuffer buffer = readChannel.map(FileChannel.MapMode.READ_ONLY, 0, readChannel.size());
+
+                if (buffer.getInt() != MAGIC) {
+                    log.warn("Ignoring lookup cache file of unknown format: {}", path);
+                    return entries.values();
+                }
+
+                while (buffer.remaining() >= 4) {
+                    int length = buffer.getInt();
+                    if (length <= 0 || length > buffer.remaining())
+                        break;
+
+                    byte[] record = new byte[length];
+                    buffer.get(record);
+
+                    try {
+                        Entry entry = decode(record);
+                        entries.put(entry.getHeader(), entry);
+                    } catch (IOException | CertificateException | RuntimeException e) {
+                        log.warn("Skipping unreadable record in lookup cache file: {}", e.getMessage());
+                    }
+                }
+            }
+        }
+
+        long now = System.currentTimeMillis();
+        entries.values().removeIf(entry -> entry.getExpires() <= now);
+
+        return entries.values();
+    }
+
+    /**
+     * Appends entry to file.
+     */
+    public synchronized void append(Entry entry) throws IOException {
+        byte[] record = encode(entry);
+
+        ByteBuffer buffer = ByteBuffer.allocate(4 + record.length);
+        buffer.putInt(record.length);
+        buffer.put(record);
+        buffer.flip();
+
+        FileChannel fileChannel = getChannel();
+        while (buffer.hasRemaining())
+            fileChannel.write(buffer);
+
+        appended++;
+    }
+
+    /**
+     * Replaces content of file with the unexpired entries provided.
+     */
+    public synchronized void compact(Collection<Entry> entries) throws IOException {
+        close();
+
+        Files.createDirectories(path.toAbsolutePath().getParent());
+        Path temp = path.resolveSibling(path.getFileName() + ".tmp");
+        long now = System.currentTimeMillis();
+
+        try (DataOutputStream outputStream = new DataOutputStream(
+                new BufferedOutputStream(Files.newOutputStream(temp)))) {
+            outputStream.writeInt(MAGIC);
+
+            for (Entry entry : entries) {
+                if (entry.getExpires() <= now)
+                    continue;
+
+                byte[] record = encode(entry);
+                outputStream.writeInt(record.length);
+                outputStream.write(record);
+            }
+        }
+
+        Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        appended = 0;
+    }
+
+    /**
+     * Number of records appended since the file was last compacted.
+     */
+    public synchronized int getAppended() {
+        return appended;
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (channel != null) {
+            channel.close();
+            channel = null;
+        }
+    }
+
+    private FileChannel getChannel() throws IOException {
+        if (channel == null) {
+            if (!Files.isRegularFile(path))
+                compact(Collections.emptyList());
+
+            channel = FileChannel.open(path, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        }
+
+        return channel;
+    }
+
+    static byte[] encode(Entry entry) throws IOException {
+        ByteArrayOutputStream byteArrayOutputStream = new ByteArrayOutputStream();
+
+        try (DataOutputStream outputStream = new DataOutputStream(byteArrayOutputStream)) {
+            CachedLookupService.HeaderStub header = entry.getHeader();
+            outputStream.writeUTF(header.getReceiver().getIdentifier());
+            writeScheme(outputStream, header.getReceiver().getScheme());
+            outputStream.writeUTF(header.getDocumentType().getIdentifier());
+            writeScheme(outputStream, header.getDocumentType().getScheme());
+            outputStream.writeUTF(header.getProcess().getIdentifier());
+            writeScheme(outputStream, header.getProcess().getScheme());
+
+            outputStream.writeLong(entry.getExpires());
+
+            Endpoint endpoint = entry.getEndpoint();
+            outputStream.writeUTF(endpoint.getTransportProfile().getIdentifier());
+            outputStream.writeUTF(endpoint.getAddress() == null ? "" : endpoint.getAddress().toString());
+
+            if (endpoint.getCertificate() == null) {
+                outputStream.writeInt(-1);
+            } else {
+                byte[] certificate = endpoint.getCertificate().getEncoded();
+                outputStream.writeInt(certificate.length);
+                outputStream.write(certificate);
+            }
+        } catch (CertificateEncodingException e) {
+            throw new IOException("Unable to encode certificate.", e);
+        }
+
+        return byteArrayOutputStream.toByteArray();
+    }
+
+    static Entry decode(byte[] record) throws IOException, CertificateException {
+        try (DataInputStream inputStream = new DataInputStream(new ByteArrayInputStream(record))) {
+            CachedLookupService.HeaderStub header = new CachedLookupService.HeaderStub(
+                    ParticipantIdentifier.of(inputStream.readUTF(), readScheme(inputStream)),
+                    DocumentTypeIdentifier.of(inputStream.readUTF(), readScheme(inputStream)),
+                    ProcessIdentifier.of(inputStream.readUTF(), readScheme(inputStream)));
+
+            long expires = inputStream.readLong();
+
+            TransportProfile transportProfile = TransportProfile.of(inputStream.readUTF());
+            String address = inputStream.readUTF();
+
+            X509Certificate certificate = null;
+            int length = inputStream.readInt();
+            if (length >= 0) {
+                byte[] encoded = new byte[length];
+                inputStream.readFully(encoded);
+                certificate = (X509Certificate) CertificateFactory.getInstance("X.509")
+                        .generateCertificate(new ByteArrayInputStream(encoded));
+            }
+
+            return new Entry(header, Endpoint.of(transportProfile,
+                    address.isEmpty() ? null : URI.create(address), certificate), expires);
+        }
+    }
+
+    private static void writeScheme(DataOutputStream outputStream, Scheme scheme) throws IOException {
+        outputStream.writeUTF(scheme == null ? "" : scheme.getIdentifier());
+    }
+
+    private static Scheme readScheme(DataInputStream inputStream) throws IOException {
+        String scheme = inputStream.readUTF();
+        return scheme.isEmpty() ? null : Scheme.of(scheme);
+    }
+
+    @Value
+    static class Entry {
+        CachedLookupService.HeaderStub header;
+        Endpoint endpoint;
+        long expires;
+    }
+}
@@ -0,0 +1,65 @@
+/*
+ * Copyright 2010-2018 Norwegian Agency for Public Management and eGovernment (Difi)
+ *
+ * Licensed under the EUPL, Version 1.1 or – as soon they
+ * will be approved by the European Commission - subsequent
+ * versions of the EUPL (the "Licence");
+ *
+ * You may not use this work except in compliance with the Licence.
+ *
+ * You may obtain a copy of the Licence at:
+ *
+ * https://joinup.ec.europa.eu/community/eupl/og_page/eupl
+ *
+ * Unless required by applicable law or agreed to in
+ * writing, software distributed under the Licence is
+ * distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied.
+ * See the Licence for the specific language governing
+ * permissions and limitations under the Licence.
+ */
+
+package network.oxalis.ng.outbound.lookup;
+
+import network.oxalis.ng.api.settings.DefaultValue;
+import network.oxalis.ng.api.settings.Path;
+import network.oxalis.ng.api.settings.Title;
+
+/**
+ * Settings for the cached lookup services. All durations are in seconds.
+ */
+@Title("Lookup")
+public enum LookupConf {
+
+    @Path("oxalis.lookup.cache.size")
+    @DefaultValue("1000")
+    CACHE_SIZE,
+
+    @Path("oxalis.lookup.cache.expire")
+    @DefaultValue("300")
+    CACHE_EXPIRE,
+
+    /**
+     * Entries older than this are reloaded in the background on next access while the current value is served.
+     * Disabled when zero.
+     */
+    @Path("oxalis.lookup.cache.refresh")
+    @DefaultValue("240")
+    CACHE_REFRESH,
+
+    /**
+     * How long a lookup resulting in no endpoint is remembered. Disabled when zero.
+     */
+    @Path("oxalis.lookup.cache.negative_expire")
+    @DefaultValue("60")
+    CACHE_NEGATIVE_EXPIRE,
+
+    /**
+     * File used by the persistent lookup service, relative to the home folder.
+     */
+    @Path("oxalis.lookup.persistent.path")
+    @DefaultValue("lookup-cache.bin")
+    PERSISTENT_PATH
+
+}
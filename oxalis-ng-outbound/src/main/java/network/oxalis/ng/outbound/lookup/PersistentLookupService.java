@@ -0,0 +1,123 @@
+/*
+ * Copyright 2010-2018 Norwegian Agency for Public Management and eGovernment (Difi)
+ *
+ * Licensed under the EUPL, Version 1.1 or – as soon they
+ * will be approved by the European Commission - subsequent
+ * versions of the EUPL (the "Licence");
+ *
+ * You may not use this work except in compliance with the Licence.
+ *
+ * You may obtain a copy of the Licence at:
+ *
+ * https://joinup.ec.europa.eu/community/eupl/og_page/eupl
+ *
+ * Unless required by applicable law or agreed to in
+ * writing, software distributed under the Licence is
+ * distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied.
+ * See the Licence for the specific language governing
+ * permissions and limitations under the Licence.
+ */
+
+package network.oxalis.ng.outbound.lookup;
+
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+import com.google.inject.name.Named;
+import lombok.extern.slf4j.Slf4j;
+import network.oxalis.ng.api.settings.Settings;
+import network.oxalis.ng.api.util.Type;
+import network.oxalis.vefa.peppol.common.model.Endpoint;
+import network.oxalis.vefa.peppol.common.model.TransportProfile;
+import network.oxalis.vefa.peppol.lookup.LookupClient;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cached lookup service keeping endpoints found in SMP on disk, making the cache survive restarts.
+ * <p>
+ * Unexpired endpoints are loaded into the cache on startup, keeping the expiry they were stored with. They are
+ * refreshed as any other cache entry, so SMP is contacted in the background rather than on the first transmission to
+ * each receiver after a restart.
+ */
+@Slf4j
+@Singleton
+@Type("persistent")
+class PersistentLookupService extends CachedLookupService {
+
+    private final LookupCacheFile cacheFile;
+
+    private final ConcurrentMap<HeaderStub, LookupCacheFile.Entry> entries = new ConcurrentHashMap<>();
+
+    private final long size;
+
+    @Inject
+    public PersistentLookupService(LookupClient lookupClient,
+                                   @Named("prioritized") List<TransportProfile> transportProfiles,
+                                   @Named("default") ExecutorService executor,
+                                   Settings<LookupConf> settings,
+                                   @Named("home") Path homeFolder) {
+        this(lookupClient, transportProfiles, executor,
+                settings.getInt(LookupConf.CACHE_SIZE),
+                settings.getInt(LookupConf.CACHE_EXPIRE),
+                settings.getInt(LookupConf.CACHE_REFRESH),
+                settings.getInt(LookupConf.CACHE_NEGATIVE_EXPIRE),
+                settings.getPath(LookupConf.PERSISTENT_PATH, homeFolder));
+    }
+
+    PersistentLookupService(LookupClient lookupClient, List<TransportProfile> transportProfiles, Executor executor,
+                            long size, long expire, long refresh, long negativeExpire, Path path) {
+        super(lookupClient, transportProfiles, executor, size, expire, refresh, negativeExpire);
+        this.size = size;
+        this.cacheFile = new LookupCacheFile(path);
+
+        try {
+            for (LookupCacheFile.Entry entry : cacheFile.read()) {
+                entries.put(entry.getHeader(), entry);
+                preload(entry.getHeader(), entry.getEndpoint(), entry.getExpires());
+            }
+            cacheFile.compact(entries.values());
+
+            log.info("Loaded {} endpoints from lookup cache file '{}'.", entries.size(), path);
+        } catch (IOException e) {
+            log.warn("Unable to load lookup cache file '{}': {}", path, e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public Endpoint load(HeaderStub header) throws Exception {
+        Endpoint endpoint = super.load(header);
+
+        LookupCacheFile.Entry entry = new LookupCacheFile.Entry(header, endpoint,
+                System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(expire));
+        entries.put(header, entry);
+
+        try {
+            cacheFile.append(entry);
+
+            // Keep the file from growing beyond a few times the size of the cache.
+            if (cacheFile.getAppended() > Math.max(size, 100) * 2)
+                compact();
+        } catch (IOException e) {
+            log.warn("Unable to write endpoint to lookup cache file: {}", e.getMessage());
+        }
+
+        return endpoint;
+    }
+
+    private void compact() throws IOException {
+        long now = System.currentTimeMillis();
+        entries.values().removeIf(entry -> entry.getExpires() <= now);
+
+        cacheFile.compact(new ArrayList<>(entries.values()));
+    }
+}
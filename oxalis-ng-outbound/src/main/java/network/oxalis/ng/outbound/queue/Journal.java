@@ -0,0 +1,629 @@
+package network.oxalis.ng.outbound.queue;
+
+import lombok.extern.slf4j.Slf4j;
+import network.oxalis.ng.api.outbound.PayloadSource;
+import network.oxalis.ng.api.tag.Tag;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.zip.CRC32;
+
+/**
+ * Segmented append-only journal of outbound payloads and the outcome of their transmission.
+ * <p>
+ * Records are written sequentially to the active segment, which is replaced by a new segment when it grows beyond
+ * the segment size. Each segment is named by the journal offset of its first byte, so an entry is identified by the
+ * offset of its record. Completion records refer to the offset of their entry. Writers wait for their records to be
+ * forced to disk, a single force covering all records written by concurrent writers in the meantime.
+ * <p>
+ * Payloads are copied to a temporary file before they are appended, so the region of the entry can be reserved in the
+ * active segment and the payload copied into it without holding the monitor of the journal. The header of the entry,
+ * giving the length of the region, is written when the region is reserved.
+ * <p>
+ * On {@link #recover()} all segments are read, entries whose payload was not completely written are skipped, a
+ * truncated or corrupt trailing record of the last segment is cut away, and entries without a completion record are
+ * returned.
+ * <p>
+ * Segments are deleted oldest first, as long as they hold no unfinished entries and are not the active segment. A
+ * segment holding only finished entries may still hold completion records of entries in older segments, so it is
+ * kept until the older segments are deleted, otherwise those entries would be replayed after a restart.
+ */
+@Slf4j
+class Journal implements Closeable {
+
+    static final byte ENTRY = 1;
+
+    static final byte COMPLETED = 2;
+
+    static final byte FAILED = 3;
+
+    private static final String SUFFIX = ".journal";
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final Path directory;
+
+    private final long segmentSize;
+
+    private final boolean sync;
+
+    private final TreeMap<Long, Segment> segments = new TreeMap<>();
+
+    private final Map<Long, Entry> pending = new TreeMap<>();
+
+    private final Set<Segment> dirty = new LinkedHashSet<>();
+
+    private final Object syncLock = new Object();
+
+    private Segment active;
+
+    /**
+     * Number of records written, guarded by the journal.
+     */
+    private long written;
+
+    /**
+     * Number of records forced to disk, guarded by the sync lock.
+     */
+    private long synced;
+
+    /**
+     * @param directory   Directory holding the segments.
+     * @param segmentSize Size in bytes after which a new segment is started.
+     * @param sync        Whether writers wait for their records to be forced to disk.
+     */
+    Journal(Path directory, long segmentSize, boolean sync) {
+        this.directory = directory;
+        this.segmentSize = segmentSize;
+        this.sync = sync;
+    }
+
+    /**
+     * Reads the journal, returning unfinished entries in the order they were appended.
+     */
+    synchronized List<Entry> recover() throws IOException {
+        Files.createDirectories(directory);
+
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, "*" + SUFFIX)) {
+            for (Path path : stream) {
+                String name = path.getFileName().toString();
+                try {
+                    long base = Long.parseLong(name.substring(0, name.length() - SUFFIX.length()));
+                    segments.put(base, new Segment(base, path));
+                } catch (NumberFormatException e) {
+                    log.warn("Ignoring unknown file in outbound journal: {}", path);
+                }
+            }
+        }
+
+        for (Segment segment : segments.values())
+            read(segment, segment == segments.lastEntry().getValue());
+
+        if (segments.isEmpty()) {
+            active = open(0);
+        } else {
+            active = segments.lastEntry().getValue();
+            if (active.size >= segmentSize)
+                active = open(active.base + active.size);
+        }
+
+        release();
+
+        return new ArrayList<>(pending.values());
+    }
+
+    /**
+     * Appends the payload, returning when the entry is written to disk.
+     */
+    Entry append(Tag tag, InputStream payload) throws IOException {
+        byte[] identifier = tag.getIdentifier().getBytes(StandardCharsets.UTF_8);
+
+        ByteBuffer header = ByteBuffer.allocate(1 + 4 + identifier.length + 8);
+        header.put(ENTRY);
+        header.putInt(identifier.length);
+        header.put(identifier);
+
+        CRC32 crc = new CRC32();
+        crc.update(header.array(), 0, header.position());
+
+        Path copy = Files.createTempFile("oxalis-journal-", ".tmp");
+        try (FileChannel source = FileChannel.open(copy, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            byte[] buffer = new byte[BUFFER_SIZE];
+            long length = 0;
+            int n;
+            while ((n = payload.read(buffer)) != -1) {
+                crc.update(buffer, 0, n);
+                length = write(source, length, ByteBuffer.wrap(buffer, 0, n));
+            }
+            source.position(0);
+
+            header.putLong(length);
+            header.flip();
+
+            ByteBuffer trailer = ByteBuffer.allocate(4);
+            trailer.putInt((int) crc.getValue());
+            trailer.flip();
+
+            Segment segment;
+            long start;
+            synchronized (this) {
+                roll();
+
+                segment = active;
+                start = segment.size;
+                try {
+                    write(segment.channel, start, header);
+                } catch (IOException e) {
+                    segment.channel.truncate(start);
+                    throw e;
+                }
+                segment.size = start + header.limit() + length + trailer.limit();
+                segment.pending++;
+            }
+
+            Entry entry = new Entry(segment.base + start, tag, segment, start + header.limit(), length);
+            try {
+                for (long copied = 0; copied < length; ) {
+                    long count = segment.channel.transferFrom(source, entry.payload + copied, length - copied);
+                    if (count <= 0)
+                        throw new EOFException("Copy of the payload ended early.");
+                    copied += count;
+                }
+                write(segment.channel, entry.payload + length, trailer);
+            } catch (IOException | RuntimeException e) {
+                synchronized (this) {
+                    segment.pending--;
+
+                    // A region followed by other records is skipped when read.
+                    if (segment == active && segment.size == entry.payload + length + trailer.limit()) {
+                        segment.channel.truncate(start);
+                        segment.size = start;
+                    }
+                }
+                throw e;
+            }
+
+            long record;
+            synchronized (this) {
+                pending.put(entry.offset, entry);
+                if (sync)
+                    dirty.add(segment);
+                record = ++written;
+            }
+
+            sync(record);
+            return entry;
+        } finally {
+            Files.deleteIfExists(copy);
+        }
+    }
+
+    /**
+     * Records the successful transmission of the entry together with its receipt.
+     *
+     * @param identifier Transmission identifier.
+     * @param receipt    Primary receipt, may be null.
+     */
+    void complete(Entry entry, String identifier, byte[] receipt) throws IOException {
+        finish(entry, COMPLETED, identifier, receipt);
+    }
+
+    /**
+     * Records that transmission of the entry failed, so the entry is not replayed.
+     */
+    void fail(Entry entry, String message) throws IOException {
+        finish(entry, FAILED, message, null);
+    }
+
+    /**
+     * Number of entries without a completion record.
+     */
+    synchronized int getPending() {
+        return pending.size();
+    }
+
+    /**
+     * Number of segments on disk.
+     */
+    synchronized int getSegments() {
+        return segments.size();
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        for (Segment segment : segments.values())
+            segment.channel.close();
+        segments.clear();
+    }
+
+    private void finish(Entry entry, byte type, String text, byte[] receipt) throws IOException {
+        long record;
+        synchronized (this) {
+            if (!pending.containsKey(entry.offset))
+                return;
+
+            roll();
+
+            byte[] textBytes = String.valueOf(text).getBytes(StandardCharsets.UTF_8);
+            ByteBuffer buffer = ByteBuffer.allocate(1 + 8 + 4 + textBytes.length + 4
+                    + (receipt == null ? 0 : receipt.length) + 4);
+            buffer.put(type);
+            buffer.putLong(entry.offset);
+            buffer.putInt(textBytes.length);
+            buffer.put(textBytes);
+            buffer.putInt(receipt == null ? -1 : receipt.length);
+            if (receipt != null)
+                buffer.put(receipt);
+
+            CRC32 crc = new CRC32();
+            crc.update(buffer.array(), 0, buffer.position());
+            buffer.putInt((int) crc.getValue());
+            buffer.flip();
+
+            Segment segment = active;
+            try {
+                segment.size = write(segment.channel, segment.size, buffer);
+            } catch (IOException e) {
+                segment.channel.truncate(segment.size);
+                throw e;
+            }
+            if (sync)
+                dirty.add(segment);
+            record = ++written;
+
+            pending.remove(entry.offset);
+            entry.segment.pending--;
+            release();
+        }
+
+        sync(record);
+    }
+
+    /**
+     * Forces the journal to disk up to at least the given record, counting records written. The first writer to
+     * arrive forces all segments written so far, writers waiting meanwhile find their records covered.
+     */
+    private void sync(long record) throws IOException {
+        if (!sync)
+            return;
+
+        synchronized (syncLock) {
+            if (synced >= record)
+                return;
+
+            List<Segment> forced;
+            long target;
+            synchronized (this) {
+                forced = new ArrayList<>(dirty);
+                dirty.clear();
+                target = written;
+            }
+
+            for (Segment segment : forced) {
+                try {
+                    segment.channel.force(false);
+                } catch (ClosedChannelException e) {
+                    // The segment was deleted as all its entries are finished.
+                }
+            }
+            synced = target;
+        }
+    }
+
+    /**
+     * Starts a new segment when the active segment is full.
+     */
+    private void roll() throws IOException {
+        if (active.size < segmentSize)
+            return;
+
+        Segment previous = active;
+        previous.channel.force(false);
+        active = open(previous.base + previous.size);
+        release();
+    }
+
+    /**
+     * Deletes the oldest segments as long as they are not active and hold no unfinished entries.
+     */
+    private void release() throws IOException {
+        while (!segments.isEmpty()) {
+            Segment segment = segments.firstEntry().getValue();
+            if (segment == active || segment.pending > 0)
+                return;
+
+            segments.remove(segment.base);
+            segment.channel.close();
+            Files.deleteIfExists(segment.path);
+        }
+    }
+
+    private Segment open(long base) throws IOException {
+        Segment segment = new Segment(base, directory.resolve(String.format("%020d%s", base, SUFFIX)));
+        segments.put(base, segment);
+        return segment;
+    }
+
+    private static long write(FileChannel channel, long offset, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining())
+            offset += channel.write(buffer, offset);
+        return offset;
+    }
+
+    /**
+     * Reads the records of a segment. Reading stops at the first unreadable record, which is cut away when found in
+     * the last segment as it is the result of an interrupted write.
+     */
+    private void read(Segment segment, boolean last) throws IOException {
+        SegmentReader reader = new SegmentReader(segment.channel);
+        long start = 0;
+        try {
+            while (reader.hasRemaining()) {
+                start = reader.position;
+                CRC32 crc = new CRC32();
+
+                byte type = reader.readByte(crc);
+                if (type == ENTRY) {
+                    Tag tag = Tag.of(new String(reader.readBytes(reader.readInt(crc), crc), StandardCharsets.UTF_8));
+                    long length = reader.readLong(null);
+                    long payload = reader.position;
+                    if (length < 0)
+                        throw new EOFException("Incomplete entry.");
+
+                    reader.skip(length, crc);
+                    if (reader.readInt(null) != (int) crc.getValue()) {
+                        // The payload was not completely written, while later records were.
+                        log.warn("Skipping incomplete entry in outbound journal segment '{}' at {}.",
+                                segment.path, start);
+                        continue;
+                    }
+
+                    Entry entry = new Entry(segment.base + start, tag, segment, payload, length);
+                    pending.put(entry.offset, entry);
+                    segment.pending++;
+                } else if (type == COMPLETED || type == FAILED) {
+                    long offset = reader.readLong(crc);
+                    reader.readBytes(reader.readInt(crc), crc);
+                    int receipt = reader.readInt(crc);
+                    if (receipt > 0)
+                        reader.readBytes(receipt, crc);
+                    if (reader.readInt(null) != (int) crc.getValue())
+                        throw new IOException("Checksum mismatch.");
+
+                    Entry entry = pending.remove(offset);
+                    if (entry != null)
+                        entry.segment.pending--;
+                } else {
+                    throw new IOException(String.format("Unknown record type %s.", type));
+                }
+            }
+            segment.size = reader.position;
+        } catch (IOException e) {
+            segment.size = start;
+            if (last) {
+                log.warn("Truncating outbound journal segment '{}' at {}: {}", segment.path, start, e.getMessage());
+                segment.channel.truncate(start);
+            } else {
+                log.error("Unreadable record in outbound journal segment '{}' at {}: {}",
+                        segment.path, start, e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Entry of the journal, giving its payload from the segment holding it.
+     */
+    static class Entry implements PayloadSource {
+
+        private final long offset;
+
+        private final Tag tag;
+
+        private final Segment segment;
+
+        private final long payload;
+
+        private final long length;
+
+        private Entry(long offset, Tag tag, Segment segment, long payload, long length) {
+            this.offset = offset;
+            this.tag = tag;
+            this.segment = segment;
+            this.payload = payload;
+            this.length = length;
+        }
+
+        /**
+         * Journal offset of the entry.
+         */
+        long getOffset() {
+            return offset;
+        }
+
+        Tag getTag() {
+            return tag;
+        }
+
+        @Override
+        public InputStream openStream() {
+            return new SegmentInputStream(segment.channel, payload, payload + length);
+        }
+
+        @Override
+        public long length() {
+            return length;
+        }
+    }
+
+    private static class Segment {
+
+        private final long base;
+
+        private final Path path;
+
+        private final FileChannel channel;
+
+        private long size;
+
+        private int pending;
+
+        Segment(long base, Path path) throws IOException {
+            this.base = base;
+            this.path = path;
+            this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                    StandardOpenOption.WRITE);
+        }
+    }
+
+    /**
+     * Stream reading a region of a segment using positional reads, so entries share the channel of the segment.
+     */
+    private static class SegmentInputStream extends InputStream {
+
+        private final FileChannel channel;
+
+        private final long end;
+
+        private long position;
+
+        SegmentInputStream(FileChannel channel, long position, long end) {
+            this.channel = channel;
+            this.position = position;
+            this.end = end;
+        }
+
+        @Override
+        public int read() throws IOException {
+            byte[] b = new byte[1];
+            return read(b, 0, 1) == -1 ? -1 : b[0] & 0xff;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (len == 0)
+                return 0;
+            if (position >= end)
+                return -1;
+
+            int n = channel.read(ByteBuffer.wrap(b, off, (int) Math.min(len, end - position)), position);
+            if (n < 0)
+                throw new EOFException("Journal segment ended before the payload.");
+
+            position += n;
+            return n;
+        }
+
+        @Override
+        public long skip(long n) {
+            long count = Math.max(0, Math.min(n, end - position));
+            position += count;
+            return count;
+        }
+
+        @Override
+        public int available() {
+            return (int) Math.min(Integer.MAX_VALUE, end - position);
+        }
+    }
+
+    /**
+     * Sequential reader of a segment updating the checksum of the record being read.
+     */
+    private static class SegmentReader {
+
+        private final FileChannel channel;
+
+        private final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+
+        private final long size;
+
+        private long position;
+
+        private long read;
+
+        SegmentReader(FileChannel channel) throws IOException {
+            this.channel = channel;
+            this.size = channel.size();
+            buffer.flip();
+        }
+
+        boolean hasRemaining() {
+            return position < size;
+        }
+
+        byte readByte(CRC32 crc) throws IOException {
+            return ByteBuffer.wrap(readBytes(1, crc)).get();
+        }
+
+        int readInt(CRC32 crc) throws IOException {
+            return ByteBuffer.wrap(readBytes(4, crc)).getInt();
+        }
+
+        long readLong(CRC32 crc) throws IOException {
+            return ByteBuffer.wrap(readBytes(8, crc)).getLong();
+        }
+
+        byte[] readBytes(int length, CRC32 crc) throws IOException {
+            if (length < 0 || length > size - position)
+                throw new EOFException("Incomplete record.");
+
+            byte[] bytes = new byte[length];
+            int filled = 0;
+            while (filled < length) {
+                fill();
+                int n = Math.min(length - filled, buffer.remaining());
+                buffer.get(bytes, filled, n);
+                filled += n;
+            }
+
+            position += length;
+            if (crc != null)
+                crc.update(bytes);
+            return bytes;
+        }
+
+        void skip(long length, CRC32 crc) throws IOException {
+            if (length > size - position)
+                throw new EOFException("Incomplete record.");
+
+            long remaining = length;
+            while (remaining > 0) {
+                fill();
+                int n = (int) Math.min(remaining, buffer.remaining());
+                crc.update(buffer.array(), buffer.position(), n);
+                buffer.position(buffer.position() + n);
+                remaining -= n;
+            }
+
+            position += length;
+        }
+
+        private void fill() throws IOException {
+            if (buffer.hasRemaining())
+                return;
+
+            buffer.clear();
+            int n = channel.read(buffer, read);
+            buffer.flip();
+            if (n <= 0)
+                throw new EOFException("Incomplete record.");
+            read += n;
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package network.oxalis.ng.outbound.queue;
+
+import network.oxalis.ng.api.settings.DefaultValue;
+import network.oxalis.ng.api.settings.Path;
+import network.oxalis.ng.api.settings.Title;
+
+/**
+ * Settings for the durable outbound queue. Workers delivering queued messages are configured using
+ * {@code oxalis.executor.queue}.
+ */
+@Title("Queue")
+public enum QueueConf {
+
+    /**
+     * Directory holding the journal, relative to the home folder.
+     */
+    @Path("oxalis.queue.path")
+    @DefaultValue("outbound-queue")
+    PATH,
+
+    /**
+     * Size in bytes after which a new journal segment is started.
+     */
+    @Path("oxalis.queue.segment_size")
+    @DefaultValue("67108864")
+    SEGMENT_SIZE,
+
+    /**
+     * Whether messages are forced to disk before being accepted.
+     */
+    @Path("oxalis.queue.sync")
+    @DefaultValue("true")
+    SYNC,
+
+    /**
+     * Number of failed attempts after which the caller is told about the failure. Messages failing for a reason
+     * that may pass, e.g. a refused connection, are still retried until sent or failing for another reason.
+     */
+    @Path("oxalis.queue.retry.attempts")
+    @DefaultValue("5")
+    RETRY_ATTEMPTS,
+
+    /**
+     * Delay in milliseconds before the first retry of a message.
+     */
+    @Path("oxalis.queue.retry.delay")
+    @DefaultValue("5000")
+    RETRY_DELAY,
+
+    /**
+     * Maximum delay in milliseconds between retries of a message.
+     */
+    @Path("oxalis.queue.retry.max_delay")
+    @DefaultValue("300000")
+    RETRY_MAX_DELAY
+
+}
@@ -0,0 +1,21 @@
+package network.oxalis.ng.outbound.queue;
+
+import network.oxalis.ng.api.outbound.TransmissionService;
+import network.oxalis.ng.commons.guice.OxalisModule;
+
+/**
+ * Guice module for the durable outbound queue. The queue is started with the module, replaying messages left
+ * unfinished, and is used as transmission service when {@code oxalis.transmission.service} is set to "queue".
+ */
+public class QueueModule extends OxalisModule {
+
+    @Override
+    protected void configure() {
+        bindSettings(QueueConf.class);
+
+        bind(QueuedTransmissionService.class)
+                .asEagerSingleton();
+
+        bindTyped(TransmissionService.class, QueuedTransmissionService.class);
+    }
+}
@@ -0,0 +1,229 @@
+package network.oxalis.ng.outbound.queue;
+
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+import com.google.inject.name.Named;
+import io.opentelemetry.api.trace.Span;
+import io.opentelemetry.api.trace.Tracer;
+import lombok.extern.slf4j.Slf4j;
+import network.oxalis.ng.api.lang.OxalisContentException;
+import network.oxalis.ng.api.lang.OxalisTransmissionException;
+import network.oxalis.ng.api.outbound.TransmissionResponse;
+import network.oxalis.ng.api.outbound.TransmissionService;
+import network.oxalis.ng.api.outbound.Transmitter;
+import network.oxalis.ng.api.settings.Settings;
+import network.oxalis.ng.api.tag.Tag;
+import network.oxalis.ng.api.util.Type;
+import network.oxalis.ng.commons.tracing.Traceable;
+import network.oxalis.ng.outbound.transmission.RetryPolicy;
+import network.oxalis.ng.outbound.transmission.TransmissionRequestFactory;
+import network.oxalis.vefa.peppol.common.model.Receipt;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Transmission service storing messages in a local journal before they are sent, so messages are not lost when the
+ * JVM stops before transmission is completed.
+ * <p>
+ * Messages are accepted when written to disk, and handed to the {@link Transmitter} by the queue executor without
+ * waiting for the transmission to complete.
+ * The outcome of each transmission, including the receipt, is recorded in the journal. Messages left unfinished are
+ * sent again on startup, so a message may be sent more than once when the JVM stops during transmission.
+ * <p>
+ * Messages failing for a reason that may pass, e.g. a refused connection, stay pending in the journal and are
+ * retried with a growing delay until sent. The caller is told about the failure when the configured number of
+ * attempts has failed, while retries continue. Other failures are recorded in the journal and reported to the caller,
+ * and the message is not sent again.
+ */
+@Slf4j
+@Singleton
+@Type("queue")
+public class QueuedTransmissionService extends Traceable implements TransmissionService {
+
+    private final TransmissionRequestFactory transmissionRequestFactory;
+
+    private final Transmitter transmitter;
+
+    private final Journal journal;
+
+    private final Executor executor;
+
+    private final RetryPolicy retryPolicy;
+
+    @Inject
+    public QueuedTransmissionService(TransmissionRequestFactory transmissionRequestFactory, Transmitter transmitter,
+                                     Tracer tracer, @Named("queue") ExecutorService executor,
+                                     Settings<QueueConf> settings, @Named("home") Path homeFolder)
+            throws IOException {
+        this(transmissionRequestFactory, transmitter, tracer, executor,
+                new RetryPolicy(settings.getInt(QueueConf.RETRY_ATTEMPTS),
+                        Long.parseLong(settings.getString(QueueConf.RETRY_DELAY)),
+                        Long.parseLong(settings.getString(QueueConf.RETRY_MAX_DELAY))),
+                new Journal(settings.getPath(QueueConf.PATH, homeFolder),
+                        Long.parseLong(settings.getString(QueueConf.SEGMENT_SIZE)),
+                        Boolean.parseBoolean(settings.getString(QueueConf.SYNC))));
+    }
+
+    QueuedTransmissionService(TransmissionRequestFactory transmissionRequestFactory, Transmitter transmitter,
+                              Tracer tracer, Executor executor, RetryPolicy retryPolicy, Journal journal)
+            throws IOException {
+        super(tracer);
+        this.transmissionRequestFactory = transmissionRequestFactory;
+        this.transmitter = transmitter;
+        this.executor = executor;
+        this.retryPolicy = retryPolicy;
+        this.journal = journal;
+
+        List<Journal.Entry> entries = journal.recover();
+        if (!entries.isEmpty())
+            log.info("Replaying {} unfinished messages from outbound queue.", entries.size());
+
+        for (Journal.Entry entry : entries)
+            submit(entry, new CompletableFuture<>());
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Waits for the message to be transmitted.
+     */
+    @Override
+    public TransmissionResponse send(InputStream inputStream, Tag tag)
+            throws IOException, OxalisTransmissionException, OxalisContentException {
+        CompletableFuture<TransmissionResponse> future = enqueue(inputStream, tag);
+
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new OxalisTransmissionException("Interrupted while waiting for transmission.", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException)
+                throw (IOException) cause;
+            if (cause instanceof OxalisTransmissionException)
+                throw (OxalisTransmissionException) cause;
+            if (cause instanceof OxalisContentException)
+                throw (OxalisContentException) cause;
+            if (cause instanceof RuntimeException)
+                throw (RuntimeException) cause;
+            throw new OxalisTransmissionException(cause.getMessage(), cause);
+        }
+    }
+
+    /**
+     * Stores the message in the queue, returning when the message is written to disk.
+     *
+     * @return Future completed when the message is transmitted.
+     */
+    public CompletableFuture<TransmissionResponse> enqueue(InputStream inputStream, Tag tag) throws IOException {
+        Span span = tracer.spanBuilder("enqueue").startSpan();
+        try {
+            CompletableFuture<TransmissionResponse> future = new CompletableFuture<>();
+            submit(journal.append(tag, inputStream), future);
+            return future;
+        } finally {
+            span.end();
+        }
+    }
+
+    /**
+     * Number of messages not yet transmitted.
+     */
+    public int getPending() {
+        return journal.getPending();
+    }
+
+    private void submit(Journal.Entry entry, CompletableFuture<TransmissionResponse> future) {
+        submit(entry, future, 1, executor);
+    }
+
+    private void submit(Journal.Entry entry, CompletableFuture<TransmissionResponse> future, int attempt,
+                        Executor executor) {
+        try {
+            executor.execute(() -> deliver(entry, future, attempt));
+        } catch (RejectedExecutionException e) {
+            // The message stays in the journal and is sent on next startup.
+            future.completeExceptionally(e);
+        }
+    }
+
+    /**
+     * Hands the entry to the transmitter without waiting for the transmission, so queue threads are not held while
+     * messages are sent or while the transmitter waits between attempts.
+     */
+    private void deliver(Journal.Entry entry, CompletableFuture<TransmissionResponse> future, int attempt) {
+        Span span = tracer.spanBuilder("deliver").startSpan();
+
+        CompletableFuture<TransmissionResponse> transmission;
+        try {
+            transmission = transmitter.transmitAsync(transmissionRequestFactory.newInstance(entry, entry.getTag()));
+        } catch (IOException | OxalisContentException | RuntimeException e) {
+            transmission = CompletableFuture.failedFuture(e);
+        }
+
+        transmission.whenComplete((response, e) -> {
+            try {
+                if (e == null)
+                    delivered(entry, future, response);
+                else
+                    failed(entry, future, attempt,
+                            e instanceof CompletionException && e.getCause() != null ? e.getCause() : e);
+            } finally {
+                span.end();
+            }
+        });
+    }
+
+    private void delivered(Journal.Entry entry, CompletableFuture<TransmissionResponse> future,
+                           TransmissionResponse response) {
+        try {
+            Receipt receipt = response.primaryReceipt();
+            journal.complete(entry, response.getTransmissionIdentifier().getIdentifier(),
+                    receipt == null ? null : receipt.getValue());
+        } catch (IOException e) {
+            log.error("Unable to record transmission of queued message {}: {}",
+                    entry.getOffset(), e.getMessage(), e);
+        }
+
+        future.complete(response);
+    }
+
+    private void failed(Journal.Entry entry, CompletableFuture<TransmissionResponse> future, int attempt,
+                        Throwable e) {
+        if (retryPolicy.isRetryable(e)) {
+            long delay = retryPolicy.getDelay(attempt);
+            log.warn("Transmission of queued message {} failed (attempt {}), retrying in {} ms: {}",
+                    entry.getOffset(), attempt, delay, e.getMessage());
+
+            if (attempt >= retryPolicy.getAttempts())
+                future.completeExceptionally(e);
+
+            // The message stays pending, so it is sent on next startup when the JVM stops meanwhile.
+            submit(entry, future, attempt + 1,
+                    CompletableFuture.delayedExecutor(delay, TimeUnit.MILLISECONDS, executor));
+            return;
+        }
+
+        log.warn("Transmission of queued message {} failed: {}", entry.getOffset(), e.getMessage());
+
+        try {
+            journal.fail(entry, e.getMessage());
+        } catch (IOException ex) {
+            log.error("Unable to record failed transmission of queued message {}: {}",
+                    entry.getOffset(), ex.getMessage(), ex);
+        }
+
+        future.completeExceptionally(e);
+    }
+}
@@ -0,0 +1,14 @@
+package network.oxalis.ng.outbound.status;
+
+import com.google.inject.servlet.ServletModule;
+
+/**
+ * Serves status of outbound transmission when the inbound servlets are loaded.
+ */
+public class OutboundStatusModule extends ServletModule {
+
+    @Override
+    protected void configureServlets() {
+        serve("/status/outbound").with(OutboundStatusServlet.class);
+    }
+}
@@ -0,0 +1,58 @@
+package network.oxalis.ng.outbound.status;
+
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+import com.google.common.cache.CacheStats;
+import jakarta.servlet.http.HttpServlet;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import network.oxalis.ng.api.lookup.LookupService;
+import network.oxalis.ng.outbound.lookup.CachedLookupService;
+import network.oxalis.ng.outbound.transmission.CircuitBreakers;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.Collection;
+import java.util.Collections;
+
+/**
+ * Servlet returning counters of outbound transmission and lookup. Since this servlet is public accessible,
+ * endpoints of receiving access points are not listed.
+ */
+@Singleton
+public class OutboundStatusServlet extends HttpServlet {
+
+    private final CircuitBreakers circuitBreakers;
+
+    private final LookupService lookupService;
+
+    @Inject
+    public OutboundStatusServlet(CircuitBreakers circuitBreakers, LookupService lookupService) {
+        this.circuitBreakers = circuitBreakers;
+        this.lookupService = lookupService;
+    }
+
+    @Override
+    protected void doGet(HttpServletRequest req, HttpServletResponse resp) throws IOException {
+        resp.setContentType("text/plain");
+
+        PrintWriter writer = resp.getWriter();
+
+        Collection<CircuitBreakers.State> states = circuitBreakers.getStates().values();
+        writer.println("breaker.open: " + Collections.frequency(states, CircuitBreakers.State.OPEN));
+        writer.println("breaker.half_open: " + Collections.frequency(states, CircuitBreakers.State.HALF_OPEN));
+        writer.println("breaker.opened: " + circuitBreakers.getOpened());
+        writer.println("breaker.rejected: " + circuitBreakers.getRejected());
+
+        if (lookupService instanceof CachedLookupService) {
+            CacheStats cacheStats = ((CachedLookupService) lookupService).getCacheStats();
+            writer.println("lookup.cache.hits: " + cacheStats.hitCount());
+            writer.println("lookup.cache.misses: " + cacheStats.missCount());
+            writer.println("lookup.cache.loads.failed: " + cacheStats.loadExceptionCount());
+
+            CacheStats negativeCacheStats = ((CachedLookupService) lookupService).getNegativeCacheStats();
+            writer.println("lookup.cache.negative.hits: " + negativeCacheStats.hitCount());
+            writer.println("lookup.cache.negative.misses: " + negativeCacheStats.missCount());
+        }
+    }
+}
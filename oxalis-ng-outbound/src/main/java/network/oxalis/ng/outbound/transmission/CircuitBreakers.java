@@ -0,0 +1,248 @@
+package network.oxalis.ng.outbound.transmission;
+
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+import lombok.extern.slf4j.Slf4j;
+import network.oxalis.ng.api.lang.OxalisContentException;
+import network.oxalis.ng.api.lang.VerifierException;
+import network.oxalis.ng.api.settings.Settings;
+import network.oxalis.ng.as4.lang.AS4Error;
+import network.oxalis.ng.as4.util.AS4ErrorCode;
+import network.oxalis.ng.commons.transmission.TransmissionConf;
+import network.oxalis.vefa.peppol.security.lang.PeppolSecurityException;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * Circuit breakers of receiving access points, keyed by endpoint address.
+ * <p>
+ * A breaker opens after a number of consecutive failures, failing transmissions to the endpoint without contacting
+ * it. When the breaker has been open for the configured duration a single transmission is let through as a probe,
+ * closing the breaker when it succeeds and opening it again when it fails. Disabled when the threshold is zero.
+ * <p>
+ * Whether a failed transmission counts against the endpoint is unrelated to whether it is safe to retry: any I/O
+ * failure and any AS4 communication error is a failure of the endpoint, while a rejection of the message shows that
+ * the endpoint responded.
+ */
+@Slf4j
+@Singleton
+public class CircuitBreakers {
+
+    public enum State {
+        CLOSED,
+        OPEN,
+        HALF_OPEN
+    }
+
+    private final int threshold;
+
+    private final long duration;
+
+    private final LongSupplier clock;
+
+    private final ConcurrentMap<String, Breaker> breakers = new ConcurrentHashMap<>();
+
+    private final LongAdder opened = new LongAdder();
+
+    private final LongAdder rejected = new LongAdder();
+
+    @Inject
+    public CircuitBreakers(Settings<TransmissionConf> settings) {
+        this(settings.getInt(TransmissionConf.BREAKER_THRESHOLD),
+                Long.parseLong(settings.getString(TransmissionConf.BREAKER_DURATION)),
+                System::currentTimeMillis);
+    }
+
+    /**
+     * @param threshold Consecutive failures opening the breaker, zero to disable.
+     * @param duration  Milliseconds the breaker stays open before a probe is let through.
+     */
+    CircuitBreakers(int threshold, long duration, LongSupplier clock) {
+        this.threshold = threshold;
+        this.duration = duration;
+        this.clock = clock;
+    }
+
+    /**
+     * Asks for permission to send to the endpoint.
+     *
+     * @throws CircuitOpenException when the breaker of the endpoint is open.
+     */
+    void acquire(String endpoint) throws CircuitOpenException {
+        if (threshold <= 0)
+            return;
+
+        if (!breakers.computeIfAbsent(endpoint, k -> new Breaker()).acquire()) {
+            rejected.increment();
+            throw new CircuitOpenException(endpoint);
+        }
+    }
+
+    /**
+     * Records that the endpoint responded.
+     */
+    void onSuccess(String endpoint) {
+        if (threshold <= 0)
+            return;
+
+        Breaker breaker = breakers.get(endpoint);
+        if (breaker != null)
+            breaker.onSuccess();
+    }
+
+    /**
+     * Records the outcome of a transmission to the endpoint failing with the given exception. A failure neither
+     * counting for nor against the endpoint, e.g. a local error before the message was sent, only ends a probe.
+     */
+    void onFailure(String endpoint, Throwable throwable) {
+        switch (classify(throwable)) {
+            case FAILURE:
+                onFailure(endpoint);
+                break;
+            case RESPONSE:
+                onSuccess(endpoint);
+                break;
+            default:
+                release(endpoint);
+        }
+    }
+
+    /**
+     * Records that the endpoint could not be reached, or did not respond.
+     */
+    void onFailure(String endpoint) {
+        if (threshold <= 0)
+            return;
+
+        if (breakers.computeIfAbsent(endpoint, k -> new Breaker()).onFailure()) {
+            opened.increment();
+            log.warn("Circuit breaker opened for endpoint '{}'.", endpoint);
+        }
+    }
+
+    /**
+     * Ends a probe without recording an outcome.
+     */
+    void release(String endpoint) {
+        if (threshold <= 0)
+            return;
+
+        Breaker breaker = breakers.get(endpoint);
+        if (breaker != null)
+            breaker.release();
+    }
+
+    static Outcome classify(Throwable throwable) {
+        AS4Error as4Error = null;
+        boolean rejected = false;
+        for (Throwable cause = throwable; cause != null; cause = cause.getCause()) {
+            if (cause instanceof IOException)
+                return Outcome.FAILURE;
+            if (cause instanceof PeppolSecurityException || cause instanceof VerifierException
+                    || cause instanceof OxalisContentException)
+                rejected = true;
+            if (cause instanceof AS4Error)
+                as4Error = (AS4Error) cause;
+        }
+
+        // The innermost AS4 error is the one reported by the receiving access point.
+        if (as4Error != null && as4Error.getErrorCode() != null
+                && as4Error.getErrorCode().getCatgory() == AS4ErrorCode.Category.COMMUNICATION)
+            return Outcome.FAILURE;
+
+        return rejected || as4Error != null ? Outcome.RESPONSE : Outcome.UNKNOWN;
+    }
+
+    public State getState(String endpoint) {
+        Breaker breaker = breakers.get(endpoint);
+        return breaker == null ? State.CLOSED : breaker.getState();
+    }
+
+    /**
+     * State of the breaker of each endpoint contacted.
+     */
+    public Map<String, State> getStates() {
+        Map<String, State> states = new TreeMap<>();
+        breakers.forEach((endpoint, breaker) -> states.put(endpoint, breaker.getState()));
+        return states;
+    }
+
+    /**
+     * Number of times a breaker has opened.
+     */
+    public long getOpened() {
+        return opened.sum();
+    }
+
+    /**
+     * Number of transmissions failed because a breaker was open.
+     */
+    public long getRejected() {
+        return rejected.sum();
+    }
+
+    enum Outcome {
+        FAILURE,
+        RESPONSE,
+        UNKNOWN
+    }
+
+    private class Breaker {
+
+        private State state = State.CLOSED;
+
+        private int failures;
+
+        private long openedAt;
+
+        private boolean probing;
+
+        synchronized boolean acquire() {
+            if (state == State.OPEN && clock.getAsLong() - openedAt >= duration)
+                state = State.HALF_OPEN;
+
+            if (state == State.CLOSED)
+                return true;
+            if (state == State.HALF_OPEN && !probing) {
+                probing = true;
+                return true;
+            }
+            return false;
+        }
+
+        synchronized void onSuccess() {
+            state = State.CLOSED;
+            failures = 0;
+            probing = false;
+        }
+
+        /**
+         * @return Whether the breaker opened.
+         */
+        synchronized boolean onFailure() {
+            probing = false;
+            failures++;
+
+            if (state == State.HALF_OPEN || (state == State.CLOSED && failures >= threshold)) {
+                state = State.OPEN;
+                openedAt = clock.getAsLong();
+                return true;
+            }
+            return false;
+        }
+
+        synchronized void release() {
+            probing = false;
+        }
+
+        synchronized State getState() {
+            return state;
+        }
+    }
+}
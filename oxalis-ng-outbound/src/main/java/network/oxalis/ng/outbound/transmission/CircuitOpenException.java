@@ -0,0 +1,14 @@
+package network.oxalis.ng.outbound.transmission;
+
+import network.oxalis.ng.api.lang.OxalisTransmissionException;
+
+/**
+ * Thrown when a transmission is refused without contacting the endpoint, as its circuit breaker is open. The message
+ * was not sent, so it is safe to send it again later.
+ */
+public class CircuitOpenException extends OxalisTransmissionException {
+
+    public CircuitOpenException(String endpoint) {
+        super(String.format("Circuit breaker is open for endpoint '%s'.", endpoint));
+    }
+}
@@ -23,11 +23,15 @@
 package network.oxalis.ng.outbound.transmission;
 
 import network.oxalis.ng.api.tag.Tag;
+import network.oxalis.ng.api.outbound.PayloadSource;
 import network.oxalis.ng.api.outbound.TransmissionMessage;
 import network.oxalis.vefa.peppol.common.model.Header;
 
+import java.io.IOException;
 import java.io.InputStream;
 import java.io.Serializable;
+import java.io.UncheckedIOException;
+import java.util.Optional;
 
 /**
  * @author erlend
@@ -43,10 +47,20 @@ class DefaultTransmissionMessage implements TransmissionMessage, Serializable {
 
     private final InputStream payload;
 
+    private final PayloadSource payloadSource;
+
     public DefaultTransmissionMessage(Header header, InputStream payload, Tag tag) {
         this.tag = tag;
         this.header = header;
         this.payload = payload;
+        this.payloadSource = null;
+    }
+
+    public DefaultTransmissionMessage(Header header, PayloadSource payloadSource, Tag tag) {
+        this.tag = tag;
+        this.header = header;
+        this.payload = null;
+        this.payloadSource = payloadSource;
     }
 
     @Override
@@ -61,6 +75,18 @@ class DefaultTransmissionMessage implements TransmissionMessage, Serializable {
 
     @Override
     public InputStream getPayload() {
-        return payload;
+        if (payloadSource == null)
+            return payload;
+
+        try {
+            return payloadSource.openStream();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Unable to open payload: " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public Optional<PayloadSource> getPayloadSource() {
+        return Optional.ofNullable(payloadSource);
     }
 }
@@ -23,14 +23,18 @@
 package network.oxalis.ng.outbound.transmission;
 
 import network.oxalis.ng.api.tag.Tag;
+import network.oxalis.ng.api.outbound.PayloadSource;
 import network.oxalis.ng.api.outbound.TransmissionMessage;
 import network.oxalis.ng.api.outbound.TransmissionRequest;
 import network.oxalis.vefa.peppol.common.model.Endpoint;
 import network.oxalis.vefa.peppol.common.model.Header;
 
+import java.io.IOException;
 import java.io.InputStream;
 import java.io.Serializable;
+import java.io.UncheckedIOException;
 import java.util.Objects;
+import java.util.Optional;
 
 /**
  * Describes a request to transmit a payload (Peppol Document) to a designated end-point.
@@ -52,6 +56,8 @@ class DefaultTransmissionRequest implements TransmissionRequest, Serializable {
 
     private final InputStream payload;
 
+    private final PayloadSource payloadSource;
+
     /**
      * Module private constructor grabbing the constructor data from the supplied builder.
      */
@@ -60,13 +66,23 @@ class DefaultTransmissionRequest implements TransmissionRequest, Serializable {
         this.endpoint = endpoint;
         this.header = header;
         this.payload = inputStream;
+        this.payloadSource = null;
+    }
+
+    public DefaultTransmissionRequest(Header header, PayloadSource payloadSource, Endpoint endpoint, Tag tag) {
+        this.tag = tag;
+        this.endpoint = endpoint;
+        this.header = header;
+        this.payload = null;
+        this.payloadSource = payloadSource;
     }
 
     public DefaultTransmissionRequest(TransmissionMessage transmissionMessage, Endpoint endpoint) {
         this.endpoint = endpoint;
         this.tag = transmissionMessage.getTag();
         this.header = transmissionMessage.getHeader();
-        this.payload = transmissionMessage.getPayload();
+        this.payloadSource = transmissionMessage.getPayloadSource().orElse(null);
+        this.payload = payloadSource == null ? transmissionMessage.getPayload() : null;
     }
 
     @Override
@@ -86,7 +102,19 @@ class DefaultTransmissionRequest implements TransmissionRequest, Serializable {
 
     @Override
     public InputStream getPayload() {
-        return payload;
+        if (payloadSource == null)
+            return payload;
+
+        try {
+            return payloadSource.openStream();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Unable to open payload: " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public Optional<PayloadSource> getPayloadSource() {
+        return Optional.ofNullable(payloadSource);
     }
 
     @Override
@@ -97,11 +125,12 @@ class DefaultTransmissionRequest implements TransmissionRequest, Serializable {
         return Objects.equals(tag, that.tag) &&
                 Objects.equals(endpoint, that.endpoint) &&
                 Objects.equals(header, that.header) &&
-                Objects.equals(payload, that.payload);
+                Objects.equals(payload, that.payload) &&
+                Objects.equals(payloadSource, that.payloadSource);
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash(tag, endpoint, header, payload);
+        return Objects.hash(tag, endpoint, header, payload, payloadSource);
     }
 }
@@ -32,6 +32,7 @@ import network.oxalis.ng.api.tag.Tag;
 import network.oxalis.ng.api.outbound.TransmissionResponse;
 import network.oxalis.ng.api.outbound.TransmissionService;
 import network.oxalis.ng.api.outbound.Transmitter;
+import network.oxalis.ng.api.util.Type;
 import network.oxalis.ng.commons.tracing.Traceable;
 
 import java.io.IOException;
@@ -43,6 +44,7 @@ import java.io.InputStream;
  * @author erlend
  */
 @Singleton
+@Type("default")
 class DefaultTransmissionService extends Traceable implements TransmissionService {
 
     private final TransmissionRequestFactory transmissionRequestFactory;
@@ -68,7 +70,8 @@ class DefaultTransmissionService extends Traceable implements TransmissionServic
             throws IOException, OxalisTransmissionException, OxalisContentException {
         Span root = tracer.spanBuilder("TransmissionService").startSpan();
         try {
-            return transmitter.transmit(transmissionRequestFactory.newInstance(inputStream, tag));
+            // The message is transmitted before returning, so the payload is streamed from the caller.
+            return transmitter.transmit(transmissionRequestFactory.newStreamingInstance(inputStream, tag));
         } finally {
             root.end();
         }
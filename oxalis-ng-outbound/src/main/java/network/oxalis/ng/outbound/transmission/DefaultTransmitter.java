@@ -25,6 +25,9 @@ package network.oxalis.ng.outbound.transmission;
 import com.google.inject.Inject;
 import io.opentelemetry.api.trace.Span;
 import io.opentelemetry.api.trace.Tracer;
+import io.opentelemetry.context.Context;
+import io.opentelemetry.context.Scope;
+import lombok.extern.slf4j.Slf4j;
 import network.oxalis.ng.api.error.ErrorTracker;
 import network.oxalis.ng.api.lang.OxalisTransmissionException;
 import network.oxalis.ng.api.lookup.LookupService;
@@ -43,16 +46,26 @@ import network.oxalis.vefa.peppol.common.model.Endpoint;
 import network.oxalis.vefa.peppol.common.model.TransportProfile;
 import network.oxalis.vefa.peppol.security.lang.PeppolSecurityException;
 
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
 /**
  * Executes transmission requests by sending the payload to the requested destination.
  * Updates statistics for the transmission using the configured RawStatisticsRepository.
  * <p>
  * Will log an error if the recording of statistics fails for some reason.
+ * <p>
+ * Sending is retried according to the {@link RetryPolicy} when the payload can be read again, and fails fast while
+ * the circuit breaker of the receiving endpoint is open.
  *
  * @author steinar
  * @author thore
  * @author erlend
  */
+@Slf4j
 class DefaultTransmitter extends Traceable implements Transmitter {
 
     /**
@@ -73,10 +86,27 @@ class DefaultTransmitter extends Traceable implements Transmitter {
 
     private final ErrorTracker errorTracker;
 
-    @Inject
+    private final TransmissionScheduler scheduler;
+
+    private final RetryPolicy retryPolicy;
+
+    private final CircuitBreakers circuitBreakers;
+
     public DefaultTransmitter(MessageSenderFactory messageSenderFactory, StatisticsService statisticsService,
                               TransmissionVerifier transmissionVerifier, LookupService lookupService, Tracer tracer,
                               OxalisCertificateValidator certificateValidator, ErrorTracker errorTracker) {
+        this(messageSenderFactory, statisticsService, transmissionVerifier, lookupService, tracer,
+                certificateValidator, errorTracker,
+                new TransmissionScheduler(Runnable::run, Integer.MAX_VALUE, Integer.MAX_VALUE),
+                RetryPolicy.NONE, new CircuitBreakers(0, 0, System::currentTimeMillis));
+    }
+
+    @Inject
+    public DefaultTransmitter(MessageSenderFactory messageSenderFactory, StatisticsService statisticsService,
+                              TransmissionVerifier transmissionVerifier, LookupService lookupService, Tracer tracer,
+                              OxalisCertificateValidator certificateValidator, ErrorTracker errorTracker,
+                              TransmissionScheduler scheduler, RetryPolicy retryPolicy,
+                              CircuitBreakers circuitBreakers) {
         super(tracer);
         this.messageSenderFactory = messageSenderFactory;
         this.statisticsService = statisticsService;
@@ -84,6 +114,9 @@ class DefaultTransmitter extends Traceable implements Transmitter {
         this.lookupService = lookupService;
         this.certificateValidator = certificateValidator;
         this.errorTracker = errorTracker;
+        this.scheduler = scheduler;
+        this.retryPolicy = retryPolicy;
+        this.circuitBreakers = circuitBreakers;
     }
 
     /**
@@ -99,31 +132,70 @@ class DefaultTransmitter extends Traceable implements Transmitter {
         }
     }
 
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Verification and lookup are performed on the transmission executor. The message is sent when the number of
+     * messages in flight, in total and to the receiving access point, allows it. Waiting messages hold no thread,
+     * and a failed attempt gives up its place before waiting to be retried.
+     */
+    @Override
+    public CompletableFuture<TransmissionResponse> transmitAsync(TransmissionMessage transmissionMessage) {
+        Span span = tracer.spanBuilder("transmit").startSpan();
+        try (Scope ignored = span.makeCurrent()) {
+            return scheduler.supply(() -> track(() -> prepare(transmissionMessage)))
+                    .thenCompose(transmissionRequest -> sendAsync(transmissionRequest,
+                            String.valueOf(transmissionRequest.getEndpoint().getAddress()), 1)
+                            .thenApply(transmissionResponse -> {
+                                statisticsService.persist(transmissionRequest, transmissionResponse);
+                                return transmissionResponse;
+                            }))
+                    .whenComplete((transmissionResponse, e) -> span.end());
+        }
+    }
+
     private TransmissionResponse perform(TransmissionMessage transmissionMessage)
             throws OxalisTransmissionException {
-        try {
-            if (transmissionMessage == null)
-                throw new OxalisTransmissionException("No transmission is provided.");
+        return track(() -> complete(prepare(transmissionMessage)));
+    }
 
-            transmissionVerifier.verify(transmissionMessage.getHeader(), Direction.OUT);
+    private TransmissionRequest prepare(TransmissionMessage transmissionMessage)
+            throws OxalisTransmissionException, PeppolSecurityException {
+        if (transmissionMessage == null)
+            throw new OxalisTransmissionException("No transmission is provided.");
 
-            TransmissionRequest transmissionRequest;
-            if (transmissionMessage instanceof TransmissionRequest) {
-                transmissionRequest = (TransmissionRequest) transmissionMessage;
+        transmissionVerifier.verify(transmissionMessage.getHeader(), Direction.OUT);
 
-                // Validate provided certificate
-                if (transmissionRequest.getEndpoint().getCertificate() == null)
-                    throw new OxalisTransmissionException("Certificate of receiving access point is not provided.");
-                certificateValidator.validate(Service.AP, transmissionRequest.getEndpoint().getCertificate());
-            } else {
-                transmissionRequest = performLookupUserHeaders(transmissionMessage);
-            }
+        TransmissionRequest transmissionRequest;
+        if (transmissionMessage instanceof TransmissionRequest) {
+            transmissionRequest = (TransmissionRequest) transmissionMessage;
 
-            TransmissionResponse transmissionResponse = sendMessage(transmissionRequest);
+            // Validate provided certificate
+            if (transmissionRequest.getEndpoint().getCertificate() == null)
+                throw new OxalisTransmissionException("Certificate of receiving access point is not provided.");
+            certificateValidator.validate(Service.AP, transmissionRequest.getEndpoint().getCertificate());
+        } else {
+            transmissionRequest = performLookupUserHeaders(transmissionMessage);
+        }
 
-            statisticsService.persist(transmissionRequest, transmissionResponse);
+        return transmissionRequest;
+    }
 
-            return transmissionResponse;
+    private TransmissionResponse complete(TransmissionRequest transmissionRequest)
+            throws OxalisTransmissionException {
+        TransmissionResponse transmissionResponse = sendMessage(transmissionRequest);
+
+        statisticsService.persist(transmissionRequest, transmissionResponse);
+
+        return transmissionResponse;
+    }
+
+    /**
+     * Performs a step of the transmission, tracking errors.
+     */
+    private <T> T track(Step<T> step) throws OxalisTransmissionException {
+        try {
+            return step.perform();
         } catch (PeppolSecurityException e) {
             errorTracker.track(Direction.OUT, e, true);
             throw new OxalisTransmissionException("Unable to verify certificate of receiving access point.", e);
@@ -153,8 +225,90 @@ class DefaultTransmitter extends Traceable implements Transmitter {
         return transmissionRequest;
     }
 
-    private TransmissionResponse sendMessage(TransmissionRequest transmissionRequest) throws OxalisTransmissionException {
+    private TransmissionResponse sendMessage(TransmissionRequest transmissionRequest)
+            throws OxalisTransmissionException {
+        String endpoint = String.valueOf(transmissionRequest.getEndpoint().getAddress());
+
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return sendAttempt(transmissionRequest, endpoint, attempt);
+            } catch (OxalisTransmissionException | RuntimeException e) {
+                if (!isRetried(transmissionRequest, e, attempt))
+                    throw e;
+
+                long delay = retryPolicy.getDelay(attempt);
+                log.info("Attempt {} to send to '{}' failed, retrying in {} ms: {}",
+                        attempt, endpoint, delay, e.getMessage());
+
+                try {
+                    Thread.sleep(delay);
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                    throw e;
+                }
+            }
+        }
+    }
+
+    /**
+     * Sends the message through the scheduler. The slot of a failed attempt is released before the delay, and the
+     * next attempt is scheduled when the delay has passed.
+     */
+    private CompletableFuture<TransmissionResponse> sendAsync(TransmissionRequest transmissionRequest,
+                                                              String endpoint, int attempt) {
+        Context context = Context.current();
+        return scheduler.submit(endpoint, () -> sendAttempt(transmissionRequest, endpoint, attempt))
+                .handle((transmissionResponse, e) -> {
+                    if (e == null)
+                        return CompletableFuture.completedFuture(transmissionResponse);
+
+                    Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+                    if (!isRetried(transmissionRequest, cause, attempt)) {
+                        errorTracker.track(Direction.OUT, cause, cause instanceof OxalisTransmissionException);
+                        return CompletableFuture.<TransmissionResponse>failedFuture(cause);
+                    }
+
+                    long delay = retryPolicy.getDelay(attempt);
+                    log.info("Attempt {} to send to '{}' failed, retrying in {} ms: {}",
+                            attempt, endpoint, delay, cause.getMessage());
+
+                    Executor delayed = context.wrap(CompletableFuture.delayedExecutor(delay, TimeUnit.MILLISECONDS));
+                    return CompletableFuture.supplyAsync(
+                            () -> sendAsync(transmissionRequest, endpoint, attempt + 1), delayed)
+                            .thenCompose(Function.identity());
+                })
+                .thenCompose(Function.identity());
+    }
+
+    /**
+     * Whether a failed attempt is retried. A payload given as a stream is consumed by the first attempt.
+     */
+    private boolean isRetried(TransmissionRequest transmissionRequest, Throwable e, int attempt) {
+        return attempt < retryPolicy.getAttempts() && retryPolicy.isRetryable(e)
+                && transmissionRequest.getPayloadSource().isPresent();
+    }
+
+    /**
+     * Makes an attempt to send the message, recording the outcome in the circuit breaker of the endpoint.
+     */
+    private TransmissionResponse sendAttempt(TransmissionRequest transmissionRequest, String endpoint, int attempt)
+            throws OxalisTransmissionException {
+        circuitBreakers.acquire(endpoint);
+
+        try {
+            TransmissionResponse transmissionResponse = send(transmissionRequest, attempt);
+            circuitBreakers.onSuccess(endpoint);
+            return transmissionResponse;
+        } catch (OxalisTransmissionException | RuntimeException e) {
+            circuitBreakers.onFailure(endpoint, e);
+            throw e;
+        }
+    }
+
+    private TransmissionResponse send(TransmissionRequest transmissionRequest, int attempt)
+            throws OxalisTransmissionException {
         Span span = tracer.spanBuilder("send message").startSpan();
+        span.setAttribute("attempt", attempt);
         TransmissionResponse transmissionResponse;
         try {
             TransportProfile transportProfile = transmissionRequest.getEndpoint().getTransportProfile();
@@ -169,4 +323,10 @@ class DefaultTransmitter extends Traceable implements Transmitter {
         return transmissionResponse;
     }
 
+    @FunctionalInterface
+    private interface Step<T> {
+
+        T perform() throws OxalisTransmissionException, PeppolSecurityException;
+
+    }
 }
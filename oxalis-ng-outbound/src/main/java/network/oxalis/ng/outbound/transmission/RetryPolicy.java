@@ -0,0 +1,128 @@
+package network.oxalis.ng.outbound.transmission;
+
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+import network.oxalis.ng.api.lang.OxalisContentException;
+import network.oxalis.ng.api.lang.VerifierException;
+import network.oxalis.ng.api.settings.Settings;
+import network.oxalis.ng.as4.lang.AS4Error;
+import network.oxalis.ng.as4.util.AS4ErrorCode;
+import network.oxalis.ng.commons.transmission.TransmissionConf;
+import network.oxalis.vefa.peppol.security.lang.PeppolSecurityException;
+import org.apache.cxf.transport.http.HTTPException;
+
+import javax.net.ssl.SSLHandshakeException;
+import java.io.IOException;
+import java.net.ConnectException;
+import java.net.NoRouteToHostException;
+import java.net.UnknownHostException;
+import java.net.http.HttpConnectTimeoutException;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Decides whether a failed attempt to send a message is retried, and how long to wait before the next attempt.
+ * <p>
+ * Each attempt sends the message with a new MessageId, so only failures known to happen before the receiving access
+ * point got the message are retried: refused connections, unknown hosts, connect timeouts, failed TLS handshakes and
+ * HTTP 429 and 503 responses. Other I/O failures, e.g. read timeouts and reset connections, may happen after the
+ * message was processed, and are not retried. An AS4 error reported by the receiving access point is retried only
+ * when it is a communication error, and never when its severity is failure. Other failures, including invalid content
+ * and certificates, are not retried. Transmissions refused as the circuit breaker of the endpoint is open are always
+ * retried.
+ * <p>
+ * The delay grows exponentially from the initial delay up to the maximum delay, with half of each delay being random
+ * so senders retrying at the same time spread out.
+ */
+@Singleton
+public class RetryPolicy {
+
+    /**
+     * Policy making a single attempt.
+     */
+    public static final RetryPolicy NONE = new RetryPolicy(1, 0, 0);
+
+    private final int attempts;
+
+    private final long delay;
+
+    private final long maxDelay;
+
+    @Inject
+    public RetryPolicy(Settings<TransmissionConf> settings) {
+        this(settings.getInt(TransmissionConf.RETRY_ATTEMPTS),
+                Long.parseLong(settings.getString(TransmissionConf.RETRY_DELAY)),
+                Long.parseLong(settings.getString(TransmissionConf.RETRY_MAX_DELAY)));
+    }
+
+    /**
+     * @param attempts Maximum number of attempts, including the first attempt.
+     * @param delay    Delay in milliseconds before the first retry.
+     * @param maxDelay Maximum delay in milliseconds before a retry.
+     */
+    public RetryPolicy(int attempts, long delay, long maxDelay) {
+        this.attempts = Math.max(1, attempts);
+        this.delay = Math.max(0, delay);
+        this.maxDelay = Math.max(this.delay, maxDelay);
+    }
+
+    public int getAttempts() {
+        return attempts;
+    }
+
+    public boolean isRetryable(Throwable throwable) {
+        AS4Error as4Error = null;
+        boolean io = false;
+        for (Throwable cause = throwable; cause != null; cause = cause.getCause()) {
+            if (cause instanceof CircuitOpenException)
+                return true;
+            if (cause instanceof PeppolSecurityException || cause instanceof VerifierException
+                    || cause instanceof OxalisContentException)
+                return false;
+            if (cause instanceof IOException) {
+                if (isUnsent((IOException) cause))
+                    return true;
+                io = true;
+            }
+            if (cause instanceof AS4Error)
+                as4Error = (AS4Error) cause;
+        }
+
+        // The message may have reached the receiving access point.
+        if (io)
+            return false;
+
+        // The innermost AS4 error is the one reported by the receiving access point.
+        if (as4Error == null || as4Error.getSeverity() == AS4ErrorCode.Severity.FAILURE)
+            return false;
+
+        return as4Error.getErrorCode() != null
+                && as4Error.getErrorCode().getCatgory() == AS4ErrorCode.Category.COMMUNICATION;
+    }
+
+    /**
+     * Whether the failure happened before the message reached the receiving access point.
+     */
+    private static boolean isUnsent(IOException e) {
+        if (e instanceof ConnectException || e instanceof NoRouteToHostException || e instanceof UnknownHostException
+                || e instanceof HttpConnectTimeoutException || e instanceof SSLHandshakeException)
+            return true;
+
+        if (e instanceof HTTPException) {
+            int responseCode = ((HTTPException) e).getResponseCode();
+            return responseCode == 429 || responseCode == 503;
+        }
+
+        return false;
+    }
+
+    /**
+     * Delay in milliseconds before the given retry, the first retry being 1.
+     */
+    public long getDelay(int retry) {
+        long cap = Math.min(maxDelay, delay << Math.min(retry - 1, 30));
+        if (cap <= 0)
+            return 0;
+
+        return cap / 2 + ThreadLocalRandom.current().nextLong(cap - cap / 2 + 1);
+    }
+}
@@ -22,12 +22,16 @@
 
 package network.oxalis.ng.outbound.transmission;
 
+import com.google.inject.Injector;
 import com.google.inject.Provides;
 import com.google.inject.name.Named;
 import network.oxalis.ng.api.outbound.TransmissionService;
 import network.oxalis.ng.api.outbound.Transmitter;
+import network.oxalis.ng.api.settings.Settings;
 import network.oxalis.ng.api.transformer.ContentWrapper;
+import network.oxalis.ng.commons.guice.ImplLoader;
 import network.oxalis.ng.commons.guice.OxalisModule;
+import network.oxalis.ng.commons.transmission.TransmissionConf;
 import network.oxalis.ng.outbound.transformer.XmlContentWrapper;
 import network.oxalis.vefa.peppol.common.model.TransportProfile;
 
@@ -53,8 +57,7 @@ public class TransmissionModule extends OxalisModule {
         bind(TransmissionRequestFactory.class)
                 .asEagerSingleton();
 
-        bind(TransmissionService.class)
-                .to(DefaultTransmissionService.class);
+        bindTyped(TransmissionService.class, DefaultTransmissionService.class);
 
         bind(MessageSenderFactory.class)
                 .asEagerSingleton();
@@ -62,6 +65,12 @@ public class TransmissionModule extends OxalisModule {
         bindTyped(ContentWrapper.class, XmlContentWrapper.class);
     }
 
+    @Provides
+    @Singleton
+    protected TransmissionService getTransmissionService(Injector injector, Settings<TransmissionConf> settings) {
+        return ImplLoader.get(injector, TransmissionService.class, settings, TransmissionConf.SERVICE);
+    }
+
     /**
      * Makes the prioritized list of supported transport profiles available to classes needing such a list (lookup...).
      *
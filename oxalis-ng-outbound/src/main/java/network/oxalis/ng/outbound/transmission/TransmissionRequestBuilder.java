@@ -31,6 +31,7 @@ import network.oxalis.ng.api.lang.OxalisContentException;
 import network.oxalis.ng.api.lang.OxalisTransmissionException;
 import network.oxalis.ng.api.lookup.LookupService;
 import network.oxalis.ng.api.model.Direction;
+import network.oxalis.ng.api.outbound.PayloadSource;
 import network.oxalis.ng.api.outbound.TransmissionRequest;
 import network.oxalis.ng.api.tag.Tag;
 import network.oxalis.ng.api.tag.TagGenerator;
@@ -42,9 +43,9 @@ import network.oxalis.ng.sniffer.sbdh.SbdhWrapper;
 import network.oxalis.vefa.peppol.common.lang.PeppolParsingException;
 import network.oxalis.vefa.peppol.common.model.*;
 
-import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.UncheckedIOException;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
@@ -75,7 +76,7 @@ public class TransmissionRequestBuilder {
     /**
      * Will contain the payload Peppol document
      */
-    private byte[] payload;
+    private PayloadSource payload;
 
     /**
      * The address of the endpoint either supplied by the caller or looked up in the SMP
@@ -118,6 +119,15 @@ public class TransmissionRequestBuilder {
         return this;
     }
 
+    /**
+     * Supplies the builder with a source of the message to be sent. The payload is read from the source when needed,
+     * so a payload in a file is not held in memory unless it has to be wrapped in an SBDH.
+     */
+    public TransmissionRequestBuilder payLoad(PayloadSource payloadSource) {
+        this.payload = payloadSource;
+        return this;
+    }
+
     /**
      * Overrides the endpoint URL and the AS4 System identifier for the AS4 protocol.
      * You had better know what you are doing :-)
@@ -188,15 +198,16 @@ public class TransmissionRequestBuilder {
      */
     public TransmissionRequest build() throws OxalisTransmissionException, OxalisContentException {
         try (ClosableSpan ignored = tracer.spanBuilder("build").startSpan()::end) {
-            if (payload.length < 2)
+            if (payload == null || (payload.length() >= 0 && payload.length() < 2))
                 throw new OxalisTransmissionException("You have forgotten to provide payload");
 
             PeppolStandardBusinessHeader optionalParsedSbdh = null;
-            try {
-                optionalParsedSbdh =
-                        new PeppolStandardBusinessHeader(headerParser.parse(new ByteArrayInputStream(payload)));
+            try (InputStream inputStream = payload.openStream()) {
+                optionalParsedSbdh = new PeppolStandardBusinessHeader(headerParser.parse(inputStream));
             } catch (OxalisContentException e) {
                 // No action.
+            } catch (IOException e) {
+                throw new OxalisTransmissionException("Unable to read the payload: " + e.getMessage(), e);
             }
 
             // Calculates the effectiveStandardBusinessHeader to be used
@@ -220,12 +231,16 @@ public class TransmissionRequestBuilder {
             // make sure payload is encapsulated in SBDH
             if (optionalParsedSbdh == null) {
                 // Wraps the payload with an SBDH, as this is required for AS4
-                payload = wrapPayLoadWithSBDH(new ByteArrayInputStream(payload), effectiveStandardBusinessHeader);
+                try (InputStream inputStream = payload.openStream()) {
+                    payload = PayloadSource.of(wrapPayLoadWithSBDH(inputStream, effectiveStandardBusinessHeader));
+                } catch (IOException e) {
+                    throw new OxalisTransmissionException("Unable to read the payload: " + e.getMessage(), e);
+                }
             }
 
             // Transfers all the properties of this object into the newly created TransmissionRequest
             return new DefaultTransmissionRequest(
-                    getEffectiveStandardBusinessHeader().toVefa(), getPayload(),
+                    getEffectiveStandardBusinessHeader().toVefa(), getPayloadSource(),
                     getEndpoint(), tagGenerator.generate(Direction.OUT, tag));
         }
     }
@@ -282,7 +297,11 @@ public class TransmissionRequestBuilder {
         if (optionallyParsedSbdh.isPresent())
             return optionallyParsedSbdh.get();
 
-        return new PeppolStandardBusinessHeader(contentDetector.parse(new ByteArrayInputStream(payload)));
+        try (InputStream inputStream = payload.openStream()) {
+            return new PeppolStandardBusinessHeader(contentDetector.parse(inputStream));
+        } catch (IOException e) {
+            throw new OxalisContentException("Unable to read the payload: " + e.getMessage(), e);
+        }
     }
 
     /**
@@ -359,14 +378,22 @@ public class TransmissionRequestBuilder {
 
     protected void savePayLoad(InputStream inputStream) {
         try {
-            payload = ByteStreams.toByteArray(inputStream);
+            payload = PayloadSource.of(ByteStreams.toByteArray(inputStream));
         } catch (IOException e) {
             throw new IllegalStateException("Unable to save the payload: " + e.getMessage(), e);
         }
     }
 
     protected InputStream getPayload() {
-        return new ByteArrayInputStream(payload);
+        try {
+            return payload.openStream();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Unable to read the payload: " + e.getMessage(), e);
+        }
+    }
+
+    protected PayloadSource getPayloadSource() {
+        return payload;
     }
 
     public Endpoint getEndpoint() {
@@ -381,10 +408,10 @@ public class TransmissionRequestBuilder {
         return endpoint != null;
     }
 
-    private byte[] wrapPayLoadWithSBDH(ByteArrayInputStream byteArrayInputStream,
+    private byte[] wrapPayLoadWithSBDH(InputStream inputStream,
                                        PeppolStandardBusinessHeader effectiveStandardBusinessHeader) {
         SbdhWrapper sbdhWrapper = new SbdhWrapper();
-        return sbdhWrapper.wrap(byteArrayInputStream, effectiveStandardBusinessHeader.toVefa());
+        return sbdhWrapper.wrap(inputStream, effectiveStandardBusinessHeader.toVefa());
     }
 
     /**
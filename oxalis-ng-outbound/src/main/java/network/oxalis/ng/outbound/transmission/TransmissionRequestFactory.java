@@ -27,21 +27,32 @@ import io.opentelemetry.api.trace.Tracer;
 import network.oxalis.ng.api.header.HeaderParser;
 import network.oxalis.ng.api.lang.OxalisContentException;
 import network.oxalis.ng.api.model.Direction;
+import network.oxalis.ng.api.outbound.PayloadSource;
 import network.oxalis.ng.api.outbound.TransmissionMessage;
+import network.oxalis.ng.api.settings.Settings;
 import network.oxalis.ng.api.tag.Tag;
 import network.oxalis.ng.api.tag.TagGenerator;
 import network.oxalis.ng.api.transformer.ContentDetector;
 import network.oxalis.ng.api.transformer.ContentWrapper;
 import network.oxalis.ng.commons.io.PeekingInputStream;
 import network.oxalis.ng.commons.tracing.Traceable;
+import network.oxalis.ng.commons.transmission.TransmissionConf;
 import network.oxalis.vefa.peppol.common.model.Header;
 
 import jakarta.inject.Inject;
-import java.io.ByteArrayInputStream;
+import java.io.FilterInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
 
 /**
+ * Creates transmission messages from payloads. Only the beginning of the payload is held in memory while the SBDH is
+ * read. Payloads read from a stream are written to a temporary file, so the message does not depend on the stream,
+ * unless the message is created to stream the payload while it is sent. Payloads without SBDH are always written to a
+ * temporary file, as the content is read both to detect the header and to wrap the content.
+ *
  * @author erlend
  * @since 4.0.0
  */
@@ -55,43 +66,177 @@ public class TransmissionRequestFactory extends Traceable {
 
     private final HeaderParser headerParser;
 
+    private final int peekLimit;
+
     @Inject
+    public TransmissionRequestFactory(ContentDetector contentDetector, ContentWrapper contentWrapper,
+                                      TagGenerator tagGenerator, HeaderParser headerParser, Tracer tracer,
+                                      Settings<TransmissionConf> settings) {
+        this(contentDetector, contentWrapper, tagGenerator, headerParser, tracer,
+                settings.getInt(TransmissionConf.PEEK_LIMIT));
+    }
+
     public TransmissionRequestFactory(ContentDetector contentDetector, ContentWrapper contentWrapper,
                                       TagGenerator tagGenerator, HeaderParser headerParser, Tracer tracer) {
+        this(contentDetector, contentWrapper, tagGenerator, headerParser, tracer, PeekingInputStream.DEFAULT_LIMIT);
+    }
+
+    TransmissionRequestFactory(ContentDetector contentDetector, ContentWrapper contentWrapper,
+                               TagGenerator tagGenerator, HeaderParser headerParser, Tracer tracer, int peekLimit) {
         super(tracer);
         this.contentDetector = contentDetector;
         this.contentWrapper = contentWrapper;
         this.tagGenerator = tagGenerator;
         this.headerParser = headerParser;
+        this.peekLimit = peekLimit;
     }
 
+    /**
+     * @see #newInstance(InputStream, Tag)
+     */
     public TransmissionMessage newInstance(InputStream inputStream)
             throws IOException, OxalisContentException {
         return newInstance(inputStream, Tag.NONE);
     }
 
+    /**
+     * Creates a message from the given stream. The stream is read to the end, so it may be closed when this method
+     * returns. The payload is kept in a temporary file, deleted when the payload of the message is closed.
+     *
+     * @throws OxalisContentException When no header is found, including when the SBDH is not found within the peek
+     *                                limit.
+     */
     public TransmissionMessage newInstance(InputStream inputStream, Tag tag)
             throws IOException, OxalisContentException {
         Span span = tracer.spanBuilder(getClass().getSimpleName()).startSpan();
         try {
-            return perform(inputStream, tag);
+            return perform(inputStream, tag, false);
         } finally {
             span.end();
         }
     }
 
-    private TransmissionMessage perform(InputStream inputStream, Tag tag)
+    /**
+     * Creates a message reading the payload from the given stream while the message is sent. When the payload
+     * contains an SBDH, only the beginning of the stream is read here, so the stream must be kept open until the
+     * message is transmitted. The stream is closed by closing the payload of the message.
+     *
+     * @throws OxalisContentException When no header is found, including when the SBDH is not found within the peek
+     *                                limit.
+     */
+    public TransmissionMessage newStreamingInstance(InputStream inputStream, Tag tag)
             throws IOException, OxalisContentException {
-        PeekingInputStream peekingInputStream = new PeekingInputStream(inputStream);
+        Span span = tracer.spanBuilder(getClass().getSimpleName()).startSpan();
         try {
-            Header header = readHeaderFromSbdh(peekingInputStream);
+            return perform(inputStream, tag, true);
+        } finally {
+            span.end();
+        }
+    }
+
+    public TransmissionMessage newInstance(PayloadSource payloadSource)
+            throws IOException, OxalisContentException {
+        return newInstance(payloadSource, Tag.NONE);
+    }
+
+    /**
+     * Creates a message keeping the given source as payload when the payload contains an SBDH, so the payload is
+     * read from the source each time it is sent.
+     */
+    public TransmissionMessage newInstance(PayloadSource payloadSource, Tag tag)
+            throws IOException, OxalisContentException {
+        Span span = tracer.spanBuilder(getClass().getSimpleName()).startSpan();
+        try {
+            Header header;
+            try (InputStream inputStream = payloadSource.openStream()) {
+                PeekingInputStream peekingInputStream = new PeekingInputStream(inputStream, peekLimit);
+                try {
+                    header = readHeaderFromSbdh(peekingInputStream);
+                } catch (OxalisContentException e) {
+                    if (peekingInputStream.isLimitReached())
+                        throw peekLimitExceeded(e);
+                    header = null;
+                }
+            }
+
+            if (header == null)
+                return performWithoutSbdh(payloadSource, null, tag);
+
+            return new DefaultTransmissionMessage(header, payloadSource, tagGenerator.generate(Direction.OUT, tag));
+        } finally {
+            span.end();
+        }
+    }
+
+    private TransmissionMessage perform(InputStream inputStream, Tag tag, boolean streaming)
+            throws IOException, OxalisContentException {
+        PeekingInputStream peekingInputStream = new PeekingInputStream(inputStream, peekLimit);
+
+        Header header;
+        try {
+            header = readHeaderFromSbdh(peekingInputStream);
+        } catch (OxalisContentException e) {
+            if (peekingInputStream.isLimitReached())
+                throw peekLimitExceeded(e);
+            return performWithoutSbdh(peekingInputStream.newInputStream(), tag);
+        }
+
+        if (streaming)
             return new DefaultTransmissionMessage(header, peekingInputStream.newInputStream(),
                     tagGenerator.generate(Direction.OUT, tag));
-        } catch (OxalisContentException e) {
-            byte[] payload = peekingInputStream.getContent();
-            Header header = detectHeaderFromContent(payload);
-            InputStream wrappedContent = wrapContentInSbdh(header, payload);
+
+        Path payload = copyToTemporaryFile(peekingInputStream.newInputStream());
+        try {
+            InputStream content = Files.newInputStream(payload);
+            return new DefaultTransmissionMessage(header, new WrappedInputStream(content, content, payload),
+                    tagGenerator.generate(Direction.OUT, tag));
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(payload);
+            throw e;
+        }
+    }
+
+    private TransmissionMessage performWithoutSbdh(InputStream inputStream, Tag tag)
+            throws IOException, OxalisContentException {
+        Path payload = copyToTemporaryFile(inputStream);
+        try {
+            return performWithoutSbdh(PayloadSource.of(payload), payload, tag);
+        } catch (IOException | OxalisContentException | RuntimeException e) {
+            Files.deleteIfExists(payload);
+            throw e;
+        }
+    }
+
+    private static Path copyToTemporaryFile(InputStream inputStream) throws IOException {
+        Path payload = Files.createTempFile("oxalis-payload-", ".tmp");
+        try {
+            Files.copy(inputStream, payload, StandardCopyOption.REPLACE_EXISTING);
+            return payload;
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(payload);
+            throw e;
+        }
+    }
+
+    /**
+     * Detects the header from the content and wraps the content in an SBDH.
+     *
+     * @param temporaryFile File holding the content, deleted when the wrapped content is closed. May be null.
+     */
+    private TransmissionMessage performWithoutSbdh(PayloadSource payloadSource, Path temporaryFile, Tag tag)
+            throws IOException, OxalisContentException {
+        Header header;
+        try (InputStream content = payloadSource.openStream()) {
+            header = detectHeaderFromContent(content);
+        }
+
+        InputStream source = payloadSource.openStream();
+        try {
+            InputStream wrappedContent = new WrappedInputStream(wrapContentInSbdh(header, source), source, temporaryFile);
             return new DefaultTransmissionMessage(header, wrappedContent, tagGenerator.generate(Direction.OUT, tag));
+        } catch (IOException | OxalisContentException | RuntimeException e) {
+            source.close();
+            throw e;
         }
     }
 
@@ -103,6 +248,8 @@ public class TransmissionRequestFactory extends Traceable {
             return header;
         } catch (OxalisContentException e) {
             span.setAttribute("exception", e.getMessage());
+            if (peekingInputStream.isLimitReached())
+                span.setAttribute("peek_limit", peekLimit);
             throw e;
         } finally {
             span.end();
@@ -110,10 +257,18 @@ public class TransmissionRequestFactory extends Traceable {
 
     }
 
-    private Header detectHeaderFromContent(byte[] payload) throws OxalisContentException {
+    /**
+     * The SBDH may be larger than the peek limit, wrapping the payload in another SBDH would then hide the error.
+     */
+    private OxalisContentException peekLimitExceeded(OxalisContentException e) {
+        return new OxalisContentException(String.format(
+                "Peek limit of %s bytes exceeded while reading the SBDH: %s", peekLimit, e.getMessage()), e);
+    }
+
+    private Header detectHeaderFromContent(InputStream payload) throws OxalisContentException {
         Span span = tracer.spanBuilder("Detect SBDH from content").startSpan();
         try {
-            Header header = contentDetector.parse(new ByteArrayInputStream(payload));
+            Header header = contentDetector.parse(payload);
             span.setAttribute("identifier", header.getIdentifier().getIdentifier());
             return header;
         } catch (OxalisContentException e) {
@@ -124,10 +279,10 @@ public class TransmissionRequestFactory extends Traceable {
         }
     }
 
-    private InputStream wrapContentInSbdh(Header header, byte[] payload) throws IOException, OxalisContentException {
+    private InputStream wrapContentInSbdh(Header header, InputStream payload) throws IOException, OxalisContentException {
         Span span = tracer.spanBuilder("Wrap content in SBDH").startSpan();
         try {
-            return contentWrapper.wrap(new ByteArrayInputStream(payload), header);
+            return contentWrapper.wrap(payload, header);
         } catch (OxalisContentException e) {
             span.setAttribute("exception", e.getMessage());
             throw e;
@@ -135,4 +290,32 @@ public class TransmissionRequestFactory extends Traceable {
             span.end();
         }
     }
+
+    /**
+     * Stream of content, wrapped or not, closing the content and deleting any temporary file holding the content when
+     * closed.
+     */
+    private static class WrappedInputStream extends FilterInputStream {
+
+        private final InputStream source;
+
+        private final Path path;
+
+        WrappedInputStream(InputStream inputStream, InputStream source, Path path) {
+            super(inputStream);
+            this.source = source;
+            this.path = path;
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                super.close();
+            } finally {
+                source.close();
+                if (path != null)
+                    Files.deleteIfExists(path);
+            }
+        }
+    }
 }
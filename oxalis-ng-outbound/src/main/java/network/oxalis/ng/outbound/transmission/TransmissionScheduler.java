@@ -0,0 +1,219 @@
+package network.oxalis.ng.outbound.transmission;
+
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+import com.google.inject.name.Named;
+import io.opentelemetry.context.Context;
+import io.opentelemetry.context.Scope;
+import network.oxalis.ng.api.settings.Settings;
+import network.oxalis.ng.commons.transmission.TransmissionConf;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Runs tasks on the transmission executor while limiting the number of tasks running in total and per destination.
+ * Tasks waiting for their turn are queued per destination and hold no thread, destinations with waiting tasks take
+ * turns when a task completes.
+ * <p>
+ * The OpenTelemetry context of the submitting thread is made current while a task runs.
+ */
+@Singleton
+class TransmissionScheduler {
+
+    private final Executor executor;
+
+    private final int maxInFlight;
+
+    private final int maxPerDestination;
+
+    private final Map<String, Destination> destinations = new HashMap<>();
+
+    private final Deque<Destination> ready = new ArrayDeque<>();
+
+    private int inFlight;
+
+    private int queued;
+
+    @Inject
+    public TransmissionScheduler(@Named("transmission") ExecutorService executor,
+                                 Settings<TransmissionConf> settings) {
+        this(executor, settings.getInt(TransmissionConf.MAX_IN_FLIGHT),
+                settings.getInt(TransmissionConf.MAX_IN_FLIGHT_PER_DESTINATION));
+    }
+
+    TransmissionScheduler(Executor executor, int maxInFlight, int maxPerDestination) {
+        if (maxInFlight < 1 || maxPerDestination < 1)
+            throw new IllegalArgumentException("Limits of tasks in flight must be positive.");
+
+        this.executor = executor;
+        this.maxInFlight = maxInFlight;
+        this.maxPerDestination = maxPerDestination;
+    }
+
+    /**
+     * Runs the task on the executor without taking part in the limits, used for work done before the destination
+     * is known.
+     */
+    <T> CompletableFuture<T> supply(Callable<T> callable) {
+        Task<T> task = new Task<>(callable, Context.current(), null);
+        try {
+            executor.execute(task);
+        } catch (RejectedExecutionException e) {
+            task.future.completeExceptionally(e);
+        }
+        return task.future;
+    }
+
+    /**
+     * Runs the task when both the total limit and the limit of the destination allow.
+     */
+    <T> CompletableFuture<T> submit(String destination, Callable<T> callable) {
+        List<Task<?>> tasks;
+        Task<T> task;
+        synchronized (this) {
+            Destination d = destinations.computeIfAbsent(destination, Destination::new);
+            task = new Task<>(callable, Context.current(), d);
+            d.queue.add(task);
+            queued++;
+            markReady(d);
+            tasks = drain();
+        }
+
+        execute(tasks);
+        return task.future;
+    }
+
+    public synchronized int getInFlight() {
+        return inFlight;
+    }
+
+    public synchronized int getQueued() {
+        return queued;
+    }
+
+    private void release(Destination destination) {
+        List<Task<?>> tasks;
+        synchronized (this) {
+            inFlight--;
+            destination.inFlight--;
+
+            if (destination.inFlight == 0 && destination.queue.isEmpty())
+                destinations.remove(destination.key);
+            else
+                markReady(destination);
+
+            tasks = drain();
+        }
+
+        execute(tasks);
+    }
+
+    private void execute(List<Task<?>> tasks) {
+        for (Task<?> task : tasks) {
+            try {
+                executor.execute(task);
+            } catch (RejectedExecutionException e) {
+                task.future.completeExceptionally(e);
+                release(task.destination);
+            }
+        }
+    }
+
+    /**
+     * Takes the tasks allowed to start, one destination at a time.
+     */
+    private List<Task<?>> drain() {
+        List<Task<?>> tasks = new ArrayList<>();
+        while (inFlight < maxInFlight && !ready.isEmpty()) {
+            Destination d = ready.poll();
+            d.ready = false;
+
+            tasks.add(d.queue.poll());
+            queued--;
+            inFlight++;
+            d.inFlight++;
+
+            markReady(d);
+        }
+        return tasks;
+    }
+
+    private void markReady(Destination destination) {
+        if (!destination.ready && !destination.queue.isEmpty() && destination.inFlight < maxPerDestination) {
+            destination.ready = true;
+            ready.add(destination);
+        }
+    }
+
+    private static class Destination {
+
+        private final String key;
+
+        private final Deque<Task<?>> queue = new ArrayDeque<>();
+
+        private int inFlight;
+
+        private boolean ready;
+
+        Destination(String key) {
+            this.key = key;
+        }
+    }
+
+    private class Task<T> implements Runnable {
+
+        private final Callable<T> callable;
+
+        private final Context context;
+
+        private final Destination destination;
+
+        private final CompletableFuture<T> future = new CompletableFuture<>();
+
+        Task(Callable<T> callable, Context context, Destination destination) {
+            this.callable = callable;
+            this.context = context;
+            this.destination = destination;
+        }
+
+        /**
+         * Releases the slot of the task before completing the future, so dependent stages do not hold it. Errors are
+         * handed to the future like any other failure, the slot is released and the future completed in any case.
+         */
+        @Override
+        public void run() {
+            T result = null;
+            Throwable failure = null;
+
+            try (Scope ignored = context.makeCurrent()) {
+                result = callable.call();
+            } catch (Throwable e) {
+                failure = e;
+            }
+
+            try {
+                release();
+            } finally {
+                if (failure == null)
+                    future.complete(result);
+                else
+                    future.completeExceptionally(failure);
+            }
+        }
+
+        private void release() {
+            if (destination != null)
+                TransmissionScheduler.this.release(destination);
+        }
+    }
+}
@@ -27,11 +27,25 @@ import com.google.inject.name.Named;
 import network.oxalis.ng.api.lang.OxalisTransmissionException;
 import network.oxalis.ng.api.lookup.LookupService;
 import network.oxalis.ng.commons.guice.GuiceModuleLoader;
+import network.oxalis.vefa.peppol.common.lang.EndpointNotFoundException;
 import network.oxalis.vefa.peppol.common.model.*;
+import network.oxalis.vefa.peppol.lookup.LookupClient;
+import org.mockito.Mockito;
 import org.testng.Assert;
 import org.testng.annotations.Guice;
 import org.testng.annotations.Test;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.ArgumentMatchers.any;
+
 @Guice(modules = GuiceModuleLoader.class)
 public class CachedLookupServiceTest {
 
@@ -106,4 +120,102 @@ public class CachedLookupServiceTest {
                 .documentType(documenttype)
                 .process(ProcessIdentifier.of("---")))));
     }
+
+    @Test
+    public void negativeCaching() throws Exception {
+        LookupClient lookupClient = Mockito.mock(LookupClient.class);
+        Mockito.when(lookupClient.getEndpoint(any(), any(), any(), any(TransportProfile[].class)))
+                .thenThrow(new EndpointNotFoundException("Endpoint not found."));
+
+        CachedLookupService service = new CachedLookupService(lookupClient,
+                Collections.singletonList(TransportProfile.PEPPOL_AS4_2_0), Runnable::run, 10, 60, 0, 60);
+
+        for (int i = 0; i < 3; i++) {
+            try {
+                service.lookup(header());
+                Assert.fail("Expected exception.");
+            } catch (OxalisTransmissionException e) {
+                Assert.assertTrue(e.getCause() instanceof EndpointNotFoundException);
+            }
+        }
+
+        Mockito.verify(lookupClient, Mockito.times(1))
+                .getEndpoint(any(), any(), any(), any(TransportProfile[].class));
+        Assert.assertEquals(service.getNegativeCacheStats().hitCount(), 2);
+    }
+
+    @Test
+    public void singleFlight() throws Exception {
+        CountDownLatch latch = new CountDownLatch(1);
+        Endpoint endpoint = Mockito.mock(Endpoint.class);
+        LookupClient lookupClient = Mockito.mock(LookupClient.class);
+        Mockito.when(lookupClient.getEndpoint(any(), any(), any(), any(TransportProfile[].class)))
+                .thenAnswer(i -> {
+                    latch.await(5, TimeUnit.SECONDS);
+                    return endpoint;
+                });
+
+        CachedLookupService service = new CachedLookupService(lookupClient,
+                Collections.singletonList(TransportProfile.PEPPOL_AS4_2_0), Runnable::run, 10, 60, 0, 60);
+
+        ExecutorService executorService = Executors.newFixedThreadPool(5);
+        try {
+            List<Future<Endpoint>> futures = new ArrayList<>();
+            for (int i = 0; i < 5; i++)
+                futures.add(executorService.submit(() -> service.lookup(header())));
+
+            Thread.sleep(100);
+            latch.countDown();
+
+            for (Future<Endpoint> future : futures)
+                Assert.assertSame(future.get(5, TimeUnit.SECONDS), endpoint);
+        } finally {
+            executorService.shutdownNow();
+        }
+
+        Mockito.verify(lookupClient, Mockito.times(1))
+                .getEndpoint(any(), any(), any(), any(TransportProfile[].class));
+        Assert.assertEquals(service.getCacheStats().loadCount(), 1);
+    }
+
+    @Test
+    public void refreshServesCurrentValue() throws Exception {
+        Endpoint endpoint1 = Mockito.mock(Endpoint.class);
+        Endpoint endpoint2 = Mockito.mock(Endpoint.class);
+        LookupClient lookupClient = Mockito.mock(LookupClient.class);
+        Mockito.when(lookupClient.getEndpoint(any(), any(), any(), any(TransportProfile[].class)))
+                .thenReturn(endpoint1)
+                .thenAnswer(i -> {
+                    Thread.sleep(100);
+                    return endpoint2;
+                });
+
+        ExecutorService executorService = Executors.newSingleThreadExecutor();
+        try {
+            CachedLookupService service = new CachedLookupService(lookupClient,
+                    Collections.singletonList(TransportProfile.PEPPOL_AS4_2_0), executorService, 10, 60, 1, 60);
+
+            Assert.assertSame(service.lookup(header()), endpoint1);
+
+            Thread.sleep(1_100);
+
+            // Refresh is triggered, current value is served while reloading.
+            Assert.assertSame(service.lookup(header()), endpoint1);
+
+            Mockito.verify(lookupClient, Mockito.timeout(5_000).times(2))
+                    .getEndpoint(any(), any(), any(), any(TransportProfile[].class));
+            Thread.sleep(200);
+
+            Assert.assertSame(service.lookup(header()), endpoint2);
+        } finally {
+            executorService.shutdownNow();
+        }
+    }
+
+    private static Header header() {
+        return Header.newInstance()
+                .receiver(participant)
+                .documentType(documenttype)
+                .process(process);
+    }
 }
@@ -0,0 +1,133 @@
+/*
+ * Copyright 2010-2018 Norwegian Agency for Public Management and eGovernment (Difi)
+ *
+ * Licensed under the EUPL, Version 1.1 or – as soon they
+ * will be approved by the European Commission - subsequent
+ * versions of the EUPL (the "Licence");
+ *
+ * You may not use this work except in compliance with the Licence.
+ *
+ * You may obtain a copy of the Licence at:
+ *
+ * https://joinup.ec.europa.eu/community/eupl/og_page/eupl
+ *
+ * Unless required by applicable law or agreed to in
+ * writing, software distributed under the Licence is
+ * distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied.
+ * See the Licence for the specific language governing
+ * permissions and limitations under the Licence.
+ */
+
+package network.oxalis.ng.outbound.lookup;
+
+import network.oxalis.vefa.peppol.common.model.*;
+import network.oxalis.vefa.peppol.lookup.LookupClient;
+import org.mockito.Mockito;
+import org.testng.Assert;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Collections;
+
+import static org.mockito.ArgumentMatchers.any;
+
+public class PersistentLookupServiceTest {
+
+    private static final Header HEADER = Header.newInstance()
+            .receiver(ParticipantIdentifier.of("0192:923829644"))
+            .documentType(DocumentTypeIdentifier.of("urn:oasis:names:specification:ubl:schema:xsd:Invoice-2::Invoice" +
+                    "##urn:cen.eu:en16931:2017#compliant#urn:fdc:peppol.eu:2017:poacc:billing:3.0::2.1"))
+            .process(ProcessIdentifier.of("urn:fdc:peppol.eu:2017:poacc:billing:01:1.0"));
+
+    private static final Endpoint ENDPOINT = Endpoint.of(TransportProfile.PEPPOL_AS4_2_0,
+            URI.create("https://ap.example.com/as4"), null);
+
+    private Path path;
+
+    @BeforeMethod
+    public void beforeMethod() throws Exception {
+        path = Files.createTempDirectory("oxalis-lookup").resolve("lookup-cache.bin");
+    }
+
+    @AfterMethod
+    public void afterMethod() throws Exception {
+        Files.deleteIfExists(path);
+        Files.deleteIfExists(path.getParent());
+    }
+
+    @Test
+    public void survivesRestart() throws Exception {
+        LookupClient lookupClient = Mockito.mock(LookupClient.class);
+        Mockito.when(lookupClient.getEndpoint(any(), any(), any(), any(TransportProfile[].class)))
+                .thenReturn(ENDPOINT);
+
+        Assert.assertEquals(createService(lookupClient).lookup(HEADER), ENDPOINT);
+
+        LookupClient restartedClient = Mockito.mock(LookupClient.class);
+        Assert.assertEquals(createService(restartedClient).lookup(HEADER), ENDPOINT);
+
+        Mockito.verify(lookupClient, Mockito.times(1))
+                .getEndpoint(any(), any(), any(), any(TransportProfile[].class));
+        Mockito.verifyNoInteractions(restartedClient);
+    }
+
+    @Test
+    public void expiredEntriesAreNotLoaded() throws Exception {
+        LookupCacheFile cacheFile = new LookupCacheFile(path);
+        cacheFile.append(new LookupCacheFile.Entry(new CachedLookupService.HeaderStub(HEADER), ENDPOINT,
+                System.currentTimeMillis() - 1_000));
+        cacheFile.close();
+
+        Assert.assertTrue(new LookupCacheFile(path).read().isEmpty());
+    }
+
+    @Test
+    public void preloadedEntriesKeepExpiry() throws Exception {
+        LookupCacheFile cacheFile = new LookupCacheFile(path);
+        cacheFile.append(new LookupCacheFile.Entry(new CachedLookupService.HeaderStub(HEADER), ENDPOINT,
+                System.currentTimeMillis() + 200));
+        cacheFile.close();
+
+        LookupClient lookupClient = Mockito.mock(LookupClient.class);
+        Mockito.when(lookupClient.getEndpoint(any(), any(), any(), any(TransportProfile[].class)))
+                .thenReturn(ENDPOINT);
+        PersistentLookupService lookupService = createService(lookupClient);
+
+        Assert.assertEquals(lookupService.lookup(HEADER), ENDPOINT);
+        Mockito.verifyNoInteractions(lookupClient);
+
+        // The stored expiry is honored rather than the full lifetime of the cache.
+        Thread.sleep(300);
+        Assert.assertEquals(lookupService.lookup(HEADER), ENDPOINT);
+        Assert.assertEquals(lookupService.lookup(HEADER), ENDPOINT);
+        Mockito.verify(lookupClient, Mockito.times(1))
+                .getEndpoint(any(), any(), any(), any(TransportProfile[].class));
+    }
+
+    @Test
+    public void truncatedRecordIsIgnored() throws Exception {
+        LookupCacheFile cacheFile = new LookupCacheFile(path);
+        cacheFile.append(new LookupCacheFile.Entry(new CachedLookupService.HeaderStub(HEADER), ENDPOINT,
+                System.currentTimeMillis() + 60_000));
+        cacheFile.close();
+
+        // Simulates a record partially written before a crash.
+        Files.write(path, new byte[]{0, 0, 1, 0, 42}, StandardOpenOption.APPEND);
+
+        LookupCacheFile.Entry entry = new LookupCacheFile(path).read().iterator().next();
+        Assert.assertEquals(entry.getHeader(), new CachedLookupService.HeaderStub(HEADER));
+        Assert.assertEquals(entry.getEndpoint(), ENDPOINT);
+    }
+
+    private PersistentLookupService createService(LookupClient lookupClient) {
+        return new PersistentLookupService(lookupClient, Collections.singletonList(TransportProfile.PEPPOL_AS4_2_0),
+                Runnable::run, 10, 300, 0, 60, path);
+    }
+}
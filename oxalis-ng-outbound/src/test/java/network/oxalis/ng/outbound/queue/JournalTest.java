@@ -0,0 +1,233 @@
+package network.oxalis.ng.outbound.queue;
+
+import com.google.common.io.ByteStreams;
+import network.oxalis.ng.api.tag.Tag;
+import org.apache.commons.io.FileUtils;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.testng.Assert.*;
+
+public class JournalTest {
+
+    private Path directory;
+
+    @BeforeMethod
+    public void setUp() throws Exception {
+        directory = Files.createTempDirectory("journal");
+    }
+
+    @AfterMethod
+    public void tearDown() throws Exception {
+        FileUtils.deleteDirectory(directory.toFile());
+    }
+
+    @Test
+    public void unfinishedEntriesAreRecovered() throws Exception {
+        try (Journal journal = new Journal(directory, 1024 * 1024, true)) {
+            assertTrue(journal.recover().isEmpty());
+
+            Journal.Entry first = journal.append(Tag.of("first"), payload("First"));
+            journal.append(Tag.of("second"), payload("Second"));
+            journal.append(Tag.of("third"), payload("Third"));
+
+            assertEquals(read(first), "First");
+            assertEquals(first.getOffset(), 0);
+
+            journal.complete(first, "identifier", "Receipt".getBytes(StandardCharsets.UTF_8));
+            assertEquals(journal.getPending(), 2);
+        }
+
+        try (Journal journal = new Journal(directory, 1024 * 1024, true)) {
+            List<Journal.Entry> entries = journal.recover();
+            assertEquals(entries.size(), 2);
+            assertEquals(entries.get(0).getTag(), Tag.of("second"));
+            assertEquals(read(entries.get(0)), "Second");
+            assertEquals(read(entries.get(1)), "Third");
+
+            journal.fail(entries.get(0), "Failed");
+            journal.complete(entries.get(1), "identifier", null);
+        }
+
+        try (Journal journal = new Journal(directory, 1024 * 1024, true)) {
+            assertTrue(journal.recover().isEmpty());
+        }
+    }
+
+    @Test
+    public void interruptedWriteIsTruncated() throws Exception {
+        Path segment;
+        try (Journal journal = new Journal(directory, 1024 * 1024, false)) {
+            journal.recover();
+            journal.append(Tag.NONE, payload("Complete"));
+            journal.append(Tag.NONE, payload("Interrupted"));
+
+            try (Stream<Path> files = Files.list(directory)) {
+                segment = files.findFirst().orElseThrow(IllegalStateException::new);
+            }
+        }
+
+        long size = Files.size(segment);
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.WRITE)) {
+            channel.truncate(size - 3);
+        }
+
+        try (Journal journal = new Journal(directory, 1024 * 1024, false)) {
+            List<Journal.Entry> entries = journal.recover();
+            assertEquals(entries.size(), 1);
+            assertEquals(read(entries.get(0)), "Complete");
+
+            // Appending continues after the last complete record.
+            Journal.Entry entry = journal.append(Tag.NONE, payload("Appended"));
+            assertEquals(read(entry), "Appended");
+        }
+
+        try (Journal journal = new Journal(directory, 1024 * 1024, false)) {
+            assertEquals(journal.recover().stream().map(JournalTest::read).collect(Collectors.toList()),
+                    List.of("Complete", "Appended"));
+        }
+    }
+
+    @Test
+    public void incompleteEntryFollowedByRecordsIsSkipped() throws Exception {
+        Path segment;
+        try (Journal journal = new Journal(directory, 1024 * 1024, false)) {
+            journal.recover();
+            journal.append(Tag.NONE, payload("Incomplete"));
+            journal.append(Tag.NONE, payload("Complete"));
+
+            try (Stream<Path> files = Files.list(directory)) {
+                segment = files.findFirst().orElseThrow(IllegalStateException::new);
+            }
+        }
+
+        // Payload of the first entry is overwritten, as when its writer stopped while the second was written.
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.wrap(new byte[4]), 1 + 4 + Tag.NONE.getIdentifier().length() + 8);
+        }
+
+        try (Journal journal = new Journal(directory, 1024 * 1024, false)) {
+            assertEquals(journal.recover().stream().map(JournalTest::read).collect(Collectors.toList()),
+                    List.of("Complete"));
+        }
+    }
+
+    @Test(timeOut = 10000)
+    public void slowPayloadDoesNotBlockOtherWriters() throws Exception {
+        try (Journal journal = new Journal(directory, 1024 * 1024, true)) {
+            journal.recover();
+
+            CountDownLatch reading = new CountDownLatch(1);
+            CountDownLatch appended = new CountDownLatch(1);
+            InputStream slow = new SequenceInputStream(payload("Slow"), new InputStream() {
+                @Override
+                public int read() throws IOException {
+                    reading.countDown();
+                    try {
+                        appended.await();
+                    } catch (InterruptedException e) {
+                        throw new IOException(e);
+                    }
+                    return -1;
+                }
+            });
+
+            ExecutorService executor = Executors.newSingleThreadExecutor();
+            try {
+                Future<Journal.Entry> future = executor.submit(() -> journal.append(Tag.NONE, slow));
+                assertTrue(reading.await(5, TimeUnit.SECONDS));
+
+                Journal.Entry fast = journal.append(Tag.NONE, payload("Fast"));
+                appended.countDown();
+
+                assertEquals(read(future.get()), "Slow");
+                assertEquals(read(fast), "Fast");
+            } finally {
+                executor.shutdownNow();
+            }
+        }
+    }
+
+    @Test
+    public void finishedSegmentsAreDeleted() throws Exception {
+        try (Journal journal = new Journal(directory, 64, true)) {
+            journal.recover();
+
+            Journal.Entry first = journal.append(Tag.NONE, payload("First".repeat(20)));
+            Journal.Entry second = journal.append(Tag.NONE, payload("Second".repeat(20)));
+            assertEquals(journal.getSegments(), 2);
+
+            // The completion record starts a third segment, the segment of the entry is kept behind the first.
+            journal.complete(second, "identifier", null);
+            assertEquals(journal.getSegments(), 3);
+
+            journal.complete(first, "identifier", null);
+            assertEquals(journal.getSegments(), 1);
+            assertEquals(journal.getPending(), 0);
+        }
+
+        try (Journal journal = new Journal(directory, 64, true)) {
+            assertTrue(journal.recover().isEmpty());
+            assertEquals(journal.getSegments(), 1);
+        }
+    }
+
+    @Test
+    public void segmentsCompletingOlderEntriesAreKept() throws Exception {
+        try (Journal journal = new Journal(directory, 200, true)) {
+            journal.recover();
+
+            journal.append(Tag.NONE, payload("First".repeat(20)));
+            Journal.Entry second = journal.append(Tag.NONE, payload("Second".repeat(20)));
+            assertEquals(journal.getSegments(), 1);
+
+            // Completion of the second entry is written to a new segment.
+            journal.complete(second, "identifier", null);
+            assertEquals(journal.getSegments(), 2);
+
+            // The second segment holds no unfinished entries when it is full, but completes the second entry.
+            Journal.Entry third = journal.append(Tag.NONE, payload("Third".repeat(40)));
+            journal.complete(third, "identifier", null);
+            assertEquals(journal.getSegments(), 3);
+            assertEquals(journal.getPending(), 1);
+        }
+
+        try (Journal journal = new Journal(directory, 200, true)) {
+            List<Journal.Entry> entries = journal.recover();
+            assertEquals(entries.size(), 1);
+            assertEquals(read(entries.get(0)), "First".repeat(20));
+        }
+    }
+
+    private static InputStream payload(String value) {
+        return new ByteArrayInputStream(value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String read(Journal.Entry entry) {
+        try (InputStream inputStream = entry.openStream()) {
+            return new String(ByteStreams.toByteArray(inputStream), StandardCharsets.UTF_8);
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
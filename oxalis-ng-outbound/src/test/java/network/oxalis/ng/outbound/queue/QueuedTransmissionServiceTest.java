@@ -0,0 +1,186 @@
+package network.oxalis.ng.outbound.queue;
+
+import io.opentelemetry.api.OpenTelemetry;
+import io.opentelemetry.api.trace.Tracer;
+import network.oxalis.ng.api.lang.OxalisTransmissionException;
+import network.oxalis.ng.api.model.TransmissionIdentifier;
+import network.oxalis.ng.api.outbound.PayloadSource;
+import network.oxalis.ng.api.outbound.TransmissionMessage;
+import network.oxalis.ng.api.outbound.TransmissionResponse;
+import network.oxalis.ng.api.outbound.Transmitter;
+import network.oxalis.ng.api.tag.Tag;
+import network.oxalis.ng.outbound.transmission.CircuitOpenException;
+import network.oxalis.ng.outbound.transmission.RetryPolicy;
+import network.oxalis.ng.outbound.transmission.TransmissionRequestFactory;
+import org.apache.commons.io.FileUtils;
+import org.mockito.Mockito;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.io.ByteArrayInputStream;
+import java.net.ConnectException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.testng.Assert.*;
+
+public class QueuedTransmissionServiceTest {
+
+    private final Tracer tracer = OpenTelemetry.noop().getTracer("test");
+
+    private Path directory;
+
+    private TransmissionRequestFactory transmissionRequestFactory;
+
+    @BeforeMethod
+    public void setUp() throws Exception {
+        directory = Files.createTempDirectory("queue");
+
+        transmissionRequestFactory = Mockito.mock(TransmissionRequestFactory.class);
+        Mockito.when(transmissionRequestFactory.newInstance(any(PayloadSource.class), any(Tag.class)))
+                .thenReturn(Mockito.mock(TransmissionMessage.class));
+    }
+
+    @AfterMethod
+    public void tearDown() throws Exception {
+        FileUtils.deleteDirectory(directory.toFile());
+    }
+
+    @Test
+    public void sentThroughTransmitter() throws Exception {
+        TransmissionResponse response = Mockito.mock(TransmissionResponse.class);
+        Mockito.when(response.getTransmissionIdentifier()).thenReturn(TransmissionIdentifier.of("identifier"));
+
+        Transmitter transmitter = transmitter();
+        Mockito.when(transmitter.transmit(any())).thenReturn(response);
+
+        QueuedTransmissionService service = new QueuedTransmissionService(transmissionRequestFactory, transmitter,
+                tracer, Runnable::run, RetryPolicy.NONE, new Journal(directory, 1024 * 1024, true));
+
+        assertSame(service.send(new ByteArrayInputStream("Payload".getBytes(StandardCharsets.UTF_8)), Tag.NONE),
+                response);
+        assertEquals(service.getPending(), 0);
+    }
+
+    @Test
+    public void queueIsNotHeldDuringTransmission() throws Exception {
+        CompletableFuture<TransmissionResponse> transmission = new CompletableFuture<>();
+        Transmitter transmitter = transmitter();
+        Mockito.doReturn(transmission).when(transmitter).transmitAsync(any());
+
+        QueuedTransmissionService service = new QueuedTransmissionService(transmissionRequestFactory, transmitter,
+                tracer, Runnable::run, RetryPolicy.NONE, new Journal(directory, 1024 * 1024, true));
+
+        CompletableFuture<TransmissionResponse> future =
+                service.enqueue(new ByteArrayInputStream("Payload".getBytes(StandardCharsets.UTF_8)), Tag.NONE);
+        assertFalse(future.isDone());
+        assertEquals(service.getPending(), 1);
+
+        TransmissionResponse response = Mockito.mock(TransmissionResponse.class);
+        Mockito.when(response.getTransmissionIdentifier()).thenReturn(TransmissionIdentifier.of("identifier"));
+        transmission.complete(response);
+
+        assertSame(future.getNow(null), response);
+        assertEquals(service.getPending(), 0);
+        Mockito.verify(transmitter, Mockito.never()).transmit(any());
+    }
+
+    @Test
+    public void unfinishedMessagesAreReplayed() throws Exception {
+        // Messages are accepted, but the executor is stopped before they are sent.
+        List<Runnable> stopped = new ArrayList<>();
+        Transmitter transmitter = transmitter();
+        QueuedTransmissionService service = new QueuedTransmissionService(transmissionRequestFactory, transmitter,
+                tracer, stopped::add, RetryPolicy.NONE, new Journal(directory, 1024 * 1024, true));
+        service.enqueue(new ByteArrayInputStream("First".getBytes(StandardCharsets.UTF_8)), Tag.NONE);
+        service.enqueue(new ByteArrayInputStream("Second".getBytes(StandardCharsets.UTF_8)), Tag.NONE);
+        assertEquals(service.getPending(), 2);
+
+        Transmitter failing = transmitter();
+        Mockito.when(failing.transmit(any())).thenThrow(new OxalisTransmissionException("Failed"));
+
+        service = new QueuedTransmissionService(transmissionRequestFactory, failing,
+                tracer, Runnable::run, RetryPolicy.NONE, new Journal(directory, 1024 * 1024, true));
+        Mockito.verify(failing, Mockito.times(2)).transmit(any());
+        assertEquals(service.getPending(), 0);
+
+        Mockito.verifyNoInteractions(transmitter);
+    }
+
+    @Test
+    public void retryableFailuresStayPending() throws Exception {
+        TransmissionResponse response = Mockito.mock(TransmissionResponse.class);
+        Mockito.when(response.getTransmissionIdentifier()).thenReturn(TransmissionIdentifier.of("identifier"));
+
+        Transmitter transmitter = transmitter();
+        Mockito.when(transmitter.transmit(any()))
+                .thenThrow(new OxalisTransmissionException("Unavailable", new ConnectException("Connection refused")))
+                .thenReturn(response);
+
+        QueuedTransmissionService service = new QueuedTransmissionService(transmissionRequestFactory, transmitter,
+                tracer, Runnable::run, new RetryPolicy(3, 0, 0), new Journal(directory, 1024 * 1024, true));
+
+        CompletableFuture<TransmissionResponse> future =
+                service.enqueue(new ByteArrayInputStream("Payload".getBytes(StandardCharsets.UTF_8)), Tag.NONE);
+        assertSame(future.get(10, TimeUnit.SECONDS), response);
+        Mockito.verify(transmitter, Mockito.times(2)).transmit(any());
+        assertEquals(service.getPending(), 0);
+    }
+
+    @Test
+    public void openCircuitBreakerKeepsMessagesPending() throws Exception {
+        Transmitter transmitter = transmitter();
+        Mockito.when(transmitter.transmit(any()))
+                .thenThrow(new CircuitOpenException("https://ap.example.com/as4"));
+
+        QueuedTransmissionService service = new QueuedTransmissionService(transmissionRequestFactory, transmitter,
+                tracer, Runnable::run, new RetryPolicy(1, 60000, 60000), new Journal(directory, 1024 * 1024, true));
+
+        CompletableFuture<TransmissionResponse> future =
+                service.enqueue(new ByteArrayInputStream("Payload".getBytes(StandardCharsets.UTF_8)), Tag.NONE);
+        assertTrue(future.isCompletedExceptionally());
+        assertEquals(service.getPending(), 1);
+
+        // The message is sent again on startup, as it was not failed.
+        TransmissionResponse response = Mockito.mock(TransmissionResponse.class);
+        Mockito.when(response.getTransmissionIdentifier()).thenReturn(TransmissionIdentifier.of("identifier"));
+        Transmitter recovered = transmitter();
+        Mockito.when(recovered.transmit(any())).thenReturn(response);
+
+        service = new QueuedTransmissionService(transmissionRequestFactory, recovered,
+                tracer, Runnable::run, RetryPolicy.NONE, new Journal(directory, 1024 * 1024, true));
+        Mockito.verify(recovered).transmit(any());
+        assertEquals(service.getPending(), 0);
+    }
+
+    @Test
+    public void callerIsToldWhenAttemptsAreExhausted() throws Exception {
+        Transmitter transmitter = transmitter();
+        Mockito.when(transmitter.transmit(any()))
+                .thenThrow(new OxalisTransmissionException("Unavailable", new ConnectException("Connection refused")));
+
+        QueuedTransmissionService service = new QueuedTransmissionService(transmissionRequestFactory, transmitter,
+                tracer, Runnable::run, new RetryPolicy(1, 60000, 60000), new Journal(directory, 1024 * 1024, true));
+
+        CompletableFuture<TransmissionResponse> future =
+                service.enqueue(new ByteArrayInputStream("Payload".getBytes(StandardCharsets.UTF_8)), Tag.NONE);
+        assertTrue(future.isCompletedExceptionally());
+
+        // The message is kept for the next attempt.
+        assertEquals(service.getPending(), 1);
+    }
+
+    /**
+     * Transmitter sending asynchronously through {@link Transmitter#transmit}.
+     */
+    private static Transmitter transmitter() {
+        return Mockito.mock(Transmitter.class, Mockito.CALLS_REAL_METHODS);
+    }
+}
@@ -0,0 +1,132 @@
+package network.oxalis.ng.outbound.transmission;
+
+import network.oxalis.ng.api.lang.OxalisContentException;
+import network.oxalis.ng.api.lang.OxalisTransmissionException;
+import network.oxalis.ng.as4.lang.OxalisAs4TransmissionException;
+import network.oxalis.ng.as4.util.AS4ErrorCode;
+import org.testng.annotations.Test;
+
+import java.net.SocketTimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.testng.Assert.*;
+
+public class CircuitBreakersTest {
+
+    private static final String ENDPOINT = "https://ap.example.com/as4";
+
+    private final AtomicLong clock = new AtomicLong();
+
+    @Test
+    public void opensAfterConsecutiveFailures() throws Exception {
+        CircuitBreakers circuitBreakers = new CircuitBreakers(3, 60_000, clock::get);
+
+        for (int i = 0; i < 2; i++) {
+            circuitBreakers.acquire(ENDPOINT);
+            circuitBreakers.onFailure(ENDPOINT);
+        }
+        circuitBreakers.acquire(ENDPOINT);
+        circuitBreakers.onSuccess(ENDPOINT);
+        assertEquals(circuitBreakers.getState(ENDPOINT), CircuitBreakers.State.CLOSED);
+
+        for (int i = 0; i < 3; i++) {
+            circuitBreakers.acquire(ENDPOINT);
+            circuitBreakers.onFailure(ENDPOINT);
+        }
+        assertEquals(circuitBreakers.getState(ENDPOINT), CircuitBreakers.State.OPEN);
+        assertEquals(circuitBreakers.getOpened(), 1);
+
+        assertRejected(circuitBreakers);
+        assertEquals(circuitBreakers.getRejected(), 1);
+
+        // Other endpoints are not affected.
+        circuitBreakers.acquire("https://other.example.com/as4");
+    }
+
+    @Test
+    public void probeWhenHalfOpen() throws Exception {
+        CircuitBreakers circuitBreakers = new CircuitBreakers(1, 60_000, clock::get);
+
+        circuitBreakers.acquire(ENDPOINT);
+        circuitBreakers.onFailure(ENDPOINT);
+        assertRejected(circuitBreakers);
+
+        // A single probe is let through, and a failing probe opens the breaker again.
+        clock.addAndGet(60_000);
+        circuitBreakers.acquire(ENDPOINT);
+        assertEquals(circuitBreakers.getState(ENDPOINT), CircuitBreakers.State.HALF_OPEN);
+        assertRejected(circuitBreakers);
+        circuitBreakers.onFailure(ENDPOINT);
+        assertEquals(circuitBreakers.getState(ENDPOINT), CircuitBreakers.State.OPEN);
+        assertRejected(circuitBreakers);
+
+        clock.addAndGet(60_000);
+        circuitBreakers.acquire(ENDPOINT);
+        circuitBreakers.onSuccess(ENDPOINT);
+        assertEquals(circuitBreakers.getState(ENDPOINT), CircuitBreakers.State.CLOSED);
+        circuitBreakers.acquire(ENDPOINT);
+    }
+
+    @Test
+    public void failuresCountedRegardlessOfRetry() throws Exception {
+        CircuitBreakers circuitBreakers = new CircuitBreakers(2, 60_000, clock::get);
+
+        // Read timeouts are not retried, but the endpoint did not respond.
+        for (int i = 0; i < 2; i++) {
+            circuitBreakers.acquire(ENDPOINT);
+            circuitBreakers.onFailure(ENDPOINT,
+                    new OxalisTransmissionException("Failed", new SocketTimeoutException("Read timed out")));
+        }
+        assertEquals(circuitBreakers.getState(ENDPOINT), CircuitBreakers.State.OPEN);
+
+        // A rejected message shows the endpoint responded.
+        clock.addAndGet(60_000);
+        circuitBreakers.acquire(ENDPOINT);
+        circuitBreakers.onFailure(ENDPOINT, new OxalisAs4TransmissionException(
+                "Invalid", AS4ErrorCode.EBMS_0004, AS4ErrorCode.Severity.ERROR));
+        assertEquals(circuitBreakers.getState(ENDPOINT), CircuitBreakers.State.CLOSED);
+
+        // A local failure only ends the probe.
+        for (int i = 0; i < 2; i++) {
+            circuitBreakers.acquire(ENDPOINT);
+            circuitBreakers.onFailure(ENDPOINT, new OxalisAs4TransmissionException(
+                    "Unavailable", AS4ErrorCode.EBMS_0005, AS4ErrorCode.Severity.ERROR));
+        }
+        clock.addAndGet(60_000);
+        circuitBreakers.acquire(ENDPOINT);
+        circuitBreakers.onFailure(ENDPOINT, new IllegalStateException("Local"));
+        assertEquals(circuitBreakers.getState(ENDPOINT), CircuitBreakers.State.HALF_OPEN);
+        circuitBreakers.acquire(ENDPOINT);
+    }
+
+    @Test
+    public void classify() {
+        assertEquals(CircuitBreakers.classify(new OxalisTransmissionException("Failed",
+                new OxalisContentException("Invalid"))), CircuitBreakers.Outcome.RESPONSE);
+        assertEquals(CircuitBreakers.classify(new OxalisAs4TransmissionException("Failed to send message",
+                new OxalisAs4TransmissionException("Unavailable", AS4ErrorCode.EBMS_0005,
+                        AS4ErrorCode.Severity.ERROR))), CircuitBreakers.Outcome.FAILURE);
+        assertEquals(CircuitBreakers.classify(new OxalisTransmissionException("No sender")),
+                CircuitBreakers.Outcome.UNKNOWN);
+    }
+
+    @Test
+    public void disabled() throws Exception {
+        CircuitBreakers circuitBreakers = new CircuitBreakers(0, 60_000, clock::get);
+
+        for (int i = 0; i < 10; i++) {
+            circuitBreakers.acquire(ENDPOINT);
+            circuitBreakers.onFailure(ENDPOINT);
+        }
+        assertTrue(circuitBreakers.getStates().isEmpty());
+    }
+
+    private static void assertRejected(CircuitBreakers circuitBreakers) {
+        try {
+            circuitBreakers.acquire(ENDPOINT);
+            fail("Expected breaker to be open.");
+        } catch (OxalisTransmissionException e) {
+            assertTrue(e.getMessage().contains(ENDPOINT));
+        }
+    }
+}
@@ -27,7 +27,10 @@ import com.google.inject.name.Named;
 import io.opentelemetry.api.trace.Tracer;
 import network.oxalis.ng.api.lang.OxalisTransmissionException;
 import network.oxalis.ng.api.lookup.LookupService;
+import network.oxalis.ng.api.outbound.MessageSender;
+import network.oxalis.ng.api.outbound.PayloadSource;
 import network.oxalis.ng.api.outbound.TransmissionRequest;
+import network.oxalis.ng.api.outbound.TransmissionResponse;
 import network.oxalis.ng.api.outbound.Transmitter;
 import network.oxalis.ng.api.statistics.StatisticsService;
 import network.oxalis.ng.commons.error.SilentErrorTracker;
@@ -42,7 +45,18 @@ import org.testng.annotations.Guice;
 import org.testng.annotations.Test;
 
 import java.io.ByteArrayInputStream;
+import java.net.ConnectException;
 import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.security.cert.X509Certificate;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.testng.Assert.*;
 
 @Guice(modules = GuiceModuleLoader.class)
 public class DefaultTransmitterTest {
@@ -91,4 +105,48 @@ public class DefaultTransmitterTest {
                 new SilentErrorTracker());
         transmitter.transmit(transmissionRequest);
     }
+
+    @Test
+    public void retryReleasesSlot() throws Exception {
+        CountDownLatch failed = new CountDownLatch(1);
+        TransmissionResponse transmissionResponse = Mockito.mock(TransmissionResponse.class);
+        MessageSender messageSender = Mockito.mock(MessageSender.class);
+        Mockito.when(messageSender.send(Mockito.any(TransmissionRequest.class)))
+                .thenAnswer(invocation -> {
+                    failed.countDown();
+                    throw new OxalisTransmissionException("Unavailable", new ConnectException("Connection refused"));
+                })
+                .thenReturn(transmissionResponse);
+
+        MessageSenderFactory messageSenderFactory = Mockito.mock(MessageSenderFactory.class);
+        Mockito.when(messageSenderFactory.getMessageSender(Mockito.any(TransportProfile.class)))
+                .thenReturn(messageSender);
+
+        TransmissionRequest transmissionRequest = Mockito.mock(TransmissionRequest.class);
+        Mockito.when(transmissionRequest.getEndpoint()).thenReturn(Endpoint.of(TransportProfile.PEPPOL_AS4_2_0,
+                URI.create("http://localhost/"), Mockito.mock(X509Certificate.class)));
+        Mockito.when(transmissionRequest.getPayloadSource())
+                .thenReturn(Optional.of(PayloadSource.of("Payload".getBytes(StandardCharsets.UTF_8))));
+
+        ExecutorService executor = Executors.newCachedThreadPool();
+        try {
+            TransmissionScheduler scheduler = new TransmissionScheduler(executor, 1, 1);
+            Transmitter transmitter = new DefaultTransmitter(messageSenderFactory, statisticsService,
+                    new DefaultTransmissionVerifier(), lookupService, tracer,
+                    Mockito.mock(OxalisCertificateValidator.class), new SilentErrorTracker(), scheduler,
+                    new RetryPolicy(2, 2000, 2000), new CircuitBreakers(0, 0, System::currentTimeMillis));
+
+            CompletableFuture<TransmissionResponse> future = transmitter.transmitAsync(transmissionRequest);
+            assertTrue(failed.await(5, TimeUnit.SECONDS));
+
+            // The only slot is free while the retry waits.
+            assertEquals(scheduler.submit("http://localhost/", () -> "Other").get(1, TimeUnit.SECONDS), "Other");
+            assertFalse(future.isDone());
+
+            assertSame(future.get(10, TimeUnit.SECONDS), transmissionResponse);
+            Mockito.verify(messageSender, Mockito.times(2)).send(transmissionRequest);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
 }
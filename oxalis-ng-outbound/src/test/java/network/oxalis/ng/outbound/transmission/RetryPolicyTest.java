@@ -0,0 +1,72 @@
+package network.oxalis.ng.outbound.transmission;
+
+import network.oxalis.ng.api.lang.OxalisContentException;
+import network.oxalis.ng.api.lang.OxalisTransmissionException;
+import network.oxalis.ng.as4.lang.OxalisAs4TransmissionException;
+import network.oxalis.ng.as4.util.AS4ErrorCode;
+import org.apache.cxf.transport.http.HTTPException;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.net.ConnectException;
+import java.net.SocketTimeoutException;
+import java.net.URL;
+import java.net.UnknownHostException;
+
+import static org.testng.Assert.*;
+
+public class RetryPolicyTest {
+
+    private final RetryPolicy retryPolicy = new RetryPolicy(3, 1000, 5000);
+
+    @Test
+    public void classification() throws Exception {
+        assertTrue(retryPolicy.isRetryable(new OxalisAs4TransmissionException("Failed to send message",
+                new RuntimeException(new ConnectException("Connection refused")))));
+        assertTrue(retryPolicy.isRetryable(new OxalisAs4TransmissionException("Failed to send message",
+                new IOException("Could not send message", new UnknownHostException("unknown.example.com")))));
+        assertTrue(retryPolicy.isRetryable(new OxalisAs4TransmissionException("Failed to send message",
+                new HTTPException(503, "Service Unavailable", new URL("https://ap.example.com/as4")))));
+
+        // The receiving access point may have processed the message.
+        assertFalse(retryPolicy.isRetryable(new OxalisTransmissionException("Timeout",
+                new SocketTimeoutException("Read timed out"))));
+        assertFalse(retryPolicy.isRetryable(new OxalisAs4TransmissionException("Failed to send message",
+                new HTTPException(502, "Bad Gateway", new URL("https://ap.example.com/as4")))));
+
+        // Errors reported by the receiving access point.
+        assertTrue(retryPolicy.isRetryable(new OxalisAs4TransmissionException("Failed to send message",
+                new OxalisAs4TransmissionException("Delivery failed", AS4ErrorCode.EBMS_0202,
+                        AS4ErrorCode.Severity.ERROR))));
+        assertFalse(retryPolicy.isRetryable(new OxalisAs4TransmissionException("Failed to send message",
+                new OxalisAs4TransmissionException("Delivery failed", AS4ErrorCode.EBMS_0202,
+                        AS4ErrorCode.Severity.FAILURE))));
+        assertFalse(retryPolicy.isRetryable(new OxalisAs4TransmissionException("Failed to send message",
+                new OxalisAs4TransmissionException("Invalid header", AS4ErrorCode.EBMS_0009,
+                        AS4ErrorCode.Severity.ERROR))));
+
+        assertFalse(retryPolicy.isRetryable(new OxalisTransmissionException("Unable to read payload",
+                new OxalisContentException("Invalid content"))));
+        assertFalse(retryPolicy.isRetryable(new OxalisTransmissionException("Unknown")));
+
+        // Not sent while the circuit breaker is open.
+        assertTrue(retryPolicy.isRetryable(new CircuitOpenException("https://ap.example.com/as4")));
+    }
+
+    @Test
+    public void delay() {
+        for (int i = 0; i < 100; i++) {
+            long first = retryPolicy.getDelay(1);
+            assertTrue(first >= 500 && first <= 1000, String.valueOf(first));
+
+            long second = retryPolicy.getDelay(2);
+            assertTrue(second >= 1000 && second <= 2000, String.valueOf(second));
+
+            long capped = retryPolicy.getDelay(10);
+            assertTrue(capped >= 2500 && capped <= 5000, String.valueOf(capped));
+        }
+
+        assertEquals(RetryPolicy.NONE.getAttempts(), 1);
+        assertEquals(RetryPolicy.NONE.getDelay(1), 0);
+    }
+}
@@ -24,8 +24,13 @@ package network.oxalis.ng.outbound.transmission;
 
 import com.google.inject.Injector;
 import com.google.inject.util.Modules;
+import io.opentelemetry.api.OpenTelemetry;
+import network.oxalis.ng.api.header.HeaderParser;
 import network.oxalis.ng.api.lang.OxalisContentException;
 import network.oxalis.ng.api.outbound.TransmissionMessage;
+import network.oxalis.ng.api.tag.TagGenerator;
+import network.oxalis.ng.api.transformer.ContentDetector;
+import network.oxalis.ng.api.transformer.ContentWrapper;
 import network.oxalis.ng.commons.guice.GuiceModuleLoader;
 import network.oxalis.ng.test.lookup.MockLookupModule;
 import org.testng.Assert;
@@ -33,8 +38,10 @@ import org.testng.annotations.BeforeClass;
 import org.testng.annotations.Test;
 
 import jakarta.inject.Inject;
+import java.io.BufferedInputStream;
 import java.io.ByteArrayInputStream;
 import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
 
 public class TransmissionRequestFactoryMockTest {
 
@@ -61,8 +68,41 @@ public class TransmissionRequestFactoryMockTest {
         Assert.assertNotNull(transmissionMessage.getHeader());
     }
 
+    @Test
+    public void payloadReadableAfterStreamIsClosed() throws Exception {
+        MockLookupModule.resetService();
+
+        byte[] expected;
+        try (InputStream inputStream = getClass().getResourceAsStream("/peppol-bis-invoice-sbdh.xml")) {
+            expected = inputStream.readAllBytes();
+        }
+
+        TransmissionMessage transmissionMessage;
+        // Reading a closed buffered stream fails.
+        try (InputStream inputStream = new BufferedInputStream(new ByteArrayInputStream(expected))) {
+            transmissionMessage = transmissionRequestFactory.newInstance(inputStream);
+        }
+
+        try (InputStream payload = transmissionMessage.getPayload()) {
+            Assert.assertEquals(new String(payload.readAllBytes(), StandardCharsets.UTF_8),
+                    new String(expected, StandardCharsets.UTF_8));
+        }
+    }
+
     @Test(expectedExceptions = OxalisContentException.class)
     public void unrecognizedContent() throws Exception {
         transmissionRequestFactory.newInstance(new ByteArrayInputStream("Hello World!".getBytes()));
     }
+
+    @Test(expectedExceptions = OxalisContentException.class, expectedExceptionsMessageRegExp = "Peek limit .*")
+    public void peekLimitExceeded() throws Exception {
+        TransmissionRequestFactory factory = new TransmissionRequestFactory(
+                injector.getInstance(ContentDetector.class), injector.getInstance(ContentWrapper.class),
+                injector.getInstance(TagGenerator.class), injector.getInstance(HeaderParser.class),
+                OpenTelemetry.noop().getTracer("test"), 256);
+
+        try (InputStream inputStream = getClass().getResourceAsStream("/peppol-bis-invoice-sbdh.xml")) {
+            factory.newInstance(inputStream);
+        }
+    }
 }
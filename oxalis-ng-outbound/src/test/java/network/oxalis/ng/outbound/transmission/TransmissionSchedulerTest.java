@@ -0,0 +1,132 @@
+package network.oxalis.ng.outbound.transmission;
+
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.testng.Assert.*;
+
+public class TransmissionSchedulerTest {
+
+    private ExecutorService executor;
+
+    @BeforeMethod
+    public void setUp() {
+        executor = Executors.newCachedThreadPool();
+    }
+
+    @AfterMethod
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void limitPerDestination() throws Exception {
+        TransmissionScheduler scheduler = new TransmissionScheduler(executor, 10, 2);
+        CountDownLatch started = new CountDownLatch(2);
+        CountDownLatch latch = new CountDownLatch(1);
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger maxRunning = new AtomicInteger();
+
+        List<CompletableFuture<Integer>> futures = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            int n = i;
+            futures.add(scheduler.submit("https://ap.example.com/as4", () -> {
+                maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+                started.countDown();
+                latch.await();
+                running.decrementAndGet();
+                return n;
+            }));
+        }
+
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        assertEquals(scheduler.getInFlight(), 2);
+        assertEquals(scheduler.getQueued(), 3);
+
+        // Another destination is not held back by the first one.
+        assertEquals(scheduler.submit("https://other.example.com/as4", () -> -1).get(5, TimeUnit.SECONDS),
+                Integer.valueOf(-1));
+
+        latch.countDown();
+        for (int i = 0; i < 5; i++)
+            assertEquals(futures.get(i).get(5, TimeUnit.SECONDS), Integer.valueOf(i));
+
+        assertEquals(maxRunning.get(), 2);
+        assertEquals(scheduler.getInFlight(), 0);
+        assertEquals(scheduler.getQueued(), 0);
+    }
+
+    @Test
+    public void limitInTotal() throws Exception {
+        TransmissionScheduler scheduler = new TransmissionScheduler(executor, 3, 3);
+        CountDownLatch latch = new CountDownLatch(1);
+
+        List<CompletableFuture<Object>> futures = new ArrayList<>();
+        for (int i = 0; i < 6; i++) {
+            futures.add(scheduler.submit("https://ap" + i + ".example.com/as4", () -> {
+                latch.await();
+                return null;
+            }));
+        }
+
+        assertEquals(scheduler.getInFlight(), 3);
+        assertEquals(scheduler.getQueued(), 3);
+
+        latch.countDown();
+        CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).get(5, TimeUnit.SECONDS);
+
+        assertEquals(scheduler.getInFlight(), 0);
+    }
+
+    @Test
+    public void failureReleasesSlot() throws Exception {
+        TransmissionScheduler scheduler = new TransmissionScheduler(Runnable::run, 1, 1);
+
+        CompletableFuture<Object> failed = scheduler.submit("https://ap.example.com/as4", () -> {
+            throw new IllegalStateException("Failed");
+        });
+        try {
+            failed.get();
+            fail("Expected failure");
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof IllegalStateException);
+        }
+
+        assertEquals(scheduler.submit("https://ap.example.com/as4", () -> "sent").get(), "sent");
+        assertEquals(scheduler.getInFlight(), 0);
+    }
+
+    @Test
+    public void errorReleasesSlot() throws Exception {
+        TransmissionScheduler scheduler = new TransmissionScheduler(Runnable::run, 1, 1);
+
+        CompletableFuture<Object> failed = scheduler.submit("https://ap.example.com/as4", () -> {
+            throw new NoClassDefFoundError("Failed");
+        });
+        try {
+            failed.get();
+            fail("Expected failure");
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof NoClassDefFoundError);
+        }
+
+        assertEquals(scheduler.submit("https://ap.example.com/as4", () -> "sent").get(), "sent");
+        assertEquals(scheduler.getInFlight(), 0);
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void invalidLimit() {
+        new TransmissionScheduler(Runnable::run, 0, 1);
+    }
+}